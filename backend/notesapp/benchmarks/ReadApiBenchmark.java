@@ -0,0 +1,131 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load generator for read-api-benchmark.sh: each virtual thread repeatedly GETs one
+ * endpoint for the measured interval, then latency percentiles, throughput and the server's
+ * peak live thread count (from /actuator/metrics) are printed per endpoint.
+ *
+ * Usage: java ReadApiBenchmark.java baseUrl token concurrency seconds path...
+ */
+public class ReadApiBenchmark {
+    
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\":([0-9.]+)");
+    
+    public static void main(String[] args) throws Exception {
+        String base = args[0];
+        String token = args[1];
+        int concurrency = Integer.parseInt(args[2]);
+        int seconds = Integer.parseInt(args[3]);
+        
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        
+        System.out.printf("%-28s %6s %10s %9s %9s %9s %8s %13s%n",
+                "endpoint", "conc", "req/s", "p50 ms", "p99 ms", "max ms", "errors", "peak threads");
+        for (int i = 4; i < args.length; i++) {
+            String path = args[i];
+            run(client, base, token, path, concurrency, Math.max(2, seconds / 3), false);
+            run(client, base, token, path, concurrency, seconds, true);
+        }
+    }
+    
+    private static void run(HttpClient client, String base, String token, String path,
+                            int concurrency, int seconds, boolean report) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        AtomicInteger errors = new AtomicInteger();
+        List<long[]> perWorker = new ArrayList<>();
+        AtomicLong peakThreads = new AtomicLong();
+        
+        Thread sampler = Thread.ofVirtual().start(() -> {
+            while (System.nanoTime() < deadline) {
+                peakThreads.accumulateAndGet(liveThreads(client, base, token), Math::max);
+                sleep(250);
+            }
+        });
+        
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                long[] samples = new long[1 << 20];
+                perWorker.add(samples);
+                workers.submit(() -> {
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception ex) {
+                            errors.incrementAndGet();
+                        }
+                        if (n < samples.length - 1) {
+                            samples[++n] = System.nanoTime() - start;
+                        }
+                    }
+                    samples[0] = n;
+                });
+            }
+        }
+        sampler.join();
+        if (!report) {
+            return;
+        }
+        
+        long[] latencies = perWorker.stream()
+                .flatMapToLong(samples -> Arrays.stream(samples, 1, (int) samples[0] + 1))
+                .sorted()
+                .toArray();
+        System.out.printf("%-28s %6d %10.0f %9.1f %9.1f %9.1f %8d %13d%n",
+                path, concurrency, latencies.length / (double) seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0),
+                errors.get(), peakThreads.get());
+    }
+    
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+    
+    private static long liveThreads(HttpClient client, String base, String token) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base.replaceFirst("/api$", "") + "/actuator/metrics/jvm.threads.live"))
+                    .header("Authorization", "Bearer " + token)
+                    .build();
+            Matcher matcher = METRIC_VALUE.matcher(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+            return matcher.find() ? (long) Double.parseDouble(matcher.group(1)) : 0;
+        } catch (Exception ex) {
+            return 0;
+        }
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+#!/bin/bash
+# Uploads and downloads attachments of growing size against a server with a small heap, and
+# prints the transfer rate and the server's heap use after each size. With streaming both
+# should stay flat as the files grow.
+#
+# Build first:  ./mvnw -DskipTests package
+# Usage:        benchmarks/attachment-benchmark.sh [size MB...]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+SIZES=${*:-1 16 128 512}
+PORT=${PORT:-18082}
+HEAP=${HEAP:-96m}
+JAR=target/notesapp-0.0.1-SNAPSHOT.jar
+WORK_DIR=$(mktemp -d)
+BASE="http://localhost:$PORT/api"
+
+[ -f "$JAR" ] || { echo "Build the jar first" >&2; exit 1; }
+trap 'kill $PID 2>/dev/null || true; rm -rf "$WORK_DIR"' EXIT
+
+java -Xmx$HEAP -jar "$JAR" --server.port=$PORT \
+    --spring.datasource.url="jdbc:h2:file:$WORK_DIR/db" \
+    --app.attachments.dir="$WORK_DIR/attachments" \
+    --app.attachments.max-size-bytes=$((2048 * 1024 * 1024)) \
+    --spring.jpa.show-sql=false --logging.level.root=WARN --logging.level.org.springframework.security=WARN >/dev/null 2>&1 & PID=$!
+until curl -s -o /dev/null "$BASE/auth/login"; do sleep 0.2; done
+
+post() { curl -s -H 'Content-Type: application/json' ${3:+-H "Authorization: Bearer $3"} -d "$2" "$BASE$1"; }
+post /auth/register '{"username":"bench-kid","email":"bench-kid@example.com","password":"benchpass","role":"CHILD"}' >/dev/null
+TOKEN=$(post /auth/login '{"username":"bench-kid","password":"benchpass"}' | sed -E 's/.*"accessToken":"([^"]+)".*/\1/')
+NOTE_ID=$(post /notes '{"title":"Attachments","noteType":"REGULAR"}' "$TOKEN" | sed -E 's/.*"id":([0-9]+).*/\1/')
+heap_mb() {
+    curl -s -H "Authorization: Bearer $TOKEN" "http://localhost:$PORT/actuator/metrics/jvm.memory.used?tag=area:heap" \
+        | sed -E 's/.*"value":([0-9.E]+).*/\1/' | awk '{printf "%.0f", $1 / 1048576}'
+}
+
+printf "%8s %14s %16s %12s\n" "size MB" "upload MB/s" "download MB/s" "heap MB"
+for size in $SIZES; do
+    head -c $((size * 1024 * 1024)) /dev/urandom > "$WORK_DIR/file.bin"
+    upload=$(curl -s -o "$WORK_DIR/upload.json" -w '%{speed_upload}' -H "Authorization: Bearer $TOKEN" \
+        -H 'Content-Type: application/octet-stream' -X POST -T "$WORK_DIR/file.bin" \
+        "$BASE/notes/$NOTE_ID/attachments?filename=file-$size.bin")
+    id=$(sed -E 's/.*"id":([0-9]+).*/\1/' "$WORK_DIR/upload.json")
+    download=$(curl -s -o /dev/null -w '%{speed_download}' -H "Authorization: Bearer $TOKEN" \
+        "$BASE/notes/$NOTE_ID/attachments/$id")
+    awk -v size="$size" -v up="$upload" -v down="$download" -v heap="$(heap_mb)" \
+        'BEGIN { printf "%8s %14.0f %16.0f %12s\n", size, up / 1048576, down / 1048576, heap }'
+done
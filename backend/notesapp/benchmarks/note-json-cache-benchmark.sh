@@ -0,0 +1,59 @@
+#!/bin/bash
+# Repeatedly lists one child's notes as their parent (GET /api/notes/child/{id}) with the note
+# JSON cache on and off, and prints throughput, latency and the heap allocated during each run.
+# With the cache on, unchanged notes are neither mapped nor serialized again.
+#
+# Build first:  ./mvnw -DskipTests package
+# Usage:        benchmarks/note-json-cache-benchmark.sh [concurrency] [seconds]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+CONCURRENCY=${1:-32}
+SECONDS_PER_RUN=${2:-15}
+NOTES=${NOTES:-500}
+PORT=${PORT:-18083}
+JAR=target/notesapp-0.0.1-SNAPSHOT.jar
+DB_DIR=$(mktemp -d)
+BASE="http://localhost:$PORT/api"
+PID=
+
+[ -f "$JAR" ] || { echo "Build the jar first" >&2; exit 1; }
+trap 'kill $PID 2>/dev/null || true; rm -rf "$DB_DIR"' EXIT
+
+post() { curl -s -H 'Content-Type: application/json' ${3:+-H "Authorization: Bearer $3"} -d "$2" "$BASE$1"; }
+token() { post /auth/login "{\"username\":\"$1\",\"password\":\"benchpass\"}" | sed -E 's/.*"accessToken":"([^"]+)".*/\1/'; }
+allocated_mb() {
+    curl -s -H "Authorization: Bearer $1" "http://localhost:$PORT/actuator/metrics/jvm.gc.memory.allocated" \
+        | sed -E 's/.*"value":([0-9.E]+).*/\1/' | awk '{printf "%.0f", $1 / 1048576}'
+}
+
+start() {
+    java -jar "$JAR" --server.port=$PORT \
+        --spring.datasource.url="jdbc:h2:file:$DB_DIR/db" \
+        --app.cache.note-json.max-bytes=$1 \
+        --spring.jpa.show-sql=false --logging.level.root=WARN --logging.level.org.springframework.security=WARN >/dev/null 2>&1 & PID=$!
+    until curl -s -o /dev/null "$BASE/auth/login"; do sleep 0.2; done
+}
+
+start 0
+post /auth/register '{"username":"bench-parent","email":"bench-parent@example.com","password":"benchpass","role":"PARENT"}' >/dev/null
+post /auth/register '{"username":"bench-kid","email":"bench-kid@example.com","password":"benchpass","role":"CHILD"}' >/dev/null
+KID_TOKEN=$(token bench-kid)
+CONTENT=$(printf 'Benchmark note content %.0s' $(seq 20))
+for n in $(seq "$NOTES"); do
+    post /notes "{\"title\":\"Note $n\",\"content\":\"$CONTENT\",\"noteType\":\"REGULAR\",\"tags\":\"bench,notes\"}" "$KID_TOKEN" >/dev/null
+done
+post /auth/link-child '{"childUsername":"bench-kid"}' "$(token bench-parent)" >/dev/null
+kill $PID; wait $PID 2>/dev/null || true
+echo "Seeded $NOTES notes; $CONCURRENCY concurrent clients, ${SECONDS_PER_RUN}s per run"
+
+for max_bytes in 0 33554432; do
+    start $max_bytes
+    TOKEN=$(token bench-parent)
+    CHILD_ID=$(curl -s -H "Authorization: Bearer $TOKEN" "$BASE/auth/children" | sed -E 's/^\[\{"id":([0-9]+).*/\1/')
+    before=$(allocated_mb "$TOKEN")
+    echo "app.cache.note-json.max-bytes=$max_bytes"
+    java benchmarks/ReadApiBenchmark.java "$BASE" "$TOKEN" "$CONCURRENCY" "$SECONDS_PER_RUN" "/notes/child/$CHILD_ID"
+    echo "heap allocated: $(( $(allocated_mb "$TOKEN") - before )) MB"
+    kill $PID; wait $PID 2>/dev/null || true
+done
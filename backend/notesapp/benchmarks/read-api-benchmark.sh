@@ -0,0 +1,47 @@
+#!/bin/bash
+# Compares the servlet read endpoints with their reactive (/api/reactive) counterparts under
+# concurrent load: a parent with many linked children, spread over two shards, repeatedly
+# fetches all of their notes.
+#
+# Build first:  ./mvnw -DskipTests package
+# Usage:        benchmarks/read-api-benchmark.sh [concurrency] [seconds]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+CONCURRENCY=${1:-256}
+SECONDS_PER_RUN=${2:-15}
+CHILDREN=${CHILDREN:-20}
+NOTES_PER_CHILD=${NOTES_PER_CHILD:-25}
+PORT=${PORT:-18081}
+JAR=target/notesapp-0.0.1-SNAPSHOT.jar
+DB_DIR=$(mktemp -d)
+BASE="http://localhost:$PORT/api"
+
+[ -f "$JAR" ] || { echo "Build the jar first" >&2; exit 1; }
+trap 'kill $PID 2>/dev/null || true; rm -rf "$DB_DIR"' EXIT
+
+java -jar "$JAR" --server.port=$PORT \
+    --spring.datasource.url="jdbc:h2:file:$DB_DIR/shard0" \
+    --app.sharding.shard-urls="jdbc:h2:file:$DB_DIR/shard1" \
+    --server.tomcat.threads.max=${TOMCAT_THREADS:-200} \
+    --spring.jpa.show-sql=false --logging.level.root=WARN --logging.level.org.springframework.security=WARN >/dev/null 2>&1 & PID=$!
+until curl -s -o /dev/null "$BASE/auth/login"; do sleep 0.2; done
+
+post() { curl -s -H 'Content-Type: application/json' ${3:+-H "Authorization: Bearer $3"} -d "$2" "$BASE$1"; }
+token() { post /auth/login "{\"username\":\"$1\",\"password\":\"benchpass\"}" | sed -E 's/.*"accessToken":"([^"]+)".*/\1/'; }
+register() { post /auth/register "{\"username\":\"$1\",\"email\":\"$1@example.com\",\"password\":\"benchpass\",\"role\":\"$2\"}" >/dev/null; }
+
+register bench-parent PARENT
+PARENT_TOKEN=$(token bench-parent)
+for c in $(seq "$CHILDREN"); do
+    register "bench-kid-$c" CHILD
+    KID_TOKEN=$(token "bench-kid-$c")
+    for n in $(seq "$NOTES_PER_CHILD"); do
+        post /notes "{\"title\":\"Note $n\",\"content\":\"Benchmark note $n of child $c\",\"noteType\":\"REGULAR\",\"tags\":\"bench\"}" "$KID_TOKEN" >/dev/null
+    done
+    post /auth/link-child "{\"childUsername\":\"bench-kid-$c\"}" "$PARENT_TOKEN" >/dev/null
+done
+echo "Seeded $CHILDREN children x $NOTES_PER_CHILD notes; $CONCURRENCY concurrent clients, ${SECONDS_PER_RUN}s per endpoint"
+
+java benchmarks/ReadApiBenchmark.java "$BASE" "$PARENT_TOKEN" "$CONCURRENCY" "$SECONDS_PER_RUN" \
+    /notes/children /reactive/notes/children
@@ -0,0 +1,56 @@
+#!/bin/bash
+# Measures time from process launch to the first successful GET /api/notes,
+# comparing the plain jar against the fast-startup launcher.
+#
+# Build both first:  ./mvnw -Pfast-startup -DskipTests package
+# Usage:             benchmarks/startup-benchmark.sh [runs]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+JAR=target/notesapp-0.0.1-SNAPSHOT.jar
+LAUNCHER=target/fast-startup/run.sh
+DB_DIR=$(mktemp -d)
+DB_URL="jdbc:h2:file:$DB_DIR/bench"
+BASE="http://localhost:$PORT/api"
+APP_ARGS=(--server.port=$PORT --spring.datasource.url=$DB_URL)
+
+[ -f "$JAR" ] && [ -x "$LAUNCHER" ] || { echo "Build with -Pfast-startup first" >&2; exit 1; }
+trap 'kill $PID 2>/dev/null || true; rm -rf "$DB_DIR"' EXIT
+
+wait_for_notes() {
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' -H "Authorization: Bearer $TOKEN" "$BASE/notes")" = "200" ]; do
+        sleep 0.02
+    done
+}
+
+now_ms() { date +%s%3N; }
+
+# Seed a child account once so every measured run can authenticate immediately
+TOKEN=""
+java -jar "$JAR" "${APP_ARGS[@]}" >/dev/null 2>&1 & PID=$!
+until curl -s -o /dev/null "$BASE/auth/login"; do sleep 0.2; done
+curl -s -o /dev/null -H 'Content-Type: application/json' -d \
+    '{"username":"bench","email":"bench@example.com","password":"benchpass","role":"CHILD"}' "$BASE/auth/register"
+TOKEN=$(curl -s -H 'Content-Type: application/json' -d '{"username":"bench","password":"benchpass"}' \
+    "$BASE/auth/login" | sed -E 's/.*"accessToken":"([^"]+)".*/\1/')
+kill $PID; wait $PID 2>/dev/null || true
+
+measure() {
+    local label=$1; shift
+    local times=()
+    for _ in $(seq "$RUNS"); do
+        local start; start=$(now_ms)
+        "$@" "${APP_ARGS[@]}" >/dev/null 2>&1 & PID=$!
+        wait_for_notes
+        times+=($(( $(now_ms) - start )))
+        kill $PID; wait $PID 2>/dev/null || true
+    done
+    local sorted; sorted=$(printf '%s\n' "${times[@]}" | sort -n)
+    printf '%-14s runs=%s median=%sms min=%sms max=%sms\n' "$label" "$RUNS" \
+        "$(echo "$sorted" | sed -n "$(( (RUNS + 1) / 2 ))p")" "$(echo "$sorted" | head -1)" "$(echo "$sorted" | tail -1)"
+}
+
+measure "plain jar" java -jar "$JAR"
+measure "aot + cds" "$LAUNCHER"
@@ -0,0 +1,8 @@
+#!/bin/sh
+# Starts the AOT-processed application with the class-data-sharing archive
+# recorded during the fast-startup build. The archive is only valid for the
+# JDK that built it and for this exact jar layout, so keep the directory intact.
+DIR="$(cd "$(dirname "$0")" && pwd)"
+
+exec java -XX:SharedArchiveFile="$DIR/application.jsa" -Dspring.aot.enabled=true $JAVA_OPTS \
+    -jar "$DIR/@project.build.finalName@.jar" "$@"
@@ -2,8 +2,12 @@ package com.hissam.notesapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+// The reactive read API manages its own per-shard R2DBC pools, and a reactive transaction
+// manager bean would compete with the JPA one for @Transactional
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 public class NotesappApplication {
 
 	public static void main(String[] args) {
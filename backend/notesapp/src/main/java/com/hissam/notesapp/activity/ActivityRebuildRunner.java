@@ -0,0 +1,54 @@
+package com.hissam.notesapp.activity;
+
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.repository.ChildRepository;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Command-line rebuild of the activity rollups from the notes, for every child or one, e.g.
+ * {@code java -jar notesapp.jar --spring.main.web-application-type=none --rebuild-activity[=42]}
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActivityRebuildRunner implements ApplicationRunner {
+    
+    private final ActivityRollups activityRollups;
+    private final ChildRepository childRepository;
+    private final ShardTemplate shardTemplate;
+    private final ConfigurableApplicationContext context;
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption("rebuild-activity")) {
+            return;
+        }
+        List<String> values = args.getOptionValues("rebuild-activity");
+        List<Child> children = values.isEmpty()
+                ? childRepository.findAll()
+                : values.stream().map(Long::valueOf).map(childRepository::findById).flatMap(Optional::stream).toList();
+        
+        int failed = 0;
+        for (Child child : children) {
+            try {
+                int buckets = shardTemplate.write(child, () -> activityRollups.rebuild(child.getId()));
+                log.info("Rebuilt activity of child {}: {} buckets", child.getId(), buckets);
+            } catch (RuntimeException ex) {
+                failed++;
+                log.warn("Could not rebuild activity of child {}", child.getId(), ex);
+            }
+        }
+        log.info("Activity rebuild finished: {} children, {} failed", children.size(), failed);
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,160 @@
+package com.hissam.notesapp.activity;
+
+import com.hissam.notesapp.archive.NoteArchive;
+import com.hissam.notesapp.dto.ActivityBucketResponse;
+import com.hissam.notesapp.enums.ActivityGranularity;
+import com.hissam.notesapp.enums.ActivityMetric;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-child activity counts at every granularity in activity_rollups. Each change adds to the
+ * buckets holding its time, so reading a range costs one row per bucket. Must be called within a
+ * transaction on the child's shard.
+ */
+@Component
+@RequiredArgsConstructor
+public class ActivityRollups {
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final NoteArchive noteArchive;
+    
+    /**
+     * Adds delta to the metric's buckets holding the given time, at every granularity.
+     */
+    public void record(Long childId, ActivityMetric metric, LocalDateTime time, long delta) {
+        if (time == null) {
+            return;
+        }
+        String column = metric.column();
+        for (ActivityGranularity granularity : ActivityGranularity.values()) {
+            LocalDateTime bucketStart = granularity.bucketStart(time);
+            if (add(childId, granularity, bucketStart, column, delta) == 0) {
+                insert(childId, granularity, bucketStart, column, delta);
+            }
+        }
+    }
+    
+    /**
+     * Buckets starting from the one holding from up to, but excluding, to; buckets without
+     * activity are included with zero counts.
+     */
+    public List<ActivityBucketResponse> read(Long childId, ActivityGranularity granularity,
+                                             LocalDateTime from, LocalDateTime to) {
+        LocalDateTime first = granularity.bucketStart(from);
+        Map<LocalDateTime, ActivityBucketResponse> stored = new HashMap<>();
+        jdbcTemplate.query("SELECT bucket_start, notes_created, items_completed FROM activity_rollups "
+                        + "WHERE child_id = ? AND granularity = ? AND bucket_start >= ? AND bucket_start < ?",
+                (RowCallbackHandler) rs -> {
+                    LocalDateTime start = rs.getTimestamp("bucket_start").toLocalDateTime();
+                    stored.put(start, new ActivityBucketResponse(start, rs.getLong("notes_created"), rs.getLong("items_completed")));
+                },
+                childId, granularity.name(), first, to);
+        
+        List<ActivityBucketResponse> buckets = new ArrayList<>();
+        for (LocalDateTime start = first; start.isBefore(to); start = granularity.next(start)) {
+            ActivityBucketResponse bucket = stored.get(start);
+            buckets.add(bucket != null ? bucket : new ActivityBucketResponse(start, 0, 0));
+        }
+        return buckets;
+    }
+    
+    /**
+     * Recounts the child's buckets from the creation times of their notes, archived ones included,
+     * and the tick times of their checked items. Activity of notes and items deleted since is lost.
+     *
+     * @return the number of buckets written
+     */
+    public int rebuild(Long childId) {
+        Map<ActivityMetric, List<LocalDateTime>> times = new EnumMap<>(ActivityMetric.class);
+        times.put(ActivityMetric.NOTES_CREATED, new ArrayList<>(jdbcTemplate.queryForList(
+                "SELECT created_at FROM notes WHERE child_id = ?", LocalDateTime.class, childId)));
+        times.put(ActivityMetric.ITEMS_COMPLETED, new ArrayList<>(jdbcTemplate.queryForList(
+                "SELECT checked_at FROM checklist_items WHERE child_id = ? AND checked_at IS NOT NULL", LocalDateTime.class, childId)));
+        noteArchive.forEachPayload(childId, rows -> {
+            times.get(ActivityMetric.NOTES_CREATED).add(timestamp(rows.get("notes").get(0).get("created_at")));
+            rows.getOrDefault("checklist_items", List.of()).stream()
+                    .map(item -> timestamp(item.get("checked_at")))
+                    .forEach(times.get(ActivityMetric.ITEMS_COMPLETED)::add);
+        });
+        
+        Map<BucketKey, long[]> counts = new TreeMap<>();
+        times.forEach((metric, metricTimes) -> {
+            for (LocalDateTime time : metricTimes) {
+                if (time == null) {
+                    continue;
+                }
+                for (ActivityGranularity granularity : ActivityGranularity.values()) {
+                    counts.computeIfAbsent(new BucketKey(granularity, granularity.bucketStart(time)), key -> new long[2])
+                            [metric.ordinal()]++;
+                }
+            }
+        });
+        
+        jdbcTemplate.update("DELETE FROM activity_rollups WHERE child_id = ?", childId);
+        jdbcTemplate.batchUpdate("INSERT INTO activity_rollups (child_id, granularity, bucket_start, notes_created, items_completed) "
+                        + "VALUES (?, ?, ?, ?, ?)",
+                counts.entrySet().stream()
+                        .map(entry -> new Object[]{childId, entry.getKey().granularity.name(), Timestamp.valueOf(entry.getKey().start),
+                                entry.getValue()[ActivityMetric.NOTES_CREATED.ordinal()],
+                                entry.getValue()[ActivityMetric.ITEMS_COMPLETED.ordinal()]})
+                        .toList());
+        return counts.size();
+    }
+    
+    private int add(Long childId, ActivityGranularity granularity, LocalDateTime bucketStart, String column, long delta) {
+        return jdbcTemplate.update("UPDATE activity_rollups SET " + column + " = " + column + " + ? "
+                + "WHERE child_id = ? AND granularity = ? AND bucket_start = ?", delta, childId, granularity.name(), bucketStart);
+    }
+    
+    // The first change in a bucket creates its row. A concurrent first change may win the insert;
+    // the savepoint keeps the transaction usable (PostgreSQL aborts it on a failed statement) to add instead.
+    private void insert(Long childId, ActivityGranularity granularity, LocalDateTime bucketStart, String column, long delta) {
+        Connection connection = DataSourceUtils.getConnection(jdbcTemplate.getDataSource());
+        try {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                jdbcTemplate.update("INSERT INTO activity_rollups (child_id, granularity, bucket_start, " + column + ") "
+                        + "VALUES (?, ?, ?, ?)", childId, granularity.name(), bucketStart, delta);
+                connection.releaseSavepoint(savepoint);
+            } catch (DuplicateKeyException ex) {
+                connection.rollback(savepoint);
+                add(childId, granularity, bucketStart, column, delta);
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not record activity", ex);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, jdbcTemplate.getDataSource());
+        }
+    }
+    
+    // Archived rows hold their timestamps as ISO strings
+    private static LocalDateTime timestamp(Object value) {
+        return value != null ? LocalDateTime.parse(value.toString()) : null;
+    }
+    
+    private record BucketKey(ActivityGranularity granularity, LocalDateTime start) implements Comparable<BucketKey> {
+        
+        @Override
+        public int compareTo(BucketKey other) {
+            int byGranularity = granularity.compareTo(other.granularity);
+            return byGranularity != 0 ? byGranularity : start.compareTo(other.start);
+        }
+    }
+}
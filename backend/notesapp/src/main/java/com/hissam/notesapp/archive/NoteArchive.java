@@ -0,0 +1,244 @@
+package com.hissam.notesapp.archive;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.enums.NoteType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold tier of notes, next to the hot notes table on each shard. Archiving moves the note's row,
+ * checklist items and revisions into one gzipped JSON payload in notes_archive; restoring inserts
+ * them again with their ids. Must be called within a transaction on the child's shard.
+ * <p>
+ * Payloads hold the columns listed in {@link #TABLES} and carry the version of that layout, so a
+ * note archived before a column was added or dropped still restores: columns the payload lacks
+ * take their default, and columns no longer listed are ignored.
+ */
+@Component
+@RequiredArgsConstructor
+public class NoteArchive {
+    
+    // Layout of the payloads written; payloads without a version predate it and hold the same tables
+    static final int PAYLOAD_VERSION = 1;
+    
+    // Tables holding an archived note, in insert order (the note before its dependents), with the
+    // columns kept of each and the value of a column a payload lacks
+    private static final List<NoteTable> TABLES = List.of(
+            new NoteTable("notes", "id = ?", "id", List.of(
+                    Column.of("id"), Column.of("title"), Column.of("content"), Column.of("note_type"),
+                    Column.of("child_id"), Column.of("folder_id"), Column.of("tags"), Column.of("completed", false),
+                    Column.timestamp("created_at"), Column.timestamp("updated_at"), Column.of("pinned", false),
+                    Column.of("rank_key", "i"), Column.of("checklist_total", 0), Column.of("checklist_checked", 0))),
+            new NoteTable("checklist_items", "note_id = ?", "id", List.of(
+                    Column.of("id"), Column.of("note_id"), Column.of("child_id"), Column.of("content"),
+                    Column.of("checked", false), Column.of("position"), Column.timestamp("created_at"),
+                    Column.timestamp("checked_at"))),
+            new NoteTable("note_revisions", "note_id = ?", "id", List.of(
+                    Column.of("id"), Column.of("note_id"), Column.of("child_id"), Column.of("revision"),
+                    Column.of("snapshot"), Column.of("title"), Column.of("body"), Column.of("content_length"),
+                    Column.of("stored_bytes"), Column.timestamp("created_at"))));
+    
+    private static final String VERSION = "version";
+    
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {
+    };
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * Moves the note out of the hot table. The caller must hold a lock on its row.
+     */
+    public void archive(Long noteId) {
+        Map<String, List<Map<String, Object>>> rows = new LinkedHashMap<>();
+        for (NoteTable table : TABLES) {
+            rows.put(table.name, table.select(jdbcTemplate, noteId));
+        }
+        Map<String, Object> note = rows.get("notes").get(0);
+        jdbcTemplate.update("INSERT INTO notes_archive (id, child_id, folder_id, updated_at, archived_at, payload) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)",
+                noteId, note.get("child_id"), note.get("folder_id"), timestamp(note.get("updated_at")),
+                LocalDateTime.now(), compress(rows));
+        // Checklist items and revisions go with the note through ON DELETE CASCADE
+        jdbcTemplate.update("DELETE FROM notes WHERE id = ?", noteId);
+    }
+    
+    /**
+     * Puts the archived note of the child back into the hot table.
+     *
+     * @return the restored note, or empty if the child has no such archived note
+     */
+    public Optional<NoteResponse> restore(Long noteId, Long childId) {
+        List<byte[]> payloads = jdbcTemplate.query("SELECT payload FROM notes_archive WHERE id = ? AND child_id = ? FOR UPDATE",
+                (rs, rowNum) -> rs.getBytes("payload"), noteId, childId);
+        if (payloads.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, List<Map<String, Object>>> rows = decompress(payloads.get(0));
+        for (NoteTable table : TABLES) {
+            table.insert(jdbcTemplate, rows.get(table.name));
+        }
+        jdbcTemplate.update("DELETE FROM notes_archive WHERE id = ?", noteId);
+        return Optional.of(toResponse(rows.get("notes").get(0), false));
+    }
+    
+    // Most recently updated first
+    public List<NoteResponse> findByChildId(Long childId) {
+        return jdbcTemplate.query("SELECT payload FROM notes_archive WHERE child_id = ? ORDER BY updated_at DESC, id DESC",
+                (rs, rowNum) -> toResponse(decompress(rs.getBytes("payload")).get("notes").get(0), true), childId);
+    }
+    
+    /**
+     * Hands the archived rows of each of the child's archived notes, keyed by table, to the action.
+     */
+    public void forEachPayload(Long childId, Consumer<Map<String, List<Map<String, Object>>>> action) {
+        jdbcTemplate.query("SELECT payload FROM notes_archive WHERE child_id = ?",
+                (RowCallbackHandler) rs -> action.accept(decompress(rs.getBytes("payload"))), childId);
+    }
+    
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notes_archive", Long.class);
+        return count != null ? count : 0;
+    }
+    
+    private byte[] compress(Map<String, List<Map<String, Object>>> rows) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put(VERSION, PAYLOAD_VERSION);
+        payload.putAll(rows);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, payload);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not compress archived note", ex);
+        }
+        return bytes.toByteArray();
+    }
+    
+    // The rows of each table, with exactly the columns listed for it
+    @SuppressWarnings("unchecked")
+    private Map<String, List<Map<String, Object>>> decompress(byte[] payload) {
+        Map<String, Object> tables;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            tables = objectMapper.readValue(in, PAYLOAD_TYPE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read archived note", ex);
+        }
+        int version = tables.get(VERSION) instanceof Number number ? number.intValue() : 0;
+        if (version > PAYLOAD_VERSION) {
+            throw new IllegalStateException("Archived note has payload version " + version
+                    + ", newer than the supported " + PAYLOAD_VERSION);
+        }
+        Map<String, List<Map<String, Object>>> rows = new LinkedHashMap<>();
+        for (NoteTable table : TABLES) {
+            List<Map<String, Object>> tableRows = (List<Map<String, Object>>) tables.getOrDefault(table.name, List.of());
+            rows.put(table.name, tableRows.stream().map(table::complete).toList());
+        }
+        return rows;
+    }
+    
+    private static NoteResponse toResponse(Map<String, Object> note, boolean archived) {
+        return NoteResponse.builder()
+                .id(number(note.get("id")))
+                .title((String) note.get("title"))
+                .content((String) note.get("content"))
+                .noteType(note.get("note_type") != null ? NoteType.valueOf((String) note.get("note_type")) : null)
+                .childId(number(note.get("child_id")))
+                .folderId(number(note.get("folder_id")))
+                .tags((String) note.get("tags"))
+                .completed((Boolean) note.get("completed"))
+                .pinned((Boolean) note.get("pinned"))
+                .checklistTotal(((Number) note.get("checklist_total")).intValue())
+                .checklistChecked(((Number) note.get("checklist_checked")).intValue())
+                .createdAt(timestamp(note.get("created_at")))
+                .updatedAt(timestamp(note.get("updated_at")))
+                .archived(archived)
+                .build();
+    }
+    
+    private static Long number(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+    
+    private static LocalDateTime timestamp(Object value) {
+        return value != null ? LocalDateTime.parse(value.toString()) : null;
+    }
+    
+    private record Column(String name, Object defaultValue, boolean timestamp) {
+        
+        static Column of(String name) {
+            return new Column(name, null, false);
+        }
+        
+        static Column of(String name, Object defaultValue) {
+            return new Column(name, defaultValue, false);
+        }
+        
+        static Column timestamp(String name) {
+            return new Column(name, null, true);
+        }
+    }
+    
+    private record NoteTable(String name, String noteFilter, String orderBy, List<Column> columns) {
+        
+        // Timestamps are written as ISO strings, so the payload reads the same on every database
+        List<Map<String, Object>> select(JdbcTemplate jdbcTemplate, Long noteId) {
+            String sql = "SELECT " + String.join(", ", columns.stream().map(Column::name).toList())
+                    + " FROM " + name + " WHERE " + noteFilter + " ORDER BY " + orderBy;
+            return jdbcTemplate.query(sql, (rs, rowNum) -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 0; i < columns.size(); i++) {
+                    Column column = columns.get(i);
+                    if (column.timestamp) {
+                        LocalDateTime value = rs.getObject(i + 1, LocalDateTime.class);
+                        row.put(column.name, value != null ? value.toString() : null);
+                    } else {
+                        row.put(column.name, JdbcUtils.getResultSetValue(rs, i + 1));
+                    }
+                }
+                return row;
+            }, noteId);
+        }
+        
+        // The row with the listed columns only, the ones it lacks set to their default
+        Map<String, Object> complete(Map<String, Object> archived) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (Column column : columns) {
+                row.put(column.name, archived.containsKey(column.name) ? archived.get(column.name) : column.defaultValue);
+            }
+            return row;
+        }
+        
+        void insert(JdbcTemplate jdbcTemplate, List<Map<String, Object>> rows) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            String sql = "INSERT INTO " + name + " (" + String.join(", ", columns.stream().map(Column::name).toList())
+                    + ") VALUES (" + String.join(", ", columns.stream().map(column -> "?").toList()) + ")";
+            jdbcTemplate.batchUpdate(sql, rows.stream()
+                    .map(row -> columns.stream()
+                            .map(column -> column.timestamp ? timestamp(row.get(column.name)) : row.get(column.name))
+                            .toArray())
+                    .toList());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.hissam.notesapp.archive;
+
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.enums.OutboxAggregateType;
+import com.hissam.notesapp.enums.OutboxEventType;
+import com.hissam.notesapp.outbox.OutboxWriter;
+import com.hissam.notesapp.repository.ChildRepository;
+import com.hissam.notesapp.repository.NoteRepository;
+import com.hissam.notesapp.sharding.ShardRoutingDataSource;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Moves notes that are done and have not been touched for a while from the hot notes table to the
+ * {@link NoteArchive} on every shard, a batch at a time. Each run logs the hot table size and, for
+ * the child with the most archivable notes in the first batch, the time to list their notes,
+ * before and after.
+ */
+@Slf4j
+@Component
+public class NoteArchiver {
+    
+    private final NoteRepository noteRepository;
+    private final ChildRepository childRepository;
+    private final NoteArchive noteArchive;
+    private final OutboxWriter outboxWriter;
+    private final ShardTemplate shardTemplate;
+    private final ShardRoutingDataSource shardRoutingDataSource;
+    private final Counter archivedCounter;
+    private final AtomicLong hotNotes = new AtomicLong();
+    private final AtomicLong archivedNotes = new AtomicLong();
+    
+    @Value("${app.archive.min-age-days:180}")
+    private int minAgeDays;
+    
+    @Value("${app.archive.inactive-days:90}")
+    private int inactiveDays;
+    
+    @Value("${app.archive.batch-size:200}")
+    private int batchSize;
+    
+    public NoteArchiver(NoteRepository noteRepository, ChildRepository childRepository, NoteArchive noteArchive,
+                        OutboxWriter outboxWriter, ShardTemplate shardTemplate,
+                        ShardRoutingDataSource shardRoutingDataSource, MeterRegistry meterRegistry) {
+        this.noteRepository = noteRepository;
+        this.childRepository = childRepository;
+        this.noteArchive = noteArchive;
+        this.outboxWriter = outboxWriter;
+        this.shardTemplate = shardTemplate;
+        this.shardRoutingDataSource = shardRoutingDataSource;
+        archivedCounter = Counter.builder("notesapp.archive.archived").register(meterRegistry);
+        // Totals over all shards as of the last run
+        Gauge.builder("notesapp.archive.notes", hotNotes, AtomicLong::get).tag("tier", "hot").register(meterRegistry);
+        Gauge.builder("notesapp.archive.notes", archivedNotes, AtomicLong::get).tag("tier", "archived").register(meterRegistry);
+    }
+    
+    /**
+     * @return the number of notes archived
+     */
+    @Scheduled(fixedDelayString = "${app.archive.interval-ms:3600000}",
+            initialDelayString = "${app.archive.interval-ms:3600000}")
+    public int archive() {
+        LocalDateTime createdBefore = LocalDateTime.now().minusDays(minAgeDays);
+        LocalDateTime inactiveSince = LocalDateTime.now().minusDays(inactiveDays);
+        int archived = 0;
+        long hot = 0;
+        long cold = 0;
+        for (int shardId : shardRoutingDataSource.getShardIds()) {
+            try {
+                archived += archiveShard(shardId, createdBefore, inactiveSince);
+                hot += shardTemplate.read(shardId, noteRepository::count);
+                cold += shardTemplate.read(shardId, noteArchive::count);
+            } catch (RuntimeException ex) {
+                log.warn("Archiving notes failed on shard {}", shardId, ex);
+            }
+        }
+        hotNotes.set(hot);
+        archivedNotes.set(cold);
+        return archived;
+    }
+    
+    private int archiveShard(int shardId, LocalDateTime createdBefore, LocalDateTime inactiveSince) {
+        long hotBefore = shardTemplate.read(shardId, noteRepository::count);
+        Map<Long, Integer> archivedPerChild = new HashMap<>();
+        // Only one child's listing is timed, the one with the most archivable notes in the first batch
+        Long timedChildId = null;
+        long listingMillisBefore = 0;
+        long afterId = 0;
+        List<NoteRepository.ArchivableNote> batch;
+        do {
+            long from = afterId;
+            batch = shardTemplate.read(shardId,
+                    () -> noteRepository.findArchivable(from, createdBefore, inactiveSince, Limit.of(batchSize)));
+            if (batch.isEmpty()) {
+                break;
+            }
+            // Children live on the primary; ones being moved, or no longer on this shard, are left for the next run
+            Map<Long, Child> children = childRepository.findAllById(batch.stream()
+                            .map(NoteRepository.ArchivableNote::getChildId)
+                            .distinct()
+                            .toList())
+                    .stream()
+                    .collect(Collectors.toMap(Child::getId, Function.identity()));
+            List<NoteRepository.ArchivableNote> eligible = batch.stream()
+                    .filter(note -> {
+                        Child child = children.get(note.getChildId());
+                        return child != null && child.getShardId() == shardId && !Boolean.TRUE.equals(child.getShardMoving());
+                    })
+                    .toList();
+            if (timedChildId == null && !eligible.isEmpty()) {
+                timedChildId = eligible.stream()
+                        .collect(Collectors.groupingBy(NoteRepository.ArchivableNote::getChildId, Collectors.counting()))
+                        .entrySet().stream()
+                        .max(Map.Entry.comparingByValue())
+                        .orElseThrow()
+                        .getKey();
+                listingMillisBefore = listingMillis(shardId, timedChildId);
+            }
+            for (NoteRepository.ArchivableNote note : eligible) {
+                if (archiveNote(children.get(note.getChildId()), note.getId(), createdBefore, inactiveSince)) {
+                    archivedPerChild.merge(note.getChildId(), 1, Integer::sum);
+                }
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        } while (batch.size() == batchSize);
+        
+        int archived = archivedPerChild.values().stream().mapToInt(Integer::intValue).sum();
+        if (archived > 0) {
+            log.info("Archived {} notes on shard {}: hot notes {} -> {}, listing of child {} ({} archived) {} ms -> {} ms",
+                    archived, shardId, hotBefore, shardTemplate.read(shardId, noteRepository::count),
+                    timedChildId, archivedPerChild.getOrDefault(timedChildId, 0), listingMillisBefore,
+                    listingMillis(shardId, timedChildId));
+        }
+        return archived;
+    }
+    
+    private boolean archiveNote(Child child, Long noteId, LocalDateTime createdBefore, LocalDateTime inactiveSince) {
+        try {
+            return shardTemplate.write(child, () -> {
+                if (noteRepository.lockIfArchivable(noteId, createdBefore, inactiveSince).isEmpty()) {
+                    return false;
+                }
+                noteArchive.archive(noteId);
+                // Consumers of the outbox see the note leave the hot table like a deletion
+                outboxWriter.record(child.getId(), OutboxAggregateType.NOTE, noteId, OutboxEventType.DELETED, null);
+                archivedCounter.increment();
+                return true;
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Could not archive note {}", noteId, ex);
+            return false;
+        }
+    }
+    
+    private long listingMillis(int shardId, Long childId) {
+        long start = System.nanoTime();
+        shardTemplate.read(shardId, () -> noteRepository.findByChildId(childId));
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
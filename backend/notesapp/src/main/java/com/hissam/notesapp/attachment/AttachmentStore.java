@@ -0,0 +1,192 @@
+package com.hissam.notesapp.attachment;
+
+import com.hissam.notesapp.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Attachment bytes on local disk, one file per distinct SHA-256 under app.attachments.dir.
+ * Uploads pass through a fixed buffer into a temporary file while being hashed and are then
+ * moved into place, so memory use does not depend on the file size (metrics: notesapp.attachments.*).
+ */
+@Component
+public class AttachmentStore {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+    // Placing a file and deleting an unreferenced one must not interleave for the same hash
+    private static final int LOCK_STRIPES = 64;
+    
+    private final Path root;
+    private final Path incoming;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Counter storedBytes;
+    private final Counter deduplicated;
+    
+    @Value("${app.attachments.max-size-bytes:52428800}")
+    private long maxSizeBytes;
+    
+    public AttachmentStore(@Value("${app.attachments.dir:./data/attachments}") String dir,
+                           MeterRegistry meterRegistry) throws IOException {
+        root = Path.of(dir).toAbsolutePath().normalize();
+        incoming = root.resolve("incoming");
+        Files.createDirectories(incoming);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        storedBytes = Counter.builder("notesapp.attachments.stored-bytes").baseUnit("bytes").register(meterRegistry);
+        deduplicated = Counter.builder("notesapp.attachments.deduplicated").register(meterRegistry);
+    }
+    
+    public StoredFile store(InputStream content) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(incoming, "upload-", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxSizeBytes) {
+                        throw new RuntimeException("Attachments are limited to " + maxSizeBytes + " bytes");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            Path target = path(sha256);
+            synchronized (lock(sha256)) {
+                if (!touch(target)) {
+                    Files.createDirectories(target.getParent());
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    storedBytes.increment(size);
+                } else {
+                    deduplicated.increment();
+                }
+            }
+            return new StoredFile(sha256, size);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not store attachment", ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+    
+    public Resource open(String sha256) {
+        Path file = path(sha256);
+        if (!Files.isRegularFile(file)) {
+            throw new ResourceNotFoundException("Attachment content not found");
+        }
+        return new FileSystemResource(file);
+    }
+    
+    public long maxSizeBytes() {
+        return maxSizeBytes;
+    }
+    
+    /**
+     * Hashes of the stored files not used since the given time.
+     */
+    List<String> idleFiles(Instant idleSince) {
+        try (Stream<Path> files = Files.walk(root, 3)) {
+            return files.filter(file -> !file.startsWith(incoming))
+                    .filter(file -> SHA256.matcher(file.getFileName().toString()).matches())
+                    .filter(file -> lastModified(file).isBefore(idleSince))
+                    .map(file -> file.getFileName().toString())
+                    .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not list attachments", ex);
+        }
+    }
+    
+    /**
+     * Deletes the file unless an upload has used it since the given time.
+     */
+    boolean deleteIfIdle(String sha256, Instant idleSince) {
+        Path file = path(sha256);
+        synchronized (lock(sha256)) {
+            if (!Files.exists(file) || !lastModified(file).isBefore(idleSince)) {
+                return false;
+            }
+            deleteQuietly(file);
+            return true;
+        }
+    }
+    
+    // Uploads that never finished, e.g. because the node stopped mid-transfer
+    int deleteAbandonedUploads(Instant idleSince) {
+        try (Stream<Path> files = Files.list(incoming)) {
+            List<Path> abandoned = files.filter(file -> lastModified(file).isBefore(idleSince)).toList();
+            abandoned.forEach(AttachmentStore::deleteQuietly);
+            return abandoned.size();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not list incoming attachments", ex);
+        }
+    }
+    
+    private Path path(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+    
+    private Object lock(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), LOCK_STRIPES)];
+    }
+    
+    // Marks an existing file as in use, so the sweeper leaves it alone while its row is written
+    private static boolean touch(Path file) throws IOException {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException ex) {
+            return false;
+        }
+    }
+    
+    private static Instant lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant();
+        } catch (IOException ex) {
+            return Instant.now();
+        }
+    }
+    
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Left for the next sweep
+            }
+        }
+    }
+    
+    public record StoredFile(String sha256, long sizeBytes) {
+    }
+}
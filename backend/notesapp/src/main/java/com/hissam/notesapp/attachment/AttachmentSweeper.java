@@ -0,0 +1,70 @@
+package com.hissam.notesapp.attachment;
+
+import com.hissam.notesapp.repository.AttachmentRepository;
+import com.hissam.notesapp.sharding.ShardRoutingDataSource;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deletes stored files that no attachment on any shard refers to any more, e.g. after their
+ * notes were deleted. Files used by an upload within the grace period are left alone, so an
+ * upload whose row is not committed yet keeps its file.
+ */
+@Slf4j
+@Component
+public class AttachmentSweeper {
+    
+    private static final int BATCH_SIZE = 500;
+    
+    private final AttachmentStore attachmentStore;
+    private final AttachmentRepository attachmentRepository;
+    private final ShardTemplate shardTemplate;
+    private final ShardRoutingDataSource shardRoutingDataSource;
+    private final Counter deletedCounter;
+    
+    @Value("${app.attachments.sweep-grace-ms:3600000}")
+    private long graceMs;
+    
+    public AttachmentSweeper(AttachmentStore attachmentStore, AttachmentRepository attachmentRepository,
+                             ShardTemplate shardTemplate, ShardRoutingDataSource shardRoutingDataSource,
+                             MeterRegistry meterRegistry) {
+        this.attachmentStore = attachmentStore;
+        this.attachmentRepository = attachmentRepository;
+        this.shardTemplate = shardTemplate;
+        this.shardRoutingDataSource = shardRoutingDataSource;
+        deletedCounter = Counter.builder("notesapp.attachments.swept").register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.attachments.sweep-interval-ms:3600000}",
+            initialDelayString = "${app.attachments.sweep-interval-ms:3600000}")
+    public void sweep() {
+        Instant idleSince = Instant.now().minusMillis(graceMs);
+        try {
+            attachmentStore.deleteAbandonedUploads(idleSince);
+            List<String> idle = attachmentStore.idleFiles(idleSince);
+            for (int from = 0; from < idle.size(); from += BATCH_SIZE) {
+                List<String> batch = idle.subList(from, Math.min(from + BATCH_SIZE, idle.size()));
+                Set<String> referenced = new HashSet<>();
+                for (int shardId : shardRoutingDataSource.getShardIds()) {
+                    referenced.addAll(shardTemplate.read(shardId, () -> attachmentRepository.findReferencedHashes(batch)));
+                }
+                batch.stream()
+                        .filter(sha256 -> !referenced.contains(sha256))
+                        .filter(sha256 -> attachmentStore.deleteIfIdle(sha256, idleSince))
+                        .forEach(sha256 -> deletedCounter.increment());
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Attachment sweep failed", ex);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.hissam.notesapp.cache;
+
+import com.hissam.notesapp.entity.CacheInvalidation;
+import com.hissam.notesapp.repository.CacheInvalidationRepository;
+import com.hissam.notesapp.sharding.ShardRoutingDataSource;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Broadcasts evictions of node-local cache entries to every node through the cache_invalidations
+ * tables. An invalidation is written within the transaction of the change, to the table of the
+ * database that transaction runs on, so it commits or rolls back with the change and survives a
+ * crash of the node right after; once the change commits it is also applied on this node. Every
+ * poll reads the invalidations of other nodes from the table of each shard, so a change reaches
+ * every node within about one poll interval. A node that could not poll for longer than the
+ * retention period clears its caches, as the rows it missed may be gone.
+ */
+@Slf4j
+@Component
+public class InvalidationBus {
+    
+    // Everything cached for a child, keyed by child id: its notes, folders and their listings
+    public static final String CHILD_REGION = "child";
+    // A single note's cached JSON, keyed by note id
+    public static final String NOTE_REGION = "note";
+    
+    private final CacheInvalidationRepository invalidationRepository;
+    private final ShardTemplate shardTemplate;
+    private final ShardRoutingDataSource shardRoutingDataSource;
+    private final ObjectProvider<InvalidationListener> listeners;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    @Value("${app.cache.invalidation.batch-size:500}")
+    private int batchSize;
+    
+    // Ids are allocated before commit, so a lower id can still appear after a higher one.
+    // A gap is waited for this long before it is treated as a rolled-back insert.
+    @Value("${app.cache.invalidation.gap-timeout-ms:5000}")
+    private long gapTimeoutMs;
+    
+    @Value("${app.cache.invalidation.retention-ms:600000}")
+    private long retentionMs;
+    
+    // How far the table of each shard has been read; empty until the first poll
+    private final Map<Integer, ShardCursor> cursors = new HashMap<>();
+    private long lastPollMillis;
+    
+    public InvalidationBus(CacheInvalidationRepository invalidationRepository, ShardTemplate shardTemplate,
+                           ShardRoutingDataSource shardRoutingDataSource,
+                           ObjectProvider<InvalidationListener> listeners, MeterRegistry meterRegistry) {
+        this.invalidationRepository = invalidationRepository;
+        this.shardTemplate = shardTemplate;
+        this.shardRoutingDataSource = shardRoutingDataSource;
+        this.listeners = listeners;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    /**
+     * Evicts the entry on every node once the transaction of the change commits. Must join that
+     * transaction; repeated invalidations of one entry in it are written as a single row.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String region, Object key) {
+        // Only the synchronizations of the current transaction are listed, not those of one it suspended
+        TransactionInvalidations invalidations = TransactionSynchronizationManager.getSynchronizations().stream()
+                .filter(TransactionInvalidations.class::isInstance)
+                .map(TransactionInvalidations.class::cast)
+                .findFirst()
+                .orElseGet(() -> {
+                    TransactionInvalidations registered = new TransactionInvalidations();
+                    TransactionSynchronizationManager.registerSynchronization(registered);
+                    return registered;
+                });
+        invalidations.published.add(new Invalidation(region, String.valueOf(key)));
+    }
+    
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.poll-interval-ms:200}",
+            initialDelayString = "${app.cache.invalidation.poll-interval-ms:200}")
+    public synchronized void poll() {
+        try {
+            receive();
+        } catch (RuntimeException ex) {
+            log.warn("Cache invalidation poll failed", ex);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.retention-ms:600000}",
+            initialDelayString = "${app.cache.invalidation.retention-ms:600000}")
+    public void deleteExpired() {
+        LocalDateTime before = LocalDateTime.now().minusNanos(retentionMs * 1_000_000);
+        for (int shardId : shardRoutingDataSource.getShardIds()) {
+            try {
+                shardTemplate.write(shardId, () -> invalidationRepository.deleteCreatedBefore(before));
+            } catch (RuntimeException ex) {
+                log.warn("Could not delete old cache invalidations on shard {}", shardId, ex);
+            }
+        }
+    }
+    
+    private void receive() {
+        long now = System.currentTimeMillis();
+        if (cursors.isEmpty() || now - lastPollMillis > retentionMs) {
+            if (!cursors.isEmpty()) {
+                log.warn("Cache invalidations not polled for {} ms, clearing local caches", now - lastPollMillis);
+                listeners.orderedStream().forEach(InvalidationListener::invalidateAll);
+            }
+            // Nothing is cached yet, or everything was just cleared
+            cursors.clear();
+            for (int shardId : shardRoutingDataSource.getShardIds()) {
+                // Read-write, so the position is taken from the shard's primary rather than a lagging replica
+                cursors.put(shardId, new ShardCursor(shardTemplate.write(shardId,
+                        () -> invalidationRepository.findLatestIdOnPrimary().orElse(0L))));
+            }
+            lastPollMillis = now;
+            return;
+        }
+        cursors.forEach((shardId, cursor) -> receive(shardId, cursor, now));
+        lastPollMillis = now;
+    }
+    
+    private void receive(int shardId, ShardCursor cursor, long now) {
+        boolean caughtUp = false;
+        long from = cursor.appliedUpTo;
+        while (!caughtUp) {
+            long after = from;
+            List<CacheInvalidation> batch = shardTemplate.write(shardId,
+                    () -> invalidationRepository.findAfterOnPrimary(after, PageRequest.of(0, batchSize)));
+            caughtUp = batch.size() < batchSize;
+            for (CacheInvalidation invalidation : batch) {
+                if (cursor.appliedPastGap.putIfAbsent(invalidation.getId(), now) == null
+                        && !nodeId.equals(invalidation.getOrigin())) {
+                    apply(invalidation.getRegion(), invalidation.getEntityKey());
+                    counter("received", invalidation.getRegion()).increment();
+                }
+                from = invalidation.getId();
+            }
+        }
+        
+        // Advance over what has been applied, and over gaps that stayed open past the timeout
+        while (!cursor.appliedPastGap.isEmpty()) {
+            Map.Entry<Long, Long> first = cursor.appliedPastGap.firstEntry();
+            if (first.getKey() != cursor.appliedUpTo + 1 && now - first.getValue() < gapTimeoutMs) {
+                break;
+            }
+            cursor.appliedUpTo = first.getKey();
+            cursor.appliedPastGap.pollFirstEntry();
+        }
+    }
+    
+    private void apply(String region, String key) {
+        listeners.orderedStream()
+                .filter(listener -> listener.region().equals(region))
+                .forEach(listener -> listener.invalidate(key));
+    }
+    
+    private Counter counter(String direction, String region) {
+        return Counter.builder("notesapp.cache.invalidations")
+                .tag("direction", direction)
+                .tag("region", region)
+                .register(meterRegistry);
+    }
+    
+    private record Invalidation(String region, String key) {
+    }
+    
+    private static final class ShardCursor {
+        // Every invalidation up to this id has been applied
+        private long appliedUpTo;
+        // Invalidations past a gap that were already applied, with the time they were first seen
+        private final TreeMap<Long, Long> appliedPastGap = new TreeMap<>();
+        
+        private ShardCursor(long appliedUpTo) {
+            this.appliedUpTo = appliedUpTo;
+        }
+    }
+    
+    // The invalidations published within one transaction: written just before it commits, applied after
+    private final class TransactionInvalidations implements TransactionSynchronization {
+        private final Set<Invalidation> published = new LinkedHashSet<>();
+        
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            invalidationRepository.saveAll(published.stream()
+                    .map(invalidation -> new CacheInvalidation(null, invalidation.region, invalidation.key, nodeId, null))
+                    .toList());
+        }
+        
+        @Override
+        public void afterCommit() {
+            for (Invalidation invalidation : published) {
+                apply(invalidation.region, invalidation.key);
+                counter("published", invalidation.region).increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.hissam.notesapp.cache;
+
+/**
+ * A node-local cache kept current by the {@link InvalidationBus}. Calls come from the thread
+ * that committed a change on this node or from the bus's poller for changes made elsewhere,
+ * and can repeat, so implementations must be thread-safe and idempotent.
+ */
+public interface InvalidationListener {
+    
+    // Region whose invalidations this listener receives, e.g. "users"
+    String region();
+    
+    void invalidate(String key);
+    
+    // Called when this node may have missed invalidations, e.g. after it could not poll for a while
+    void invalidateAll();
+}
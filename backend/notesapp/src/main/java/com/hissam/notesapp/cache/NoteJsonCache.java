@@ -0,0 +1,178 @@
+package com.hissam.notesapp.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.entity.Note;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The JSON of each listed note, kept as bytes so a repeated listing is assembled from them without
+ * mapping or serializing the unchanged notes again. A fragment is only used while the note's
+ * updated_at still matches, which every change of a listed field moves; the "note" region of the
+ * invalidation bus drops the fragments of changed and deleted notes on every node. At most
+ * {@code app.cache.note-json.max-bytes} are held, oldest fragments first out, on the heap or in
+ * direct buffers outside it.
+ */
+@Component
+public class NoteJsonCache implements InvalidationListener {
+    
+    private final ObjectWriter writer;
+    private final Counter hits;
+    private final Counter misses;
+    
+    // 0 turns the cache off
+    @Value("${app.cache.note-json.max-bytes:33554432}")
+    private long maxBytes;
+    
+    @Value("${app.cache.note-json.off-heap:false}")
+    private boolean offHeap;
+    
+    private final Map<Long, Fragment> fragments = new ConcurrentHashMap<>();
+    // Fragments in the order they were stored, including ones since replaced or dropped
+    private final Queue<Fragment> storeOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong storedBytes = new AtomicLong();
+    
+    public NoteJsonCache(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.writer = objectMapper.writerFor(NoteResponse.class);
+        this.hits = Counter.builder("notesapp.cache.note-json").tag("outcome", "hit").register(meterRegistry);
+        this.misses = Counter.builder("notesapp.cache.note-json").tag("outcome", "miss").register(meterRegistry);
+        Gauge.builder("notesapp.cache.note-json.bytes", storedBytes, AtomicLong::get).register(meterRegistry);
+    }
+    
+    /**
+     * The listing of the notes in order, mapping and serializing only those without a current fragment.
+     */
+    public NoteJsonListing listing(List<Note> notes, Function<Note, NoteResponse> mapper) {
+        List<ByteBuffer> listed = new ArrayList<>(notes.size());
+        for (Note note : notes) {
+            Fragment fragment = fragments.get(note.getId());
+            if (fragment != null && fragment.updatedAt.equals(note.getUpdatedAt())) {
+                hits.increment();
+                listed.add(fragment.json);
+                continue;
+            }
+            misses.increment();
+            ByteBuffer json = serialize(mapper.apply(note));
+            store(new Fragment(note.getId(), note.getUpdatedAt(), json));
+            listed.add(json);
+        }
+        return new NoteJsonListing(listed);
+    }
+    
+    @Override
+    public String region() {
+        return InvalidationBus.NOTE_REGION;
+    }
+    
+    @Override
+    public void invalidate(String noteId) {
+        Fragment removed = fragments.remove(Long.valueOf(noteId));
+        if (removed != null) {
+            release(removed);
+        }
+    }
+    
+    @Override
+    public void invalidateAll() {
+        fragments.keySet().forEach(noteId -> invalidate(String.valueOf(noteId)));
+    }
+    
+    private ByteBuffer serialize(NoteResponse response) {
+        byte[] bytes;
+        try {
+            bytes = writer.writeValueAsBytes(response);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize note " + response.getId(), ex);
+        }
+        if (!offHeap) {
+            return ByteBuffer.wrap(bytes);
+        }
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        return direct.asReadOnlyBuffer();
+    }
+    
+    private void store(Fragment fragment) {
+        // Fragments without an updated_at cannot be told apart from later versions
+        if (fragment.updatedAt == null || fragment.size() > maxBytes) {
+            return;
+        }
+        Fragment replaced = fragments.put(fragment.noteId, fragment);
+        if (replaced != null) {
+            release(replaced);
+        }
+        storedBytes.addAndGet(fragment.size());
+        storeOrder.add(fragment);
+        queued.incrementAndGet();
+        
+        while (storedBytes.get() > maxBytes) {
+            Fragment oldest = storeOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            queued.decrementAndGet();
+            if (fragments.remove(oldest.noteId, oldest)) {
+                release(oldest);
+            }
+        }
+        if (queued.get() > 2 * fragments.size() + 1024) {
+            dropReplaced();
+        }
+    }
+    
+    // Notes changing while they stay cached leave their old fragments in the queue
+    private synchronized void dropReplaced() {
+        for (int i = queued.get(); i > 0; i--) {
+            Fragment fragment = storeOrder.poll();
+            if (fragment == null) {
+                break;
+            }
+            if (fragments.get(fragment.noteId) == fragment) {
+                storeOrder.add(fragment);
+            } else {
+                queued.decrementAndGet();
+            }
+        }
+    }
+    
+    private void release(Fragment fragment) {
+        storedBytes.addAndGet(-fragment.size());
+    }
+    
+    // Compared by identity, so a fragment is only dropped while it is still the current one
+    private static final class Fragment {
+        
+        private final Long noteId;
+        private final LocalDateTime updatedAt;
+        private final ByteBuffer json;
+        
+        private Fragment(Long noteId, LocalDateTime updatedAt, ByteBuffer json) {
+            this.noteId = noteId;
+            this.updatedAt = updatedAt;
+            this.json = json;
+        }
+        
+        int size() {
+            return json.capacity();
+        }
+    }
+}
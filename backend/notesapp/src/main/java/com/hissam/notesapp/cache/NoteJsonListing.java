@@ -0,0 +1,58 @@
+package com.hissam.notesapp.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+/**
+ * A JSON array of notes made of serialized fragments, written out as they are. Fragments may be
+ * shared with other listings and the cache, so they are never modified.
+ */
+public final class NoteJsonListing {
+    
+    private final List<ByteBuffer> fragments;
+    
+    NoteJsonListing(List<ByteBuffer> fragments) {
+        this.fragments = fragments;
+    }
+    
+    public int size() {
+        return fragments.size();
+    }
+    
+    // Brackets, commas between the fragments and the fragments
+    public long contentLength() {
+        long length = 2 + Math.max(0, fragments.size() - 1);
+        for (ByteBuffer fragment : fragments) {
+            length += fragment.capacity();
+        }
+        return length;
+    }
+    
+    public void writeTo(OutputStream out) throws IOException {
+        WritableByteChannel channel = null;
+        out.write('[');
+        for (int i = 0; i < fragments.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            ByteBuffer fragment = fragments.get(i);
+            if (fragment.hasArray()) {
+                out.write(fragment.array(), fragment.arrayOffset(), fragment.capacity());
+            } else {
+                if (channel == null) {
+                    channel = Channels.newChannel(out);
+                }
+                // Direct buffers are read through a duplicate, so concurrent writers keep their own position
+                ByteBuffer view = fragment.duplicate().clear();
+                while (view.hasRemaining()) {
+                    channel.write(view);
+                }
+            }
+        }
+        out.write(']');
+    }
+}
@@ -0,0 +1,46 @@
+package com.hissam.notesapp.cache;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link NoteJsonListing} as the response body, ahead of the Jackson converter.
+ */
+@Component
+public class NoteJsonListingConverter extends AbstractHttpMessageConverter<NoteJsonListing> {
+    
+    public NoteJsonListingConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+    
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return NoteJsonListing.class.isAssignableFrom(clazz);
+    }
+    
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+    
+    @Override
+    protected NoteJsonListing readInternal(Class<? extends NoteJsonListing> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Note listings are only written", inputMessage);
+    }
+    
+    @Override
+    protected Long getContentLength(NoteJsonListing listing, MediaType contentType) {
+        return listing.contentLength();
+    }
+    
+    @Override
+    protected void writeInternal(NoteJsonListing listing, HttpOutputMessage outputMessage) throws IOException {
+        listing.writeTo(outputMessage.getBody());
+    }
+}
@@ -0,0 +1,115 @@
+package com.hissam.notesapp.coalescing;
+
+import com.hissam.notesapp.cache.InvalidationBus;
+import com.hissam.notesapp.cache.InvalidationListener;
+import com.hissam.notesapp.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical reads of a child's notes or folders share one query: a read that
+ * arrives while the same read of the same child is running waits for that result instead of
+ * querying again. Nothing is kept once the query finishes. A committed write of the child, on this
+ * or another node, detaches its running reads, so reads arriving after the write start a fresh
+ * query that sees it.
+ * Shared results must not be modified by the callers.
+ */
+@Component
+public class ReadCoalescer implements InvalidationListener {
+    
+    private final ReplicaRoutingDataSource replicaRoutingDataSource;
+    private final MeterRegistry meterRegistry;
+    
+    private final Map<ReadKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, ReadMeters> meters = new ConcurrentHashMap<>();
+    
+    public ReadCoalescer(ReplicaRoutingDataSource replicaRoutingDataSource, MeterRegistry meterRegistry) {
+        this.replicaRoutingDataSource = replicaRoutingDataSource;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    /**
+     * @param read names the read for the metrics, e.g. "notes"
+     * @param parameters everything besides the child that the result depends on; must implement equals
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read(String read, Long childId, Object parameters, Supplier<T> query) {
+        // A user reading their own recent writes is routed to the primary, so must not join a replica read
+        ReadKey key = new ReadKey(read, childId, parameters, replicaRoutingDataSource.readsOwnWrites());
+        ReadMeters readMeters = meters.computeIfAbsent(read, this::register);
+        
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            readMeters.shared.increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+        
+        readMeters.executed.increment();
+        try {
+            T result = query.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+    
+    @Override
+    public String region() {
+        return InvalidationBus.CHILD_REGION;
+    }
+    
+    @Override
+    public void invalidate(String childId) {
+        Long id = Long.valueOf(childId);
+        inFlight.keySet().removeIf(key -> key.childId.equals(id));
+    }
+    
+    @Override
+    public void invalidateAll() {
+        inFlight.clear();
+    }
+    
+    private ReadMeters register(String read) {
+        Counter executed = Counter.builder("notesapp.reads.coalesced").tag("read", read).tag("outcome", "executed")
+                .register(meterRegistry);
+        Counter shared = Counter.builder("notesapp.reads.coalesced").tag("read", read).tag("outcome", "shared")
+                .register(meterRegistry);
+        ReadMeters readMeters = new ReadMeters(executed, shared);
+        // Share of reads answered by another read's query
+        Gauge.builder("notesapp.reads.dedupe-ratio", readMeters, ReadMeters::dedupeRatio)
+                .tag("read", read)
+                .register(meterRegistry);
+        return readMeters;
+    }
+    
+    private record ReadKey(String read, Long childId, Object parameters, boolean ownWrites) {
+    }
+    
+    private record ReadMeters(Counter executed, Counter shared) {
+        
+        double dedupeRatio() {
+            double total = executed.count() + shared.count();
+            return total == 0 ? 0 : shared.count() / total;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.hissam.notesapp.config;
+
+import com.hissam.notesapp.datasource.ReplicaRoutingDataSource;
+import com.hissam.notesapp.sharding.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+public class DataSourceConfig {
+    
+    @Value("${app.datasource.replica-urls:}")
+    private String replicaUrls;
+    
+    @Value("${app.datasource.replica-username:}")
+    private String replicaUsername;
+    
+    @Value("${app.datasource.replica-password:}")
+    private String replicaPassword;
+    
+    @Value("${app.datasource.replica-connection-timeout-ms:2000}")
+    private long replicaConnectionTimeoutMs;
+    
+    @Value("${app.datasource.read-your-writes-window-ms:5000}")
+    private long readYourWritesWindowMs;
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+    
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             MeterRegistry meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        if (StringUtils.hasText(replicaUrls)) {
+            String[] urls = replicaUrls.split(",");
+            for (int i = 0; i < urls.length; i++) {
+                // Replica pools mirror the primary's pool settings
+                HikariConfig config = new HikariConfig();
+                primaryDataSource.copyStateTo(config);
+                config.setJdbcUrl(urls[i].trim());
+                config.setUsername(replicaUsername);
+                config.setPassword(replicaPassword);
+                config.setPoolName("replica-" + (i + 1));
+                config.setReadOnly(true);
+                // Fail fast so a dead replica falls back to the primary instead of stalling requests
+                config.setConnectionTimeout(replicaConnectionTimeoutMs);
+                config.setInitializationFailTimeout(-1);
+                replicas.put(config.getPoolName(), new HikariDataSource(config));
+            }
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWritesWindowMs, meterRegistry);
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+}
@@ -0,0 +1,29 @@
+package com.hissam.notesapp.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * The port the actuator is served on when management.server.port moves it off the application
+ * port, so that security rules can tell its requests apart.
+ */
+@Component
+public class ManagementPort implements ApplicationListener<WebServerInitializedEvent> {
+    
+    private static final String MANAGEMENT_NAMESPACE = "management";
+    
+    private volatile int port = -1;
+    
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        if (MANAGEMENT_NAMESPACE.equals(event.getApplicationContext().getServerNamespace())) {
+            port = event.getWebServer().getPort();
+        }
+    }
+    
+    public boolean matches(HttpServletRequest request) {
+        return port != -1 && request.getLocalPort() == port;
+    }
+}
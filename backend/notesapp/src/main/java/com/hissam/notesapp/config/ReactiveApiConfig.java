@@ -0,0 +1,40 @@
+package com.hissam.notesapp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hissam.notesapp.reactive.ReactiveReadHandler;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ServletHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+/**
+ * Mounts the reactive read API under /api/reactive on the same servlet container as the MVC
+ * controllers. The adapter uses non-blocking servlet I/O, so a streamed response holds no
+ * request thread while it waits on the database or a slow client, and the existing security
+ * filter chain and CORS setup apply unchanged.
+ */
+@Configuration
+public class ReactiveApiConfig {
+    
+    public static final String PATH = "/api/reactive";
+    
+    @Bean
+    public ServletRegistrationBean<ServletHttpHandlerAdapter> reactiveApiServlet(ReactiveReadHandler handler,
+                                                                                 ObjectMapper objectMapper) {
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper)))
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(handler.routes(), strategies);
+        
+        ServletRegistrationBean<ServletHttpHandlerAdapter> registration =
+                new ServletRegistrationBean<>(new ServletHttpHandlerAdapter(httpHandler), PATH + "/*");
+        registration.setName("reactiveApi");
+        registration.setAsyncSupported(true);
+        registration.setLoadOnStartup(1);
+        return registration;
+    }
+}
@@ -26,6 +26,7 @@ public class SecurityConfig {
     private final UserDetailsService userDetailsService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final CorsConfigurationSource corsConfigurationSource;
+    private final ManagementPort managementPort;
     
     @Bean
     public PasswordEncoder passwordEncoder() {
@@ -48,6 +49,10 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                // Metrics and timings are for operators: only on the management port, which is not exposed publicly
+                .requestMatchers(managementPort::matches).permitAll()
+                .requestMatchers("/actuator/**").denyAll()
                 .anyRequest().authenticated())
             .userDetailsService(userDetailsService)
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
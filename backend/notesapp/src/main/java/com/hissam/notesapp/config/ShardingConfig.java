@@ -0,0 +1,65 @@
+package com.hissam.notesapp.config;
+
+import com.hissam.notesapp.datasource.ReplicaRoutingDataSource;
+import com.hissam.notesapp.sharding.ShardContext;
+import com.hissam.notesapp.sharding.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class ShardingConfig {
+    
+    @Value("${app.sharding.shard-urls:}")
+    private String shardUrls;
+    
+    @Value("${app.sharding.shard-username:}")
+    private String shardUsername;
+    
+    @Value("${app.sharding.shard-password:}")
+    private String shardPassword;
+    
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(HikariDataSource primaryDataSource,
+                                                         ReplicaRoutingDataSource replicaRoutingDataSource) {
+        Map<Integer, DataSource> shards = new HashMap<>();
+        shards.put(ShardContext.DEFAULT_SHARD, replicaRoutingDataSource);
+        
+        if (StringUtils.hasText(shardUrls)) {
+            String[] urls = shardUrls.split(",");
+            for (int i = 0; i < urls.length; i++) {
+                int shardId = i + 1;
+                String url = urls[i].trim();
+                HikariConfig config = new HikariConfig();
+                primaryDataSource.copyStateTo(config);
+                config.setJdbcUrl(url);
+                config.setUsername(shardUsername);
+                config.setPassword(shardPassword);
+                config.setPoolName("shard-" + shardId);
+                HikariDataSource shard = new HikariDataSource(config);
+                migrateShard(shard, url, shardId);
+                shards.put(shardId, shard);
+            }
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+    
+    private static void migrateShard(DataSource shard, String url, int shardId) {
+        String vendor = DatabaseDriver.fromJdbcUrl(url).getId();
+        Flyway.configure()
+                .dataSource(shard)
+                .locations("classpath:db/migration/" + vendor, "classpath:db/shard/" + vendor)
+                .placeholders(Map.of("idStart", String.valueOf(shardId * ShardRoutingDataSource.ID_RANGE)))
+                .load()
+                .migrate();
+    }
+}
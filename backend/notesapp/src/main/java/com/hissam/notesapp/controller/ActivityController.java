@@ -0,0 +1,34 @@
+package com.hissam.notesapp.controller;
+
+import com.hissam.notesapp.dto.ActivityBucketResponse;
+import com.hissam.notesapp.enums.ActivityGranularity;
+import com.hissam.notesapp.service.ActivityService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/parent/activity")
+@RequiredArgsConstructor
+public class ActivityController {
+    
+    private final ActivityService activityService;
+    
+    @GetMapping
+    public ResponseEntity<List<ActivityBucketResponse>> getActivity(
+            Authentication authentication,
+            @RequestParam Long childId,
+            @RequestParam(defaultValue = "DAY") ActivityGranularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(activityService.getActivity(authentication.getName(), childId, granularity, from, to));
+    }
+}
@@ -0,0 +1,104 @@
+package com.hissam.notesapp.controller;
+
+import com.hissam.notesapp.dto.AttachmentResponse;
+import com.hissam.notesapp.service.AttachmentService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/notes")
+@RequiredArgsConstructor
+public class AttachmentController {
+    
+    // Shown in the browser; anything else (including SVG and HTML) is always downloaded
+    private static final Set<String> INLINE_TYPES = Set.of(
+            "image/png", "image/jpeg", "image/gif", "image/webp", "application/pdf");
+    
+    private final AttachmentService attachmentService;
+    
+    /**
+     * The request body is the file itself (not multipart), read straight to disk.
+     */
+    @PostMapping("/{noteId}/attachments")
+    public ResponseEntity<AttachmentResponse> upload(
+            Authentication authentication,
+            @PathVariable Long noteId,
+            @RequestParam String filename,
+            HttpServletRequest request) throws IOException {
+        AttachmentResponse response = attachmentService.upload(authentication.getName(), noteId, filename,
+                request.getContentType(), request.getContentLengthLong(), request.getInputStream());
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+    
+    @GetMapping("/{noteId}/attachments")
+    public ResponseEntity<List<AttachmentResponse>> getAttachments(
+            Authentication authentication,
+            @PathVariable Long noteId) {
+        return ResponseEntity.ok(attachmentService.getAttachments(authentication.getName(), noteId));
+    }
+    
+    @GetMapping("/{noteId}/attachments/{attachmentId}")
+    public ResponseEntity<Resource> download(
+            Authentication authentication,
+            @PathVariable Long noteId,
+            @PathVariable Long attachmentId) {
+        return toResponse(attachmentService.download(authentication.getName(), noteId, attachmentId));
+    }
+    
+    @DeleteMapping("/{noteId}/attachments/{attachmentId}")
+    public ResponseEntity<Void> deleteAttachment(
+            Authentication authentication,
+            @PathVariable Long noteId,
+            @PathVariable Long attachmentId) {
+        attachmentService.deleteAttachment(authentication.getName(), noteId, attachmentId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @GetMapping("/child/{childId}/{noteId}/attachments")
+    public ResponseEntity<List<AttachmentResponse>> getChildAttachments(
+            Authentication authentication,
+            @PathVariable Long childId,
+            @PathVariable Long noteId) {
+        return ResponseEntity.ok(attachmentService.getChildAttachments(authentication.getName(), childId, noteId));
+    }
+    
+    @GetMapping("/child/{childId}/{noteId}/attachments/{attachmentId}")
+    public ResponseEntity<Resource> downloadChildAttachment(
+            Authentication authentication,
+            @PathVariable Long childId,
+            @PathVariable Long noteId,
+            @PathVariable Long attachmentId) {
+        return toResponse(attachmentService.downloadChildAttachment(authentication.getName(), childId, noteId, attachmentId));
+    }
+    
+    // Returning the file as a Resource lets Spring answer Range and If-None-Match requests
+    private static ResponseEntity<Resource> toResponse(AttachmentService.Download download) {
+        AttachmentResponse attachment = download.attachment();
+        ContentDisposition disposition = (INLINE_TYPES.contains(attachment.getContentType())
+                ? ContentDisposition.inline()
+                : ContentDisposition.attachment())
+                .filename(attachment.getFilename(), StandardCharsets.UTF_8)
+                .build();
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(attachment.getContentType()))
+                .eTag(attachment.getSha256())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(download.content());
+    }
+}
@@ -40,6 +40,27 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
     
+    @DeleteMapping("/link-child/{childId}")
+    public ResponseEntity<Map<String, String>> unlinkChild(
+            Authentication authentication,
+            @PathVariable Long childId) {
+        authService.unlinkChild(authentication.getName(), childId);
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Child unlinked successfully");
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, String>> logout(
+            @RequestHeader(value = "Authorization", required = false) String authorization) {
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            authService.logout(authorization.substring(7));
+        }
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Logged out successfully");
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/me")
     public ResponseEntity<UserResponse> getCurrentUser(Authentication authentication) {
         UserResponse response = authService.getCurrentUser(authentication.getName());
@@ -0,0 +1,67 @@
+package com.hissam.notesapp.controller;
+
+import com.hissam.notesapp.dto.ChecklistItemMoveRequest;
+import com.hissam.notesapp.dto.ChecklistItemPatchRequest;
+import com.hissam.notesapp.dto.ChecklistItemRequest;
+import com.hissam.notesapp.dto.ChecklistItemResponse;
+import com.hissam.notesapp.service.ChecklistService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/notes/{noteId}/items")
+@RequiredArgsConstructor
+public class ChecklistController {
+    
+    private final ChecklistService checklistService;
+    
+    @GetMapping
+    public ResponseEntity<List<ChecklistItemResponse>> getItems(
+            Authentication authentication,
+            @PathVariable Long noteId) {
+        return ResponseEntity.ok(checklistService.getItems(authentication.getName(), noteId));
+    }
+    
+    @PostMapping
+    public ResponseEntity<ChecklistItemResponse> addItem(
+            Authentication authentication,
+            @PathVariable Long noteId,
+            @Valid @RequestBody ChecklistItemRequest request) {
+        ChecklistItemResponse response = checklistService.addItem(authentication.getName(), noteId, request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+    
+    @PatchMapping("/{itemId}")
+    public ResponseEntity<Void> updateItem(
+            Authentication authentication,
+            @PathVariable Long noteId,
+            @PathVariable Long itemId,
+            @Valid @RequestBody ChecklistItemPatchRequest request) {
+        checklistService.updateItem(authentication.getName(), noteId, itemId, request);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @PutMapping("/{itemId}/position")
+    public ResponseEntity<Void> moveItem(
+            Authentication authentication,
+            @PathVariable Long noteId,
+            @PathVariable Long itemId,
+            @RequestBody ChecklistItemMoveRequest request) {
+        checklistService.moveItem(authentication.getName(), noteId, itemId, request);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @DeleteMapping("/{itemId}")
+    public ResponseEntity<Void> deleteItem(
+            Authentication authentication,
+            @PathVariable Long noteId,
+            @PathVariable Long itemId) {
+        checklistService.deleteItem(authentication.getName(), noteId, itemId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,7 +1,9 @@
 package com.hissam.notesapp.controller;
 
+import com.hissam.notesapp.dto.FolderMoveRequest;
 import com.hissam.notesapp.dto.FolderRequest;
 import com.hissam.notesapp.dto.FolderResponse;
+import com.hissam.notesapp.idempotency.IdempotencyStore;
 import com.hissam.notesapp.service.FolderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +21,7 @@ import java.util.Map;
 public class FolderController {
     
     private final FolderService folderService;
+    private final IdempotencyStore idempotencyStore;
     
     @GetMapping
     public ResponseEntity<List<FolderResponse>> getUserFolders(Authentication authentication) {
@@ -29,9 +32,13 @@ public class FolderController {
     @PostMapping
     public ResponseEntity<FolderResponse> createFolder(
             Authentication authentication,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody FolderRequest request) {
-        FolderResponse response = folderService.createFolder(authentication.getName(), request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        return idempotencyStore.execute(authentication.getName(), "POST /api/folders", idempotencyKey, request,
+                FolderResponse.class, () -> {
+                    FolderResponse response = folderService.createFolder(authentication.getName(), request);
+                    return ResponseEntity.status(HttpStatus.CREATED).body(response);
+                });
     }
     
     @PutMapping("/{folderId}")
@@ -43,6 +50,15 @@ public class FolderController {
         return ResponseEntity.ok(response);
     }
     
+    @PutMapping("/{folderId}/parent")
+    public ResponseEntity<FolderResponse> moveFolder(
+            Authentication authentication,
+            @PathVariable Long folderId,
+            @RequestBody FolderMoveRequest request) {
+        FolderResponse response = folderService.moveFolder(authentication.getName(), folderId, request);
+        return ResponseEntity.ok(response);
+    }
+    
     @DeleteMapping("/{folderId}")
     public ResponseEntity<Map<String, String>> deleteFolder(
             Authentication authentication,
@@ -52,4 +68,4 @@ public class FolderController {
         response.put("message", "Folder deleted successfully");
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+}
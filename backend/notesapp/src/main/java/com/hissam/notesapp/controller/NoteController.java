@@ -1,7 +1,14 @@
 package com.hissam.notesapp.controller;
 
+import com.hissam.notesapp.cache.NoteJsonListing;
+import com.hissam.notesapp.dto.NoteMoveRequest;
+import com.hissam.notesapp.dto.NotePatchRequest;
+import com.hissam.notesapp.dto.NoteQuery;
 import com.hissam.notesapp.dto.NoteRequest;
 import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.SuggestionResponse;
+import com.hissam.notesapp.enums.SuggestionField;
+import com.hissam.notesapp.idempotency.IdempotencyStore;
 import com.hissam.notesapp.service.NoteService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -19,19 +26,28 @@ import java.util.Map;
 public class NoteController {
     
     private final NoteService noteService;
+    private final IdempotencyStore idempotencyStore;
     
     @GetMapping
-    public ResponseEntity<List<NoteResponse>> getUserNotes(Authentication authentication) {
-        List<NoteResponse> notes = noteService.getUserNotes(authentication.getName());
-        return ResponseEntity.ok(notes);
+    public ResponseEntity<?> getUserNotes(
+            Authentication authentication,
+            @ModelAttribute NoteQuery query) {
+        if (query.isEmpty()) {
+            return ResponseEntity.ok(noteService.getUserNotesListing(authentication.getName()));
+        }
+        return ResponseEntity.ok(noteService.findNotes(authentication.getName(), query));
     }
     
     @PostMapping
     public ResponseEntity<NoteResponse> createNote(
             Authentication authentication,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody NoteRequest request) {
-        NoteResponse response = noteService.createNote(authentication.getName(), request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        return idempotencyStore.execute(authentication.getName(), "POST /api/notes", idempotencyKey, request,
+                NoteResponse.class, () -> {
+                    NoteResponse response = noteService.createNote(authentication.getName(), request);
+                    return ResponseEntity.status(HttpStatus.CREATED).body(response);
+                });
     }
     
     @PutMapping("/{noteId}")
@@ -43,6 +59,32 @@ public class NoteController {
         return ResponseEntity.ok(response);
     }
     
+    @PatchMapping("/{noteId}")
+    public ResponseEntity<Void> patchNote(
+            Authentication authentication,
+            @PathVariable Long noteId,
+            @Valid @RequestBody NotePatchRequest request) {
+        boolean applied = noteService.patchNote(authentication.getName(), noteId, request);
+        return applied ? ResponseEntity.noContent().build() : ResponseEntity.accepted().build();
+    }
+    
+    @PutMapping("/{noteId}/position")
+    public ResponseEntity<Void> moveNote(
+            Authentication authentication,
+            @PathVariable Long noteId,
+            @RequestBody NoteMoveRequest request) {
+        noteService.moveNote(authentication.getName(), noteId, request);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @PostMapping("/{noteId}/restore")
+    public ResponseEntity<NoteResponse> restoreNote(
+            Authentication authentication,
+            @PathVariable Long noteId) {
+        NoteResponse response = noteService.restoreNote(authentication.getName(), noteId);
+        return ResponseEntity.ok(response);
+    }
+    
     @DeleteMapping("/{noteId}")
     public ResponseEntity<Map<String, String>> deleteNote(
             Authentication authentication,
@@ -53,11 +95,25 @@ public class NoteController {
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggest(
+            Authentication authentication,
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "TITLE") SuggestionField field,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(noteService.suggest(authentication.getName(), prefix, field, limit));
+    }
+    
+    @GetMapping("/children")
+    public ResponseEntity<List<NoteResponse>> getLinkedChildrenNotes(Authentication authentication) {
+        List<NoteResponse> notes = noteService.getLinkedChildrenNotes(authentication.getName());
+        return ResponseEntity.ok(notes);
+    }
+    
     @GetMapping("/child/{childId}")
-    public ResponseEntity<List<NoteResponse>> getChildNotes(
+    public ResponseEntity<NoteJsonListing> getChildNotes(
             Authentication authentication,
             @PathVariable Long childId) {
-        List<NoteResponse> notes = noteService.getChildNotes(authentication.getName(), childId);
-        return ResponseEntity.ok(notes);
+        return ResponseEntity.ok(noteService.getChildNotesListing(authentication.getName(), childId));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.hissam.notesapp.controller;
+
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.NoteRevisionResponse;
+import com.hissam.notesapp.service.NoteRevisionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/notes")
+@RequiredArgsConstructor
+public class NoteRevisionController {
+    
+    private final NoteRevisionService revisionService;
+    
+    @GetMapping("/{noteId}/revisions")
+    public ResponseEntity<List<NoteRevisionResponse>> getRevisions(
+            Authentication authentication,
+            @PathVariable Long noteId) {
+        return ResponseEntity.ok(revisionService.getRevisions(authentication.getName(), noteId));
+    }
+    
+    @GetMapping("/{noteId}/revisions/{revision}")
+    public ResponseEntity<NoteRevisionResponse> getRevision(
+            Authentication authentication,
+            @PathVariable Long noteId,
+            @PathVariable int revision) {
+        return ResponseEntity.ok(revisionService.getRevision(authentication.getName(), noteId, revision));
+    }
+    
+    @PostMapping("/{noteId}/revisions/{revision}/restore")
+    public ResponseEntity<NoteResponse> restoreRevision(
+            Authentication authentication,
+            @PathVariable Long noteId,
+            @PathVariable int revision) {
+        return ResponseEntity.ok(revisionService.restoreRevision(authentication.getName(), noteId, revision));
+    }
+    
+    @GetMapping("/child/{childId}/{noteId}/revisions")
+    public ResponseEntity<List<NoteRevisionResponse>> getChildRevisions(
+            Authentication authentication,
+            @PathVariable Long childId,
+            @PathVariable Long noteId) {
+        return ResponseEntity.ok(revisionService.getChildRevisions(authentication.getName(), childId, noteId));
+    }
+    
+    @GetMapping("/child/{childId}/{noteId}/revisions/{revision}")
+    public ResponseEntity<NoteRevisionResponse> getChildRevision(
+            Authentication authentication,
+            @PathVariable Long childId,
+            @PathVariable Long noteId,
+            @PathVariable int revision) {
+        return ResponseEntity.ok(revisionService.getChildRevision(authentication.getName(), childId, noteId, revision));
+    }
+}
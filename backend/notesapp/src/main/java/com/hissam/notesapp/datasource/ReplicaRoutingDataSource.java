@@ -0,0 +1,226 @@
+package com.hissam.notesapp.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions of authenticated users to a healthy replica and everything
+ * else to the primary. Requests without an authenticated user (login, registration, the JWT
+ * filter's user lookup) always read from the primary, and a user who has just committed a
+ * write keeps reading from the primary for the read-your-writes window.
+ * Must be wrapped in a LazyConnectionDataSourceProxy so the connection is fetched after the
+ * transaction's read-only flag is known.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    
+    public static final String PRIMARY = "primary";
+    
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaKeys;
+    private final long readYourWritesWindowMs;
+    
+    private final Map<String, Boolean> replicaHealth = new ConcurrentHashMap<>();
+    private final Map<String, Long> readYourWritesUntil = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    
+    private final Map<String, Counter> routeCounters = new HashMap<>();
+    private final Counter readYourWritesCounter;
+    private final Counter fallbackCounter;
+    
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    long readYourWritesWindowMs, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.replicaKeys = new ArrayList<>(replicas.keySet());
+        this.readYourWritesWindowMs = readYourWritesWindowMs;
+        
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        
+        for (Object key : targets.keySet()) {
+            routeCounters.put((String) key, Counter.builder("notesapp.datasource.routed")
+                    .tag("route", (String) key)
+                    .register(meterRegistry));
+        }
+        readYourWritesCounter = Counter.builder("notesapp.datasource.read-your-writes")
+                .register(meterRegistry);
+        fallbackCounter = Counter.builder("notesapp.datasource.replica-fallback")
+                .register(meterRegistry);
+        
+        // Replicas take traffic only after their first successful health check
+        replicaKeys.forEach(key -> replicaHealth.put(key, false));
+    }
+    
+    /**
+     * Whether read-only work of the current user goes to the primary rather than a replica because
+     * the user wrote within the read-your-writes window.
+     */
+    public boolean readsOwnWrites() {
+        String username = currentUsername();
+        if (username == null || replicaKeys.isEmpty()) {
+            return false;
+        }
+        Long until = readYourWritesUntil.get(username);
+        return until != null && until > System.currentTimeMillis();
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String username = currentUsername();
+        
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriteOnCommit(username);
+            return route(PRIMARY);
+        }
+        if (username == null) {
+            return route(PRIMARY);
+        }
+        Long until = readYourWritesUntil.get(username);
+        if (until != null) {
+            if (until > System.currentTimeMillis()) {
+                readYourWritesCounter.increment();
+                return route(PRIMARY);
+            }
+            readYourWritesUntil.remove(username, until);
+        }
+        
+        String replica = nextHealthyReplica();
+        if (replica == null) {
+            if (!replicaKeys.isEmpty()) {
+                fallbackCounter.increment();
+            }
+            return route(PRIMARY);
+        }
+        return route(replica);
+    }
+    
+    @Override
+    @NonNull
+    public Connection getConnection() throws SQLException {
+        String key = (String) determineCurrentLookupKey();
+        DataSource target = PRIMARY.equals(key) ? primary : replicas.get(key);
+        if (target == primary) {
+            return primary.getConnection();
+        }
+        try {
+            return target.getConnection();
+        } catch (SQLException ex) {
+            markUnhealthy(key, ex);
+            fallbackCounter.increment();
+            return primary.getConnection();
+        }
+    }
+    
+    @Override
+    @NonNull
+    public Connection getConnection(@NonNull String username, @NonNull String password) throws SQLException {
+        return getConnection();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.datasource.replica-health-check-interval-ms:5000}")
+    public void checkReplicaHealth() {
+        for (String key : replicaKeys) {
+            try (Connection connection = replicas.get(key).getConnection()) {
+                if (connection.isValid(2)) {
+                    if (!Boolean.TRUE.equals(replicaHealth.put(key, true))) {
+                        log.info("Replica {} is healthy, routing reads to it", key);
+                    }
+                } else {
+                    markUnhealthy(key, null);
+                }
+            } catch (SQLException ex) {
+                markUnhealthy(key, ex);
+            }
+        }
+        long now = System.currentTimeMillis();
+        readYourWritesUntil.values().removeIf(until -> until <= now);
+    }
+    
+    public boolean isReplicaHealthy(String key) {
+        return Boolean.TRUE.equals(replicaHealth.get(key));
+    }
+    
+    @Override
+    public void close() {
+        replicas.values().forEach(ReplicaRoutingDataSource::closeQuietly);
+    }
+    
+    private String nextHealthyReplica() {
+        int size = replicaKeys.size();
+        for (int attempt = 0; attempt < size; attempt++) {
+            String key = replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), size));
+            if (isReplicaHealthy(key)) {
+                return key;
+            }
+        }
+        return null;
+    }
+    
+    private String route(String key) {
+        routeCounters.get(key).increment();
+        return key;
+    }
+    
+    private void rememberWriteOnCommit(String username) {
+        if (username == null || replicaKeys.isEmpty()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWritesUntil.put(username, System.currentTimeMillis() + readYourWritesWindowMs);
+            }
+        });
+    }
+    
+    private void markUnhealthy(String key, Exception cause) {
+        if (!Boolean.FALSE.equals(replicaHealth.put(key, false))) {
+            log.warn("Replica {} failed its health check, reads fall back to other replicas or the primary",
+                    key, cause);
+        }
+    }
+    
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+    
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+                // shutting down
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.hissam.notesapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityBucketResponse {
+    private LocalDateTime start;
+    private long notesCreated;
+    // Items ticked in the bucket that are still ticked
+    private long itemsCompleted;
+}
@@ -0,0 +1,21 @@
+package com.hissam.notesapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentResponse {
+    private Long id;
+    private Long noteId;
+    private String filename;
+    private String contentType;
+    private Long sizeBytes;
+    private String sha256;
+    private LocalDateTime createdAt;
+}
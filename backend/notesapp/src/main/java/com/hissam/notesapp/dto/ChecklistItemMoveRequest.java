@@ -0,0 +1,9 @@
+package com.hissam.notesapp.dto;
+
+import lombok.Data;
+
+@Data
+public class ChecklistItemMoveRequest {
+    // Item to place the moved item after; null moves it to the top
+    private Long afterItemId;
+}
@@ -0,0 +1,14 @@
+package com.hissam.notesapp.dto;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class ChecklistItemPatchRequest {
+    @Pattern(regexp = "(?s).*\\S.*", message = "Item text cannot be blank")
+    @Size(max = 500, message = "Item text must be at most 500 characters")
+    private String content;
+    
+    private Boolean checked;
+}
@@ -0,0 +1,17 @@
+package com.hissam.notesapp.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class ChecklistItemRequest {
+    @NotBlank(message = "Item text is required")
+    @Size(max = 500, message = "Item text must be at most 500 characters")
+    private String content;
+    
+    private Boolean checked = false;
+    
+    // Insert after this item; appended at the end when absent
+    private Long afterItemId;
+}
@@ -0,0 +1,20 @@
+package com.hissam.notesapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChecklistItemResponse {
+    private Long id;
+    private Long noteId;
+    private String content;
+    private Boolean checked;
+    private Long position;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,9 @@
+package com.hissam.notesapp.dto;
+
+import lombok.Data;
+
+@Data
+public class FolderMoveRequest {
+    // Folder to move into; null makes it a top-level folder
+    private Long parentId;
+}
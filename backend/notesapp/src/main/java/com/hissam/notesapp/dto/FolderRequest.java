@@ -7,4 +7,7 @@ import lombok.Data;
 public class FolderRequest {
     @NotBlank(message = "Folder name is required")
     private String name;
+    
+    // Creates the folder inside this one; ignored when renaming
+    private Long parentId;
 }
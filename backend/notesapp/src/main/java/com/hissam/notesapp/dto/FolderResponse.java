@@ -14,5 +14,8 @@ public class FolderResponse {
     private Long id;
     private String name;
     private Long childId;
+    private Long parentId;
+    // Notes in this folder and all of its subfolders
+    private long noteCount;
     private LocalDateTime createdAt;
 }
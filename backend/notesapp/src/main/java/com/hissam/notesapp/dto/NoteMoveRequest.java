@@ -0,0 +1,9 @@
+package com.hissam.notesapp.dto;
+
+import lombok.Data;
+
+@Data
+public class NoteMoveRequest {
+    // Note of the same folder and pin group to place the moved note after; null moves it to the top
+    private Long afterNoteId;
+}
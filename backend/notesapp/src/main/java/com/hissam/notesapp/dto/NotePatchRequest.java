@@ -0,0 +1,23 @@
+package com.hissam.notesapp.dto;
+
+import com.hissam.notesapp.enums.NoteType;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+@Data
+public class NotePatchRequest {
+    @Pattern(regexp = "(?s).*\\S.*", message = "Title cannot be blank")
+    private String title;
+    
+    private String content;
+    private NoteType noteType;
+    private Long folderId;
+    private String tags;
+    private Boolean completed;
+    private Boolean pinned;
+    
+    public boolean isCompletedOnly() {
+        return completed != null && title == null && content == null
+                && noteType == null && folderId == null && tags == null && pinned == null;
+    }
+}
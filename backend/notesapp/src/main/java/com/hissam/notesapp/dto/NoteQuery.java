@@ -0,0 +1,62 @@
+package com.hissam.notesapp.dto;
+
+import com.hissam.notesapp.enums.NoteType;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+import java.time.LocalDateTime;
+
+/**
+ * Filter and sort parameters of GET /api/notes; see NoteSpecifications for the supported combinations.
+ */
+@Data
+public class NoteQuery {
+    private NoteType noteType;
+    private Boolean completed;
+    private Long folderId;
+    // With folderId, also returns the notes of all its subfolders
+    private Boolean includeSubfolders;
+    private Boolean unfiled;
+    
+    // Ranges include the from value and exclude the to value
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime updatedFrom;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime updatedTo;
+    
+    // field[,asc|desc] with field createdAt, updatedAt or title, or position for the user-defined order
+    private String sort;
+    private Integer limit;
+    // With sort=position, continues the listing after this note
+    private Long afterId;
+    // "archived" also lists archived notes, after the others
+    private String include;
+    
+    public boolean isEmpty() {
+        return noteType == null && completed == null && folderId == null && includeSubfolders == null && unfiled == null
+                && createdFrom == null && createdTo == null && updatedFrom == null && updatedTo == null
+                && sort == null && limit == null && afterId == null && include == null;
+    }
+    
+    public boolean includesArchived() {
+        return "archived".equals(include);
+    }
+    
+    public boolean hasCreatedRange() {
+        return createdFrom != null || createdTo != null;
+    }
+    
+    public boolean hasUpdatedRange() {
+        return updatedFrom != null || updatedTo != null;
+    }
+    
+    public boolean hasFolderFilter() {
+        return folderId != null || Boolean.TRUE.equals(unfiled);
+    }
+}
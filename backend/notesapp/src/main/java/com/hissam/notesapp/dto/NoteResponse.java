@@ -20,6 +20,11 @@ public class NoteResponse {
     private Long folderId;
     private String tags;
     private Boolean completed;
+    private Boolean pinned;
+    private Integer checklistTotal;
+    private Integer checklistChecked;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // True for notes listed from the archive with include=archived, which must be restored before editing
+    private Boolean archived;
 }
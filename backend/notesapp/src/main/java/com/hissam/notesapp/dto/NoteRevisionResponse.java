@@ -0,0 +1,23 @@
+package com.hissam.notesapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteRevisionResponse {
+    private Long noteId;
+    private Integer revision;
+    private String title;
+    // Only filled in when a single revision is requested
+    private String content;
+    private Integer contentLength;
+    private Boolean snapshot;
+    private Integer storedBytes;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,16 @@
+package com.hissam.notesapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionResponse {
+    private String text;
+    // Number of the child's notes containing the word or tag
+    private int count;
+}
@@ -0,0 +1,42 @@
+package com.hissam.notesapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "attachments")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Attachment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+    
+    @Column(name = "child_id", nullable = false)
+    private Long childId;
+    
+    @Column(nullable = false)
+    private String filename;
+    
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+    
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+    
+    // Names the stored file; attachments with the same bytes share it
+    @Column(nullable = false, length = 64)
+    private String sha256;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
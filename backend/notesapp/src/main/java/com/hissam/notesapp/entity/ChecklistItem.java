@@ -0,0 +1,45 @@
+package com.hissam.notesapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "checklist_items")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChecklistItem {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "note_id", nullable = false)
+    private Note note;
+    
+    // Copied from the note so single-row updates can check ownership and the rebalancer can move items
+    @Column(name = "child_id", nullable = false)
+    private Long childId;
+    
+    @Column(nullable = false, length = 500)
+    private String content;
+    
+    @Column(nullable = false)
+    private Boolean checked = false;
+    
+    // When the item was ticked; null while unticked
+    @Column(name = "checked_at")
+    private LocalDateTime checkedAt;
+    
+    // Sparse sort key: items are ordered by position, and a move picks a value between its new neighbours
+    @Column(nullable = false)
+    private Long position;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
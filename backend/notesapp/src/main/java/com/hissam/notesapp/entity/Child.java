@@ -25,6 +25,12 @@ public class Child {
     @JoinColumn(name = "parent_id")
     private User parent;
     
+    @Column(name = "shard_id", nullable = false)
+    private Integer shardId = 0;
+    
+    @Column(name = "shard_moving", nullable = false)
+    private Boolean shardMoving = false;
+    
     @OneToMany(mappedBy = "child", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Folder> folders = new ArrayList<>();
     
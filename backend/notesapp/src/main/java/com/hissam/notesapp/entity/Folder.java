@@ -22,10 +22,14 @@ public class Folder {
     @Column(nullable = false)
     private String name;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "child_id", nullable = false)
     private Child child;
     
+    // Null for top-level folders; the full ancestry is in folder_closure
+    @Column(name = "parent_id")
+    private Long parentId;
+    
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,41 @@
+package com.hissam.notesapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+
+/**
+ * One ancestor/descendant pair of the folder tree, including each folder paired with itself at
+ * depth 0. Rows are written and removed in bulk by {@link com.hissam.notesapp.repository.FolderRepository}.
+ */
+@Entity
+@Table(name = "folder_closure")
+@IdClass(FolderClosure.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderClosure {
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+    
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+    
+    @Column(nullable = false)
+    private Integer depth;
+    
+    @Column(name = "child_id", nullable = false)
+    private Long childId;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long ancestorId;
+        private Long descendantId;
+    }
+}
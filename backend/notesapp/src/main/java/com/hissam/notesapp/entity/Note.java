@@ -29,7 +29,7 @@ public class Note {
     @Column(name = "note_type")
     private NoteType noteType = NoteType.REGULAR;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "child_id", nullable = false)
     private Child child;
     
@@ -43,6 +43,21 @@ public class Note {
     @Column(nullable = false)
     private Boolean completed = false;
     
+    // Pinned notes are listed before the others of their folder
+    @Column(nullable = false)
+    private Boolean pinned = false;
+    
+    // Position within the folder and pin group; see NoteOrdering
+    @Column(name = "rank_key", nullable = false, length = 64)
+    private String rankKey = "i";
+    
+    // Maintained by ChecklistService with relative updates only, never written from the entity
+    @Column(name = "checklist_total", nullable = false, insertable = false, updatable = false)
+    private Integer checklistTotal = 0;
+    
+    @Column(name = "checklist_checked", nullable = false, insertable = false, updatable = false)
+    private Integer checklistChecked = 0;
+    
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
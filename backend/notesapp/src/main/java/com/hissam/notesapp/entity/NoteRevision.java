@@ -0,0 +1,49 @@
+package com.hissam.notesapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "note_revisions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteRevision {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+    
+    @Column(name = "child_id", nullable = false)
+    private Long childId;
+    
+    // Numbered from 1 per note
+    @Column(nullable = false)
+    private Integer revision;
+    
+    // Snapshots hold the full content in body; other revisions a delta against the previous revision
+    @Column(nullable = false)
+    private Boolean snapshot;
+    
+    @Column(nullable = false)
+    private String title;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+    
+    @Column(name = "content_length", nullable = false)
+    private Integer contentLength;
+    
+    @Column(name = "stored_bytes", nullable = false)
+    private Integer storedBytes;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,37 @@
+package com.hissam.notesapp.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+public enum ActivityGranularity {
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS),
+    WEEK(ChronoUnit.WEEKS);
+    
+    private final ChronoUnit unit;
+    
+    ActivityGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+    
+    // Start of the bucket holding the given time; weeks start on Monday
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        return switch (this) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case WEEK -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        };
+    }
+    
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return bucketStart.plus(1, unit);
+    }
+    
+    // Number of buckets starting from the one holding from up to, but excluding, to
+    public long bucketsBetween(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime first = bucketStart(from);
+        return to.isAfter(first) ? unit.between(first, to.minusNanos(1)) + 1 : 0;
+    }
+}
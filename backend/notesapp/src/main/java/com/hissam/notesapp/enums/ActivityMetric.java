@@ -0,0 +1,16 @@
+package com.hissam.notesapp.enums;
+
+public enum ActivityMetric {
+    NOTES_CREATED("notes_created"),
+    ITEMS_COMPLETED("items_completed");
+    
+    private final String column;
+    
+    ActivityMetric(String column) {
+        this.column = column;
+    }
+    
+    public String column() {
+        return column;
+    }
+}
@@ -0,0 +1,5 @@
+package com.hissam.notesapp.enums;
+
+public enum NotificationKind {
+    PASSWORD_RESET
+}
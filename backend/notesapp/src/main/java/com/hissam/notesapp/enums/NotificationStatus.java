@@ -0,0 +1,9 @@
+package com.hissam.notesapp.enums;
+
+public enum NotificationStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED,
+    SUPERSEDED
+}
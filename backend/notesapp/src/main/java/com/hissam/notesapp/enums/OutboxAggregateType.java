@@ -0,0 +1,8 @@
+package com.hissam.notesapp.enums;
+
+public enum OutboxAggregateType {
+    NOTE,
+    FOLDER,
+    CHECKLIST_ITEM,
+    ATTACHMENT
+}
@@ -0,0 +1,7 @@
+package com.hissam.notesapp.enums;
+
+public enum OutboxEventType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
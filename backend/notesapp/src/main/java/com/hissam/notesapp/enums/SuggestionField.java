@@ -0,0 +1,6 @@
+package com.hissam.notesapp.enums;
+
+public enum SuggestionField {
+    TITLE,
+    TAG
+}
@@ -0,0 +1,273 @@
+package com.hissam.notesapp.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hissam.notesapp.entity.IdempotencyRecord;
+import com.hissam.notesapp.exception.ConflictException;
+import com.hissam.notesapp.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Runs a create request at most once per Idempotency-Key and replays its response to retries.
+ * Retries arriving while the first request runs on this node wait for it; on another node they
+ * get 409 until it finishes. Completed responses are kept in a bounded in-memory map and in the
+ * idempotency_keys table, so they are replayed by every node and after restarts until they expire.
+ * <p>
+ * The key is reserved and completed on the primary, while the note or folder is written in its own
+ * transaction on the child's shard, so the two cannot commit together. If a node dies after the write
+ * but before the response is stored, the key stays reserved until its pending lease ends and a retry
+ * after that runs the request again, creating a second note or folder.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+    
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final Counter executedCounter;
+    private final Counter replayedCounter;
+    private final Counter waitedCounter;
+    private final Counter conflictCounter;
+    
+    @Value("${app.idempotency.ttl-ms:86400000}")
+    private long ttlMs;
+    
+    // How long a request that never finished (e.g. its node died) blocks its key; a retry after this
+    // runs again even if the first request had already written its note or folder
+    @Value("${app.idempotency.pending-lease-ms:60000}")
+    private long pendingLeaseMs;
+    
+    @Value("${app.idempotency.max-entries:10000}")
+    private int maxEntries;
+    
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, StoredResponse> responses = new ConcurrentHashMap<>();
+    // Keys in completion order; with one TTL for all entries this is also expiry order
+    private final Queue<String> completionOrder = new ConcurrentLinkedQueue<>();
+    
+    public IdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository, ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        executedCounter = requests(meterRegistry, "executed");
+        replayedCounter = requests(meterRegistry, "replayed");
+        waitedCounter = requests(meterRegistry, "waited");
+        conflictCounter = requests(meterRegistry, "conflict");
+    }
+    
+    /**
+     * Runs the action, or replays the response of an earlier request of the user with the same key
+     * and endpoint. Without a key the action simply runs.
+     */
+    public <T> ResponseEntity<T> execute(String username, String endpoint, String key, Object request,
+                                         Class<T> responseType, Supplier<ResponseEntity<T>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String keyHash = sha256(username + "\n" + endpoint + "\n" + key);
+        String requestHash = sha256(toJson(request));
+        
+        StoredResponse cached = responses.get(keyHash);
+        if (cached != null && !cached.isExpired()) {
+            replayedCounter.increment();
+            return replay(cached, requestHash, responseType);
+        }
+        
+        CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(keyHash, execution);
+        if (running != null) {
+            waitedCounter.increment();
+            return replay(await(running), requestHash, responseType);
+        }
+        
+        try {
+            Optional<StoredResponse> persisted = reserve(keyHash, requestHash);
+            if (persisted.isPresent()) {
+                remember(keyHash, persisted.get());
+                execution.complete(persisted.get());
+                replayedCounter.increment();
+                return replay(persisted.get(), requestHash, responseType);
+            }
+            
+            ResponseEntity<T> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException ex) {
+                idempotencyRecordRepository.release(keyHash);
+                throw ex;
+            }
+            StoredResponse stored = new StoredResponse(response.getStatusCode().value(), requestHash,
+                    toJson(response.getBody()), LocalDateTime.now().plusNanos(ttlMs * 1_000_000));
+            persist(keyHash, stored);
+            remember(keyHash, stored);
+            execution.complete(stored);
+            executedCounter.increment();
+            return response;
+        } catch (RuntimeException ex) {
+            execution.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(keyHash, execution);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.idempotency.sweep-interval-ms:600000}",
+            initialDelayString = "${app.idempotency.sweep-interval-ms:600000}")
+    public void evictExpired() {
+        String head;
+        while ((head = completionOrder.peek()) != null) {
+            StoredResponse stored = responses.get(head);
+            if (stored != null && !stored.isExpired()) {
+                break;
+            }
+            completionOrder.poll();
+            if (stored != null) {
+                responses.remove(head, stored);
+            }
+        }
+        try {
+            idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        } catch (RuntimeException ex) {
+            log.warn("Could not delete expired idempotency keys", ex);
+        }
+    }
+    
+    /**
+     * @return the stored response of an earlier request, or empty if this request now holds the key
+     */
+    private Optional<StoredResponse> reserve(String keyHash, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseEnd = now.plusNanos(pendingLeaseMs * 1_000_000);
+        Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findOnPrimary(keyHash);
+        if (existing.isPresent() && existing.get().getExpiresAt().isAfter(now)) {
+            IdempotencyRecord record = existing.get();
+            if (record.getStatusCode() == null) {
+                throw inProgress();
+            }
+            return Optional.of(new StoredResponse(record.getStatusCode(), record.getRequestHash(),
+                    record.getResponseBody(), record.getExpiresAt()));
+        }
+        
+        if (existing.isPresent()) {
+            if (idempotencyRecordRepository.takeOver(keyHash, requestHash, leaseEnd, now) == 0) {
+                throw inProgress();
+            }
+        } else {
+            try {
+                idempotencyRecordRepository.reserve(keyHash, requestHash, leaseEnd);
+            } catch (DataIntegrityViolationException ex) {
+                throw inProgress();
+            }
+        }
+        return Optional.empty();
+    }
+    
+    private void persist(String keyHash, StoredResponse stored) {
+        // The write itself is already committed on the child's shard; if the record cannot be completed,
+        // this node can still replay it from memory, but other nodes run the request again once the
+        // pending lease ends
+        try {
+            idempotencyRecordRepository.complete(keyHash, stored.status, stored.body, stored.expiresAt);
+        } catch (RuntimeException ex) {
+            log.warn("Could not store idempotent response", ex);
+        }
+    }
+    
+    private void remember(String keyHash, StoredResponse stored) {
+        if (responses.put(keyHash, stored) == null) {
+            completionOrder.add(keyHash);
+        }
+        while (responses.size() > maxEntries) {
+            String eldest = completionOrder.poll();
+            if (eldest == null) {
+                break;
+            }
+            responses.remove(eldest);
+        }
+    }
+    
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash.equals(requestHash)) {
+            throw new RuntimeException(HEADER + " was already used for a different request");
+        }
+        try {
+            T body = stored.body != null ? objectMapper.readValue(stored.body, responseType) : null;
+            return ResponseEntity.status(stored.status).header(REPLAYED_HEADER, "true").body(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Stored response cannot be read", ex);
+        }
+    }
+    
+    private ConflictException inProgress() {
+        conflictCounter.increment();
+        return new ConflictException("A request with this " + HEADER + " is still being processed");
+    }
+    
+    private static StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+    
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize " + value.getClass().getSimpleName(), ex);
+        }
+    }
+    
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+    
+    private static Counter requests(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("notesapp.idempotency.requests").tag("outcome", outcome).register(meterRegistry);
+    }
+    
+    private record StoredResponse(int status, String requestHash, String body, LocalDateTime expiresAt) {
+        
+        boolean isExpired() {
+            return !expiresAt.isAfter(LocalDateTime.now());
+        }
+    }
+}
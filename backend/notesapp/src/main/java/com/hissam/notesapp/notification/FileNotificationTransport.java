@@ -0,0 +1,58 @@
+package com.hissam.notesapp.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local SMTP stand-in: writes each message as an .eml file (named after the job id) into
+ * {@code app.notifications.file-dir}, where it can be opened with any mail client.
+ */
+@Component
+public class FileNotificationTransport implements NotificationTransport {
+    
+    @Value("${app.notifications.file-dir:./data/mail}")
+    private Path directory;
+    
+    @Value("${app.notifications.from:no-reply@notesapp.local}")
+    private String from;
+    
+    @Override
+    public String name() {
+        return "file";
+    }
+    
+    @Override
+    public Map<Long, String> send(List<NotificationMessage> messages) {
+        Map<Long, String> failures = new HashMap<>();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot create " + directory, ex);
+        }
+        for (NotificationMessage message : messages) {
+            String eml = "From: " + from + "\r\n"
+                    + "To: " + message.recipient() + "\r\n"
+                    + "Date: " + DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now()) + "\r\n"
+                    + "Subject: " + message.subject() + "\r\n"
+                    + "Content-Type: text/plain; charset=UTF-8\r\n"
+                    + "\r\n"
+                    + message.body() + "\r\n";
+            try {
+                Files.writeString(directory.resolve(message.id() + ".eml"), eml, StandardCharsets.UTF_8);
+            } catch (IOException ex) {
+                failures.put(message.id(), ex.getMessage());
+            }
+        }
+        return failures;
+    }
+}
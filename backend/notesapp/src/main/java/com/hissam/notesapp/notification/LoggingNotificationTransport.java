@@ -0,0 +1,26 @@
+package com.hissam.notesapp.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// Development default: writes the notification to the application log instead of sending it
+@Slf4j
+@Component
+public class LoggingNotificationTransport implements NotificationTransport {
+    
+    @Override
+    public String name() {
+        return "log";
+    }
+    
+    @Override
+    public Map<Long, String> send(List<NotificationMessage> messages) {
+        for (NotificationMessage message : messages) {
+            log.info("Notification to {}: {}\n{}", message.recipient(), message.subject(), message.body());
+        }
+        return Map.of();
+    }
+}
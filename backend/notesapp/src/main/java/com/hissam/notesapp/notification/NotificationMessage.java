@@ -0,0 +1,4 @@
+package com.hissam.notesapp.notification;
+
+public record NotificationMessage(Long id, String recipient, String subject, String body) {
+}
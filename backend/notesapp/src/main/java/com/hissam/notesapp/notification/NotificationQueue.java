@@ -0,0 +1,126 @@
+package com.hissam.notesapp.notification;
+
+import com.hissam.notesapp.entity.NotificationJob;
+import com.hissam.notesapp.enums.NotificationKind;
+import com.hissam.notesapp.enums.NotificationStatus;
+import com.hissam.notesapp.repository.NotificationJobRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Durable queue behind {@link NotificationWorker}. Jobs are written in the caller's transaction,
+ * so a notification is queued exactly when the change that triggered it commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationQueue {
+    
+    private final NotificationJobRepository jobRepository;
+    
+    @Value("${app.notifications.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${app.notifications.initial-backoff-ms:2000}")
+    private long initialBackoffMs;
+    
+    @Value("${app.notifications.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+    
+    /**
+     * Queues a notification, or replaces the content of one still waiting for the same
+     * recipient and kind, so repeated requests result in a single send.
+     */
+    @Transactional
+    public void enqueue(NotificationKind kind, String recipient, String subject, String body) {
+        String dedupKey = kind + ":" + recipient.toLowerCase();
+        NotificationJob job = jobRepository.findFirstByDedupKeyAndStatusOrderByIdDesc(dedupKey, NotificationStatus.PENDING)
+                .orElseGet(NotificationJob::new);
+        job.setKind(kind);
+        job.setRecipient(recipient);
+        job.setSubject(subject);
+        job.setBody(body);
+        job.setDedupKey(dedupKey);
+        job.setNextAttemptAt(LocalDateTime.now());
+        jobRepository.save(job);
+    }
+    
+    /**
+     * Claims due jobs for sending. When several pending jobs share a recipient and kind, only
+     * the newest is sent and the others are marked superseded.
+     */
+    @Transactional
+    public List<NotificationJob> claimDue(int limit, Duration staleAfter) {
+        LocalDateTime now = LocalDateTime.now();
+        jobRepository.requeueStale(now.minus(staleAfter), now);
+        
+        List<NotificationJob> due = jobRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                NotificationStatus.PENDING, now, PageRequest.of(0, limit));
+        if (due.isEmpty()) {
+            return due;
+        }
+        
+        Map<String, NotificationJob> newest = jobRepository
+                .findByStatusAndDedupKeyIn(NotificationStatus.PENDING,
+                        due.stream().map(NotificationJob::getDedupKey).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(NotificationJob::getDedupKey, Function.identity(),
+                        (a, b) -> a.getId() > b.getId() ? a : b));
+        
+        List<Long> superseded = new ArrayList<>();
+        List<NotificationJob> claimed = new ArrayList<>();
+        for (NotificationJob job : due) {
+            if (!newest.get(job.getDedupKey()).getId().equals(job.getId())) {
+                superseded.add(job.getId());
+            } else if (jobRepository.transition(job.getId(), NotificationStatus.PENDING, NotificationStatus.SENDING, now) == 1) {
+                claimed.add(job);
+            }
+        }
+        if (!superseded.isEmpty()) {
+            jobRepository.updateStatus(superseded, NotificationStatus.SUPERSEDED, now);
+        }
+        claimed.sort(Comparator.comparing(NotificationJob::getId));
+        return claimed;
+    }
+    
+    @Transactional
+    public void markSent(Collection<Long> jobIds) {
+        if (!jobIds.isEmpty()) {
+            jobRepository.updateStatus(jobIds, NotificationStatus.SENT, LocalDateTime.now());
+        }
+    }
+    
+    /**
+     * @return true if the job will be retried, false if it has run out of attempts
+     */
+    @Transactional
+    public boolean markFailed(Long jobId, String error) {
+        NotificationJob job = jobRepository.findById(jobId).orElseThrow();
+        int attempts = job.getAttempts() + 1;
+        job.setAttempts(attempts);
+        job.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        
+        boolean retry = attempts < maxAttempts;
+        if (retry) {
+            long backoffMs = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 30));
+            job.setStatus(NotificationStatus.PENDING);
+            job.setNextAttemptAt(LocalDateTime.now().plusNanos(backoffMs * 1_000_000));
+        } else {
+            job.setStatus(NotificationStatus.FAILED);
+        }
+        jobRepository.save(job);
+        return retry;
+    }
+}
@@ -0,0 +1,28 @@
+package com.hissam.notesapp.notification;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers notifications. Every transport is a bean and {@link NotificationWorker} picks the one
+ * whose name matches {@code app.notifications.transport} at runtime, so the setting also applies
+ * to the AOT-processed fast-startup build. A batch should be sent over a single connection where
+ * the transport has one.
+ */
+public interface NotificationTransport {
+    
+    // The value of app.notifications.transport that selects this transport
+    String name();
+    
+    /**
+     * Called on the selected transport at startup; throws if it lacks the configuration it needs.
+     */
+    default void checkConfigured() {
+    }
+    
+    /**
+     * @return error descriptions of the messages that could not be sent, keyed by message id;
+     *         throwing fails the whole batch
+     */
+    Map<Long, String> send(List<NotificationMessage> messages);
+}
@@ -0,0 +1,119 @@
+package com.hissam.notesapp.notification;
+
+import com.hissam.notesapp.entity.NotificationJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Drains {@link NotificationQueue}: claims due jobs, splits them into batches and sends each
+ * batch on the worker pool. Failed messages are retried with exponential backoff.
+ */
+@Slf4j
+@Component
+public class NotificationWorker implements DisposableBean {
+    
+    private final NotificationQueue notificationQueue;
+    private final NotificationTransport transport;
+    private final ThreadPoolTaskExecutor pool;
+    private final int batchSize;
+    private final int workerThreads;
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    
+    // A job left in SENDING this long (e.g. the node died mid-send) is queued again
+    @Value("${app.notifications.stale-after-ms:300000}")
+    private long staleAfterMs;
+    
+    public NotificationWorker(NotificationQueue notificationQueue,
+                              List<NotificationTransport> transports,
+                              @Value("${app.notifications.transport:log}") String transportName,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.notifications.worker-threads:2}") int workerThreads,
+                              @Value("${app.notifications.batch-size:20}") int batchSize) {
+        this.notificationQueue = notificationQueue;
+        this.transport = transports.stream()
+                .filter(candidate -> candidate.name().equals(transportName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown app.notifications.transport '" + transportName
+                        + "'; use one of " + transports.stream().map(NotificationTransport::name).sorted().toList()));
+        transport.checkConfigured();
+        this.batchSize = batchSize;
+        this.workerThreads = workerThreads;
+        pool = new ThreadPoolTaskExecutor();
+        pool.setThreadNamePrefix("notification-");
+        pool.setCorePoolSize(workerThreads);
+        pool.setMaxPoolSize(workerThreads);
+        pool.initialize();
+        sentCounter = Counter.builder("notesapp.notifications.sent").register(meterRegistry);
+        retriedCounter = Counter.builder("notesapp.notifications.retried").register(meterRegistry);
+        failedCounter = Counter.builder("notesapp.notifications.failed").register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.notifications.poll-interval-ms:1000}")
+    public void drain() {
+        List<NotificationJob> claimed;
+        do {
+            claimed = notificationQueue.claimDue(batchSize * workerThreads, Duration.ofMillis(staleAfterMs));
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            for (int from = 0; from < claimed.size(); from += batchSize) {
+                List<NotificationJob> batch = claimed.subList(from, Math.min(from + batchSize, claimed.size()));
+                batches.add(CompletableFuture.runAsync(() -> sendBatch(batch), pool));
+            }
+            batches.forEach(CompletableFuture::join);
+        } while (claimed.size() == batchSize * workerThreads);
+    }
+    
+    private void sendBatch(List<NotificationJob> batch) {
+        List<NotificationMessage> messages = batch.stream()
+                .map(job -> new NotificationMessage(job.getId(), job.getRecipient(), job.getSubject(), job.getBody()))
+                .toList();
+        
+        Map<Long, String> failures;
+        try {
+            failures = transport.send(messages);
+        } catch (RuntimeException ex) {
+            log.warn("Notification batch of {} failed", messages.size(), ex);
+            String error = String.valueOf(ex.getMessage());
+            failures = new HashMap<>();
+            for (NotificationMessage message : messages) {
+                failures.put(message.id(), error);
+            }
+        }
+        
+        List<Long> sent = new ArrayList<>();
+        for (NotificationMessage message : messages) {
+            if (!failures.containsKey(message.id())) {
+                sent.add(message.id());
+                continue;
+            }
+            String error = failures.get(message.id());
+            if (notificationQueue.markFailed(message.id(), error)) {
+                retriedCounter.increment();
+            } else {
+                log.error("Giving up on notification {} to {}: {}", message.id(), message.recipient(), error);
+                failedCounter.increment();
+            }
+        }
+        notificationQueue.markSent(sent);
+        sentCounter.increment(sent.size());
+    }
+    
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+}
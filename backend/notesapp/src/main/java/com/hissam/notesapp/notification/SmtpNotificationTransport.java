@@ -0,0 +1,103 @@
+package com.hissam.notesapp.notification;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+// Sends through the server configured with spring.mail.*; a batch shares one SMTP connection.
+// Without an auto-configured mail sender (the AOT build only has one if spring.mail.host was set
+// at build time) it builds its own from spring.mail.* as bound at runtime.
+@Component
+public class SmtpNotificationTransport implements NotificationTransport {
+    
+    private final ObjectProvider<JavaMailSender> mailSenderProvider;
+    private final Environment environment;
+    private volatile JavaMailSender mailSender;
+    
+    @Value("${app.notifications.from:no-reply@notesapp.local}")
+    private String from;
+    
+    public SmtpNotificationTransport(ObjectProvider<JavaMailSender> mailSenderProvider, Environment environment) {
+        this.mailSenderProvider = mailSenderProvider;
+        this.environment = environment;
+    }
+    
+    @Override
+    public String name() {
+        return "smtp";
+    }
+    
+    @Override
+    public void checkConfigured() {
+        mailSender();
+    }
+    
+    @Override
+    public Map<Long, String> send(List<NotificationMessage> messages) {
+        JavaMailSender mailSender = mailSender();
+        Map<SimpleMailMessage, Long> ids = new IdentityHashMap<>();
+        for (NotificationMessage message : messages) {
+            SimpleMailMessage mail = new SimpleMailMessage();
+            mail.setFrom(from);
+            mail.setTo(message.recipient());
+            mail.setSubject(message.subject());
+            mail.setText(message.body());
+            ids.put(mail, message.id());
+        }
+        
+        try {
+            mailSender.send(ids.keySet().toArray(SimpleMailMessage[]::new));
+            return Map.of();
+        } catch (MailSendException ex) {
+            if (ex.getFailedMessages().isEmpty()) {
+                throw ex;
+            }
+            Map<Long, String> failures = new HashMap<>();
+            ex.getFailedMessages().forEach((mail, cause) -> failures.put(ids.get(mail), cause.getMessage()));
+            return failures;
+        }
+    }
+    
+    private JavaMailSender mailSender() {
+        if (mailSender == null) {
+            mailSender = mailSenderProvider.getIfAvailable(this::fromProperties);
+        }
+        return mailSender;
+    }
+    
+    private JavaMailSender fromProperties() {
+        MailProperties properties = Binder.get(environment).bind("spring.mail", MailProperties.class)
+                .orElseGet(MailProperties::new);
+        if (properties.getHost() == null) {
+            throw new IllegalStateException("app.notifications.transport=smtp needs spring.mail.host");
+        }
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost(properties.getHost());
+        if (properties.getPort() != null) {
+            sender.setPort(properties.getPort());
+        }
+        sender.setUsername(properties.getUsername());
+        sender.setPassword(properties.getPassword());
+        sender.setProtocol(properties.getProtocol());
+        if (properties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(properties.getDefaultEncoding().name());
+        }
+        Properties javaMailProperties = new Properties();
+        javaMailProperties.putAll(properties.getProperties());
+        sender.setJavaMailProperties(javaMailProperties);
+        return sender;
+    }
+}
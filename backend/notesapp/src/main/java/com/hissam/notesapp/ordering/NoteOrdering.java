@@ -0,0 +1,93 @@
+package com.hissam.notesapp.ordering;
+
+import com.hissam.notesapp.repository.NoteRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Rank keys of notes within a folder. Pinned and unpinned notes are ordered separately, each by
+ * rank_key, so placing a note only needs the key of the note before it and the next key after that.
+ * Callers run inside a shard write transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class NoteOrdering {
+    
+    // Length of the rank_key column
+    static final int MAX_KEY_LENGTH = 64;
+    
+    private static final Comparator<NoteRepository.RankedNote> LISTING_ORDER =
+            Comparator.comparing(NoteRepository.RankedNote::getPinned).reversed()
+                    .thenComparing(NoteRepository.RankedNote::getRankKey)
+                    .thenComparing(NoteRepository.RankedNote::getId);
+    
+    private final NoteRepository noteRepository;
+    
+    /**
+     * A key placing a new or refiled note above the folder's other unpinned notes.
+     */
+    public String topKey(Long childId, Long folderId) {
+        return keyAfter(childId, folderId, false, null, null, true);
+    }
+    
+    /**
+     * A key placing the note right after another note of its folder and pin group, or at the top
+     * of the group when afterNoteId is null. The folder is rebalanced first when the neighbours
+     * share a key or the new key would not fit.
+     */
+    public String keyAfter(Long childId, Long folderId, boolean pinned, Long noteId, Long afterNoteId) {
+        return keyAfter(childId, folderId, pinned, noteId, afterNoteId, true);
+    }
+    
+    /**
+     * Rewrites the keys of a folder's notes (folderId null for unfiled notes) as evenly spaced keys
+     * of minimal length, keeping their order. Locks the folder's notes while doing so.
+     *
+     * @return the number of notes whose key changed
+     */
+    public int rebalance(Long childId, Long folderId) {
+        List<NoteRepository.RankedNote> notes = (folderId == null
+                ? noteRepository.findUnfiledRanksForUpdate(childId)
+                : noteRepository.findRanksForUpdate(childId, folderId))
+                .stream()
+                .sorted(LISTING_ORDER)
+                .toList();
+        List<String> keys = RankKeys.spread(notes.size());
+        
+        int changed = 0;
+        for (int i = 0; i < notes.size(); i++) {
+            if (!keys.get(i).equals(notes.get(i).getRankKey())) {
+                noteRepository.updateRank(notes.get(i).getId(), keys.get(i));
+                changed++;
+            }
+        }
+        return changed;
+    }
+    
+    private String keyAfter(Long childId, Long folderId, boolean pinned, Long noteId, Long afterNoteId,
+                            boolean mayRebalance) {
+        String lower = afterNoteId == null ? "" : noteRepository.findRankKey(afterNoteId);
+        List<Long> excludedIds = Stream.of(noteId, afterNoteId).filter(Objects::nonNull).toList();
+        List<String> next = folderId == null
+                ? noteRepository.findUnfiledRanksFrom(childId, pinned, lower, excludedIds, Limit.of(1))
+                : noteRepository.findRanksFrom(childId, folderId, pinned, lower, excludedIds, Limit.of(1));
+        String upper = next.isEmpty() ? null : next.get(0);
+        
+        boolean collides = lower.equals(upper);
+        String key = collides ? null : RankKeys.between(lower.isEmpty() ? null : lower, upper);
+        if (collides || key.length() > MAX_KEY_LENGTH) {
+            if (!mayRebalance) {
+                throw new IllegalStateException("No rank key available after rebalancing folder " + folderId);
+            }
+            rebalance(childId, folderId);
+            return keyAfter(childId, folderId, pinned, noteId, afterNoteId, false);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,85 @@
+package com.hissam.notesapp.ordering;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fractional rank keys: each key is the digits of a base-36 fraction between 0 and 1, written
+ * without trailing zeros, so plain string comparison orders keys like the numbers they stand for
+ * and there is always room for another key between two different ones.
+ */
+final class RankKeys {
+    
+    static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITS.length();
+    
+    private RankKeys() {
+    }
+    
+    /**
+     * A key after lower and before upper; a null lower means the start and a null upper the end.
+     */
+    static String between(String lower, String upper) {
+        String a = lower == null ? "" : lower;
+        if (upper != null && a.compareTo(upper) >= 0) {
+            throw new IllegalArgumentException("No key between '" + lower + "' and '" + upper + "'");
+        }
+        return midpoint(a, upper);
+    }
+    
+    /**
+     * count evenly spaced keys of equal, minimal length, leaving room around each of them.
+     */
+    static List<String> spread(int count) {
+        int width = 1;
+        long scale = BASE;
+        while (scale < (long) (count + 1) * BASE) {
+            width++;
+            scale *= BASE;
+        }
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            keys.add(digits(scale / (count + 1) * i, width));
+        }
+        return keys;
+    }
+    
+    // a is "" or a key, b is null or a key greater than a
+    private static String midpoint(String a, String b) {
+        if (b != null) {
+            int common = 0;
+            while (common < b.length() && digitAt(a, common) == DIGITS.indexOf(b.charAt(common))) {
+                common++;
+            }
+            if (common > 0) {
+                return b.substring(0, common) + midpoint(a.length() > common ? a.substring(common) : "", b.substring(common));
+            }
+        }
+        int digitA = digitAt(a, 0);
+        int digitB = b == null ? BASE : DIGITS.indexOf(b.charAt(0));
+        if (digitB - digitA > 1) {
+            return String.valueOf(DIGITS.charAt((digitA + digitB + 1) / 2));
+        }
+        if (b != null && b.length() > 1) {
+            return b.substring(0, 1);
+        }
+        return DIGITS.charAt(digitA) + midpoint(a.length() > 1 ? a.substring(1) : "", null);
+    }
+    
+    private static int digitAt(String key, int index) {
+        return index < key.length() ? DIGITS.indexOf(key.charAt(index)) : 0;
+    }
+    
+    private static String digits(long value, int width) {
+        char[] out = new char[width];
+        for (int i = width - 1; i >= 0; i--) {
+            out[i] = DIGITS.charAt((int) (value % BASE));
+            value /= BASE;
+        }
+        int length = width;
+        while (out[length - 1] == '0') {
+            length--;
+        }
+        return new String(out, 0, length);
+    }
+}
@@ -0,0 +1,65 @@
+package com.hissam.notesapp.ordering;
+
+import com.hissam.notesapp.repository.NoteRepository;
+import com.hissam.notesapp.sharding.ShardRoutingDataSource;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Keeps rank keys short: repeated moves into the same gap add a character every few moves, so
+ * folders whose longest key passes max-key-length, or whose notes share keys, are rebalanced on
+ * every shard, one folder per transaction.
+ */
+@Slf4j
+@Component
+public class RankRebalancer {
+    
+    private final NoteRepository noteRepository;
+    private final NoteOrdering noteOrdering;
+    private final ShardTemplate shardTemplate;
+    private final ShardRoutingDataSource shardRoutingDataSource;
+    private final Counter rebalancedCounter;
+    
+    @Value("${app.ordering.max-key-length:16}")
+    private int maxKeyLength;
+    
+    @Value("${app.ordering.rebalance-batch-size:100}")
+    private int batchSize;
+    
+    public RankRebalancer(NoteRepository noteRepository, NoteOrdering noteOrdering, ShardTemplate shardTemplate,
+                          ShardRoutingDataSource shardRoutingDataSource, MeterRegistry meterRegistry) {
+        this.noteRepository = noteRepository;
+        this.noteOrdering = noteOrdering;
+        this.shardTemplate = shardTemplate;
+        this.shardRoutingDataSource = shardRoutingDataSource;
+        rebalancedCounter = Counter.builder("notesapp.ordering.rebalanced-folders").register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.ordering.rebalance-interval-ms:600000}",
+            initialDelayString = "${app.ordering.rebalance-interval-ms:600000}")
+    public void rebalance() {
+        for (int shardId : shardRoutingDataSource.getShardIds()) {
+            try {
+                List<NoteRepository.RankedFolder> folders;
+                do {
+                    folders = shardTemplate.read(shardId,
+                            () -> noteRepository.findFoldersToRebalance(maxKeyLength, PageRequest.of(0, batchSize)));
+                    for (NoteRepository.RankedFolder folder : folders) {
+                        shardTemplate.write(shardId, () -> noteOrdering.rebalance(folder.getChildId(), folder.getFolderId()));
+                        rebalancedCounter.increment();
+                    }
+                } while (folders.size() == batchSize);
+            } catch (RuntimeException ex) {
+                log.warn("Rank rebalancing failed on shard {}", shardId, ex);
+            }
+        }
+    }
+}
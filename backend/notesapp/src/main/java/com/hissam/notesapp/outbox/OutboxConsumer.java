@@ -0,0 +1,33 @@
+package com.hissam.notesapp.outbox;
+
+import com.hissam.notesapp.entity.OutboxEvent;
+
+/**
+ * Receives note and folder changes from the outbox, in commit order per child. Delivery is
+ * at-least-once: an event can be seen again after a failure or restart, so handlers must be
+ * idempotent. Throwing stops delivery to this consumer until the next poll, which retries the
+ * same event; other consumers are not held back.
+ */
+public interface OutboxConsumer {
+    
+    // Stable name, used as the checkpoint key
+    String name();
+    
+    void handle(OutboxEvent event);
+    
+    /**
+     * Whether the consumer keeps what it builds in this node's memory. Such a consumer has a
+     * checkpoint per node, starting at the latest event when the node starts, and events are kept
+     * until every running node has handled them.
+     */
+    default boolean nodeLocal() {
+        return false;
+    }
+    
+    /**
+     * Called on a node-local consumer when its checkpoint is created, on the first poll or after
+     * the node stalled for longer than the node timeout: state built so far may have missed events.
+     */
+    default void reset() {
+    }
+}
@@ -0,0 +1,201 @@
+package com.hissam.notesapp.outbox;
+
+import com.hissam.notesapp.entity.OutboxCheckpoint;
+import com.hissam.notesapp.entity.OutboxEvent;
+import com.hissam.notesapp.repository.OutboxCheckpointRepository;
+import com.hissam.notesapp.repository.OutboxEventRepository;
+import com.hissam.notesapp.sharding.ShardRoutingDataSource;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox of every shard to the registered {@link OutboxConsumer}s. Each consumer has
+ * its own checkpoint per shard and is fed in id order; events every consumer has handled are
+ * deleted. Node-local consumers are checkpointed per node, and a node that has not polled for
+ * node-timeout-ms no longer holds back the deletion.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxDispatcher {
+    
+    private final OutboxEventRepository eventRepository;
+    private final OutboxCheckpointRepository checkpointRepository;
+    private final ShardTemplate shardTemplate;
+    private final ShardRoutingDataSource shardRoutingDataSource;
+    private final ObjectProvider<OutboxConsumer> consumers;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+    
+    // Ids are allocated before commit, so a lower id can still appear after a higher one.
+    // A gap is waited for this long before it is treated as a rolled-back transaction.
+    @Value("${app.outbox.gap-timeout-ms:5000}")
+    private long gapTimeoutMs;
+    
+    @Value("${app.outbox.node-timeout-ms:60000}")
+    private long nodeTimeoutMs;
+    
+    // Node-local checkpoints this node created, as shard:key
+    private final Set<String> createdCheckpoints = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Long> purgedUpTo = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> lagEvents = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> lagMillis = new ConcurrentHashMap<>();
+    
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}",
+            initialDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void dispatch() {
+        List<OutboxConsumer> registered = consumers.orderedStream().toList();
+        for (int shardId : shardRoutingDataSource.getShardIds()) {
+            try {
+                long handledByAll = handledByOtherNodes(shardId, registered.stream()
+                        .mapToLong(consumer -> deliver(shardId, consumer))
+                        .min()
+                        .orElseGet(() -> latestEventId(shardId)));
+                if (handledByAll > purgedUpTo.getOrDefault(shardId, 0L)) {
+                    shardTemplate.write(shardId, () -> eventRepository.deleteUpTo(handledByAll));
+                    purgedUpTo.put(shardId, handledByAll);
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Outbox dispatch failed on shard {}", shardId, ex);
+            }
+        }
+    }
+    
+    /**
+     * @return the consumer's checkpoint on the shard after this round
+     */
+    private long deliver(int shardId, OutboxConsumer consumer) {
+        String key = consumer.nodeLocal() ? consumer.name() + "@" + nodeId : consumer.name();
+        long checkpoint = shardTemplate.write(shardId, () -> checkpointRepository.findById(key)
+                .orElseGet(() -> checkpointRepository.save(new OutboxCheckpoint(key, start(shardId, consumer, key), LocalDateTime.now())))
+                .getLastEventId());
+        
+        long delivered = checkpoint;
+        boolean caughtUp = false;
+        while (!caughtUp) {
+            long from = delivered;
+            List<OutboxEvent> batch = shardTemplate.read(shardId,
+                    () -> eventRepository.findByIdGreaterThanOrderByIdAsc(from, PageRequest.of(0, batchSize)));
+            caughtUp = batch.size() < batchSize;
+            
+            for (OutboxEvent event : batch) {
+                if (event.getId() != delivered + 1 && age(event).toMillis() < gapTimeoutMs) {
+                    caughtUp = true;
+                    break;
+                }
+                try {
+                    consumer.handle(event);
+                } catch (RuntimeException ex) {
+                    log.warn("Outbox consumer {} failed on event {}, retrying next poll", consumer.name(), event.getId(), ex);
+                    counter("notesapp.outbox.failed", consumer).increment();
+                    caughtUp = true;
+                    break;
+                }
+                delivered = event.getId();
+                counter("notesapp.outbox.delivered", consumer).increment();
+            }
+        }
+        
+        if (delivered > checkpoint || consumer.nodeLocal()) {
+            long handled = delivered;
+            shardTemplate.write(shardId, () -> {
+                LocalDateTime now = LocalDateTime.now();
+                int advanced = checkpointRepository.advance(key, handled, now);
+                // A node-local checkpoint is kept alive even when there was nothing to handle
+                return advanced > 0 || !consumer.nodeLocal() ? advanced : checkpointRepository.touch(key, now);
+            });
+        }
+        recordLag(shardId, consumer, delivered);
+        return delivered;
+    }
+    
+    private long start(int shardId, OutboxConsumer consumer, String key) {
+        if (!consumer.nodeLocal()) {
+            return 0L;
+        }
+        // Gone although this node created it: another node dropped it while this one stalled
+        if (!createdCheckpoints.add(shardId + ":" + key)) {
+            log.warn("Outbox checkpoint {} on shard {} expired, resetting the consumer", key, shardId);
+        }
+        // Whatever the consumer loaded before now may miss earlier events, so it starts over
+        // from the current data and needs only the events after this point
+        consumer.reset();
+        return eventRepository.findFirstByOrderByIdDesc().map(OutboxEvent::getId).orElse(0L);
+    }
+    
+    /**
+     * Lowers what may be deleted to what the node-local consumers of every running node have
+     * handled, and drops the checkpoints of nodes that stopped polling.
+     */
+    private long handledByOtherNodes(int shardId, long handledHere) {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(nodeTimeoutMs * 1_000_000);
+        return shardTemplate.write(shardId, () -> {
+            long handled = handledHere;
+            for (OutboxCheckpoint checkpoint : checkpointRepository.findNodeLocal()) {
+                if (checkpoint.getUpdatedAt().isBefore(cutoff)) {
+                    log.info("Dropping outbox checkpoint {} on shard {}, its node stopped polling", checkpoint.getConsumer(), shardId);
+                    checkpointRepository.delete(checkpoint);
+                } else {
+                    handled = Math.min(handled, checkpoint.getLastEventId());
+                }
+            }
+            return handled;
+        });
+    }
+    
+    private long latestEventId(int shardId) {
+        return shardTemplate.read(shardId, () -> eventRepository.findFirstByOrderByIdDesc()
+                .map(OutboxEvent::getId)
+                .orElse(0L));
+    }
+    
+    private void recordLag(int shardId, OutboxConsumer consumer, long delivered) {
+        long pending = shardTemplate.read(shardId, () -> eventRepository.countByIdGreaterThan(delivered));
+        long oldestMillis = pending == 0 ? 0 : shardTemplate.read(shardId,
+                () -> eventRepository.findFirstByIdGreaterThanOrderByIdAsc(delivered)
+                        .map(event -> age(event).toMillis())
+                        .orElse(0L));
+        
+        String key = consumer.name() + "@" + shardId;
+        lagEvents.computeIfAbsent(key, k -> gauge("notesapp.outbox.lag.events", consumer, shardId)).set(pending);
+        lagMillis.computeIfAbsent(key, k -> gauge("notesapp.outbox.lag.ms", consumer, shardId)).set(oldestMillis);
+    }
+    
+    private AtomicLong gauge(String name, OutboxConsumer consumer, int shardId) {
+        AtomicLong value = new AtomicLong();
+        Gauge.builder(name, value, AtomicLong::get)
+                .tag("consumer", consumer.name())
+                .tag("shard", String.valueOf(shardId))
+                .register(meterRegistry);
+        return value;
+    }
+    
+    private Counter counter(String name, OutboxConsumer consumer) {
+        return Counter.builder(name).tag("consumer", consumer.name()).register(meterRegistry);
+    }
+    
+    private static Duration age(OutboxEvent event) {
+        return Duration.between(event.getCreatedAt(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,47 @@
+package com.hissam.notesapp.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hissam.notesapp.cache.InvalidationBus;
+import com.hissam.notesapp.entity.OutboxEvent;
+import com.hissam.notesapp.enums.OutboxAggregateType;
+import com.hissam.notesapp.enums.OutboxEventType;
+import com.hissam.notesapp.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final InvalidationBus invalidationBus;
+    
+    // Must join the transaction of the change, so the event commits or rolls back with it
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long childId, OutboxAggregateType aggregateType, Long aggregateId,
+                       OutboxEventType eventType, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setChildId(childId);
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId);
+        event.setEventType(eventType);
+        if (payload != null) {
+            try {
+                event.setPayload(objectMapper.writeValueAsString(payload));
+            } catch (JsonProcessingException ex) {
+                throw new IllegalStateException("Could not serialize outbox payload", ex);
+            }
+        }
+        outboxEventRepository.save(event);
+        
+        // Anything read or cached for the child before the commit may miss the change
+        invalidationBus.publish(InvalidationBus.CHILD_REGION, childId);
+        if (aggregateType == OutboxAggregateType.NOTE) {
+            invalidationBus.publish(InvalidationBus.NOTE_REGION, aggregateId);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.hissam.notesapp.provisioning;
+
+/**
+ * Outcome of one roster entry. userId and childId are set for created accounts.
+ */
+public record ProvisioningResult(int line, String username, String role, Status status,
+                                 Long userId, Long childId, String parent, String message) {
+    
+    public enum Status {
+        CREATED,
+        // The username or email is already taken, e.g. when a roster is provisioned again
+        SKIPPED,
+        FAILED
+    }
+}
@@ -0,0 +1,68 @@
+package com.hissam.notesapp.provisioning;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command-line provisioning of the accounts in a CSV roster (see {@link RosterCsv}), writing a
+ * result for every entry to the report, by default next to the roster, e.g.
+ * {@code java -jar notesapp.jar --spring.main.web-application-type=none --provision-roster=roster.csv [--provision-report=report.csv]}
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProvisioningRunner implements ApplicationRunner {
+    
+    private final RosterProvisioner rosterProvisioner;
+    private final ConfigurableApplicationContext context;
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption("provision-roster")) {
+            return;
+        }
+        Path roster = Path.of(args.getOptionValues("provision-roster").get(0));
+        Path report = args.containsOption("provision-report")
+                ? Path.of(args.getOptionValues("provision-report").get(0))
+                : roster.resolveSibling(roster.getFileName() + ".result.csv");
+        
+        try {
+            List<RosterEntry> entries;
+            try (Reader reader = Files.newBufferedReader(roster, StandardCharsets.UTF_8)) {
+                entries = RosterCsv.read(reader);
+            }
+            List<ProvisioningResult> results = rosterProvisioner.provision(entries);
+            try (Writer writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+                RosterCsv.write(results, writer);
+            }
+            
+            Map<ProvisioningResult.Status, Integer> counts = new EnumMap<>(ProvisioningResult.Status.class);
+            for (ProvisioningResult result : results) {
+                counts.merge(result.status(), 1, Integer::sum);
+                if (result.status() != ProvisioningResult.Status.CREATED) {
+                    log.warn("Roster line {} ({}): {} - {}", result.line(), result.username(), result.status(), result.message());
+                }
+            }
+            log.info("Provisioned {} roster entries: {}, report written to {}", results.size(), counts, report);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,185 @@
+package com.hissam.notesapp.provisioning;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads rosters and writes provisioning reports as CSV (RFC 4180: comma separated, fields
+ * optionally quoted, a quote inside a quoted field doubled). A roster starts with a header naming
+ * its columns in any order: username, email, password, role and optionally parent, the username
+ * of the parent a child is linked to.
+ */
+public final class RosterCsv {
+    
+    private static final List<String> REQUIRED_COLUMNS = List.of("username", "email", "password", "role");
+    private static final List<String> REPORT_COLUMNS =
+            List.of("line", "username", "role", "status", "user_id", "child_id", "parent", "message");
+    
+    private RosterCsv() {
+    }
+    
+    public static List<RosterEntry> read(Reader reader) throws IOException {
+        RecordReader records = new RecordReader(reader);
+        List<String> header = records.next();
+        if (header == null) {
+            throw new IllegalArgumentException("The roster is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("The roster header lacks " + String.join(", ", missing));
+        }
+        
+        List<RosterEntry> entries = new ArrayList<>();
+        List<String> fields;
+        while ((fields = records.next()) != null) {
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            entries.add(new RosterEntry(records.recordLine,
+                    field(fields, columns.get("username")),
+                    field(fields, columns.get("email")),
+                    // Passwords are taken as written, surrounding spaces included
+                    fieldUntrimmed(fields, columns.get("password")),
+                    field(fields, columns.get("role")),
+                    field(fields, columns.get("parent"))));
+        }
+        return entries;
+    }
+    
+    public static void write(List<ProvisioningResult> results, Writer writer) throws IOException {
+        writeRecord(writer, REPORT_COLUMNS);
+        for (ProvisioningResult result : results) {
+            writeRecord(writer, List.of(
+                    String.valueOf(result.line()),
+                    nullToEmpty(result.username()),
+                    nullToEmpty(result.role()),
+                    result.status().name(),
+                    result.userId() == null ? "" : result.userId().toString(),
+                    result.childId() == null ? "" : result.childId().toString(),
+                    nullToEmpty(result.parent()),
+                    nullToEmpty(result.message())));
+        }
+        writer.flush();
+    }
+    
+    private static String field(List<String> fields, Integer index) {
+        String value = fieldUntrimmed(fields, index);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    private static String fieldUntrimmed(List<String> fields, Integer index) {
+        return index == null || index >= fields.size() ? null : fields.get(index);
+    }
+    
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+    
+    private static void writeRecord(Writer writer, List<String> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = fields.get(i);
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write('\n');
+    }
+    
+    private static final class RecordReader {
+        
+        private final Reader reader;
+        private int line = 1;
+        private int recordLine;
+        private int pushedBack = -2;
+        
+        RecordReader(Reader reader) {
+            this.reader = reader;
+        }
+        
+        // The fields of the next record, or null at the end of the input
+        List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean inQuotes = false;
+            while (true) {
+                if (inQuotes) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("Unterminated quoted field starting on line " + recordLine);
+                    }
+                    if (c == '"') {
+                        int following = read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            inQuotes = false;
+                            c = following;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    quoted = false;
+                } else if (c == '\n' || c == '\r' || c == -1) {
+                    if (c == '\r') {
+                        int following = read();
+                        if (following != '\n') {
+                            pushedBack = following;
+                        }
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c == '"' && !quoted && field.isEmpty()) {
+                    quoted = true;
+                    inQuotes = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+        
+        private int read() throws IOException {
+            int c;
+            if (pushedBack != -2) {
+                c = pushedBack;
+                pushedBack = -2;
+                return c;
+            }
+            c = reader.read();
+            if (c == '\n') {
+                line++;
+            }
+            return c;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.hissam.notesapp.provisioning;
+
+/**
+ * One account of a roster, as read from the file; line is where its record starts.
+ */
+public record RosterEntry(int line, String username, String email, String password, String role, String parent) {
+}
@@ -0,0 +1,369 @@
+package com.hissam.notesapp.provisioning;
+
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.provisioning.ProvisioningResult.Status;
+import com.hissam.notesapp.sharding.ShardDirectory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the accounts of a roster in one run. Entries are validated like registrations, and the
+ * usernames and emails already taken are found with one query per lookup chunk rather than one per
+ * entry. Passwords are hashed in parallel on a pool of hash-threads (the number of cores by
+ * default) while earlier batches are inserted. Users and children are inserted batch-size entries
+ * per transaction, parents before children so that children can be linked to parents of the same
+ * roster. A batch hitting an account registered meanwhile is retried entry by entry.
+ */
+@Slf4j
+@Component
+public class RosterProvisioner {
+    
+    // Entries per existence query, keeping its IN lists within every database's parameter limits
+    private static final int LOOKUP_CHUNK = 1000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ShardDirectory shardDirectory;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${app.provisioning.batch-size:200}")
+    private int batchSize;
+    
+    // 0 uses one thread per core; BCrypt is CPU bound, so more threads do not help
+    @Value("${app.provisioning.hash-threads:0}")
+    private int hashThreads;
+    
+    public RosterProvisioner(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder, ShardDirectory shardDirectory,
+                             Validator validator, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.shardDirectory = shardDirectory;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * @return one result per entry, in roster order
+     */
+    public List<ProvisioningResult> provision(List<RosterEntry> entries) {
+        Map<RosterEntry, ProvisioningResult> results = new HashMap<>();
+        List<Candidate> candidates = validate(entries, results);
+        Map<String, ExistingUser> existing = findExisting(candidates);
+        candidates = rejectExisting(candidates, existing, results);
+        
+        // Usernames of parents available for linking, with their ids once inserted
+        Map<String, Long> parentIds = new HashMap<>();
+        existing.values().stream()
+                .filter(user -> user.role() == UserRole.PARENT)
+                .forEach(user -> parentIds.put(user.username(), user.id()));
+        candidates = rejectUnknownParents(candidates, existing, results);
+        candidates.sort(Comparator.comparing((Candidate candidate) -> candidate.role() != UserRole.PARENT));
+        
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        try (ExecutorService hashPool = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("roster-hash-", 0).daemon().factory())) {
+            candidates.forEach(candidate -> candidate.hash = CompletableFuture.supplyAsync(
+                    () -> passwordEncoder.encode(candidate.entry().password()), hashPool));
+            
+            for (int from = 0; from < candidates.size(); from += batchSize) {
+                List<Candidate> batch = hashed(candidates.subList(from, Math.min(from + batchSize, candidates.size())), results);
+                insertOrRetry(batch, parentIds, results);
+            }
+        }
+        
+        return entries.stream().map(results::get).toList();
+    }
+    
+    private List<Candidate> validate(List<RosterEntry> entries, Map<RosterEntry, ProvisioningResult> results) {
+        List<Candidate> candidates = new ArrayList<>();
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (RosterEntry entry : entries) {
+            UserRole role = parseRole(entry.role());
+            RegisterRequest request = new RegisterRequest();
+            request.setUsername(entry.username());
+            request.setEmail(entry.email());
+            request.setPassword(entry.password());
+            request.setRole(role);
+            
+            List<String> problems = validator.validate(request).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+            if (entry.role() != null && role == null) {
+                problems.remove("Role is required");
+                problems.add("Invalid role " + entry.role());
+            }
+            if (role == UserRole.PARENT && entry.parent() != null) {
+                problems.add("Only children can have a parent");
+            }
+            String problem = String.join("; ", problems);
+            if (problem.isEmpty() && !usernames.add(entry.username())) {
+                problem = "Username appears earlier in the roster";
+            }
+            if (problem.isEmpty() && !emails.add(entry.email())) {
+                problem = "Email appears earlier in the roster";
+            }
+            
+            if (problem.isEmpty()) {
+                candidates.add(new Candidate(entry, role));
+            } else {
+                results.put(entry, result(entry, Status.FAILED, null, null, problem));
+            }
+        }
+        return candidates;
+    }
+    
+    private Map<String, ExistingUser> findExisting(List<Candidate> candidates) {
+        Map<String, ExistingUser> existing = new HashMap<>();
+        for (int from = 0; from < candidates.size(); from += LOOKUP_CHUNK) {
+            List<Candidate> chunk = candidates.subList(from, Math.min(from + LOOKUP_CHUNK, candidates.size()));
+            // Parents referenced by the entries are looked up in the same query
+            Set<String> usernames = new LinkedHashSet<>();
+            chunk.forEach(candidate -> {
+                usernames.add(candidate.entry().username());
+                if (candidate.entry().parent() != null) {
+                    usernames.add(candidate.entry().parent());
+                }
+            });
+            List<String> emails = chunk.stream().map(candidate -> candidate.entry().email()).toList();
+            
+            List<Object> arguments = new ArrayList<>(usernames);
+            arguments.addAll(emails);
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                    "SELECT id, username, email, role FROM users WHERE username IN (" + placeholders(usernames.size())
+                            + ") OR email IN (" + placeholders(emails.size()) + ")",
+                    (RowCallbackHandler) rs -> {
+                        ExistingUser user = new ExistingUser(rs.getLong("id"), rs.getString("username"),
+                                rs.getString("email"), UserRole.valueOf(rs.getString("role")));
+                        existing.put(user.username(), user);
+                    },
+                    arguments.toArray()));
+        }
+        return existing;
+    }
+    
+    private List<Candidate> rejectExisting(List<Candidate> candidates, Map<String, ExistingUser> existing,
+                                           Map<RosterEntry, ProvisioningResult> results) {
+        Set<String> takenEmails = existing.values().stream().map(ExistingUser::email).collect(Collectors.toSet());
+        List<Candidate> remaining = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            RosterEntry entry = candidate.entry();
+            if (existing.containsKey(entry.username())) {
+                results.put(entry, result(entry, Status.SKIPPED, null, null, "Username already exists"));
+            } else if (takenEmails.contains(entry.email())) {
+                results.put(entry, result(entry, Status.SKIPPED, null, null, "Email already exists"));
+            } else {
+                remaining.add(candidate);
+            }
+        }
+        return remaining;
+    }
+    
+    private List<Candidate> rejectUnknownParents(List<Candidate> candidates, Map<String, ExistingUser> existing,
+                                                 Map<RosterEntry, ProvisioningResult> results) {
+        Set<String> rosterParents = candidates.stream()
+                .filter(candidate -> candidate.role() == UserRole.PARENT)
+                .map(candidate -> candidate.entry().username())
+                .collect(Collectors.toSet());
+        List<Candidate> remaining = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            String parent = candidate.entry().parent();
+            ExistingUser existingParent = parent == null ? null : existing.get(parent);
+            String problem = null;
+            if (parent != null && !rosterParents.contains(parent)) {
+                if (existingParent == null) {
+                    problem = "Parent " + parent + " not found";
+                } else if (existingParent.role() != UserRole.PARENT) {
+                    problem = parent + " is not a parent";
+                }
+            }
+            if (problem == null) {
+                remaining.add(candidate);
+            } else {
+                results.put(candidate.entry(), result(candidate.entry(), Status.FAILED, null, null, problem));
+            }
+        }
+        return remaining;
+    }
+    
+    // Waits for the batch's hashes outside any transaction, so no connection is held meanwhile
+    private List<Candidate> hashed(List<Candidate> batch, Map<RosterEntry, ProvisioningResult> results) {
+        List<Candidate> hashed = new ArrayList<>();
+        for (Candidate candidate : batch) {
+            try {
+                candidate.hash.join();
+                hashed.add(candidate);
+            } catch (CompletionException ex) {
+                results.put(candidate.entry(), result(candidate.entry(), Status.FAILED, null, null,
+                        "Password could not be hashed: " + ex.getCause().getMessage()));
+            }
+        }
+        return hashed;
+    }
+    
+    private void insertOrRetry(List<Candidate> batch, Map<String, Long> parentIds,
+                               Map<RosterEntry, ProvisioningResult> results) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<Candidate, ProvisioningResult> inserted;
+        try {
+            inserted = transactionTemplate.execute(status -> insert(batch, parentIds));
+        } catch (DataIntegrityViolationException ex) {
+            if (batch.size() > 1) {
+                log.info("Roster batch from line {} conflicts with existing accounts, inserting its entries one by one",
+                        batch.get(0).entry().line());
+                batch.forEach(candidate -> insertOrRetry(List.of(candidate), parentIds, results));
+            } else {
+                RosterEntry entry = batch.get(0).entry();
+                results.put(entry, result(entry, Status.SKIPPED, null, null, "Username or email already exists"));
+            }
+            return;
+        }
+        
+        // Only committed parents become available to later batches
+        inserted.forEach((candidate, result) -> {
+            results.put(candidate.entry(), result);
+            if (result.status() == Status.CREATED && candidate.role() == UserRole.PARENT) {
+                parentIds.put(result.username(), result.userId());
+            }
+        });
+    }
+    
+    // The batch's parents are inserted before its children, which may be linked to them
+    private Map<Candidate, ProvisioningResult> insert(List<Candidate> batch, Map<String, Long> parentIds) {
+        Map<Candidate, ProvisioningResult> results = new HashMap<>();
+        List<Candidate> parents = batch.stream().filter(candidate -> candidate.role() == UserRole.PARENT).toList();
+        Map<String, Long> parentUserIds = insertUsers(parents);
+        for (Candidate parent : parents) {
+            results.put(parent, result(parent.entry(), Status.CREATED, parentUserIds.get(parent.entry().username()), null, null));
+        }
+        
+        Map<String, Long> linkable = new HashMap<>(parentIds);
+        linkable.putAll(parentUserIds);
+        List<Candidate> children = new ArrayList<>();
+        for (Candidate candidate : batch) {
+            if (candidate.role() != UserRole.CHILD) {
+                continue;
+            }
+            String parent = candidate.entry().parent();
+            if (parent != null && !linkable.containsKey(parent)) {
+                results.put(candidate, result(candidate.entry(), Status.FAILED, null, null,
+                        "Parent " + parent + " was not created"));
+            } else {
+                children.add(candidate);
+            }
+        }
+        
+        Map<String, Long> childUserIds = insertUsers(children);
+        List<Object[]> rows = new ArrayList<>();
+        for (Candidate child : children) {
+            Long userId = childUserIds.get(child.entry().username());
+            String parent = child.entry().parent();
+            rows.add(new Object[]{userId, parent == null ? null : linkable.get(parent), shardDirectory.placeChild(userId), false});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO children (user_id, parent_id, shard_id, shard_moving) VALUES (?, ?, ?, ?)", rows);
+        Map<Long, Long> childIds = new HashMap<>();
+        if (!children.isEmpty()) {
+            jdbcTemplate.query("SELECT id, user_id FROM children WHERE user_id IN (" + placeholders(children.size()) + ")",
+                    (RowCallbackHandler) rs -> childIds.put(rs.getLong("user_id"), rs.getLong("id")),
+                    childUserIds.values().toArray());
+        }
+        
+        for (Candidate child : children) {
+            Long userId = childUserIds.get(child.entry().username());
+            results.put(child, result(child.entry(), Status.CREATED, userId, childIds.get(userId), null));
+        }
+        return results;
+    }
+    
+    private Map<String, Long> insertUsers(List<Candidate> candidates) {
+        if (candidates.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, email, password, role, created_at) VALUES (?, ?, ?, ?, ?)",
+                candidates.stream()
+                        .map(candidate -> new Object[]{candidate.entry().username(), candidate.entry().email(),
+                                candidate.hash.join(), candidate.role().name(), now})
+                        .toList());
+        
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, username FROM users WHERE username IN (" + placeholders(candidates.size()) + ")",
+                (RowCallbackHandler) rs -> ids.put(rs.getString("username"), rs.getLong("id")),
+                candidates.stream().map(candidate -> candidate.entry().username()).toArray());
+        return ids;
+    }
+    
+    private static UserRole parseRole(String role) {
+        if (role == null) {
+            return null;
+        }
+        try {
+            return UserRole.valueOf(role.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+    
+    private static ProvisioningResult result(RosterEntry entry, Status status, Long userId, Long childId, String message) {
+        return new ProvisioningResult(entry.line(), entry.username(), entry.role(), status, userId, childId,
+                entry.parent(), message);
+    }
+    
+    private static final class Candidate {
+        
+        private final RosterEntry entry;
+        private final UserRole role;
+        private CompletableFuture<String> hash;
+        
+        Candidate(RosterEntry entry, UserRole role) {
+            this.entry = entry;
+            this.role = role;
+        }
+        
+        RosterEntry entry() {
+            return entry;
+        }
+        
+        UserRole role() {
+            return role;
+        }
+    }
+    
+    private record ExistingUser(Long id, String username, String email, UserRole role) {
+    }
+}
@@ -0,0 +1,4 @@
+package com.hissam.notesapp.reactive;
+
+public record ChildRow(Long id, Long userId, Long parentId, int shardId, String username, String email) {
+}
@@ -0,0 +1,105 @@
+package com.hissam.notesapp.reactive;
+
+import com.hissam.notesapp.dto.ChildResponse;
+import com.hissam.notesapp.dto.FolderResponse;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.exception.ErrorResponse;
+import com.hissam.notesapp.exception.ResourceNotFoundException;
+import com.hissam.notesapp.exception.UnauthorizedException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read-only routes of the reactive API. Lists are streamed as a JSON array, or as
+ * newline-delimited JSON when the client accepts application/x-ndjson; either way rows are
+ * only pulled from the database as fast as the client reads the response.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactiveReadHandler {
+    
+    private final ReactiveReadService readService;
+    
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/notes", this::getUserNotes)
+                .GET("/notes/children", this::getLinkedChildrenNotes)
+                .GET("/notes/child/{childId}", this::getChildNotes)
+                .GET("/folders", this::getUserFolders)
+                .GET("/children", this::getLinkedChildren)
+                .onError(ResourceNotFoundException.class,
+                        (ex, request) -> error(HttpStatus.NOT_FOUND, "Not Found", ex, request))
+                .onError(UnauthorizedException.class,
+                        (ex, request) -> error(HttpStatus.FORBIDDEN, "Forbidden", ex, request))
+                .build();
+    }
+    
+    private Mono<ServerResponse> getUserNotes(ServerRequest request) {
+        return readService.findChild(username(request), "Only children can access their notes")
+                .flatMap(child -> stream(request, readService.notesOf(List.of(child)), NoteResponse.class));
+    }
+    
+    private Mono<ServerResponse> getChildNotes(ServerRequest request) {
+        Long childId = Long.valueOf(request.pathVariable("childId"));
+        return readService.findLinkedChild(username(request), childId)
+                .flatMap(child -> stream(request, readService.notesOf(List.of(child)), NoteResponse.class));
+    }
+    
+    private Mono<ServerResponse> getLinkedChildrenNotes(ServerRequest request) {
+        return readService.findLinkedChildren(username(request))
+                .flatMap(children -> stream(request, readService.notesOf(children), NoteResponse.class));
+    }
+    
+    private Mono<ServerResponse> getUserFolders(ServerRequest request) {
+        return readService.findChild(username(request), "Only children can access folders")
+                .flatMap(child -> stream(request, readService.foldersOf(child), FolderResponse.class));
+    }
+    
+    private Mono<ServerResponse> getLinkedChildren(ServerRequest request) {
+        return readService.findLinkedChildren(username(request))
+                .flatMap(children -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(children.stream().map(ReactiveReadService::toChildResponse).toList()));
+    }
+    
+    private static <T> Mono<ServerResponse> stream(ServerRequest request, Publisher<T> items, Class<T> type) {
+        MediaType contentType = request.headers().accept().contains(MediaType.APPLICATION_NDJSON)
+                ? MediaType.APPLICATION_NDJSON
+                : MediaType.APPLICATION_JSON;
+        return ServerResponse.ok().contentType(contentType).body(items, type);
+    }
+    
+    /**
+     * The servlet security filters have already authenticated the request; the handler runs on
+     * the request thread before the exchange goes asynchronous, so the principal is available.
+     */
+    private static String username(ServerRequest request) {
+        HttpServletRequest servletRequest = ServerHttpRequestDecorator.getNativeRequest(request.exchange().getRequest());
+        Principal principal = servletRequest.getUserPrincipal();
+        if (principal == null) {
+            throw new UnauthorizedException("Authentication required");
+        }
+        return principal.getName();
+    }
+    
+    private static Mono<ServerResponse> error(HttpStatus status, String reason, Throwable ex, ServerRequest request) {
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ErrorResponse(LocalDateTime.now(), status.value(), reason, ex.getMessage(),
+                        request.requestPath().value()));
+    }
+}
@@ -0,0 +1,166 @@
+package com.hissam.notesapp.reactive;
+
+import com.hissam.notesapp.dto.ChildResponse;
+import com.hissam.notesapp.dto.FolderResponse;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.enums.NoteType;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.exception.ResourceNotFoundException;
+import com.hissam.notesapp.exception.UnauthorizedException;
+import com.hissam.notesapp.service.ChildAccessRules;
+import com.hissam.notesapp.sharding.ShardContext;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of the read paths in NoteService and FolderService, querying the
+ * same tables over R2DBC. Lookups resolve to a Mono that fails with the same exceptions as the
+ * servlet services, so ownership is settled before any item is streamed.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveReadService {
+    
+    private static final String CHILD_COLUMNS =
+            "SELECT c.id, c.user_id, c.parent_id, c.shard_id, u.username, u.email FROM children c JOIN users u ON u.id = c.user_id ";
+    private static final String NOTE_COLUMNS =
+            "SELECT id, title, content, note_type, child_id, folder_id, tags, completed, pinned, checklist_total, checklist_checked, "
+                    + "created_at, updated_at FROM notes ";
+    
+    private final ReactiveShardConnections connections;
+    
+    public Mono<ChildRow> findChild(String username, String nonChildMessage) {
+        return connections.client(ShardContext.DEFAULT_SHARD)
+                .sql(CHILD_COLUMNS + "WHERE u.username = :username")
+                .bind("username", username)
+                .map(ReactiveReadService::toChild)
+                .one()
+                .switchIfEmpty(Mono.defer(() -> findRole(username)
+                        .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("User not found")))
+                        .flatMap(role -> Mono.error(role != UserRole.CHILD
+                                ? new UnauthorizedException(nonChildMessage)
+                                : new ResourceNotFoundException("Child profile not found")))));
+    }
+    
+    public Mono<ChildRow> findLinkedChild(String parentUsername, Long childId) {
+        return findParentId(parentUsername)
+                .flatMap(parentId -> connections.client(ShardContext.DEFAULT_SHARD)
+                        .sql(CHILD_COLUMNS + "WHERE c.id = :childId")
+                        .bind("childId", childId)
+                        .map(ReactiveReadService::toChild)
+                        .one()
+                        .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Child not found")))
+                        .doOnNext(child -> ChildAccessRules.requireLinked(child.parentId(), parentId)));
+    }
+    
+    public Mono<List<ChildRow>> findLinkedChildren(String parentUsername) {
+        return findParentId(parentUsername)
+                .flatMap(parentId -> connections.client(ShardContext.DEFAULT_SHARD)
+                        .sql(CHILD_COLUMNS + "WHERE c.parent_id = :parentId")
+                        .bind("parentId", parentId)
+                        .map(ReactiveReadService::toChild)
+                        .all()
+                        .collectList());
+    }
+    
+    /**
+     * Notes of the given children, queried on all their shards at once and streamed as rows arrive.
+     */
+    public Flux<NoteResponse> notesOf(List<ChildRow> children) {
+        Map<Integer, List<Long>> childIdsByShard = children.stream()
+                .collect(Collectors.groupingBy(ChildRow::shardId,
+                        Collectors.mapping(ChildRow::id, Collectors.toList())));
+        
+        return Flux.fromIterable(childIdsByShard.entrySet())
+                .flatMap(entry -> connections.client(entry.getKey())
+                        .sql(NOTE_COLUMNS + "WHERE child_id IN (:childIds)")
+                        .bind("childIds", entry.getValue())
+                        .map(ReactiveReadService::toNote)
+                        .all());
+    }
+    
+    public Flux<FolderResponse> foldersOf(ChildRow child) {
+        return connections.client(child.shardId())
+                .sql("SELECT f.id, f.name, f.child_id, f.parent_id, f.created_at, "
+                        + "(SELECT COUNT(*) FROM folder_closure c JOIN notes n ON n.folder_id = c.descendant_id "
+                        + "WHERE c.ancestor_id = f.id) AS note_count "
+                        + "FROM folders f WHERE f.child_id = :childId")
+                .bind("childId", child.id())
+                .map(row -> FolderResponse.builder()
+                        .id(row.get("id", Long.class))
+                        .name(row.get("name", String.class))
+                        .childId(row.get("child_id", Long.class))
+                        .parentId(row.get("parent_id", Long.class))
+                        .noteCount(row.get("note_count", Long.class))
+                        .createdAt(row.get("created_at", LocalDateTime.class))
+                        .build())
+                .all();
+    }
+    
+    public static ChildResponse toChildResponse(ChildRow child) {
+        return ChildResponse.builder()
+                .id(child.id())
+                .userId(child.userId())
+                .username(child.username())
+                .email(child.email())
+                .build();
+    }
+    
+    private Mono<Long> findParentId(String parentUsername) {
+        return connections.client(ShardContext.DEFAULT_SHARD)
+                .sql("SELECT id, role FROM users WHERE username = :username")
+                .bind("username", parentUsername)
+                .map(row -> {
+                    ChildAccessRules.requireParent(UserRole.valueOf(row.get("role", String.class)));
+                    return row.get("id", Long.class);
+                })
+                .one()
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Parent not found")));
+    }
+    
+    private Mono<UserRole> findRole(String username) {
+        return connections.client(ShardContext.DEFAULT_SHARD)
+                .sql("SELECT role FROM users WHERE username = :username")
+                .bind("username", username)
+                .map(row -> UserRole.valueOf(row.get("role", String.class)))
+                .one();
+    }
+    
+    private static ChildRow toChild(Readable row) {
+        return new ChildRow(
+                row.get("id", Long.class),
+                row.get("user_id", Long.class),
+                row.get("parent_id", Long.class),
+                row.get("shard_id", Integer.class),
+                row.get("username", String.class),
+                row.get("email", String.class));
+    }
+    
+    private static NoteResponse toNote(Readable row) {
+        String noteType = row.get("note_type", String.class);
+        return NoteResponse.builder()
+                .id(row.get("id", Long.class))
+                .title(row.get("title", String.class))
+                .content(row.get("content", String.class))
+                .noteType(noteType == null ? null : NoteType.valueOf(noteType))
+                .childId(row.get("child_id", Long.class))
+                .folderId(row.get("folder_id", Long.class))
+                .tags(row.get("tags", String.class))
+                .completed(row.get("completed", Boolean.class))
+                .pinned(row.get("pinned", Boolean.class))
+                .checklistTotal(row.get("checklist_total", Integer.class))
+                .checklistChecked(row.get("checklist_checked", Integer.class))
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .updatedAt(row.get("updated_at", LocalDateTime.class))
+                .archived(false)
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.hissam.notesapp.reactive;
+
+import com.hissam.notesapp.sharding.ShardContext;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * R2DBC connection pools for the primary (shard 0) and every configured shard. H2 URLs are
+ * derived from the JDBC settings; other databases need their R2DBC URLs in app.reactive.r2dbc-urls.
+ */
+@Component
+public class ReactiveShardConnections implements DisposableBean {
+    
+    private static final String H2_JDBC_PREFIX = "jdbc:h2:";
+    
+    private final Map<Integer, ConnectionPool> pools = new HashMap<>();
+    private final Map<Integer, DatabaseClient> clients = new HashMap<>();
+    
+    public ReactiveShardConnections(@Value("${spring.datasource.url}") String primaryUrl,
+                                    @Value("${spring.datasource.username:}") String username,
+                                    @Value("${spring.datasource.password:}") String password,
+                                    @Value("${app.sharding.shard-urls:}") String shardUrls,
+                                    @Value("${app.sharding.shard-username:}") String shardUsername,
+                                    @Value("${app.sharding.shard-password:}") String shardPassword,
+                                    @Value("${app.reactive.r2dbc-urls:}") String r2dbcUrls,
+                                    @Value("${app.reactive.pool-size:20}") int poolSize) {
+        String[] overrides = StringUtils.hasText(r2dbcUrls) ? r2dbcUrls.split(",") : new String[0];
+        
+        register(ShardContext.DEFAULT_SHARD, connectionFactory(primaryUrl, override(overrides, 0), username, password), poolSize);
+        if (StringUtils.hasText(shardUrls)) {
+            String[] urls = shardUrls.split(",");
+            for (int i = 0; i < urls.length; i++) {
+                int shardId = i + 1;
+                register(shardId, connectionFactory(urls[i].trim(), override(overrides, shardId), shardUsername, shardPassword), poolSize);
+            }
+        }
+    }
+    
+    public DatabaseClient client(int shardId) {
+        DatabaseClient client = clients.get(shardId);
+        if (client == null) {
+            throw new IllegalStateException("Unknown shard " + shardId);
+        }
+        return client;
+    }
+    
+    @Override
+    public void destroy() {
+        pools.values().forEach(ConnectionPool::dispose);
+    }
+    
+    private void register(int shardId, ConnectionFactory factory, int poolSize) {
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(factory)
+                .name("r2dbc-shard-" + shardId)
+                .initialSize(0)
+                .maxSize(poolSize)
+                .build());
+        pools.put(shardId, pool);
+        clients.put(shardId, DatabaseClient.create(pool));
+    }
+    
+    private static String override(String[] overrides, int shardId) {
+        return shardId < overrides.length ? overrides[shardId].trim() : null;
+    }
+    
+    private static ConnectionFactory connectionFactory(String jdbcUrl, String r2dbcUrl, String username, String password) {
+        if (StringUtils.hasText(r2dbcUrl)) {
+            ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(r2dbcUrl).mutate();
+            if (StringUtils.hasText(username)) {
+                options.option(ConnectionFactoryOptions.USER, username);
+                options.option(ConnectionFactoryOptions.PASSWORD, password);
+            }
+            return ConnectionFactories.get(options.build());
+        }
+        if (jdbcUrl.startsWith(H2_JDBC_PREFIX)) {
+            // Same H2 engine as the JDBC pool, so the URL opens the same in-process database
+            return new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                    .url(jdbcUrl.substring(H2_JDBC_PREFIX.length()))
+                    .username(username)
+                    .password(password)
+                    .build());
+        }
+        throw new IllegalStateException("No R2DBC URL configured for " + jdbcUrl + ", set app.reactive.r2dbc-urls");
+    }
+}
@@ -0,0 +1,22 @@
+package com.hissam.notesapp.repository;
+
+import com.hissam.notesapp.entity.Attachment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
+    @Query("SELECT a FROM Attachment a WHERE a.noteId = :noteId ORDER BY a.id")
+    List<Attachment> findByNoteId(@Param("noteId") Long noteId);
+    
+    @Query("SELECT a FROM Attachment a WHERE a.id = :attachmentId AND a.noteId = :noteId")
+    Optional<Attachment> findInNote(@Param("noteId") Long noteId, @Param("attachmentId") Long attachmentId);
+    
+    @Query("SELECT DISTINCT a.sha256 FROM Attachment a WHERE a.sha256 IN :hashes")
+    List<String> findReferencedHashes(@Param("hashes") Collection<String> hashes);
+}
@@ -0,0 +1,30 @@
+package com.hissam.notesapp.repository;
+
+import com.hissam.notesapp.entity.CacheInvalidation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidation, Long> {
+    // Read-write so the poll goes to the primary rather than a lagging replica
+    @Transactional
+    @Query("SELECT i FROM CacheInvalidation i WHERE i.id > :id ORDER BY i.id")
+    List<CacheInvalidation> findAfterOnPrimary(@Param("id") Long id, Pageable pageable);
+    
+    @Transactional
+    @Query("SELECT MAX(i.id) FROM CacheInvalidation i")
+    Optional<Long> findLatestIdOnPrimary();
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CacheInvalidation i WHERE i.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,54 @@
+package com.hissam.notesapp.repository;
+
+import com.hissam.notesapp.entity.ChecklistItem;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ChecklistItemRepository extends JpaRepository<ChecklistItem, Long> {
+    @Query("SELECT i FROM ChecklistItem i WHERE i.note.id = :noteId ORDER BY i.position, i.id")
+    List<ChecklistItem> findByNoteId(@Param("noteId") Long noteId);
+    
+    @Query("SELECT i FROM ChecklistItem i WHERE i.id = :itemId AND i.note.id = :noteId")
+    Optional<ChecklistItem> findInNote(@Param("noteId") Long noteId, @Param("itemId") Long itemId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM ChecklistItem i WHERE i.id = :itemId AND i.note.id = :noteId")
+    Optional<ChecklistItem> findInNoteForUpdate(@Param("noteId") Long noteId, @Param("itemId") Long itemId);
+    
+    @Query("SELECT MAX(i.position) FROM ChecklistItem i WHERE i.note.id = :noteId")
+    Long findLastPosition(@Param("noteId") Long noteId);
+    
+    @Query("SELECT MIN(i.position) FROM ChecklistItem i WHERE i.note.id = :noteId AND i.id <> :excludedId")
+    Long findFirstPosition(@Param("noteId") Long noteId, @Param("excludedId") Long excludedId);
+    
+    @Query("SELECT MIN(i.position) FROM ChecklistItem i "
+            + "WHERE i.note.id = :noteId AND i.position > :position AND i.id <> :excludedId")
+    Long findNextPosition(@Param("noteId") Long noteId, @Param("position") Long position,
+                          @Param("excludedId") Long excludedId);
+    
+    // Matches only when the state actually changes, so the caller knows whether to adjust the note's counts
+    @Modifying
+    @Query("UPDATE ChecklistItem i SET i.checked = :checked, i.checkedAt = :checkedAt "
+            + "WHERE i.id = :itemId AND i.note.id = :noteId AND i.childId = :childId AND i.checked <> :checked")
+    int updateChecked(@Param("noteId") Long noteId, @Param("itemId") Long itemId, @Param("childId") Long childId,
+                      @Param("checked") boolean checked, @Param("checkedAt") LocalDateTime checkedAt);
+    
+    @Modifying
+    @Query("UPDATE ChecklistItem i SET i.content = :content "
+            + "WHERE i.id = :itemId AND i.note.id = :noteId AND i.childId = :childId")
+    int updateContent(@Param("noteId") Long noteId, @Param("itemId") Long itemId,
+                      @Param("childId") Long childId, @Param("content") String content);
+    
+    @Modifying
+    @Query("UPDATE ChecklistItem i SET i.position = :position WHERE i.id = :itemId")
+    int updatePosition(@Param("itemId") Long itemId, @Param("position") Long position);
+}
@@ -3,13 +3,23 @@ package com.hissam.notesapp.repository;
 import com.hissam.notesapp.entity.Child;
 import com.hissam.notesapp.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ChildRepository extends JpaRepository<Child, Long> {
     Optional<Child> findByUser(User user);
+    Optional<Child> findByUserUsername(String username);
     Optional<Child> findByUserId(Long userId);
     List<Child> findByParentId(Long parentId);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE Child c SET c.shardId = :shardId, c.shardMoving = :moving WHERE c.id = :childId")
+    int updateShard(@Param("childId") Long childId, @Param("shardId") Integer shardId, @Param("moving") Boolean moving);
 }
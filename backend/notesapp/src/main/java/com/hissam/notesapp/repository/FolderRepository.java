@@ -1,11 +1,62 @@
 package com.hissam.notesapp.repository;
 
 import com.hissam.notesapp.entity.Folder;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
+// Subtree statements select the subtree from folder_closure, so each runs once whatever the depth.
+// Self-referencing deletes and inserts go through a derived table, which MySQL requires.
 @Repository
 public interface FolderRepository extends JpaRepository<Folder, Long>{
-    List<Folder> findByChildId(Long childId);
+    @Query("SELECT f FROM Folder f WHERE f.child.id = :childId")
+    List<Folder> findByChildId(@Param("childId") Long childId);
+    
+    // Serializes changes to one child's tree, so concurrent moves cannot form a cycle
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Folder f WHERE f.child.id = :childId")
+    List<Folder> lockTree(@Param("childId") Long childId);
+    
+    @Query("SELECT COUNT(c) > 0 FROM FolderClosure c WHERE c.ancestorId = :ancestorId AND c.descendantId = :descendantId")
+    boolean isInSubtree(@Param("ancestorId") Long ancestorId, @Param("descendantId") Long descendantId);
+    
+    // A new folder starts as its own subtree; attachSubtree then places it under its parent
+    @Modifying
+    @Query(value = "INSERT INTO folder_closure (ancestor_id, descendant_id, depth, child_id) "
+            + "VALUES (:folderId, :folderId, 0, :childId)", nativeQuery = true)
+    int addRoot(@Param("folderId") Long folderId, @Param("childId") Long childId);
+    
+    // Cuts every path from above the folder into its subtree; paths inside the subtree are kept
+    @Modifying
+    @Query(value = "DELETE FROM folder_closure "
+            + "WHERE ancestor_id IN (SELECT a.ancestor_id FROM (SELECT ancestor_id FROM folder_closure "
+            + "WHERE descendant_id = :folderId AND depth > 0) a) "
+            + "AND descendant_id IN (SELECT d.descendant_id FROM (SELECT descendant_id FROM folder_closure "
+            + "WHERE ancestor_id = :folderId) d)", nativeQuery = true)
+    int detachSubtree(@Param("folderId") Long folderId);
+    
+    // Pairs every ancestor of the new parent (itself included) with every folder of the subtree
+    @Modifying
+    @Query(value = "INSERT INTO folder_closure (ancestor_id, descendant_id, depth, child_id) "
+            + "SELECT above.ancestor_id, below.descendant_id, above.depth + below.depth + 1, below.child_id "
+            + "FROM (SELECT ancestor_id, depth FROM folder_closure WHERE descendant_id = :parentId) above "
+            + "CROSS JOIN (SELECT descendant_id, depth, child_id FROM folder_closure WHERE ancestor_id = :folderId) below",
+            nativeQuery = true)
+    int attachSubtree(@Param("folderId") Long folderId, @Param("parentId") Long parentId);
+    
+    // Run after NoteRepository.deleteInSubtree and before deleteSubtreeClosure, which the subquery reads
+    @Modifying
+    @Query(value = "DELETE FROM folders WHERE id IN "
+            + "(SELECT descendant_id FROM folder_closure WHERE ancestor_id = :folderId)", nativeQuery = true)
+    int deleteSubtreeFolders(@Param("folderId") Long folderId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM folder_closure WHERE descendant_id IN (SELECT d.descendant_id FROM "
+            + "(SELECT descendant_id FROM folder_closure WHERE ancestor_id = :folderId) d)", nativeQuery = true)
+    int deleteSubtreeClosure(@Param("folderId") Long folderId);
 }
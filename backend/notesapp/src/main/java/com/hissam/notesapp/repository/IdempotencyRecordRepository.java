@@ -0,0 +1,56 @@
+package com.hissam.notesapp.repository;
+
+import com.hissam.notesapp.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    // Read-write so the lookup goes to the primary, where a concurrent reservation is visible
+    @Transactional
+    @Query("SELECT r FROM IdempotencyRecord r WHERE r.keyHash = :keyHash")
+    Optional<IdempotencyRecord> findOnPrimary(@Param("keyHash") String keyHash);
+    
+    /**
+     * Fails with a constraint violation when another request holds the key.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys (key_hash, request_hash, expires_at) VALUES (:keyHash, :requestHash, :expiresAt)",
+            nativeQuery = true)
+    int reserve(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash,
+                @Param("expiresAt") LocalDateTime expiresAt);
+    
+    /**
+     * Reserves a key whose previous record has expired; only one of several racing requests succeeds.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.requestHash = :requestHash, r.statusCode = NULL, r.responseBody = NULL, "
+            + "r.expiresAt = :expiresAt WHERE r.keyHash = :keyHash AND r.expiresAt <= :now")
+    int takeOver(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash,
+                 @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.responseBody = :responseBody, "
+            + "r.expiresAt = :expiresAt WHERE r.keyHash = :keyHash")
+    int complete(@Param("keyHash") String keyHash, @Param("statusCode") int statusCode,
+                 @Param("responseBody") String responseBody, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.keyHash = :keyHash AND r.statusCode IS NULL")
+    int release(@Param("keyHash") String keyHash);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
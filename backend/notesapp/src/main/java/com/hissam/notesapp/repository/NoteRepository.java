@@ -1,14 +1,137 @@
 package com.hissam.notesapp.repository;
 
-
 import com.hissam.notesapp.entity.Note;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+// Filters on the child_id column directly: children live on the primary, so a join would find nothing on other shards
 @Repository
-public interface NoteRepository extends JpaRepository<Note, Long> {
-    List<Note> findByChildId(Long childId);
-    List<Note> findByChildIdAndFolderId(Long childId, Long folderId);
-    List<Note> findByChildIdAndFolderIsNull(Long childId);
+public interface NoteRepository extends JpaRepository<Note, Long>, JpaSpecificationExecutor<Note>, NoteRepositoryCustom {
+    // Done (completed, or every checklist item ticked), not pinned, without attachments, created before
+    // createdBefore and unchanged since inactiveSince; such notes are moved to the archive by NoteArchiver
+    String ARCHIVABLE = "(n.completed = TRUE OR (n.checklistTotal > 0 AND n.checklistChecked = n.checklistTotal)) "
+            + "AND n.pinned = FALSE AND n.createdAt < :createdBefore AND n.updatedAt < :inactiveSince "
+            + "AND NOT EXISTS (SELECT a.id FROM Attachment a WHERE a.noteId = n.id)";
+    
+    @Query("SELECT n FROM Note n WHERE n.child.id = :childId")
+    List<Note> findByChildId(@Param("childId") Long childId);
+    
+    @Query("SELECT n FROM Note n WHERE n.child.id IN :childIds")
+    List<Note> findByChildIdIn(@Param("childIds") Collection<Long> childIds);
+    
+    @Query("SELECT n FROM Note n WHERE n.child.id = :childId AND n.folder.id = :folderId")
+    List<Note> findByChildIdAndFolderId(@Param("childId") Long childId, @Param("folderId") Long folderId);
+    
+    @Query("SELECT n FROM Note n WHERE n.child.id = :childId AND n.folder IS NULL")
+    List<Note> findByChildIdAndFolderIsNull(@Param("childId") Long childId);
+    
+    // Notes in each folder including its subfolders, for every folder of the child holding any
+    @Query("SELECT c.ancestorId AS folderId, COUNT(n) AS noteCount FROM FolderClosure c, Note n "
+            + "WHERE c.childId = :childId AND n.folder.id = c.descendantId GROUP BY c.ancestorId")
+    List<FolderNoteCount> countBySubtree(@Param("childId") Long childId);
+    
+    @Query("SELECT COUNT(n) FROM FolderClosure c, Note n WHERE c.ancestorId = :folderId AND n.folder.id = c.descendantId")
+    long countInSubtree(@Param("folderId") Long folderId);
+    
+    // Checklist items, revisions and attachments go with their notes through ON DELETE CASCADE
+    @Modifying
+    @Query(value = "DELETE FROM notes WHERE folder_id IN "
+            + "(SELECT descendant_id FROM folder_closure WHERE ancestor_id = :folderId)", nativeQuery = true)
+    int deleteInSubtree(@Param("folderId") Long folderId);
+    
+    // Rank keys of a folder's notes in one pin group from the given key on, for placing a note between two others
+    @Query("SELECT n.rankKey FROM Note n WHERE n.child.id = :childId AND n.folder.id = :folderId AND n.pinned = :pinned "
+            + "AND n.rankKey >= :fromKey AND n.id NOT IN :excludedIds ORDER BY n.rankKey")
+    List<String> findRanksFrom(@Param("childId") Long childId, @Param("folderId") Long folderId,
+                               @Param("pinned") boolean pinned, @Param("fromKey") String fromKey,
+                               @Param("excludedIds") Collection<Long> excludedIds, Limit limit);
+    
+    @Query("SELECT n.rankKey FROM Note n WHERE n.child.id = :childId AND n.folder IS NULL AND n.pinned = :pinned "
+            + "AND n.rankKey >= :fromKey AND n.id NOT IN :excludedIds ORDER BY n.rankKey")
+    List<String> findUnfiledRanksFrom(@Param("childId") Long childId, @Param("pinned") boolean pinned,
+                                      @Param("fromKey") String fromKey,
+                                      @Param("excludedIds") Collection<Long> excludedIds, Limit limit);
+    
+    @Query("SELECT n.rankKey FROM Note n WHERE n.id = :noteId")
+    String findRankKey(@Param("noteId") Long noteId);
+    
+    // Read as values rather than entities, so keys rewritten earlier in the transaction are seen
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n.id AS id, n.pinned AS pinned, n.rankKey AS rankKey FROM Note n "
+            + "WHERE n.child.id = :childId AND n.folder.id = :folderId")
+    List<RankedNote> findRanksForUpdate(@Param("childId") Long childId, @Param("folderId") Long folderId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n.id AS id, n.pinned AS pinned, n.rankKey AS rankKey FROM Note n "
+            + "WHERE n.child.id = :childId AND n.folder IS NULL")
+    List<RankedNote> findUnfiledRanksForUpdate(@Param("childId") Long childId);
+    
+    // Moving a note is not an edit, so updated_at is left alone
+    @Modifying
+    @Query("UPDATE Note n SET n.rankKey = :rankKey WHERE n.id = :noteId")
+    int updateRank(@Param("noteId") Long noteId, @Param("rankKey") String rankKey);
+    
+    // Folders (null for unfiled) whose keys grew past maxLength or collide
+    @Query("SELECT n.child.id AS childId, n.folder.id AS folderId FROM Note n GROUP BY n.child.id, n.folder.id "
+            + "HAVING MAX(LENGTH(n.rankKey)) > :maxLength OR COUNT(n) > COUNT(DISTINCT n.rankKey)")
+    List<RankedFolder> findFoldersToRebalance(@Param("maxLength") int maxLength, Pageable pageable);
+    
+    // Serializes edits that add a revision, so each gets the next number
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n FROM Note n WHERE n.id = :noteId")
+    Optional<Note> findByIdForUpdate(@Param("noteId") Long noteId);
+    
+    @Modifying
+    @Query("UPDATE Note n SET n.checklistTotal = n.checklistTotal + :totalDelta, "
+            + "n.checklistChecked = n.checklistChecked + :checkedDelta, n.updatedAt = :now WHERE n.id = :noteId")
+    int adjustChecklistCounts(@Param("noteId") Long noteId, @Param("totalDelta") int totalDelta,
+                              @Param("checkedDelta") int checkedDelta, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT n.id AS id, n.child.id AS childId FROM Note n WHERE n.id > :afterId AND " + ARCHIVABLE + " ORDER BY n.id")
+    List<ArchivableNote> findArchivable(@Param("afterId") Long afterId, @Param("createdBefore") LocalDateTime createdBefore,
+                                        @Param("inactiveSince") LocalDateTime inactiveSince, Limit limit);
+    
+    // Checked again under the lock, as the note may have changed since it was picked
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n.id FROM Note n WHERE n.id = :noteId AND " + ARCHIVABLE)
+    Optional<Long> lockIfArchivable(@Param("noteId") Long noteId, @Param("createdBefore") LocalDateTime createdBefore,
+                                    @Param("inactiveSince") LocalDateTime inactiveSince);
+    
+    interface RankedNote {
+        Long getId();
+        
+        Boolean getPinned();
+        
+        String getRankKey();
+    }
+    
+    interface RankedFolder {
+        Long getChildId();
+        
+        Long getFolderId();
+    }
+    
+    interface ArchivableNote {
+        Long getId();
+        
+        Long getChildId();
+    }
+    
+    interface FolderNoteCount {
+        Long getFolderId();
+        
+        long getNoteCount();
+    }
 }
@@ -0,0 +1,10 @@
+package com.hissam.notesapp.repository;
+
+import java.util.Map;
+
+public interface NoteRepositoryCustom {
+    
+    // Issues a single UPDATE touching only the given attributes; the owning child is part
+    // of the WHERE clause, so a return value of 0 means missing or not owned.
+    int updateOwnedNote(Long noteId, Long childId, Map<String, Object> changes);
+}
@@ -0,0 +1,36 @@
+package com.hissam.notesapp.repository;
+
+import com.hissam.notesapp.entity.Note;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class NoteRepositoryImpl implements NoteRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    @Transactional
+    public int updateOwnedNote(Long noteId, Long childId, Map<String, Object> changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Note> update = cb.createCriteriaUpdate(Note.class);
+        Root<Note> note = update.from(Note.class);
+        
+        changes.forEach(update::set);
+        // Bulk updates bypass @UpdateTimestamp
+        update.set("updatedAt", LocalDateTime.now());
+        
+        update.where(
+                cb.equal(note.get("id"), noteId),
+                cb.equal(note.get("child").get("id"), childId));
+        
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
@@ -0,0 +1,40 @@
+package com.hissam.notesapp.repository;
+
+import com.hissam.notesapp.entity.NoteRevision;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NoteRevisionRepository extends JpaRepository<NoteRevision, Long> {
+    @Query("SELECT r FROM NoteRevision r WHERE r.noteId = :noteId ORDER BY r.revision DESC")
+    List<NoteRevision> findByNoteId(@Param("noteId") Long noteId);
+    
+    @Query("SELECT r FROM NoteRevision r WHERE r.noteId = :noteId ORDER BY r.revision DESC LIMIT 1")
+    Optional<NoteRevision> findLatest(@Param("noteId") Long noteId);
+    
+    @Query("SELECT MAX(r.revision) FROM NoteRevision r "
+            + "WHERE r.noteId = :noteId AND r.snapshot = true AND r.revision <= :revision")
+    Integer findSnapshotRevision(@Param("noteId") Long noteId, @Param("revision") int revision);
+    
+    // A snapshot and the deltas that follow it up to the given revision
+    @Query("SELECT r FROM NoteRevision r "
+            + "WHERE r.noteId = :noteId AND r.revision BETWEEN :fromRevision AND :toRevision ORDER BY r.revision")
+    List<NoteRevision> findChain(@Param("noteId") Long noteId, @Param("fromRevision") int fromRevision,
+                                 @Param("toRevision") int toRevision);
+    
+    @Query("SELECT r.noteId FROM NoteRevision r GROUP BY r.noteId "
+            + "HAVING MIN(r.createdAt) < :cutoff OR COUNT(r) > :maxPerNote ORDER BY r.noteId")
+    List<Long> findNotesToCompact(@Param("cutoff") LocalDateTime cutoff, @Param("maxPerNote") long maxPerNote,
+                                  Pageable pageable);
+    
+    @Modifying
+    @Query("DELETE FROM NoteRevision r WHERE r.noteId = :noteId AND r.revision < :revision")
+    int deleteBefore(@Param("noteId") Long noteId, @Param("revision") int revision);
+}
@@ -0,0 +1,195 @@
+package com.hissam.notesapp.repository;
+
+import com.hissam.notesapp.dto.NoteQuery;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.entity.FolderClosure;
+import com.hissam.notesapp.entity.Note;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Compiles a {@link NoteQuery} into a single query over one child's notes that an index can
+ * answer: idx_notes_child_folder when filtering by folder (probed once per subfolder, taken from
+ * folder_closure, when includeSubfolders is set), otherwise idx_notes_child_created or
+ * idx_notes_child_updated, which supply the date range and the order together, or
+ * idx_notes_child_title for sort=title. Type and completed are checked on the rows that index
+ * range returns. Combinations no index can serve
+ * (two date ranges, a date range with a folder, or a date range sorted on another field) are
+ * rejected instead of being run as a scan and sort. sort=position lists one folder in its
+ * user-defined order from idx_notes_child_folder_rank, continuing after a cursor note with afterId.
+ * include=archived adds the child's archived notes, which are read in full and filtered in memory.
+ */
+public final class NoteSpecifications {
+    
+    public static final int MAX_LIMIT = 1000;
+    
+    private static final Set<String> SORT_FIELDS = Set.of("createdAt", "updatedAt", "title");
+    
+    // User-defined order within one folder, served by idx_notes_child_folder_rank
+    private static final String POSITION = "position";
+    
+    private NoteSpecifications() {
+    }
+    
+    public static Specification<Note> matching(Long childId, NoteQuery query) {
+        validate(query);
+        
+        return (root, criteriaQuery, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("child").get("id"), childId));
+            
+            if (query.getFolderId() != null && Boolean.TRUE.equals(query.getIncludeSubfolders())) {
+                Subquery<Long> subtree = criteriaQuery.subquery(Long.class);
+                Root<FolderClosure> closure = subtree.from(FolderClosure.class);
+                subtree.select(closure.get("descendantId"))
+                        .where(cb.equal(closure.get("ancestorId"), query.getFolderId()));
+                predicates.add(root.get("folder").get("id").in(subtree));
+            } else if (query.getFolderId() != null) {
+                predicates.add(cb.equal(root.get("folder").get("id"), query.getFolderId()));
+            } else if (Boolean.TRUE.equals(query.getUnfiled())) {
+                predicates.add(cb.isNull(root.get("folder")));
+            }
+            addRange(predicates, cb, root.get("createdAt"), query.getCreatedFrom(), query.getCreatedTo());
+            addRange(predicates, cb, root.get("updatedAt"), query.getUpdatedFrom(), query.getUpdatedTo());
+            if (query.getNoteType() != null) {
+                predicates.add(cb.equal(root.get("noteType"), query.getNoteType()));
+            }
+            if (query.getCompleted() != null) {
+                predicates.add(cb.equal(root.get("completed"), query.getCompleted()));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+    
+    /**
+     * Applies the filters of the query to an archived note.
+     */
+    public static boolean matchesArchived(NoteQuery query, NoteResponse note) {
+        return (query.getFolderId() == null || query.getFolderId().equals(note.getFolderId()))
+                && (!Boolean.TRUE.equals(query.getUnfiled()) || note.getFolderId() == null)
+                && inRange(note.getCreatedAt(), query.getCreatedFrom(), query.getCreatedTo())
+                && inRange(note.getUpdatedAt(), query.getUpdatedFrom(), query.getUpdatedTo())
+                && (query.getNoteType() == null || query.getNoteType() == note.getNoteType())
+                && (query.getCompleted() == null || query.getCompleted().equals(note.getCompleted()));
+    }
+    
+    /**
+     * Notes listed after the cursor note in the position order: pinned first, then by rank key and id.
+     */
+    public static Specification<Note> afterPosition(Note cursor) {
+        return (root, criteriaQuery, cb) -> {
+            Path<Boolean> pinned = root.get("pinned");
+            Path<String> rankKey = root.get("rankKey");
+            return cb.or(
+                    cb.lessThan(pinned, cursor.getPinned()),
+                    cb.and(cb.equal(pinned, cursor.getPinned()), cb.or(
+                            cb.greaterThan(rankKey, cursor.getRankKey()),
+                            cb.and(cb.equal(rankKey, cursor.getRankKey()), cb.greaterThan(root.get("id"), cursor.getId())))));
+        };
+    }
+    
+    /**
+     * The requested order, defaulting to the filtered date field (or updatedAt), newest first.
+     */
+    public static Sort sort(NoteQuery query) {
+        if (POSITION.equals(query.getSort())) {
+            return Sort.by(Sort.Direction.DESC, "pinned").and(Sort.by("rankKey", "id"));
+        }
+        String field = rangeField(query);
+        Sort.Direction direction = Sort.Direction.DESC;
+        if (query.getSort() != null) {
+            String[] parts = query.getSort().split(",");
+            field = parts[0].trim();
+            if (parts.length > 1) {
+                direction = Sort.Direction.fromString(parts[1].trim().toUpperCase(Locale.ROOT));
+            }
+        }
+        return Sort.by(direction, field == null ? "updatedAt" : field).and(Sort.by(direction, "id"));
+    }
+    
+    private static void validate(NoteQuery query) {
+        if (query.getFolderId() != null && Boolean.TRUE.equals(query.getUnfiled())) {
+            throw new RuntimeException("Filter on either a folder or unfiled notes, not both");
+        }
+        if (Boolean.TRUE.equals(query.getIncludeSubfolders()) && query.getFolderId() == null) {
+            throw new RuntimeException("includeSubfolders requires a folderId");
+        }
+        if (query.hasCreatedRange() && query.hasUpdatedRange()) {
+            throw new RuntimeException("Filter on either created or updated dates, not both");
+        }
+        if (query.hasFolderFilter() && (query.hasCreatedRange() || query.hasUpdatedRange())) {
+            throw new RuntimeException("Date ranges cannot be combined with a folder filter");
+        }
+        checkOrder(query.getCreatedFrom(), query.getCreatedTo(), "createdFrom", "createdTo");
+        checkOrder(query.getUpdatedFrom(), query.getUpdatedTo(), "updatedFrom", "updatedTo");
+        
+        if (POSITION.equals(query.getSort())) {
+            if (!query.hasFolderFilter() || Boolean.TRUE.equals(query.getIncludeSubfolders())) {
+                throw new RuntimeException("sort=position needs a folderId or unfiled=true, without includeSubfolders");
+            }
+        } else if (query.getSort() != null) {
+            String[] parts = query.getSort().split(",");
+            boolean validDirection = parts.length == 1
+                    || (parts.length == 2 && Set.of("asc", "desc").contains(parts[1].trim().toLowerCase(Locale.ROOT)));
+            if (!SORT_FIELDS.contains(parts[0].trim()) || !validDirection) {
+                throw new RuntimeException("Unsupported sort '" + query.getSort()
+                        + "'; use position, or createdAt, updatedAt or title optionally followed by ,asc or ,desc");
+            }
+            String rangeField = rangeField(query);
+            if (rangeField != null && !rangeField.equals(parts[0].trim())) {
+                throw new RuntimeException("Notes filtered by " + rangeField + " must be sorted by " + rangeField);
+            }
+        }
+        if (query.getAfterId() != null && !POSITION.equals(query.getSort())) {
+            throw new RuntimeException("afterId can only be used with sort=position");
+        }
+        if (query.getLimit() != null && (query.getLimit() < 1 || query.getLimit() > MAX_LIMIT)) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (query.getInclude() != null && !query.includesArchived()) {
+            throw new RuntimeException("Unsupported include '" + query.getInclude() + "'; use archived");
+        }
+        // Archived notes have no place in the user-defined order and no subtree index
+        if (query.includesArchived() && (POSITION.equals(query.getSort()) || Boolean.TRUE.equals(query.getIncludeSubfolders()))) {
+            throw new RuntimeException("include=archived cannot be combined with sort=position or includeSubfolders");
+        }
+    }
+    
+    private static String rangeField(NoteQuery query) {
+        if (query.hasCreatedRange()) {
+            return "createdAt";
+        }
+        return query.hasUpdatedRange() ? "updatedAt" : null;
+    }
+    
+    private static void checkOrder(LocalDateTime from, LocalDateTime to, String fromName, String toName) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new RuntimeException(fromName + " must not be after " + toName);
+        }
+    }
+    
+    private static boolean inRange(LocalDateTime value, LocalDateTime from, LocalDateTime to) {
+        return (from == null || (value != null && !value.isBefore(from))) && (to == null || (value != null && value.isBefore(to)));
+    }
+    
+    private static void addRange(List<Predicate> predicates, CriteriaBuilder cb, Path<LocalDateTime> path,
+                                 LocalDateTime from, LocalDateTime to) {
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(path, from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(path, to));
+        }
+    }
+}
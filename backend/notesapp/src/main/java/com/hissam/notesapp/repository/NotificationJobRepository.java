@@ -0,0 +1,37 @@
+package com.hissam.notesapp.repository;
+
+import com.hissam.notesapp.entity.NotificationJob;
+import com.hissam.notesapp.enums.NotificationStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NotificationJobRepository extends JpaRepository<NotificationJob, Long> {
+    Optional<NotificationJob> findFirstByDedupKeyAndStatusOrderByIdDesc(String dedupKey, NotificationStatus status);
+    List<NotificationJob> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(NotificationStatus status, LocalDateTime now, Pageable pageable);
+    List<NotificationJob> findByStatusAndDedupKeyIn(NotificationStatus status, Collection<String> dedupKeys);
+    
+    // Guarded by the current status so two workers never claim the same job
+    @Modifying
+    @Query("UPDATE NotificationJob j SET j.status = :to, j.updatedAt = :now WHERE j.id = :id AND j.status = :from")
+    int transition(@Param("id") Long id, @Param("from") NotificationStatus from,
+                   @Param("to") NotificationStatus to, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE NotificationJob j SET j.status = :to, j.updatedAt = :now WHERE j.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("to") NotificationStatus to, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE NotificationJob j SET j.status = com.hissam.notesapp.enums.NotificationStatus.PENDING, "
+            + "j.updatedAt = :now WHERE j.status = com.hissam.notesapp.enums.NotificationStatus.SENDING "
+            + "AND j.updatedAt < :cutoff")
+    int requeueStale(@Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,27 @@
+package com.hissam.notesapp.repository;
+
+import com.hissam.notesapp.entity.OutboxCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxCheckpointRepository extends JpaRepository<OutboxCheckpoint, String> {
+    // Only moves forward, so a slower concurrent dispatcher cannot rewind it
+    @Modifying
+    @Query("UPDATE OutboxCheckpoint c SET c.lastEventId = :eventId, c.updatedAt = :now "
+            + "WHERE c.consumer = :consumer AND c.lastEventId < :eventId")
+    int advance(@Param("consumer") String consumer, @Param("eventId") Long eventId, @Param("now") LocalDateTime now);
+    
+    // Node-local checkpoints are keyed consumer@node
+    @Query("SELECT c FROM OutboxCheckpoint c WHERE c.consumer LIKE '%@%'")
+    List<OutboxCheckpoint> findNodeLocal();
+    
+    @Modifying
+    @Query("UPDATE OutboxCheckpoint c SET c.updatedAt = :now WHERE c.consumer = :consumer")
+    int touch(@Param("consumer") String consumer, @Param("now") LocalDateTime now);
+}
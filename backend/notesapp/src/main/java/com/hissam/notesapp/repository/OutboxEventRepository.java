@@ -0,0 +1,23 @@
+package com.hissam.notesapp.repository;
+
+import com.hissam.notesapp.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    List<OutboxEvent> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    Optional<OutboxEvent> findFirstByIdGreaterThanOrderByIdAsc(Long id);
+    Optional<OutboxEvent> findFirstByOrderByIdDesc();
+    long countByIdGreaterThan(Long id);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id <= :id")
+    int deleteUpTo(@Param("id") Long id);
+}
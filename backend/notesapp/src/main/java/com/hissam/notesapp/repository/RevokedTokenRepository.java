@@ -0,0 +1,24 @@
+package com.hissam.notesapp.repository;
+
+import com.hissam.notesapp.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    @Query("SELECT r.tokenKey FROM RevokedToken r WHERE r.expiresAt > :now AND r.revokedBefore IS NULL")
+    List<String> findActiveTokenKeys(@Param("now") LocalDateTime now);
+    
+    // Revocations of all tokens of a user, keyed user:<username>
+    @Query("SELECT r FROM RevokedToken r WHERE r.expiresAt > :now AND r.revokedBefore IS NOT NULL")
+    List<RevokedToken> findActiveUserRevocations(@Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
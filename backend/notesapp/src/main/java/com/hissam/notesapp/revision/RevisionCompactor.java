@@ -0,0 +1,97 @@
+package com.hissam.notesapp.revision;
+
+import com.hissam.notesapp.entity.NoteRevision;
+import com.hissam.notesapp.repository.NoteRevisionRepository;
+import com.hissam.notesapp.sharding.ShardRoutingDataSource;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Applies the revision retention policy on every shard: revisions older than retention-days,
+ * and all but the newest max-per-note of each note, are deleted a batch of notes at a time.
+ * When the oldest kept revision is a delta it is rewritten as a snapshot first.
+ */
+@Slf4j
+@Component
+public class RevisionCompactor {
+    
+    private final NoteRevisionRepository revisionRepository;
+    private final ShardTemplate shardTemplate;
+    private final ShardRoutingDataSource shardRoutingDataSource;
+    private final Counter deletedCounter;
+    private final Counter rebasedCounter;
+    
+    @Value("${app.revisions.retention-days:90}")
+    private int retentionDays;
+    
+    @Value("${app.revisions.max-per-note:100}")
+    private int maxPerNote;
+    
+    @Value("${app.revisions.compact-batch-size:100}")
+    private int batchSize;
+    
+    public RevisionCompactor(NoteRevisionRepository revisionRepository, ShardTemplate shardTemplate,
+                             ShardRoutingDataSource shardRoutingDataSource, MeterRegistry meterRegistry) {
+        this.revisionRepository = revisionRepository;
+        this.shardTemplate = shardTemplate;
+        this.shardRoutingDataSource = shardRoutingDataSource;
+        deletedCounter = Counter.builder("notesapp.revisions.compacted").register(meterRegistry);
+        rebasedCounter = Counter.builder("notesapp.revisions.rebased").register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.revisions.compact-interval-ms:3600000}",
+            initialDelayString = "${app.revisions.compact-interval-ms:3600000}")
+    public void compact() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        for (int shardId : shardRoutingDataSource.getShardIds()) {
+            try {
+                List<Long> noteIds;
+                do {
+                    noteIds = shardTemplate.read(shardId,
+                            () -> revisionRepository.findNotesToCompact(cutoff, maxPerNote, PageRequest.of(0, batchSize)));
+                    List<Long> batch = noteIds;
+                    shardTemplate.write(shardId, () -> batch.forEach(noteId -> compactNote(noteId, cutoff)));
+                } while (noteIds.size() == batchSize);
+            } catch (RuntimeException ex) {
+                log.warn("Revision compaction failed on shard {}", shardId, ex);
+            }
+        }
+    }
+    
+    private void compactNote(Long noteId, LocalDateTime cutoff) {
+        List<NoteRevision> revisions = revisionRepository.findByNoteId(noteId).reversed();
+        int keepFrom = Math.max(0, revisions.size() - maxPerNote);
+        while (keepFrom < revisions.size() && revisions.get(keepFrom).getCreatedAt().isBefore(cutoff)) {
+            keepFrom++;
+        }
+        
+        if (keepFrom < revisions.size()) {
+            NoteRevision oldest = revisions.get(keepFrom);
+            if (!oldest.getSnapshot()) {
+                int snapshotIndex = keepFrom;
+                while (!revisions.get(snapshotIndex).getSnapshot()) {
+                    snapshotIndex--;
+                }
+                oldest.setBody(RevisionStore.replay(revisions.subList(snapshotIndex, keepFrom + 1)));
+                oldest.setSnapshot(true);
+                oldest.setStoredBytes(RevisionStore.storedBytes(oldest.getTitle(), oldest.getBody()));
+                revisionRepository.save(oldest);
+                rebasedCounter.increment();
+            }
+        }
+        
+        int keepRevision = keepFrom < revisions.size()
+                ? revisions.get(keepFrom).getRevision()
+                : revisions.get(revisions.size() - 1).getRevision() + 1;
+        deletedCounter.increment(revisionRepository.deleteBefore(noteId, keepRevision));
+    }
+}
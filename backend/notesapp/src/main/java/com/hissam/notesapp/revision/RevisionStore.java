@@ -0,0 +1,142 @@
+package com.hissam.notesapp.revision;
+
+import com.hissam.notesapp.dto.NoteRevisionResponse;
+import com.hissam.notesapp.entity.Note;
+import com.hissam.notesapp.entity.NoteRevision;
+import com.hissam.notesapp.exception.ResourceNotFoundException;
+import com.hissam.notesapp.repository.NoteRevisionRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Title and content history of notes. A full snapshot is stored every snapshot-interval
+ * revisions and a delta against the previous revision in between, so rebuilding any revision
+ * replays fewer than snapshot-interval deltas (metrics: notesapp.revisions.*).
+ * Callers run inside the transaction on the note's shard.
+ */
+@Component
+public class RevisionStore {
+    
+    private final NoteRevisionRepository revisionRepository;
+    private final DistributionSummary snapshotBytes;
+    private final DistributionSummary deltaBytes;
+    private final DistributionSummary contentBytes;
+    
+    @Value("${app.revisions.snapshot-interval:20}")
+    private int snapshotInterval;
+    
+    public RevisionStore(NoteRevisionRepository revisionRepository, MeterRegistry meterRegistry) {
+        this.revisionRepository = revisionRepository;
+        snapshotBytes = storedBytes(meterRegistry, "snapshot");
+        deltaBytes = storedBytes(meterRegistry, "delta");
+        contentBytes = DistributionSummary.builder("notesapp.revisions.content-bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Adds a revision for a change of title or content. The note still holds the values from
+     * before the change; its first change also records those as revision 1.
+     */
+    public void record(Note note, String title, String content) {
+        String previous = text(note.getContent());
+        String next = text(content);
+        if (previous.equals(next) && note.getTitle().equals(title)) {
+            return;
+        }
+        
+        NoteRevision latest = revisionRepository.findLatest(note.getId())
+                .orElseGet(() -> save(note, 1, true, note.getTitle(), previous, previous.length()));
+        // What a full copy would have cost, to compare with stored-bytes
+        contentBytes.record(storedBytes(title, next));
+        int revision = latest.getRevision() + 1;
+        Integer snapshotRevision = revisionRepository.findSnapshotRevision(note.getId(), latest.getRevision());
+        
+        if (snapshotRevision == null || revision - snapshotRevision >= snapshotInterval) {
+            save(note, revision, true, title, next, next.length());
+            return;
+        }
+        String delta = TextDelta.diff(previous, next);
+        if (delta.length() >= next.length()) {
+            save(note, revision, true, title, next, next.length());
+        } else {
+            save(note, revision, false, title, delta, next.length());
+        }
+    }
+    
+    public List<NoteRevisionResponse> list(Long noteId) {
+        return revisionRepository.findByNoteId(noteId).stream()
+                .map(revision -> mapToRevisionResponse(revision, null))
+                .toList();
+    }
+    
+    public NoteRevisionResponse get(Long noteId, int revision) {
+        Integer snapshotRevision = revisionRepository.findSnapshotRevision(noteId, revision);
+        List<NoteRevision> chain = snapshotRevision == null
+                ? List.of()
+                : revisionRepository.findChain(noteId, snapshotRevision, revision);
+        if (chain.isEmpty() || chain.get(chain.size() - 1).getRevision() != revision) {
+            throw new ResourceNotFoundException("Revision not found");
+        }
+        return mapToRevisionResponse(chain.get(chain.size() - 1), replay(chain));
+    }
+    
+    /**
+     * Content of the last revision of a chain that starts with a snapshot.
+     */
+    static String replay(List<NoteRevision> chain) {
+        String content = chain.get(0).getBody();
+        for (NoteRevision revision : chain.subList(1, chain.size())) {
+            content = TextDelta.apply(content, revision.getBody());
+        }
+        return content;
+    }
+    
+    static int storedBytes(String title, String body) {
+        return title.getBytes(StandardCharsets.UTF_8).length + body.getBytes(StandardCharsets.UTF_8).length;
+    }
+    
+    private NoteRevision save(Note note, int revision, boolean snapshot, String title, String body, int contentLength) {
+        NoteRevision entry = new NoteRevision();
+        entry.setNoteId(note.getId());
+        entry.setChildId(note.getChild().getId());
+        entry.setRevision(revision);
+        entry.setSnapshot(snapshot);
+        entry.setTitle(title);
+        entry.setBody(body);
+        entry.setContentLength(contentLength);
+        entry.setStoredBytes(storedBytes(title, body));
+        
+        (snapshot ? snapshotBytes : deltaBytes).record(entry.getStoredBytes());
+        return revisionRepository.save(entry);
+    }
+    
+    private static DistributionSummary storedBytes(MeterRegistry meterRegistry, String kind) {
+        return DistributionSummary.builder("notesapp.revisions.stored-bytes")
+                .baseUnit("bytes")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+    
+    private static String text(String content) {
+        return content == null ? "" : content;
+    }
+    
+    private static NoteRevisionResponse mapToRevisionResponse(NoteRevision revision, String content) {
+        return NoteRevisionResponse.builder()
+                .noteId(revision.getNoteId())
+                .revision(revision.getRevision())
+                .title(revision.getTitle())
+                .content(content)
+                .contentLength(revision.getContentLength())
+                .snapshot(revision.getSnapshot())
+                .storedBytes(revision.getStoredBytes())
+                .createdAt(revision.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,158 @@
+package com.hissam.notesapp.revision;
+
+import java.util.List;
+
+/**
+ * Compact edit scripts between two texts. A delta is a sequence of operations on the base:
+ * {@code =n,} copies n characters, {@code -n,} skips n characters and {@code +n,text} inserts
+ * the n characters that follow. Whatever remains of the base after the last operation is copied.
+ */
+final class TextDelta {
+    
+    // Above this many line pairs the changed region is replaced as a whole instead of diffed
+    private static final long MAX_DIFF_CELLS = 250_000;
+    
+    private TextDelta() {
+    }
+    
+    static String diff(String base, String target) {
+        int prefix = 0;
+        int shorter = Math.min(base.length(), target.length());
+        while (prefix < shorter && base.charAt(prefix) == target.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < shorter - prefix
+                && base.charAt(base.length() - 1 - suffix) == target.charAt(target.length() - 1 - suffix)) {
+            suffix++;
+        }
+        
+        Ops ops = new Ops();
+        ops.copy(prefix);
+        diffLines(base.substring(prefix, base.length() - suffix), target.substring(prefix, target.length() - suffix), ops);
+        return ops.finish();
+    }
+    
+    static String apply(String base, String delta) {
+        StringBuilder out = new StringBuilder(base.length() + delta.length());
+        int position = 0;
+        int i = 0;
+        while (i < delta.length()) {
+            char op = delta.charAt(i);
+            int comma = delta.indexOf(',', i);
+            int length = Integer.parseInt(delta, i + 1, comma, 10);
+            i = comma + 1;
+            switch (op) {
+                case '=' -> {
+                    out.append(base, position, position + length);
+                    position += length;
+                }
+                case '-' -> position += length;
+                case '+' -> {
+                    out.append(delta, i, i + length);
+                    i += length;
+                }
+                default -> throw new IllegalStateException("Corrupt delta operation '" + op + "'");
+            }
+        }
+        return out.append(base, position, base.length()).toString();
+    }
+    
+    // Longest common subsequence of lines, which keeps deltas small when several places are edited
+    private static void diffLines(String base, String target, Ops ops) {
+        if (base.isEmpty() || target.isEmpty()) {
+            ops.skip(base.length());
+            ops.insert(target);
+            return;
+        }
+        List<String> a = lines(base);
+        List<String> b = lines(target);
+        if ((long) a.size() * b.size() > MAX_DIFF_CELLS) {
+            ops.skip(base.length());
+            ops.insert(target);
+            return;
+        }
+        
+        int[][] common = new int[a.size() + 1][b.size() + 1];
+        for (int i = a.size() - 1; i >= 0; i--) {
+            for (int j = b.size() - 1; j >= 0; j--) {
+                common[i][j] = a.get(i).equals(b.get(j))
+                        ? common[i + 1][j + 1] + 1
+                        : Math.max(common[i + 1][j], common[i][j + 1]);
+            }
+        }
+        
+        int i = 0;
+        int j = 0;
+        while (i < a.size() || j < b.size()) {
+            if (i < a.size() && j < b.size() && a.get(i).equals(b.get(j))) {
+                ops.copy(a.get(i++).length());
+                j++;
+            } else if (j == b.size() || (i < a.size() && common[i + 1][j] >= common[i][j + 1])) {
+                ops.skip(a.get(i++).length());
+            } else {
+                ops.insert(b.get(j++));
+            }
+        }
+    }
+    
+    private static List<String> lines(String text) {
+        return List.of(text.split("(?<=\n)"));
+    }
+    
+    /**
+     * Writes operations, merging runs of the same kind. Skips are written before inserts so a
+     * replaced line produces one of each.
+     */
+    private static final class Ops {
+        private final StringBuilder out = new StringBuilder();
+        private final StringBuilder inserted = new StringBuilder();
+        private int copied;
+        private int skipped;
+        
+        void copy(int length) {
+            if (length > 0) {
+                flushChanges();
+                copied += length;
+            }
+        }
+        
+        void skip(int length) {
+            if (length > 0) {
+                flushCopy();
+                skipped += length;
+            }
+        }
+        
+        void insert(String text) {
+            if (!text.isEmpty()) {
+                flushCopy();
+                inserted.append(text);
+            }
+        }
+        
+        // The trailing copy is implied
+        String finish() {
+            flushChanges();
+            return out.toString();
+        }
+        
+        private void flushCopy() {
+            if (copied > 0) {
+                out.append('=').append(copied).append(',');
+                copied = 0;
+            }
+        }
+        
+        private void flushChanges() {
+            if (skipped > 0) {
+                out.append('-').append(skipped).append(',');
+                skipped = 0;
+            }
+            if (!inserted.isEmpty()) {
+                out.append('+').append(inserted.length()).append(',').append(inserted);
+                inserted.setLength(0);
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.hissam.notesapp.security;
 
+import com.hissam.notesapp.timing.RequestTimings;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,6 +11,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -22,16 +25,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationService revocationService;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
+        RequestTimings.time("auth", () -> authenticate(request));
+        filterChain.doFilter(request, response);
+    }
+    
+    private void authenticate(HttpServletRequest request) {
         try {
             String token = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(token) && tokenProvider.validateToken(token)) {
-                String username = tokenProvider.getUsernameFromToken(token);
+            Claims claims = StringUtils.hasText(token) ? tokenProvider.parseClaims(token) : null;
+            
+            if (claims != null && !revocationService.isRevoked(claims.getId(), claims.getSubject(), JwtTokenProvider.issuedAt(claims))) {
+                String username = claims.getSubject();
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
                 
                 UsernamePasswordAuthenticationToken authentication = 
@@ -41,11 +52,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
+        } catch (UsernameNotFoundException ex) {
+            // A valid token of a deleted user is an expected client error, not worth a stack trace
+            logger.debug("Ignoring token of unknown user: " + ex.getMessage());
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
         }
-        
-        filterChain.doFilter(request, response);
     }
     
     private String getJwtFromRequest(HttpServletRequest request) {
@@ -8,10 +8,14 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtTokenProvider {
     
+    // The standard iat claim has second precision; revocation cutoffs need milliseconds
+    private static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+    
     @Value("${app.jwt.secret}")
     private String jwtSecret;
     
@@ -28,8 +32,10 @@ public class JwtTokenProvider {
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
         
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .issuedAt(now)
+                .claim(ISSUED_AT_MILLIS_CLAIM, now.getTime())
                 .expiration(expiryDate)
                 .signWith(getSigningKey())
                 .compact();
@@ -45,6 +51,29 @@ public class JwtTokenProvider {
         return claims.getSubject();
     }
     
+    /**
+     * @return the verified claims, or null if the token is malformed, forged or expired
+     */
+    public Claims parseClaims(String token) {
+        try {
+            return Jwts.parser()
+                    .verifyWith(getSigningKey())
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * When the token was issued, to the millisecond for tokens carrying iat_ms.
+     */
+    public static Date issuedAt(Claims claims) {
+        Long millis = claims.get(ISSUED_AT_MILLIS_CLAIM, Long.class);
+        return millis != null ? new Date(millis) : claims.getIssuedAt();
+    }
+    
     public boolean validateToken(String token) {
         try {
             Jwts.parser()
@@ -57,4 +86,3 @@ public class JwtTokenProvider {
         }
     }
 }
-
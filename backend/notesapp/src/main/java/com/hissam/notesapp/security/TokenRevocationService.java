@@ -0,0 +1,175 @@
+package com.hissam.notesapp.security;
+
+import com.hissam.notesapp.entity.RevokedToken;
+import com.hissam.notesapp.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked JWTs are kept in the revoked_tokens table until the tokens they cover expire. Each
+ * node checks a Bloom filter of the revoked token ids first, so a token that was never revoked is
+ * accepted without a query. Revocations of all of a user's tokens are few and held in memory as
+ * per-user cutoffs, so tokens issued after the cutoff are accepted without a query as well. Both
+ * are rebuilt from the table every {@code app.jwt.denylist-refresh-ms}, which bounds how long a
+ * revocation made on another node takes to apply here.
+ */
+@Service
+public class TokenRevocationService {
+    
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final Counter filteredCounter;
+    private final Counter revokedCounter;
+    private final Counter falsePositiveCounter;
+    private final Counter unfilteredCounter;
+    
+    @Value("${app.jwt.expiration}")
+    private long jwtExpiration;
+    
+    @Value("${app.jwt.denylist-false-positive-rate:0.01}")
+    private double falsePositiveRate;
+    
+    @Value("${app.jwt.denylist-refresh-ms:30000}")
+    private long refreshMs;
+    
+    // Null until the first rebuild; every check goes to the table meanwhile
+    private volatile BloomFilter filter;
+    // Tokens of a user issued at or before the cutoff are revoked, by user key
+    private volatile Map<String, LocalDateTime> userCutoffs = new ConcurrentHashMap<>();
+    
+    // Keys revoked on this node, re-added after a rebuild in case the rebuild read missed them
+    private final Map<String, Long> recentlyRevoked = new ConcurrentHashMap<>();
+    private final Map<String, LocalDateTime> recentUserCutoffs = new ConcurrentHashMap<>();
+    
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository, MeterRegistry meterRegistry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        filteredCounter = checks(meterRegistry, "filtered");
+        revokedCounter = checks(meterRegistry, "revoked");
+        falsePositiveCounter = checks(meterRegistry, "false-positive");
+        unfilteredCounter = checks(meterRegistry, "unfiltered");
+    }
+    
+    /**
+     * @param issuedAt to the millisecond where the token has it, see {@link JwtTokenProvider#issuedAt}
+     */
+    public boolean isRevoked(String tokenId, String username, Date issuedAt) {
+        String tokenKey = tokenId != null ? tokenKey(tokenId) : null;
+        String userKey = userKey(username);
+        BloomFilter current = filter;
+        if (current == null) {
+            boolean revoked = (tokenKey != null && revokedTokenRepository.existsById(tokenKey))
+                    || revokedTokenRepository.findById(userKey)
+                            .map(entry -> issuedBefore(issuedAt, entry.getRevokedBefore()))
+                            .orElse(false);
+            // No filter was consulted, so a miss here is not a false positive
+            (revoked ? revokedCounter : unfilteredCounter).increment();
+            return revoked;
+        }
+        
+        LocalDateTime cutoff = userCutoffs.get(userKey);
+        if (cutoff != null && issuedBefore(issuedAt, cutoff)) {
+            revokedCounter.increment();
+            return true;
+        }
+        if (tokenKey == null || !current.mightContain(tokenKey)) {
+            filteredCounter.increment();
+            return false;
+        }
+        boolean revoked = revokedTokenRepository.existsById(tokenKey);
+        (revoked ? revokedCounter : falsePositiveCounter).increment();
+        return revoked;
+    }
+    
+    @Transactional
+    public void revokeToken(String tokenId, Date expiresAt) {
+        String key = tokenKey(tokenId);
+        revokedTokenRepository.save(new RevokedToken(key, null, toLocal(expiresAt)));
+        recentlyRevoked.put(key, System.currentTimeMillis());
+        BloomFilter current = filter;
+        if (current != null) {
+            current.add(key);
+        }
+    }
+    
+    /**
+     * Revokes every token of the user issued up to now, including ones without a token id.
+     */
+    @Transactional
+    public void revokeAllForUser(String username) {
+        // Tokens carry their issue time in milliseconds
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        String key = userKey(username);
+        revokedTokenRepository.save(new RevokedToken(key, now, now.plusNanos(jwtExpiration * 1_000_000).plusSeconds(1)));
+        // Applied here once committed, as unlike a filter hit it rejects tokens without a query
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentlyRevoked.put(key, System.currentTimeMillis());
+                recentUserCutoffs.put(key, now);
+                userCutoffs.merge(key, now, TokenRevocationService::later);
+            }
+        });
+    }
+    
+    @Scheduled(fixedDelayString = "${app.jwt.denylist-refresh-ms:30000}")
+    @Transactional
+    public void rebuildFilter() {
+        LocalDateTime now = LocalDateTime.now();
+        revokedTokenRepository.deleteExpired(now);
+        List<String> keys = revokedTokenRepository.findActiveTokenKeys(now);
+        Map<String, LocalDateTime> cutoffs = new ConcurrentHashMap<>();
+        revokedTokenRepository.findActiveUserRevocations(now)
+                .forEach(entry -> cutoffs.put(entry.getTokenKey(), entry.getRevokedBefore()));
+        
+        long cutoff = System.currentTimeMillis() - 2 * refreshMs;
+        recentlyRevoked.values().removeIf(revokedAt -> revokedAt < cutoff);
+        recentUserCutoffs.keySet().retainAll(recentlyRevoked.keySet());
+        
+        // Sized with headroom for revocations made before the next rebuild
+        BloomFilter rebuilt = new BloomFilter(Math.max(1024, 2 * (keys.size() + recentlyRevoked.size())), falsePositiveRate);
+        keys.forEach(rebuilt::add);
+        filter = rebuilt;
+        userCutoffs = cutoffs;
+        // After the swap, so a revocation racing with this rebuild lands in one or the other
+        recentlyRevoked.keySet().stream().filter(key -> key.startsWith("jti:")).forEach(rebuilt::add);
+        recentUserCutoffs.forEach((key, revokedBefore) -> cutoffs.merge(key, revokedBefore, TokenRevocationService::later));
+    }
+    
+    // Tokens without a millisecond issue time are compared by their second, so that whole second is revoked
+    private static boolean issuedBefore(Date issuedAt, LocalDateTime cutoff) {
+        return issuedAt == null || !toLocal(issuedAt).isAfter(cutoff);
+    }
+    
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+    
+    private static String tokenKey(String tokenId) {
+        return "jti:" + tokenId;
+    }
+    
+    private static String userKey(String username) {
+        return "user:" + username;
+    }
+    
+    private static LocalDateTime toLocal(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+    
+    private static Counter checks(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("notesapp.jwt.revocation.checks").tag("outcome", outcome).register(meterRegistry);
+    }
+}
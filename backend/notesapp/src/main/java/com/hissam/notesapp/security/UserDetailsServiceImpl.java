@@ -1,8 +1,10 @@
 package com.hissam.notesapp.security;
 
+import com.hissam.notesapp.cache.InvalidationListener;
 import com.hissam.notesapp.entity.User;
 import com.hissam.notesapp.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -10,23 +12,83 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Loads the user of every authenticated request, so users are cached on each node for up to
+ * {@code app.cache.users.ttl-ms}. Changes to a user must be published to the "users" region of
+ * the invalidation bus, which evicts the entry on every node.
+ */
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, InvalidationListener {
+    
+    public static final String CACHE_REGION = "users";
     
     private final UserRepository userRepository;
     
+    @Value("${app.cache.users.ttl-ms:60000}")
+    private long ttlMs;
+    
+    @Value("${app.cache.users.max-entries:10000}")
+    private int maxEntries;
+    
+    private final Map<String, CachedUser> cache = new ConcurrentHashMap<>();
+    // Bumped by every invalidation, so a load that overlapped one is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+    
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        CachedUser cached = cache.get(username);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            return copy(cached.details);
+        }
+        
+        long invalidationsBefore = invalidations.get();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
         
-        return org.springframework.security.core.userdetails.User.builder()
+        UserDetails details = org.springframework.security.core.userdetails.User.builder()
                 .username(user.getUsername())
                 .password(user.getPassword())
                 .authorities(List.of(
                     new SimpleGrantedAuthority("ROLE_" + user.getRole().name())))
                 .build();
+        
+        if (cache.size() >= maxEntries) {
+            cache.clear();
+        }
+        cache.put(username, new CachedUser(details, System.currentTimeMillis() + ttlMs));
+        if (invalidations.get() != invalidationsBefore) {
+            cache.remove(username);
+        }
+        return copy(details);
+    }
+    
+    @Override
+    public String region() {
+        return CACHE_REGION;
+    }
+    
+    @Override
+    public void invalidate(String username) {
+        invalidations.incrementAndGet();
+        cache.remove(username);
+    }
+    
+    @Override
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.clear();
+    }
+    
+    // Authentication erases the password of the details it is given, which must not reach the cached copy
+    private static UserDetails copy(UserDetails details) {
+        return org.springframework.security.core.userdetails.User.withUserDetails(details).build();
+    }
+    
+    private record CachedUser(UserDetails details, long expiresAt) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.hissam.notesapp.service;
+
+import com.hissam.notesapp.activity.ActivityRollups;
+import com.hissam.notesapp.dto.ActivityBucketResponse;
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.enums.ActivityGranularity;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Activity charts of a parent's children, read from the pre-aggregated rollups.
+ */
+@Service
+@RequiredArgsConstructor
+public class ActivityService {
+    
+    private static final int DEFAULT_DAYS = 30;
+    
+    private final ActivityRollups activityRollups;
+    private final ChildAccess childAccess;
+    private final ShardTemplate shardTemplate;
+    
+    @Value("${app.activity.max-buckets:1000}")
+    private int maxBuckets;
+    
+    /**
+     * Counts per bucket from the one holding from up to, but excluding, to; by default the last 30 days.
+     */
+    public List<ActivityBucketResponse> getActivity(String parentUsername, Long childId, ActivityGranularity granularity,
+                                                    LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(DEFAULT_DAYS);
+        if (!start.isBefore(end)) {
+            throw new RuntimeException("from must be before to");
+        }
+        if (granularity.bucketsBetween(start, end) > maxBuckets) {
+            throw new RuntimeException("The range spans more than " + maxBuckets + " buckets, use a coarser granularity");
+        }
+        
+        Child child = childAccess.findLinkedChild(parentUsername, childId);
+        
+        return shardTemplate.read(child, () -> activityRollups.read(childId, granularity, start, end));
+    }
+}
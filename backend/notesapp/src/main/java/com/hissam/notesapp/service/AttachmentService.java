@@ -0,0 +1,164 @@
+package com.hissam.notesapp.service;
+
+import com.hissam.notesapp.attachment.AttachmentStore;
+import com.hissam.notesapp.dto.AttachmentResponse;
+import com.hissam.notesapp.entity.Attachment;
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.entity.Note;
+import com.hissam.notesapp.enums.OutboxAggregateType;
+import com.hissam.notesapp.enums.OutboxEventType;
+import com.hissam.notesapp.exception.ResourceNotFoundException;
+import com.hissam.notesapp.exception.UnauthorizedException;
+import com.hissam.notesapp.outbox.OutboxWriter;
+import com.hissam.notesapp.repository.AttachmentRepository;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Files attached to notes, with the same ownership rules as the notes themselves: children
+ * manage their own, parents can list and download their linked children's.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttachmentService {
+    
+    private static final int MAX_FILENAME_LENGTH = 255;
+    private static final int MAX_CONTENT_TYPE_LENGTH = 255;
+    
+    private final AttachmentStore attachmentStore;
+    private final ChildAccess childAccess;
+    private final AttachmentRepository attachmentRepository;
+    private final ShardTemplate shardTemplate;
+    private final OutboxWriter outboxWriter;
+    
+    /**
+     * Streams the content to disk before opening the transaction, so no connection is held
+     * while a large file arrives.
+     */
+    public AttachmentResponse upload(String username, Long noteId, String filename, String contentType,
+                                     long contentLength, InputStream content) {
+        String name = cleanFilename(filename);
+        if (contentLength > attachmentStore.maxSizeBytes()) {
+            throw new RuntimeException("Attachments are limited to " + attachmentStore.maxSizeBytes() + " bytes");
+        }
+        Child child = childAccess.findChild(username, "Only children can update notes");
+        shardTemplate.read(child, () -> childAccess.findOwnedNote(child, noteId));
+        
+        AttachmentStore.StoredFile stored = attachmentStore.store(content);
+        
+        return shardTemplate.write(child, () -> {
+            childAccess.findOwnedNote(child, noteId);
+            Attachment attachment = new Attachment();
+            attachment.setNoteId(noteId);
+            attachment.setChildId(child.getId());
+            attachment.setFilename(name);
+            attachment.setContentType(cleanContentType(contentType));
+            attachment.setSizeBytes(stored.sizeBytes());
+            attachment.setSha256(stored.sha256());
+            
+            AttachmentResponse response = mapToAttachmentResponse(attachmentRepository.save(attachment));
+            outboxWriter.record(child.getId(), OutboxAggregateType.ATTACHMENT, response.getId(), OutboxEventType.CREATED, response);
+            return response;
+        });
+    }
+    
+    public List<AttachmentResponse> getAttachments(String username, Long noteId) {
+        Child child = childAccess.findChild(username, "Only children can access their notes");
+        return listAttachments(child, noteId);
+    }
+    
+    public Download download(String username, Long noteId, Long attachmentId) {
+        Child child = childAccess.findChild(username, "Only children can access their notes");
+        return openAttachment(child, noteId, attachmentId);
+    }
+    
+    public List<AttachmentResponse> getChildAttachments(String parentUsername, Long childId, Long noteId) {
+        return listAttachments(childAccess.findLinkedChild(parentUsername, childId), noteId);
+    }
+    
+    public Download downloadChildAttachment(String parentUsername, Long childId, Long noteId, Long attachmentId) {
+        return openAttachment(childAccess.findLinkedChild(parentUsername, childId), noteId, attachmentId);
+    }
+    
+    /**
+     * Removes the attachment; its file is deleted by the sweeper once nothing else refers to it.
+     */
+    public void deleteAttachment(String username, Long noteId, Long attachmentId) {
+        Child child = childAccess.findChild(username, "Only children can update notes");
+        
+        shardTemplate.write(child, () -> {
+            Attachment attachment = findOwnedAttachment(child, noteId, attachmentId);
+            attachmentRepository.delete(attachment);
+            outboxWriter.record(child.getId(), OutboxAggregateType.ATTACHMENT, attachmentId, OutboxEventType.DELETED,
+                    Map.of("noteId", noteId));
+        });
+    }
+    
+    private List<AttachmentResponse> listAttachments(Child child, Long noteId) {
+        return shardTemplate.read(child, () -> {
+            childAccess.findOwnedNote(child, noteId);
+            return attachmentRepository.findByNoteId(noteId).stream()
+                    .map(this::mapToAttachmentResponse)
+                    .toList();
+        });
+    }
+    
+    private Download openAttachment(Child child, Long noteId, Long attachmentId) {
+        Attachment attachment = shardTemplate.read(child, () -> findOwnedAttachment(child, noteId, attachmentId));
+        return new Download(mapToAttachmentResponse(attachment), attachmentStore.open(attachment.getSha256()));
+    }
+    
+    private Attachment findOwnedAttachment(Child child, Long noteId, Long attachmentId) {
+        Attachment attachment = attachmentRepository.findInNote(noteId, attachmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Attachment not found"));
+        
+        if (!attachment.getChildId().equals(child.getId())) {
+            throw new UnauthorizedException("Note does not belong to user");
+        }
+        return attachment;
+    }
+    
+    // Keeps the last path segment only, without control characters
+    private static String cleanFilename(String filename) {
+        String name = filename == null ? "" : filename.replaceAll("\\p{Cntrl}", "");
+        name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1).trim();
+        if (name.isEmpty()) {
+            throw new RuntimeException("Filename is required");
+        }
+        return name.length() > MAX_FILENAME_LENGTH ? name.substring(name.length() - MAX_FILENAME_LENGTH) : name;
+    }
+    
+    private static String cleanContentType(String contentType) {
+        if (contentType == null || contentType.length() > MAX_CONTENT_TYPE_LENGTH) {
+            return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        }
+        try {
+            return MediaType.parseMediaType(contentType).toString();
+        } catch (InvalidMediaTypeException ex) {
+            return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        }
+    }
+    
+    private AttachmentResponse mapToAttachmentResponse(Attachment attachment) {
+        return AttachmentResponse.builder()
+                .id(attachment.getId())
+                .noteId(attachment.getNoteId())
+                .filename(attachment.getFilename())
+                .contentType(attachment.getContentType())
+                .sizeBytes(attachment.getSizeBytes())
+                .sha256(attachment.getSha256())
+                .createdAt(attachment.getCreatedAt())
+                .build();
+    }
+    
+    public record Download(AttachmentResponse attachment, Resource content) {
+    }
+}
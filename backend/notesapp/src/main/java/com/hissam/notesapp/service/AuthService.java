@@ -1,14 +1,23 @@
 package com.hissam.notesapp.service;
 
+import com.hissam.notesapp.cache.InvalidationBus;
 import com.hissam.notesapp.dto.*;
 import com.hissam.notesapp.entity.Child;
 import com.hissam.notesapp.entity.User;
+import com.hissam.notesapp.enums.NotificationKind;
 import com.hissam.notesapp.enums.UserRole;
 import com.hissam.notesapp.exception.ResourceNotFoundException;
+import com.hissam.notesapp.exception.UnauthorizedException;
+import com.hissam.notesapp.notification.NotificationQueue;
 import com.hissam.notesapp.repository.ChildRepository;
 import com.hissam.notesapp.repository.UserRepository;
 import com.hissam.notesapp.security.JwtTokenProvider;
+import com.hissam.notesapp.security.TokenRevocationService;
+import com.hissam.notesapp.security.UserDetailsServiceImpl;
+import com.hissam.notesapp.sharding.ShardDirectory;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -29,6 +38,13 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider tokenProvider;
+    private final ShardDirectory shardDirectory;
+    private final NotificationQueue notificationQueue;
+    private final TokenRevocationService revocationService;
+    private final InvalidationBus invalidationBus;
+    
+    @Value("${app.frontend-url:http://localhost:3000}")
+    private String frontendUrl;
     
     @Transactional
     public UserResponse register(RegisterRequest request) {
@@ -51,6 +67,7 @@ public class AuthService {
         if (request.getRole() == UserRole.CHILD) {
             Child child = new Child();
             child.setUser(user);
+            child.setShardId(shardDirectory.placeChild(user.getId()));
             childRepository.save(child);
         }
         
@@ -102,14 +119,52 @@ public class AuthService {
         
         child.setParent(parent);
         childRepository.save(child);
+        invalidationBus.publish(InvalidationBus.CHILD_REGION, child.getId());
+    }
+    
+    /**
+     * Removes the link and signs the child out everywhere, so sessions started under the
+     * parent's supervision end with it.
+     */
+    @Transactional
+    public void unlinkChild(String parentUsername, Long childId) {
+        User parent = userRepository.findByUsername(parentUsername)
+                .orElseThrow(() -> new ResourceNotFoundException("Parent not found"));
+        
+        Child child = childRepository.findById(childId)
+                .orElseThrow(() -> new ResourceNotFoundException("Child not found"));
+        
+        if (child.getParent() == null || !child.getParent().getId().equals(parent.getId())) {
+            throw new UnauthorizedException("Child does not belong to parent");
+        }
+        
+        child.setParent(null);
+        childRepository.save(child);
+        invalidationBus.publish(InvalidationBus.CHILD_REGION, child.getId());
+        revocationService.revokeAllForUser(child.getUser().getUsername());
+    }
+    
+    public void logout(String token) {
+        Claims claims = tokenProvider.parseClaims(token);
+        if (claims == null) {
+            return;
+        }
+        // Tokens issued before token ids were added can only be revoked together
+        if (claims.getId() == null) {
+            revocationService.revokeAllForUser(claims.getSubject());
+        } else {
+            revocationService.revokeToken(claims.getId(), claims.getExpiration());
+        }
     }
     
+    @Transactional(readOnly = true)
     public UserResponse getCurrentUser(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
         return mapToUserResponse(user);
     }
     
+    @Transactional(readOnly = true)
     public java.util.List<ChildResponse> getLinkedChildren(String parentUsername) {
         User parent = userRepository.findByUsername(parentUsername)
                 .orElseThrow(() -> new ResourceNotFoundException("Parent not found"));
@@ -136,10 +191,12 @@ public class AuthService {
         
         userRepository.save(user);
         
-        // In a real application, you would send an email here with the reset link
-        // For now, we'll just log it or return it
-        System.out.println("Password reset token for " + email + ": " + resetToken);
-        System.out.println("Reset link: http://localhost:3000/reset-password?token=" + resetToken);
+        // Sent by the notification worker after this transaction commits
+        notificationQueue.enqueue(NotificationKind.PASSWORD_RESET, email, "Reset your Notes App password",
+                "Hi " + user.getUsername() + ",\n\n"
+                        + "Use this link within the next hour to choose a new password:\n"
+                        + frontendUrl + "/reset-password?token=" + resetToken + "\n\n"
+                        + "If you did not ask for this, you can ignore this email.");
     }
     
     @Transactional
@@ -158,6 +215,8 @@ public class AuthService {
         user.setResetTokenExpiry(null);
         
         userRepository.save(user);
+        invalidationBus.publish(UserDetailsServiceImpl.CACHE_REGION, user.getUsername());
+        revocationService.revokeAllForUser(user.getUsername());
     }
     
     private UserResponse mapToUserResponse(User user) {
@@ -178,4 +237,4 @@ public class AuthService {
                 .email(child.getUser().getEmail())
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,223 @@
+package com.hissam.notesapp.service;
+
+import com.hissam.notesapp.activity.ActivityRollups;
+import com.hissam.notesapp.dto.ChecklistItemMoveRequest;
+import com.hissam.notesapp.dto.ChecklistItemPatchRequest;
+import com.hissam.notesapp.dto.ChecklistItemRequest;
+import com.hissam.notesapp.dto.ChecklistItemResponse;
+import com.hissam.notesapp.entity.ChecklistItem;
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.entity.Note;
+import com.hissam.notesapp.enums.ActivityMetric;
+import com.hissam.notesapp.enums.NoteType;
+import com.hissam.notesapp.enums.OutboxAggregateType;
+import com.hissam.notesapp.enums.OutboxEventType;
+import com.hissam.notesapp.exception.ResourceNotFoundException;
+import com.hissam.notesapp.exception.UnauthorizedException;
+import com.hissam.notesapp.outbox.OutboxWriter;
+import com.hissam.notesapp.repository.ChecklistItemRepository;
+import com.hissam.notesapp.repository.NoteRepository;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Items of CHECKBOX notes. Ticking, editing and moving an item each update that item's row only,
+ * and the note's item counts are adjusted in place rather than recounted.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChecklistService {
+    
+    // Distance between neighbouring positions, so most moves fit between two items without renumbering
+    private static final long POSITION_GAP = 1L << 16;
+    // Stands in for "no item to skip" when placing a new item; ids start at 1
+    private static final long NO_ITEM = 0L;
+    
+    private final ChecklistItemRepository itemRepository;
+    private final ChildAccess childAccess;
+    private final NoteRepository noteRepository;
+    private final ShardTemplate shardTemplate;
+    private final OutboxWriter outboxWriter;
+    private final ActivityRollups activityRollups;
+    
+    public List<ChecklistItemResponse> getItems(String username, Long noteId) {
+        Child child = childAccess.findChild(username, "Only children can access their notes");
+        
+        return shardTemplate.read(child, () -> {
+            List<ChecklistItem> items = itemRepository.findByNoteId(noteId);
+            if (items.isEmpty()) {
+                childAccess.findOwnedNote(child, noteId);
+            } else if (!items.get(0).getChildId().equals(child.getId())) {
+                throw new UnauthorizedException("Note does not belong to user");
+            }
+            return items.stream().map(this::mapToItemResponse).toList();
+        });
+    }
+    
+    public ChecklistItemResponse addItem(String username, Long noteId, ChecklistItemRequest request) {
+        Child child = childAccess.findChild(username, "Only children can update notes");
+        
+        return shardTemplate.write(child, () -> {
+            Note note = childAccess.findOwnedNote(child, noteId);
+            if (note.getNoteType() != NoteType.CHECKBOX) {
+                throw new RuntimeException("Checklist items can only be added to checkbox notes");
+            }
+            
+            ChecklistItem item = new ChecklistItem();
+            item.setNote(note);
+            item.setChildId(child.getId());
+            item.setContent(request.getContent().trim());
+            item.setChecked(Boolean.TRUE.equals(request.getChecked()));
+            item.setCheckedAt(item.getChecked() ? LocalDateTime.now() : null);
+            item.setPosition(request.getAfterItemId() == null
+                    ? lastPosition(noteId) + POSITION_GAP
+                    : positionAfter(noteId, request.getAfterItemId(), NO_ITEM));
+            
+            ChecklistItemResponse response = mapToItemResponse(itemRepository.save(item));
+            noteRepository.adjustChecklistCounts(noteId, 1, item.getChecked() ? 1 : 0, LocalDateTime.now());
+            if (item.getChecked()) {
+                activityRollups.record(child.getId(), ActivityMetric.ITEMS_COMPLETED, item.getCheckedAt(), 1);
+            }
+            outboxWriter.record(child.getId(), OutboxAggregateType.CHECKLIST_ITEM, response.getId(), OutboxEventType.CREATED, response);
+            return response;
+        });
+    }
+    
+    public void updateItem(String username, Long noteId, Long itemId, ChecklistItemPatchRequest request) {
+        if (request.getContent() == null && request.getChecked() == null) {
+            throw new RuntimeException("No fields to update");
+        }
+        Child child = childAccess.findChild(username, "Only children can update notes");
+        
+        shardTemplate.write(child, () -> {
+            Map<String, Object> changed = new HashMap<>();
+            if (request.getContent() != null) {
+                String content = request.getContent().trim();
+                if (itemRepository.updateContent(noteId, itemId, child.getId(), content) == 0) {
+                    findOwnedItem(child, noteId, itemId);
+                }
+                changed.put("content", content);
+            }
+            if (request.getChecked() != null) {
+                boolean checked = request.getChecked();
+                LocalDateTime now = LocalDateTime.now();
+                // Unticking takes the tick back out of the activity bucket it was counted in
+                LocalDateTime tickedAt = checked ? now : itemRepository.findInNoteForUpdate(noteId, itemId)
+                        .map(ChecklistItem::getCheckedAt)
+                        .orElse(null);
+                if (itemRepository.updateChecked(noteId, itemId, child.getId(), checked, checked ? now : null) > 0) {
+                    noteRepository.adjustChecklistCounts(noteId, 0, checked ? 1 : -1, now);
+                    activityRollups.record(child.getId(), ActivityMetric.ITEMS_COMPLETED, tickedAt, checked ? 1 : -1);
+                    changed.put("checked", checked);
+                } else {
+                    // Nothing matched: either the item is not the user's, or it is already in that state
+                    findOwnedItem(child, noteId, itemId);
+                }
+            }
+            
+            if (!changed.isEmpty()) {
+                changed.put("noteId", noteId);
+                outboxWriter.record(child.getId(), OutboxAggregateType.CHECKLIST_ITEM, itemId, OutboxEventType.UPDATED, changed);
+            }
+        });
+    }
+    
+    public void moveItem(String username, Long noteId, Long itemId, ChecklistItemMoveRequest request) {
+        if (itemId.equals(request.getAfterItemId())) {
+            throw new RuntimeException("An item cannot be moved after itself");
+        }
+        Child child = childAccess.findChild(username, "Only children can update notes");
+        
+        shardTemplate.write(child, () -> {
+            findOwnedItem(child, noteId, itemId);
+            long position = positionAfter(noteId, request.getAfterItemId(), itemId);
+            itemRepository.updatePosition(itemId, position);
+            outboxWriter.record(child.getId(), OutboxAggregateType.CHECKLIST_ITEM, itemId, OutboxEventType.UPDATED,
+                    Map.of("noteId", noteId, "position", position));
+        });
+    }
+    
+    public void deleteItem(String username, Long noteId, Long itemId) {
+        Child child = childAccess.findChild(username, "Only children can update notes");
+        
+        shardTemplate.write(child, () -> {
+            // Locked so a concurrent toggle cannot change the checked state between reading and deleting it
+            ChecklistItem item = itemRepository.findInNoteForUpdate(noteId, itemId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Checklist item not found"));
+            if (!item.getChildId().equals(child.getId())) {
+                throw new UnauthorizedException("Note does not belong to user");
+            }
+            
+            itemRepository.delete(item);
+            noteRepository.adjustChecklistCounts(noteId, -1, item.getChecked() ? -1 : 0, LocalDateTime.now());
+            outboxWriter.record(child.getId(), OutboxAggregateType.CHECKLIST_ITEM, itemId, OutboxEventType.DELETED,
+                    Map.of("noteId", noteId));
+        });
+    }
+    
+    /**
+     * A position between the given item (or the top of the list) and the item that follows it,
+     * skipping the item being moved. Renumbers the note's items when two neighbours leave no room.
+     */
+    private long positionAfter(Long noteId, Long afterItemId, Long movingItemId) {
+        Long lower = afterItemId == null ? null : itemRepository.findInNote(noteId, afterItemId)
+                .orElseThrow(() -> new ResourceNotFoundException("Checklist item not found"))
+                .getPosition();
+        Long upper = lower == null
+                ? itemRepository.findFirstPosition(noteId, movingItemId)
+                : itemRepository.findNextPosition(noteId, lower, movingItemId);
+        
+        if (lower == null) {
+            return upper == null ? POSITION_GAP : upper - POSITION_GAP;
+        }
+        if (upper == null) {
+            return lower + POSITION_GAP;
+        }
+        if (upper - lower < 2) {
+            renumber(noteId);
+            return positionAfter(noteId, afterItemId, movingItemId);
+        }
+        return lower + (upper - lower) / 2;
+    }
+    
+    private long lastPosition(Long noteId) {
+        Long last = itemRepository.findLastPosition(noteId);
+        return last == null ? 0 : last;
+    }
+    
+    private void renumber(Long noteId) {
+        List<ChecklistItem> items = itemRepository.findByNoteId(noteId);
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).setPosition((i + 1) * POSITION_GAP);
+        }
+        itemRepository.saveAll(items);
+        itemRepository.flush();
+    }
+    
+    private ChecklistItem findOwnedItem(Child child, Long noteId, Long itemId) {
+        ChecklistItem item = itemRepository.findInNote(noteId, itemId)
+                .orElseThrow(() -> new ResourceNotFoundException("Checklist item not found"));
+        
+        if (!item.getChildId().equals(child.getId())) {
+            throw new UnauthorizedException("Note does not belong to user");
+        }
+        return item;
+    }
+    
+    private ChecklistItemResponse mapToItemResponse(ChecklistItem item) {
+        return ChecklistItemResponse.builder()
+                .id(item.getId())
+                .noteId(item.getNote().getId())
+                .content(item.getContent())
+                .checked(item.getChecked())
+                .position(item.getPosition())
+                .createdAt(item.getCreatedAt())
+                .build();
+    }
+}
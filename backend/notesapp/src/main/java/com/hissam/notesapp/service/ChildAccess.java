@@ -0,0 +1,75 @@
+package com.hissam.notesapp.service;
+
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.entity.Note;
+import com.hissam.notesapp.entity.User;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.exception.ResourceNotFoundException;
+import com.hissam.notesapp.exception.UnauthorizedException;
+import com.hissam.notesapp.repository.ChildRepository;
+import com.hissam.notesapp.repository.NoteRepository;
+import com.hissam.notesapp.repository.UserRepository;
+import com.hissam.notesapp.timing.RequestTimings;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Looks up the child a request acts on, applying {@link ChildAccessRules}, for every service
+ * working on a child's data.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChildAccess {
+    
+    private final ChildRepository childRepository;
+    private final UserRepository userRepository;
+    private final NoteRepository noteRepository;
+    
+    /**
+     * The child profile of the user; nonChildMessage is the error when the user is not a child.
+     */
+    public Child findChild(String username, String nonChildMessage) {
+        return RequestTimings.time("lookup", () -> childRepository.findByUserUsername(username)).orElseThrow(() -> {
+            User user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+            if (user.getRole() != UserRole.CHILD) {
+                return new UnauthorizedException(nonChildMessage);
+            }
+            return new ResourceNotFoundException("Child profile not found");
+        });
+    }
+    
+    public User findParent(String parentUsername) {
+        User parent = RequestTimings.time("lookup", () -> userRepository.findByUsername(parentUsername))
+                .orElseThrow(() -> new ResourceNotFoundException("Parent not found"));
+        
+        ChildAccessRules.requireParent(parent.getRole());
+        return parent;
+    }
+    
+    /**
+     * A child linked to the parent.
+     */
+    public Child findLinkedChild(String parentUsername, Long childId) {
+        User parent = findParent(parentUsername);
+        
+        Child child = RequestTimings.time("lookup", () -> childRepository.findById(childId))
+                .orElseThrow(() -> new ResourceNotFoundException("Child not found"));
+        
+        ChildAccessRules.requireLinked(child.getParent() == null ? null : child.getParent().getId(), parent.getId());
+        return child;
+    }
+    
+    /**
+     * Must run on the child's shard.
+     */
+    public Note findOwnedNote(Child child, Long noteId) {
+        Note note = noteRepository.findById(noteId)
+                .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+        
+        if (!note.getChild().getId().equals(child.getId())) {
+            throw new UnauthorizedException("Note does not belong to user");
+        }
+        return note;
+    }
+}
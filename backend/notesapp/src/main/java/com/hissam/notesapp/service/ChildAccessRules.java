@@ -0,0 +1,26 @@
+package com.hissam.notesapp.service;
+
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.exception.UnauthorizedException;
+
+/**
+ * Who may read which child's data. Shared by the servlet services and the reactive read API
+ * so both enforce the same rules with the same errors.
+ */
+public final class ChildAccessRules {
+    
+    private ChildAccessRules() {
+    }
+    
+    public static void requireParent(UserRole role) {
+        if (role != UserRole.PARENT) {
+            throw new UnauthorizedException("Only parents can view child notes");
+        }
+    }
+    
+    public static void requireLinked(Long childParentId, Long parentId) {
+        if (childParentId == null || !childParentId.equals(parentId)) {
+            throw new UnauthorizedException("Child does not belong to parent");
+        }
+    }
+}
@@ -1,21 +1,26 @@
 package com.hissam.notesapp.service;
 
+import com.hissam.notesapp.coalescing.ReadCoalescer;
+import com.hissam.notesapp.dto.FolderMoveRequest;
 import com.hissam.notesapp.dto.FolderRequest;
 import com.hissam.notesapp.dto.FolderResponse;
 import com.hissam.notesapp.entity.Child;
 import com.hissam.notesapp.entity.Folder;
-import com.hissam.notesapp.entity.User;
-import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.enums.OutboxAggregateType;
+import com.hissam.notesapp.enums.OutboxEventType;
 import com.hissam.notesapp.exception.ResourceNotFoundException;
 import com.hissam.notesapp.exception.UnauthorizedException;
-import com.hissam.notesapp.repository.ChildRepository;
+import com.hissam.notesapp.outbox.OutboxWriter;
 import com.hissam.notesapp.repository.FolderRepository;
-import com.hissam.notesapp.repository.UserRepository;
+import com.hissam.notesapp.repository.NoteRepository;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import com.hissam.notesapp.timing.RequestTimings;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,91 +28,129 @@ import java.util.stream.Collectors;
 public class FolderService {
     
     private final FolderRepository folderRepository;
-    private final ChildRepository childRepository;
-    private final UserRepository userRepository;
+    private final ChildAccess childAccess;
+    private final NoteRepository noteRepository;
+    private final ShardTemplate shardTemplate;
+    private final OutboxWriter outboxWriter;
+    private final ReadCoalescer readCoalescer;
     
     public List<FolderResponse> getUserFolders(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        if (user.getRole() != UserRole.CHILD) {
-            throw new UnauthorizedException("Only children can access folders");
-        }
-        
-        Child child = childRepository.findByUser(user)
-                .orElseThrow(() -> new ResourceNotFoundException("Child profile not found"));
-        
-        return folderRepository.findByChildId(child.getId())
-                .stream()
-                .map(this::mapToFolderResponse)
-                .collect(Collectors.toList());
+        Child child = childAccess.findChild(username, "Only children can access folders");
+        
+        return readCoalescer.read("folders", child.getId(), null, () -> shardTemplate.read(child, () -> {
+            Map<Long, Long> noteCounts = RequestTimings.time("query", () -> noteRepository.countBySubtree(child.getId()))
+                    .stream()
+                    .collect(Collectors.toMap(NoteRepository.FolderNoteCount::getFolderId,
+                            NoteRepository.FolderNoteCount::getNoteCount));
+            List<Folder> folders = RequestTimings.time("query", () -> folderRepository.findByChildId(child.getId()));
+            return RequestTimings.time("mapping", () -> folders.stream()
+                    .map(folder -> mapToFolderResponse(folder, noteCounts.getOrDefault(folder.getId(), 0L)))
+                    .collect(Collectors.toList()));
+        }));
     }
     
-    @Transactional
     public FolderResponse createFolder(String username, FolderRequest request) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        if (user.getRole() != UserRole.CHILD) {
-            throw new UnauthorizedException("Only children can create folders");
-        }
-        
-        Child child = childRepository.findByUser(user)
-                .orElseThrow(() -> new ResourceNotFoundException("Child profile not found"));
-        
-        Folder folder = new Folder();
-        folder.setName(request.getName());
-        folder.setChild(child);
-        
-        folder = folderRepository.save(folder);
-        return mapToFolderResponse(folder);
+        Child child = childAccess.findChild(username, "Only children can create folders");
+        
+        return shardTemplate.write(child, () -> {
+            Folder folder = new Folder();
+            folder.setName(request.getName());
+            folder.setChild(child);
+            if (request.getParentId() != null) {
+                folderRepository.lockTree(child.getId());
+                folder.setParentId(findOwnedFolder(child, request.getParentId()).getId());
+            }
+            
+            Folder saved = folderRepository.save(folder);
+            folderRepository.addRoot(saved.getId(), child.getId());
+            if (saved.getParentId() != null) {
+                folderRepository.attachSubtree(saved.getId(), saved.getParentId());
+            }
+            FolderResponse response = mapToFolderResponse(saved, 0);
+            outboxWriter.record(child.getId(), OutboxAggregateType.FOLDER, response.getId(), OutboxEventType.CREATED, response);
+            return response;
+        });
     }
     
-    @Transactional
     public FolderResponse updateFolder(String username, Long folderId, FolderRequest request) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        Child child = childRepository.findByUser(user)
-                .orElseThrow(() -> new ResourceNotFoundException("Child profile not found"));
-        
-        Folder folder = folderRepository.findById(folderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Folder not found"));
-        
-        if (!folder.getChild().getId().equals(child.getId())) {
-            throw new UnauthorizedException("Folder does not belong to user");
-        }
-        
-        folder.setName(request.getName());
-        folder = folderRepository.save(folder);
-        
-        return mapToFolderResponse(folder);
+        Child child = childAccess.findChild(username, "Only children can update folders");
+        
+        return shardTemplate.write(child, () -> {
+            Folder folder = findOwnedFolder(child, folderId);
+            folder.setName(request.getName());
+            
+            FolderResponse response = mapToFolderResponse(folderRepository.save(folder), noteRepository.countInSubtree(folderId));
+            outboxWriter.record(child.getId(), OutboxAggregateType.FOLDER, folderId, OutboxEventType.UPDATED, response);
+            return response;
+        });
+    }
+    
+    /**
+     * Moves a folder with everything under it: the paths from its old ancestors into the subtree are
+     * replaced by paths from the new ones, in two statements whatever the size of the subtree.
+     */
+    public FolderResponse moveFolder(String username, Long folderId, FolderMoveRequest request) {
+        Child child = childAccess.findChild(username, "Only children can move folders");
+        
+        return shardTemplate.write(child, () -> {
+            folderRepository.lockTree(child.getId());
+            Folder folder = findOwnedFolder(child, folderId);
+            Long parentId = request.getParentId();
+            
+            if (!Objects.equals(folder.getParentId(), parentId)) {
+                if (parentId != null) {
+                    findOwnedFolder(child, parentId);
+                    if (folderRepository.isInSubtree(folderId, parentId)) {
+                        throw new RuntimeException("A folder cannot be moved into itself or one of its subfolders");
+                    }
+                }
+                folderRepository.detachSubtree(folderId);
+                if (parentId != null) {
+                    folderRepository.attachSubtree(folderId, parentId);
+                }
+                folder.setParentId(parentId);
+                folderRepository.save(folder);
+            }
+            
+            FolderResponse response = mapToFolderResponse(folder, noteRepository.countInSubtree(folderId));
+            outboxWriter.record(child.getId(), OutboxAggregateType.FOLDER, folderId, OutboxEventType.UPDATED, response);
+            return response;
+        });
     }
     
-    @Transactional
     public void deleteFolder(String username, Long folderId) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        Child child = childRepository.findByUser(user)
-                .orElseThrow(() -> new ResourceNotFoundException("Child profile not found"));
-        
+        Child child = childAccess.findChild(username, "Only children can delete folders");
+        
+        shardTemplate.write(child, () -> {
+            folderRepository.lockTree(child.getId());
+            findOwnedFolder(child, folderId);
+            
+            // Subfolders and all their notes are removed with it; consumers get a single FOLDER DELETED event
+            noteRepository.deleteInSubtree(folderId);
+            folderRepository.deleteSubtreeFolders(folderId);
+            folderRepository.deleteSubtreeClosure(folderId);
+            outboxWriter.record(child.getId(), OutboxAggregateType.FOLDER, folderId, OutboxEventType.DELETED, null);
+        });
+    }
+    
+    private Folder findOwnedFolder(Child child, Long folderId) {
         Folder folder = folderRepository.findById(folderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Folder not found"));
         
         if (!folder.getChild().getId().equals(child.getId())) {
             throw new UnauthorizedException("Folder does not belong to user");
         }
-        
-        folderRepository.delete(folder);
+        return folder;
     }
     
-    private FolderResponse mapToFolderResponse(Folder folder) {
+    private FolderResponse mapToFolderResponse(Folder folder, long noteCount) {
         return FolderResponse.builder()
                 .id(folder.getId())
                 .name(folder.getName())
                 .childId(folder.getChild().getId())
+                .parentId(folder.getParentId())
+                .noteCount(noteCount)
                 .createdAt(folder.getCreatedAt())
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package com.hissam.notesapp.service;
+
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.entity.Note;
+
+/**
+ * Maps notes to responses, for every service returning notes from the notes table.
+ */
+public final class NoteMapper {
+    
+    private NoteMapper() {
+    }
+    
+    public static NoteResponse toResponse(Note note) {
+        return NoteResponse.builder()
+                .id(note.getId())
+                .title(note.getTitle())
+                .content(note.getContent())
+                .noteType(note.getNoteType())
+                .childId(note.getChild().getId())
+                .folderId(note.getFolder() != null ? note.getFolder().getId() : null)
+                .tags(note.getTags())
+                .completed(note.getCompleted())
+                .pinned(note.getPinned())
+                .checklistTotal(note.getChecklistTotal())
+                .checklistChecked(note.getChecklistChecked())
+                .createdAt(note.getCreatedAt())
+                .updatedAt(note.getUpdatedAt())
+                .archived(false)
+                .build();
+    }
+}
@@ -0,0 +1,92 @@
+package com.hissam.notesapp.service;
+
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.NoteRevisionResponse;
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.entity.Note;
+import com.hissam.notesapp.enums.OutboxAggregateType;
+import com.hissam.notesapp.enums.OutboxEventType;
+import com.hissam.notesapp.exception.ResourceNotFoundException;
+import com.hissam.notesapp.exception.UnauthorizedException;
+import com.hissam.notesapp.outbox.OutboxWriter;
+import com.hissam.notesapp.repository.NoteRepository;
+import com.hissam.notesapp.revision.RevisionStore;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Revision history of notes: children browse and restore their own, parents browse their
+ * linked children's. Restoring is recorded as a new revision, so it can be undone as well.
+ */
+@Service
+@RequiredArgsConstructor
+public class NoteRevisionService {
+    
+    private final RevisionStore revisionStore;
+    private final ChildAccess childAccess;
+    private final NoteRepository noteRepository;
+    private final ShardTemplate shardTemplate;
+    private final OutboxWriter outboxWriter;
+    
+    public List<NoteRevisionResponse> getRevisions(String username, Long noteId) {
+        Child child = childAccess.findChild(username, "Only children can access their notes");
+        
+        return shardTemplate.read(child, () -> {
+            childAccess.findOwnedNote(child, noteId);
+            return revisionStore.list(noteId);
+        });
+    }
+    
+    public NoteRevisionResponse getRevision(String username, Long noteId, int revision) {
+        Child child = childAccess.findChild(username, "Only children can access their notes");
+        
+        return shardTemplate.read(child, () -> {
+            childAccess.findOwnedNote(child, noteId);
+            return revisionStore.get(noteId, revision);
+        });
+    }
+    
+    public List<NoteRevisionResponse> getChildRevisions(String parentUsername, Long childId, Long noteId) {
+        Child child = childAccess.findLinkedChild(parentUsername, childId);
+        
+        return shardTemplate.read(child, () -> {
+            childAccess.findOwnedNote(child, noteId);
+            return revisionStore.list(noteId);
+        });
+    }
+    
+    public NoteRevisionResponse getChildRevision(String parentUsername, Long childId, Long noteId, int revision) {
+        Child child = childAccess.findLinkedChild(parentUsername, childId);
+        
+        return shardTemplate.read(child, () -> {
+            childAccess.findOwnedNote(child, noteId);
+            return revisionStore.get(noteId, revision);
+        });
+    }
+    
+    public NoteResponse restoreRevision(String username, Long noteId, int revision) {
+        Child child = childAccess.findChild(username, "Only children can update notes");
+        
+        return shardTemplate.write(child, () -> {
+            Note note = noteRepository.findByIdForUpdate(noteId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+            if (!note.getChild().getId().equals(child.getId())) {
+                throw new UnauthorizedException("Note does not belong to user");
+            }
+            
+            NoteRevisionResponse restored = revisionStore.get(noteId, revision);
+            revisionStore.record(note, restored.getTitle(), restored.getContent());
+            note.setTitle(restored.getTitle());
+            note.setContent(restored.getContent());
+            note = noteRepository.save(note);
+            
+            outboxWriter.record(child.getId(), OutboxAggregateType.NOTE, noteId, OutboxEventType.UPDATED,
+                    Map.of("title", note.getTitle(), "content", note.getContent()));
+            return NoteMapper.toResponse(note);
+        });
+    }
+}
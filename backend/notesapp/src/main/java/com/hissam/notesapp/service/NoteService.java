@@ -1,176 +1,387 @@
 package com.hissam.notesapp.service;
 
+import com.hissam.notesapp.activity.ActivityRollups;
+import com.hissam.notesapp.archive.NoteArchive;
+import com.hissam.notesapp.cache.NoteJsonCache;
+import com.hissam.notesapp.cache.NoteJsonListing;
+import com.hissam.notesapp.coalescing.ReadCoalescer;
+import com.hissam.notesapp.dto.NoteMoveRequest;
+import com.hissam.notesapp.dto.NotePatchRequest;
+import com.hissam.notesapp.dto.NoteQuery;
 import com.hissam.notesapp.dto.NoteRequest;
 import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.SuggestionResponse;
 import com.hissam.notesapp.entity.Child;
 import com.hissam.notesapp.entity.Folder;
 import com.hissam.notesapp.entity.Note;
 import com.hissam.notesapp.entity.User;
-import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.enums.ActivityMetric;
+import com.hissam.notesapp.enums.OutboxAggregateType;
+import com.hissam.notesapp.enums.OutboxEventType;
+import com.hissam.notesapp.enums.SuggestionField;
 import com.hissam.notesapp.exception.ResourceNotFoundException;
 import com.hissam.notesapp.exception.UnauthorizedException;
+import com.hissam.notesapp.ordering.NoteOrdering;
+import com.hissam.notesapp.outbox.OutboxWriter;
 import com.hissam.notesapp.repository.ChildRepository;
 import com.hissam.notesapp.repository.FolderRepository;
 import com.hissam.notesapp.repository.NoteRepository;
-import com.hissam.notesapp.repository.UserRepository;
+import com.hissam.notesapp.repository.NoteSpecifications;
+import com.hissam.notesapp.revision.RevisionStore;
+import com.hissam.notesapp.sharding.ShardScatterGather;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import com.hissam.notesapp.suggest.SuggestionIndex;
+import com.hissam.notesapp.timing.RequestTimings;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class NoteService {
     
+    private static final int MAX_SUGGESTIONS = 50;
+    
     private final NoteRepository noteRepository;
+    private final ChildAccess childAccess;
     private final ChildRepository childRepository;
     private final FolderRepository folderRepository;
-    private final UserRepository userRepository;
+    private final NoteToggleCoalescer toggleCoalescer;
+    private final ShardTemplate shardTemplate;
+    private final ShardScatterGather scatterGather;
+    private final OutboxWriter outboxWriter;
+    private final SuggestionIndex suggestionIndex;
+    private final RevisionStore revisionStore;
+    private final NoteOrdering noteOrdering;
+    private final ReadCoalescer readCoalescer;
+    private final NoteArchive noteArchive;
+    private final ActivityRollups activityRollups;
+    private final NoteJsonCache noteJsonCache;
     
     public List<NoteResponse> getUserNotes(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        Child child = childAccess.findChild(username, "Only children can access their notes");
+        return readNotes(child);
+    }
+    
+    // The same notes as getUserNotes, as JSON assembled from cached fragments
+    public NoteJsonListing getUserNotesListing(String username) {
+        Child child = childAccess.findChild(username, "Only children can access their notes");
+        return readNotesListing(child);
+    }
+    
+    /**
+     * The child's notes matching the filters, in the requested order, read with one query.
+     */
+    public List<NoteResponse> findNotes(String username, NoteQuery query) {
+        Child child = childAccess.findChild(username, "Only children can access their notes");
+        Specification<Note> matching = NoteSpecifications.matching(child.getId(), query);
+        Sort sort = NoteSpecifications.sort(query);
         
-        if (user.getRole() != UserRole.CHILD) {
-            throw new UnauthorizedException("Only children can access their notes");
+        List<NoteResponse> notes = readCoalescer.read("note-query", child.getId(), query, () -> shardTemplate.read(child, () -> {
+            Specification<Note> specification = query.getAfterId() == null
+                    ? matching
+                    : matching.and(NoteSpecifications.afterPosition(childAccess.findOwnedNote(child, query.getAfterId())));
+            List<Note> found = RequestTimings.time("query", () -> noteRepository.findBy(specification,
+                    fluent -> query.getLimit() == null
+                            ? fluent.sortBy(sort).all()
+                            : fluent.sortBy(sort).limit(query.getLimit()).all()));
+            return mapToNoteResponses(found);
+        }));
+        if (!query.includesArchived() || (query.getLimit() != null && notes.size() >= query.getLimit())) {
+            return notes;
         }
         
-        Child child = childRepository.findByUser(user)
-                .orElseThrow(() -> new ResourceNotFoundException("Child profile not found"));
-        
-        return noteRepository.findByChildId(child.getId())
-                .stream()
-                .map(this::mapToNoteResponse)
-                .collect(Collectors.toList());
+        // Listed after the others, most recently updated first
+        List<NoteResponse> archived = shardTemplate.read(child,
+                () -> RequestTimings.time("query", () -> noteArchive.findByChildId(child.getId())));
+        List<NoteResponse> withArchived = new ArrayList<>(notes);
+        archived.stream()
+                .filter(note -> NoteSpecifications.matchesArchived(query, note))
+                .limit(query.getLimit() == null ? Long.MAX_VALUE : query.getLimit() - notes.size())
+                .forEach(withArchived::add);
+        return withArchived;
     }
     
-    @Transactional
     public NoteResponse createNote(String username, NoteRequest request) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        Child child = childAccess.findChild(username, "Only children can create notes");
         
-        if (user.getRole() != UserRole.CHILD) {
-            throw new UnauthorizedException("Only children can create notes");
-        }
-        
-        Child child = childRepository.findByUser(user)
-                .orElseThrow(() -> new ResourceNotFoundException("Child profile not found"));
-        
-        Note note = new Note();
-        note.setTitle(request.getTitle());
-        note.setContent(request.getContent());
-        note.setNoteType(request.getNoteType());
-        note.setChild(child);
-        note.setTags(request.getTags());
-        note.setCompleted(request.getCompleted());
-        
-        if (request.getFolderId() != null) {
-            Folder folder = folderRepository.findById(request.getFolderId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Folder not found"));
+        return shardTemplate.write(child, () -> {
+            Note note = new Note();
+            note.setTitle(request.getTitle());
+            note.setContent(request.getContent());
+            note.setNoteType(request.getNoteType());
+            note.setChild(child);
+            note.setTags(request.getTags());
+            note.setCompleted(request.getCompleted());
             
-            if (!folder.getChild().getId().equals(child.getId())) {
-                throw new UnauthorizedException("Folder does not belong to user");
+            if (request.getFolderId() != null) {
+                note.setFolder(findOwnedFolder(child, request.getFolderId()));
             }
-            note.setFolder(folder);
-        }
-        
-        note = noteRepository.save(note);
-        return mapToNoteResponse(note);
+            note.setRankKey(noteOrdering.topKey(child.getId(), request.getFolderId()));
+            
+            NoteResponse response = NoteMapper.toResponse(noteRepository.save(note));
+            activityRollups.record(child.getId(), ActivityMetric.NOTES_CREATED, response.getCreatedAt(), 1);
+            outboxWriter.record(child.getId(), OutboxAggregateType.NOTE, response.getId(), OutboxEventType.CREATED, response);
+            return response;
+        });
     }
     
-    @Transactional
     public NoteResponse updateNote(String username, Long noteId, NoteRequest request) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        Child child = childRepository.findByUser(user)
-                .orElseThrow(() -> new ResourceNotFoundException("Child profile not found"));
-        
-        Note note = noteRepository.findById(noteId)
-                .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
-        
-        if (!note.getChild().getId().equals(child.getId())) {
-            throw new UnauthorizedException("Note does not belong to user");
+        Child child = childAccess.findChild(username, "Only children can update notes");
+        // Before the row lock is taken, as it waits for a trailing toggle write in progress
+        if (request.getCompleted() != null) {
+            toggleCoalescer.discard(noteId);
         }
         
+        return shardTemplate.write(child, () -> {
+            Note note = noteRepository.findByIdForUpdate(noteId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+            
+            if (!note.getChild().getId().equals(child.getId())) {
+                throw new UnauthorizedException("Note does not belong to user");
+            }
+            
+            if (request.getTitle() != null || request.getContent() != null) {
+                revisionStore.record(note,
+                        request.getTitle() != null ? request.getTitle() : note.getTitle(),
+                        request.getContent() != null ? request.getContent() : note.getContent());
+            }
+            if (request.getTitle() != null) {
+                note.setTitle(request.getTitle());
+            }
+            if (request.getContent() != null) {
+                note.setContent(request.getContent());
+            }
+            if (request.getNoteType() != null) {
+                note.setNoteType(request.getNoteType());
+            }
+            if (request.getTags() != null) {
+                note.setTags(request.getTags());
+            }
+            if (request.getCompleted() != null) {
+                note.setCompleted(request.getCompleted());
+            }
+            if (request.getFolderId() != null
+                    && (note.getFolder() == null || !note.getFolder().getId().equals(request.getFolderId()))) {
+                note.setFolder(findOwnedFolder(child, request.getFolderId()));
+                note.setRankKey(noteOrdering.topKey(child.getId(), request.getFolderId()));
+            }
+            
+            NoteResponse response = NoteMapper.toResponse(noteRepository.save(note));
+            outboxWriter.record(child.getId(), OutboxAggregateType.NOTE, noteId, OutboxEventType.UPDATED, response);
+            return response;
+        });
+    }
+    
+    /**
+     * Applies only the fields present in the request with a single UPDATE.
+     *
+     * @return true if the change was written, false if it was coalesced into a pending write
+     */
+    public boolean patchNote(String username, Long noteId, NotePatchRequest request) {
+        Map<String, Object> changes = new HashMap<>();
         if (request.getTitle() != null) {
-            note.setTitle(request.getTitle());
+            changes.put("title", request.getTitle());
         }
         if (request.getContent() != null) {
-            note.setContent(request.getContent());
+            changes.put("content", request.getContent());
         }
         if (request.getNoteType() != null) {
-            note.setNoteType(request.getNoteType());
+            changes.put("noteType", request.getNoteType());
         }
         if (request.getTags() != null) {
-            note.setTags(request.getTags());
+            changes.put("tags", request.getTags());
         }
         if (request.getCompleted() != null) {
-            note.setCompleted(request.getCompleted());
+            changes.put("completed", request.getCompleted());
         }
-        if (request.getFolderId() != null) {
-            Folder folder = folderRepository.findById(request.getFolderId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Folder not found"));
-            note.setFolder(folder);
+        if (request.getPinned() != null) {
+            changes.put("pinned", request.getPinned());
         }
         
-        note = noteRepository.save(note);
-        return mapToNoteResponse(note);
-    }
-    
-    @Transactional
-    public void deleteNote(String username, Long noteId) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        if (changes.isEmpty() && request.getFolderId() == null) {
+            throw new RuntimeException("No fields to update");
+        }
         
-        Child child = childRepository.findByUser(user)
-                .orElseThrow(() -> new ResourceNotFoundException("Child profile not found"));
+        Child child = childAccess.findChild(username, "Only children can update notes");
         
-        Note note = noteRepository.findById(noteId)
-                .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+        if (request.isCompletedOnly()) {
+            return toggleCoalescer.submit(noteId, child, request.getCompleted(),
+                    () -> applyNoteChanges(child, noteId, changes, null));
+        }
         
-        if (!note.getChild().getId().equals(child.getId())) {
-            throw new UnauthorizedException("Note does not belong to user");
+        if (request.getCompleted() != null) {
+            toggleCoalescer.discard(noteId);
+        }
+        applyNoteChanges(child, noteId, changes, request.getFolderId());
+        return true;
+    }
+    
+    /**
+     * Places the note after another note of its folder and pin group, or at the top of the group,
+     * by giving it a rank key between its new neighbours' keys. Only the moved note's row changes.
+     */
+    public void moveNote(String username, Long noteId, NoteMoveRequest request) {
+        if (noteId.equals(request.getAfterNoteId())) {
+            throw new RuntimeException("A note cannot be moved after itself");
         }
+        Child child = childAccess.findChild(username, "Only children can update notes");
         
-        noteRepository.delete(note);
+        shardTemplate.write(child, () -> {
+            // Locked so a concurrent rebalance of the folder finishes first
+            Note note = noteRepository.findByIdForUpdate(noteId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+            if (!note.getChild().getId().equals(child.getId())) {
+                throw new UnauthorizedException("Note does not belong to user");
+            }
+            Long folderId = note.getFolder() != null ? note.getFolder().getId() : null;
+            
+            if (request.getAfterNoteId() != null) {
+                Note after = childAccess.findOwnedNote(child, request.getAfterNoteId());
+                Long afterFolderId = after.getFolder() != null ? after.getFolder().getId() : null;
+                if (!Objects.equals(folderId, afterFolderId) || !after.getPinned().equals(note.getPinned())) {
+                    throw new RuntimeException("A note can only be placed after a note of the same folder and pin group");
+                }
+            }
+            
+            String rankKey = noteOrdering.keyAfter(child.getId(), folderId, note.getPinned(), noteId, request.getAfterNoteId());
+            noteRepository.updateRank(noteId, rankKey);
+            outboxWriter.record(child.getId(), OutboxAggregateType.NOTE, noteId, OutboxEventType.UPDATED,
+                    Map.of("rankKey", rankKey));
+        });
     }
     
-    public List<NoteResponse> getChildNotes(String parentUsername, Long childId) {
-        User parent = userRepository.findByUsername(parentUsername)
-                .orElseThrow(() -> new ResourceNotFoundException("Parent not found"));
+    public void deleteNote(String username, Long noteId) {
+        Child child = childAccess.findChild(username, "Only children can delete notes");
+        
+        shardTemplate.write(child, () -> {
+            Note note = noteRepository.findById(noteId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+            
+            if (!note.getChild().getId().equals(child.getId())) {
+                throw new UnauthorizedException("Note does not belong to user");
+            }
+            
+            noteRepository.delete(note);
+            outboxWriter.record(child.getId(), OutboxAggregateType.NOTE, noteId, OutboxEventType.DELETED, null);
+        });
+    }
+    
+    /**
+     * Moves an archived note back among the child's notes, with its checklist items and revisions.
+     */
+    public NoteResponse restoreNote(String username, Long noteId) {
+        Child child = childAccess.findChild(username, "Only children can restore notes");
         
-        if (parent.getRole() != UserRole.PARENT) {
-            throw new UnauthorizedException("Only parents can view child notes");
+        return shardTemplate.write(child, () -> {
+            NoteResponse response = noteArchive.restore(noteId, child.getId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Archived note not found"));
+            outboxWriter.record(child.getId(), OutboxAggregateType.NOTE, noteId, OutboxEventType.CREATED, response);
+            return response;
+        });
+    }
+    
+    /**
+     * Title words or tags of the child's notes starting with the prefix, served from memory.
+     */
+    public List<SuggestionResponse> suggest(String username, String prefix, SuggestionField field, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_SUGGESTIONS);
         }
+        Child child = childAccess.findChild(username, "Only children can get suggestions");
+        return suggestionIndex.suggest(child, prefix, field, limit);
+    }
+    
+    public List<NoteResponse> getChildNotes(String parentUsername, Long childId) {
+        return readNotes(childAccess.findLinkedChild(parentUsername, childId));
+    }
+    
+    // The same notes as getChildNotes, as JSON assembled from cached fragments
+    public NoteJsonListing getChildNotesListing(String parentUsername, Long childId) {
+        return readNotesListing(childAccess.findLinkedChild(parentUsername, childId));
+    }
+    
+    /**
+     * Notes of every child linked to the parent, read from each shard in parallel.
+     */
+    public List<NoteResponse> getLinkedChildrenNotes(String parentUsername) {
+        User parent = childAccess.findParent(parentUsername);
         
-        Child child = childRepository.findById(childId)
-                .orElseThrow(() -> new ResourceNotFoundException("Child not found"));
+        List<Child> children = RequestTimings.time("lookup", () -> childRepository.findByParentId(parent.getId()));
+        // Shard reads may run on other threads, so they are timed as one phase
+        return RequestTimings.time("query", () -> scatterGather.readAll(children,
+                childIds -> noteRepository.findByChildIdIn(childIds)
+                        .stream()
+                        .map(NoteMapper::toResponse)
+                        .collect(Collectors.toList())));
+    }
+    
+    // Shared by the child's and their parent's dashboards, which tend to refresh together
+    private List<NoteResponse> readNotes(Child child) {
+        return readCoalescer.read("notes", child.getId(), null, () -> shardTemplate.read(child, () -> {
+            List<Note> notes = RequestTimings.time("query", () -> noteRepository.findByChildId(child.getId()));
+            return mapToNoteResponses(notes);
+        }));
+    }
+    
+    private NoteJsonListing readNotesListing(Child child) {
+        return readCoalescer.read("notes-json", child.getId(), null, () -> shardTemplate.read(child, () -> {
+            List<Note> notes = RequestTimings.time("query", () -> noteRepository.findByChildId(child.getId()));
+            return RequestTimings.time("mapping", () -> noteJsonCache.listing(notes, NoteMapper::toResponse));
+        }));
+    }
+    
+    private List<NoteResponse> mapToNoteResponses(List<Note> notes) {
+        return RequestTimings.time("mapping", () -> notes.stream()
+                .map(NoteMapper::toResponse)
+                .collect(Collectors.toList()));
+    }
+    
+    private Folder findOwnedFolder(Child child, Long folderId) {
+        Folder folder = folderRepository.findById(folderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Folder not found"));
         
-        if (child.getParent() == null || !child.getParent().getId().equals(parent.getId())) {
-            throw new UnauthorizedException("Child does not belong to parent");
+        if (!folder.getChild().getId().equals(child.getId())) {
+            throw new UnauthorizedException("Folder does not belong to user");
         }
-        
-        return noteRepository.findByChildId(childId)
-                .stream()
-                .map(this::mapToNoteResponse)
-                .collect(Collectors.toList());
-    }
-    
-    private NoteResponse mapToNoteResponse(Note note) {
-        return NoteResponse.builder()
-                .id(note.getId())
-                .title(note.getTitle())
-                .content(note.getContent())
-                .noteType(note.getNoteType())
-                .childId(note.getChild().getId())
-                .folderId(note.getFolder() != null ? note.getFolder().getId() : null)
-                .tags(note.getTags())
-                .completed(note.getCompleted())
-                .createdAt(note.getCreatedAt())
-                .updatedAt(note.getUpdatedAt())
-                .build();
-    }
-}
\ No newline at end of file
+        return folder;
+    }
+    
+    private void applyNoteChanges(Child child, Long noteId, Map<String, Object> changes, Long folderId) {
+        shardTemplate.write(child, () -> {
+            // The columns to write, and the changes as published; the caller's map is left as it is
+            Map<String, Object> updates = new HashMap<>(changes);
+            Map<String, Object> changed = new HashMap<>(changes);
+            if (folderId != null) {
+                updates.put("folder", findOwnedFolder(child, folderId));
+                updates.put("rankKey", noteOrdering.topKey(child.getId(), folderId));
+                changed.put("folderId", folderId);
+            }
+            if (changes.containsKey("title") || changes.containsKey("content")) {
+                Note note = noteRepository.findByIdForUpdate(noteId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+                if (!note.getChild().getId().equals(child.getId())) {
+                    throw new UnauthorizedException("Note does not belong to user");
+                }
+                revisionStore.record(note,
+                        (String) changes.getOrDefault("title", note.getTitle()),
+                        (String) changes.getOrDefault("content", note.getContent()));
+            }
+            if (noteRepository.updateOwnedNote(noteId, child.getId(), updates) == 0) {
+                if (noteRepository.existsById(noteId)) {
+                    throw new UnauthorizedException("Note does not belong to user");
+                }
+                throw new ResourceNotFoundException("Note not found");
+            }
+            outboxWriter.record(child.getId(), OutboxAggregateType.NOTE, noteId, OutboxEventType.UPDATED, changed);
+        });
+    }
+}
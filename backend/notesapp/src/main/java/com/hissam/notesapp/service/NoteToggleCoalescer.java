@@ -0,0 +1,139 @@
+package com.hissam.notesapp.service;
+
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.enums.OutboxAggregateType;
+import com.hissam.notesapp.enums.OutboxEventType;
+import com.hissam.notesapp.outbox.OutboxWriter;
+import com.hissam.notesapp.repository.NoteRepository;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces rapid "completed" toggles on the same note. The first toggle in a window is
+ * written immediately (which also verifies ownership); later toggles from the same user
+ * only replace the pending value, and a single trailing write applies the last one. The
+ * window stays registered until a trailing write finds nothing newer to apply, so a toggle
+ * arriving while that write runs is deferred to the next one instead of racing it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NoteToggleCoalescer {
+    
+    private final NoteRepository noteRepository;
+    private final TaskScheduler taskScheduler;
+    private final ShardTemplate shardTemplate;
+    private final OutboxWriter outboxWriter;
+    
+    @Value("${app.notes.toggle-coalesce-window-ms:500}")
+    private long windowMs;
+    
+    // Pending values are only read or mutated inside map operations, which serialize per key;
+    // the last written value and the discarded flag only under the window's own lock
+    private final Map<Long, ToggleWindow> windows = new ConcurrentHashMap<>();
+    
+    /**
+     * @return true if the toggle was written now, false if it was deferred to the trailing write
+     */
+    public boolean submit(Long noteId, Child child, boolean completed, Runnable leadingWrite) {
+        ToggleWindow opened = new ToggleWindow(child.getId(), child.getShardId(), completed);
+        ToggleWindow window = windows.merge(noteId, opened, (existing, fresh) -> {
+            if (existing.childId.equals(child.getId())) {
+                existing.pending = completed;
+            }
+            return existing;
+        });
+        
+        if (window != opened) {
+            if (window.childId.equals(child.getId())) {
+                return false;
+            }
+            leadingWrite.run();
+            return true;
+        }
+        
+        try {
+            leadingWrite.run();
+        } catch (RuntimeException ex) {
+            windows.remove(noteId, opened);
+            throw ex;
+        }
+        taskScheduler.schedule(() -> flush(noteId, opened), Instant.now().plusMillis(windowMs));
+        return true;
+    }
+    
+    /**
+     * Drops any pending toggle for the note, used when a newer write sets "completed" directly.
+     * Waits for a trailing write in progress, so that it cannot overwrite the newer write.
+     */
+    public void discard(Long noteId) {
+        ToggleWindow window = windows.remove(noteId);
+        if (window != null) {
+            synchronized (window) {
+                window.discarded = true;
+            }
+        }
+    }
+    
+    private void flush(Long noteId, ToggleWindow window) {
+        synchronized (window) {
+            Boolean pending = nextWrite(noteId, window);
+            if (pending == null) {
+                return;
+            }
+            try {
+                shardTemplate.write(window.shardId, () -> {
+                    if (noteRepository.updateOwnedNote(noteId, window.childId, Map.of("completed", pending)) > 0) {
+                        outboxWriter.record(window.childId, OutboxAggregateType.NOTE, noteId, OutboxEventType.UPDATED,
+                                Map.of("completed", pending));
+                    }
+                });
+                window.written = pending;
+            } catch (RuntimeException ex) {
+                windows.remove(noteId, window);
+                log.warn("Could not apply coalesced toggle for note {}", noteId, ex);
+                return;
+            }
+        }
+        // Toggles that arrived during the write are applied one window later
+        taskScheduler.schedule(() -> flush(noteId, window), Instant.now().plusMillis(windowMs));
+    }
+    
+    // The value the trailing write should apply, or null once the window is closed
+    private Boolean nextWrite(Long noteId, ToggleWindow window) {
+        Boolean[] next = new Boolean[1];
+        windows.computeIfPresent(noteId, (key, current) -> {
+            if (current != window || window.discarded) {
+                return current;
+            }
+            if (window.pending == null || window.pending == window.written) {
+                return null;
+            }
+            next[0] = window.pending;
+            return current;
+        });
+        return next[0];
+    }
+    
+    private static final class ToggleWindow {
+        private final Long childId;
+        private final int shardId;
+        private boolean written;
+        private Boolean pending;
+        private boolean discarded;
+        
+        private ToggleWindow(Long childId, int shardId, boolean written) {
+            this.childId = childId;
+            this.shardId = shardId;
+            this.written = written;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.hissam.notesapp.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard the current thread's next connection should come from. Shard 0 is the
+ * primary database, which also holds the global tables (users, children).
+ */
+public final class ShardContext {
+    
+    public static final int DEFAULT_SHARD = 0;
+    
+    private static final ThreadLocal<Integer> CURRENT = ThreadLocal.withInitial(() -> DEFAULT_SHARD);
+    
+    private ShardContext() {
+    }
+    
+    public static int currentShard() {
+        return CURRENT.get();
+    }
+    
+    static <T> T callOn(int shardId, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shardId);
+        try {
+            return action.get();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+}
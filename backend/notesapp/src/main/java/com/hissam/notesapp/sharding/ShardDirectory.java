@@ -0,0 +1,47 @@
+package com.hissam.notesapp.sharding;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring used to place new children on a shard. The placement is then stored
+ * in children.shard_id, which is the directory every lookup uses, so adding shards only
+ * affects where new children go; existing children move only through the rebalancer.
+ */
+@Component
+public class ShardDirectory {
+    
+    private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+    
+    public ShardDirectory(ShardRoutingDataSource shardRoutingDataSource,
+                          @Value("${app.sharding.virtual-nodes:64}") int virtualNodes) {
+        for (Integer shardId : shardRoutingDataSource.getShardIds()) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.put(hash("shard-" + shardId + "#" + node), shardId);
+            }
+        }
+    }
+    
+    // Keyed on the child's user id, which is known before the child row is inserted
+    public int placeChild(Long userId) {
+        Map.Entry<Long, Integer> entry = ring.ceilingEntry(hash("child-" + userId));
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+    
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
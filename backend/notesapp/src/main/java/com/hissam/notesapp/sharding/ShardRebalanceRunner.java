@@ -0,0 +1,35 @@
+package com.hissam.notesapp.sharding;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command-line rebalancing, e.g.
+ * {@code java -jar notesapp.jar --spring.main.web-application-type=none --rebalance-child=42 --to-shard=2}
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShardRebalanceRunner implements ApplicationRunner {
+    
+    private final ShardRebalancer shardRebalancer;
+    private final ConfigurableApplicationContext context;
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption("rebalance-child") || !args.containsOption("to-shard")) {
+            return;
+        }
+        Long childId = Long.valueOf(args.getOptionValues("rebalance-child").get(0));
+        int targetShard = Integer.parseInt(args.getOptionValues("to-shard").get(0));
+        
+        int moved = shardRebalancer.moveChild(childId, targetShard);
+        log.info("Rebalance finished: child {} is on shard {}, {} rows moved", childId, targetShard, moved);
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,116 @@
+package com.hissam.notesapp.sharding;
+
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.exception.ResourceNotFoundException;
+import com.hissam.notesapp.repository.ChildRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves a child's notes and folders to another shard, keeping their ids. Writes for the child
+ * are rejected while the move is in progress; reads keep using the source until the directory
+ * entry is switched.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ShardRebalancer {
+    
+    // Tables holding a child's data on its shard, in insert order (parents before dependents)
+    private static final List<ShardedTable> TABLES = List.of(
+            new ShardedTable("folders", "child_id = ?", "id"),
+            new ShardedTable("folder_closure", "child_id = ?", "ancestor_id, descendant_id"),
+            new ShardedTable("notes", "child_id = ?", "id"),
+            new ShardedTable("notes_archive", "child_id = ?", "id"),
+            new ShardedTable("checklist_items", "child_id = ?", "id"),
+            new ShardedTable("note_revisions", "child_id = ?", "id"),
+            new ShardedTable("attachments", "child_id = ?", "id"),
+            new ShardedTable("activity_rollups", "child_id = ?", "granularity, bucket_start"));
+    
+    private final ChildRepository childRepository;
+    private final ShardRoutingDataSource shardRoutingDataSource;
+    private final ShardTemplate shardTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    
+    // Longer than any in-flight write, including coalesced toggles waiting for their window
+    @Value("${app.sharding.rebalance-grace-ms:2000}")
+    private long graceMs;
+    
+    /**
+     * @return the number of rows moved
+     */
+    public int moveChild(Long childId, int targetShard) {
+        if (!shardRoutingDataSource.getShardIds().contains(targetShard)) {
+            throw new IllegalArgumentException("Unknown shard " + targetShard);
+        }
+        Child child = childRepository.findById(childId)
+                .orElseThrow(() -> new ResourceNotFoundException("Child not found"));
+        int sourceShard = child.getShardId();
+        if (sourceShard == targetShard) {
+            return 0;
+        }
+        
+        childRepository.updateShard(childId, sourceShard, true);
+        int moved;
+        try {
+            Thread.sleep(graceMs);
+            List<List<Map<String, Object>>> rows = shardTemplate.read(sourceShard,
+                    () -> TABLES.stream().map(table -> table.select(jdbcTemplate, childId)).toList());
+            moved = shardTemplate.write(targetShard, () -> {
+                int count = 0;
+                for (int i = 0; i < TABLES.size(); i++) {
+                    count += TABLES.get(i).insert(jdbcTemplate, rows.get(i));
+                }
+                return count;
+            });
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            childRepository.updateShard(childId, sourceShard, false);
+            throw new IllegalStateException("Rebalance interrupted", ex);
+        } catch (RuntimeException ex) {
+            childRepository.updateShard(childId, sourceShard, false);
+            throw ex;
+        }
+        
+        childRepository.updateShard(childId, targetShard, false);
+        shardTemplate.write(sourceShard, () -> {
+            for (int i = TABLES.size() - 1; i >= 0; i--) {
+                TABLES.get(i).delete(jdbcTemplate, childId);
+            }
+            return null;
+        });
+        log.info("Moved child {} from shard {} to shard {} ({} rows)", childId, sourceShard, targetShard, moved);
+        return moved;
+    }
+    
+    private record ShardedTable(String name, String childFilter, String orderBy) {
+        
+        List<Map<String, Object>> select(JdbcTemplate jdbcTemplate, Long childId) {
+            return jdbcTemplate.queryForList("SELECT * FROM " + name + " WHERE " + childFilter + " ORDER BY " + orderBy, childId);
+        }
+        
+        int insert(JdbcTemplate jdbcTemplate, List<Map<String, Object>> rows) {
+            if (rows.isEmpty()) {
+                return 0;
+            }
+            List<String> columns = new ArrayList<>(rows.get(0).keySet());
+            String sql = "INSERT INTO " + name + " (" + String.join(", ", columns) + ") VALUES ("
+                    + String.join(", ", columns.stream().map(column -> "?").toList()) + ")";
+            jdbcTemplate.batchUpdate(sql, rows.stream()
+                    .map(row -> columns.stream().map(row::get).toArray())
+                    .toList());
+            return rows.size();
+        }
+        
+        void delete(JdbcTemplate jdbcTemplate, Long childId) {
+            jdbcTemplate.update("DELETE FROM " + name + " WHERE " + childFilter, childId);
+        }
+    }
+}
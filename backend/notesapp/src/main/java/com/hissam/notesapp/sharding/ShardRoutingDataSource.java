@@ -0,0 +1,51 @@
+package com.hissam.notesapp.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Picks the shard's data source from {@link ShardContext}. Shard 0 is the primary (with its
+ * replicas); additional shard pools are owned and closed here.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    
+    // Ids allocated on shard N start at N * ID_RANGE
+    public static final long ID_RANGE = 1_000_000_000_000L;
+    
+    private final Map<Integer, DataSource> shards;
+    
+    public ShardRoutingDataSource(Map<Integer, DataSource> shards) {
+        this.shards = new HashMap<>(shards);
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(ShardContext.DEFAULT_SHARD));
+        // An unknown shard id must fail instead of silently reading shard 0
+        setLenientFallback(false);
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.currentShard();
+    }
+    
+    public Set<Integer> getShardIds() {
+        return new TreeSet<>(shards.keySet());
+    }
+    
+    @Override
+    public void close() {
+        shards.forEach((shardId, dataSource) -> {
+            if (shardId != ShardContext.DEFAULT_SHARD && dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ignored) {
+                    // shutting down
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package com.hissam.notesapp.sharding;
+
+import com.hissam.notesapp.entity.Child;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs one read per shard for a set of children, in parallel when they span several shards,
+ * and concatenates the results.
+ */
+@Component
+public class ShardScatterGather implements DisposableBean {
+    
+    private final ShardTemplate shardTemplate;
+    private final ThreadPoolTaskExecutor pool;
+    // Carries the security context so shard 0 reads can still use replicas
+    private final Executor executor;
+    
+    public ShardScatterGather(ShardTemplate shardTemplate,
+                              @Value("${app.sharding.query-threads:8}") int threads) {
+        this.shardTemplate = shardTemplate;
+        pool = new ThreadPoolTaskExecutor();
+        pool.setThreadNamePrefix("shard-query-");
+        pool.setCorePoolSize(threads);
+        pool.setMaxPoolSize(threads);
+        pool.setQueueCapacity(threads * 64);
+        pool.initialize();
+        executor = new DelegatingSecurityContextExecutor(pool);
+    }
+    
+    public <T> List<T> readAll(Collection<Child> children, Function<List<Long>, List<T>> query) {
+        Map<Integer, List<Long>> childIdsByShard = children.stream()
+                .collect(Collectors.groupingBy(Child::getShardId,
+                        Collectors.mapping(Child::getId, Collectors.toList())));
+        
+        if (childIdsByShard.size() <= 1) {
+            return childIdsByShard.entrySet().stream()
+                    .flatMap(entry -> shardTemplate.read(entry.getKey(), () -> query.apply(entry.getValue())).stream())
+                    .collect(Collectors.toList());
+        }
+        
+        List<CompletableFuture<List<T>>> futures = childIdsByShard.entrySet().stream()
+                .map(entry -> CompletableFuture.supplyAsync(
+                        () -> shardTemplate.read(entry.getKey(), () -> query.apply(entry.getValue())), executor))
+                .toList();
+        
+        List<T> results = new ArrayList<>();
+        try {
+            futures.forEach(future -> results.addAll(future.join()));
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+        return results;
+    }
+    
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,62 @@
+package com.hissam.notesapp.sharding;
+
+import com.hissam.notesapp.entity.Child;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs note and folder work on the shard that owns a child. Each call gets its own
+ * transaction, so the connection is taken from the shard even when the caller already
+ * holds one on the primary.
+ */
+@Component
+public class ShardTemplate {
+    
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate writeTemplate;
+    
+    public ShardTemplate(PlatformTransactionManager transactionManager) {
+        readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTemplate.setReadOnly(true);
+        writeTemplate = new TransactionTemplate(transactionManager);
+        writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    public <T> T read(Child child, Supplier<T> action) {
+        return read(child.getShardId(), action);
+    }
+    
+    public <T> T read(int shardId, Supplier<T> action) {
+        return ShardContext.callOn(shardId, () -> readTemplate.execute(status -> action.get()));
+    }
+    
+    public <T> T write(Child child, Supplier<T> action) {
+        if (Boolean.TRUE.equals(child.getShardMoving())) {
+            throw new RuntimeException("Notes are being moved, please try again shortly");
+        }
+        return write(child.getShardId(), action);
+    }
+    
+    public void write(Child child, Runnable action) {
+        write(child, () -> {
+            action.run();
+            return null;
+        });
+    }
+    
+    public <T> T write(int shardId, Supplier<T> action) {
+        return ShardContext.callOn(shardId, () -> writeTemplate.execute(status -> action.get()));
+    }
+    
+    public void write(int shardId, Runnable action) {
+        write(shardId, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,130 @@
+package com.hissam.notesapp.suggest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Counted set of terms keyed by prefix. Each node keeps its children in sorted parallel arrays
+ * rather than a map, and nodes left without terms are pruned on removal. Not thread-safe.
+ */
+final class PrefixTrie {
+    
+    record Match(String term, int count) {
+    }
+    
+    // Highest count first, then alphabetical
+    private static final Comparator<Match> RANK = Comparator.comparingInt(Match::count).reversed()
+            .thenComparing(Match::term);
+    
+    private final Node root = new Node();
+    
+    void add(String term) {
+        adjust(term, 1);
+    }
+    
+    void remove(String term) {
+        adjust(term, -1);
+    }
+    
+    /**
+     * @return up to {@code limit} terms starting with the prefix, most frequent first
+     */
+    List<Match> top(String prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node == null || limit <= 0) {
+            return List.of();
+        }
+        
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, RANK.reversed());
+        collect(node, new StringBuilder(prefix), best, limit);
+        List<Match> result = new ArrayList<>(best);
+        result.sort(RANK);
+        return result;
+    }
+    
+    private static void collect(Node node, StringBuilder term, PriorityQueue<Match> best, int limit) {
+        if (node.count > 0 && (best.size() < limit || node.count >= best.peek().count())) {
+            best.add(new Match(term.toString(), node.count));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        for (int i = 0; i < node.size; i++) {
+            term.append(node.keys[i]);
+            collect(node.children[i], term, best, limit);
+            term.setLength(term.length() - 1);
+        }
+    }
+    
+    private void adjust(String term, int delta) {
+        Node[] path = new Node[term.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < term.length(); i++) {
+            Node next = node.child(term.charAt(i));
+            if (next == null) {
+                if (delta < 0) {
+                    return;
+                }
+                next = node.addChild(term.charAt(i));
+            }
+            node = next;
+            path[i + 1] = node;
+        }
+        if (node.count + delta < 0) {
+            return;
+        }
+        node.count += delta;
+        for (int i = term.length(); i > 0 && path[i].count == 0 && path[i].size == 0; i--) {
+            path[i - 1].removeChild(term.charAt(i - 1));
+        }
+    }
+    
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private int size;
+        private int count;
+        
+        Node child(char key) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            return index >= 0 ? children[index] : null;
+        }
+        
+        Node addChild(char key) {
+            int index = -Arrays.binarySearch(keys, 0, size, key) - 1;
+            if (size == keys.length) {
+                int capacity = Math.max(2, size + (size >> 1));
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(children, index, children, index + 1, size - index);
+            Node child = new Node();
+            keys[index] = key;
+            children[index] = child;
+            size++;
+            return child;
+        }
+        
+        void removeChild(char key) {
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(children, index + 1, children, index, size - index - 1);
+            size--;
+            children[size] = null;
+        }
+    }
+}
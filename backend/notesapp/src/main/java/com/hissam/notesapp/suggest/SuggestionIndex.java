@@ -0,0 +1,224 @@
+package com.hissam.notesapp.suggest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hissam.notesapp.dto.SuggestionResponse;
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.entity.Note;
+import com.hissam.notesapp.entity.OutboxEvent;
+import com.hissam.notesapp.enums.OutboxAggregateType;
+import com.hissam.notesapp.enums.OutboxEventType;
+import com.hissam.notesapp.enums.SuggestionField;
+import com.hissam.notesapp.outbox.OutboxConsumer;
+import com.hissam.notesapp.repository.NoteRepository;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Title words and tags of each child's notes, held in prefix tries for type-ahead. A child's
+ * terms are loaded from its shard on first use, kept current from the outbox, and dropped again
+ * once the child has been idle for a while (metrics: notesapp.suggest.*).
+ */
+@Component
+public class SuggestionIndex implements OutboxConsumer {
+    
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_WORD_LENGTH = 2;
+    
+    private final NoteRepository noteRepository;
+    private final ShardTemplate shardTemplate;
+    private final ObjectMapper objectMapper;
+    private final Timer latency;
+    private final Map<Long, ChildTerms> children = new ConcurrentHashMap<>();
+    
+    @Value("${app.suggest.max-children:10000}")
+    private int maxChildren;
+    
+    @Value("${app.suggest.idle-evict-ms:1800000}")
+    private long idleEvictMs;
+    
+    public SuggestionIndex(NoteRepository noteRepository, ShardTemplate shardTemplate,
+                           ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.noteRepository = noteRepository;
+        this.shardTemplate = shardTemplate;
+        this.objectMapper = objectMapper;
+        latency = Timer.builder("notesapp.suggest.latency")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("notesapp.suggest.children", children, Map::size).register(meterRegistry);
+    }
+    
+    public List<SuggestionResponse> suggest(Child child, String prefix, SuggestionField field, int limit) {
+        long start = System.nanoTime();
+        ChildTerms terms = load(child);
+        List<PrefixTrie.Match> matches;
+        synchronized (terms) {
+            matches = terms.trie(field).top(prefix.trim().toLowerCase(Locale.ROOT), limit);
+        }
+        latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        
+        return matches.stream()
+                .map(match -> new SuggestionResponse(match.term(), match.count()))
+                .toList();
+    }
+    
+    @Override
+    public String name() {
+        return "suggestions";
+    }
+    
+    @Override
+    public boolean nodeLocal() {
+        return true;
+    }
+    
+    @Override
+    public void reset() {
+        children.clear();
+    }
+    
+    /**
+     * Children that are not loaded are skipped: their notes are read after this commit when
+     * they are next used. Replaying an event leaves the same terms, so redelivery is harmless.
+     */
+    @Override
+    public void handle(OutboxEvent event) {
+        if (event.getAggregateType() == OutboxAggregateType.FOLDER && event.getEventType() == OutboxEventType.DELETED) {
+            // The notes of the whole subtree went with the folder without events of their own
+            children.remove(event.getChildId());
+            return;
+        }
+        if (event.getAggregateType() != OutboxAggregateType.NOTE) {
+            return;
+        }
+        ChildTerms terms = children.get(event.getChildId());
+        if (terms == null) {
+            return;
+        }
+        synchronized (terms) {
+            if (!terms.loaded) {
+                return;
+            }
+            if (event.getEventType() == OutboxEventType.DELETED) {
+                terms.remove(event.getAggregateId());
+                return;
+            }
+            
+            // Partial updates carry only the changed fields
+            JsonNode changes = readPayload(event);
+            NoteText current = terms.notes.getOrDefault(event.getAggregateId(), new NoteText(null, null));
+            terms.put(event.getAggregateId(), new NoteText(
+                    changes.has("title") ? changes.get("title").asText(null) : current.title(),
+                    changes.has("tags") ? changes.get("tags").asText(null) : current.tags()));
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.suggest.evict-interval-ms:60000}",
+            initialDelayString = "${app.suggest.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long idleSince = System.currentTimeMillis() - idleEvictMs;
+        children.entrySet().removeIf(entry -> entry.getValue().lastAccess < idleSince);
+        
+        int excess = children.size() - maxChildren;
+        if (excess > 0) {
+            children.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(children::remove);
+        }
+    }
+    
+    private ChildTerms load(Child child) {
+        ChildTerms terms = children.computeIfAbsent(child.getId(), id -> new ChildTerms());
+        terms.lastAccess = System.currentTimeMillis();
+        synchronized (terms) {
+            if (!terms.loaded) {
+                List<Note> notes = shardTemplate.read(child, () -> noteRepository.findByChildId(child.getId()));
+                notes.forEach(note -> terms.put(note.getId(), new NoteText(note.getTitle(), note.getTags())));
+                terms.loaded = true;
+            }
+        }
+        return terms;
+    }
+    
+    private JsonNode readPayload(OutboxEvent event) {
+        try {
+            return objectMapper.readTree(event.getPayload() == null ? "{}" : event.getPayload());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unreadable payload in outbox event " + event.getId(), ex);
+        }
+    }
+    
+    private static Set<String> titleWords(String title) {
+        Set<String> words = new LinkedHashSet<>();
+        if (title != null) {
+            for (String word : WORD_SEPARATOR.split(title.toLowerCase(Locale.ROOT))) {
+                if (word.length() >= MIN_WORD_LENGTH) {
+                    words.add(word);
+                }
+            }
+        }
+        return words;
+    }
+    
+    private static Set<String> tagTerms(String tags) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (tags != null) {
+            Arrays.stream(tags.split(","))
+                    .map(tag -> tag.trim().toLowerCase(Locale.ROOT))
+                    .filter(tag -> !tag.isEmpty())
+                    .forEach(terms::add);
+        }
+        return terms;
+    }
+    
+    private record NoteText(String title, String tags) {
+    }
+    
+    private static final class ChildTerms {
+        private final PrefixTrie titles = new PrefixTrie();
+        private final PrefixTrie tags = new PrefixTrie();
+        private final Map<Long, NoteText> notes = new HashMap<>();
+        private boolean loaded;
+        private volatile long lastAccess = System.currentTimeMillis();
+        
+        PrefixTrie trie(SuggestionField field) {
+            return field == SuggestionField.TAG ? tags : titles;
+        }
+        
+        void put(Long noteId, NoteText text) {
+            remove(noteId);
+            notes.put(noteId, text);
+            titleWords(text.title()).forEach(titles::add);
+            tagTerms(text.tags()).forEach(tags::add);
+        }
+        
+        void remove(Long noteId) {
+            NoteText previous = notes.remove(noteId);
+            if (previous != null) {
+                titleWords(previous.title()).forEach(titles::remove);
+                tagTerms(previous.tags()).forEach(tags::remove);
+            }
+        }
+    }
+}
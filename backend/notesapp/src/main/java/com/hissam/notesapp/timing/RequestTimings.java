@@ -0,0 +1,93 @@
+package com.hissam.notesapp.timing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Phase durations of the request handled by the current thread, summed per phase name. Timing
+ * calls made outside a request, or on other threads, just run the action.
+ */
+public final class RequestTimings {
+    
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>(8);
+    private long bodyStartNanos;
+    
+    private RequestTimings() {
+    }
+    
+    static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+    
+    static RequestTimings current() {
+        return CURRENT.get();
+    }
+    
+    static void end() {
+        CURRENT.remove();
+    }
+    
+    public static <T> T time(String phase, Supplier<T> action) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            return action.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            timings.phaseNanos.merge(phase, System.nanoTime() - start, Long::sum);
+        }
+    }
+    
+    public static void time(String phase, Runnable action) {
+        time(phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+    
+    /**
+     * Marks the start of response body writing; the rest of the request counts as the write phase.
+     */
+    void bodyStarted() {
+        if (bodyStartNanos == 0) {
+            bodyStartNanos = System.nanoTime();
+        }
+    }
+    
+    /**
+     * The phases so far, plus the time spent before the body was written as "app".
+     */
+    String toHeader() {
+        StringBuilder header = new StringBuilder();
+        phaseNanos.forEach((phase, nanos) -> header.append(phase).append(";dur=").append(millis(nanos)).append(", "));
+        long appEnd = bodyStartNanos != 0 ? bodyStartNanos : System.nanoTime();
+        return header.append("app;dur=").append(millis(appEnd - startNanos)).toString();
+    }
+    
+    /**
+     * The phases, the body write and the total, in milliseconds, once the request has finished.
+     */
+    Map<String, Double> finish() {
+        long end = System.nanoTime();
+        Map<String, Double> phases = new LinkedHashMap<>();
+        phaseNanos.forEach((phase, nanos) -> phases.put(phase, millis(nanos)));
+        if (bodyStartNanos != 0) {
+            phases.put("write", millis(end - bodyStartNanos));
+        }
+        phases.put("total", millis(end - startNanos));
+        return phases;
+    }
+    
+    // Rounded to 0.01 ms, which keeps the header short
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
@@ -0,0 +1,64 @@
+package com.hissam.notesapp.timing;
+
+import com.hissam.notesapp.logging.RequestLoggingFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Times each request in phases (see {@link RequestTimings}) and reports them in the Server-Timing
+ * header. The header is set just before the body is written, so the body write itself only shows
+ * in /actuator/timings. Always registered and switched off at runtime with app.timing.enabled, as a
+ * condition on the bean would be settled at build time in the AOT-processed fast-startup build.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class ServerTimingFilter extends OncePerRequestFilter {
+    
+    public static final String HEADER = "Server-Timing";
+    
+    private final SlowestRequests slowestRequests;
+    
+    @Value("${app.timing.enabled:true}")
+    private boolean enabled;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTimings.end();
+            // Responses without a body never reach ServerTimingAdvice
+            if (!response.isCommitted()) {
+                response.setHeader(HEADER, timings.toHeader());
+            }
+            Map<String, Double> phases = timings.finish();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            slowestRequests.record(request.getMethod() + " " + (pattern != null ? pattern : "unmapped"),
+                    new SlowestRequests.TimedRequest(MDC.get(RequestLoggingFilter.REQUEST_ID_MDC_KEY), Instant.now(),
+                            response.getStatus(), phases.get("total"), phases));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.hissam.notesapp.timing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The slowest requests per endpoint since startup, with their phase timings, served at
+ * /actuator/timings.
+ */
+@Component
+@Endpoint(id = "timings")
+public class SlowestRequests {
+    
+    private static final Comparator<TimedRequest> BY_TOTAL = Comparator.comparingDouble(TimedRequest::totalMs);
+    
+    @Value("${app.timing.slowest-per-endpoint:20}")
+    private int slowestPerEndpoint;
+    
+    // Min-heaps, so the fastest kept request is the one replaced
+    private final Map<String, PriorityQueue<TimedRequest>> slowest = new ConcurrentHashMap<>();
+    
+    void record(String endpoint, TimedRequest request) {
+        PriorityQueue<TimedRequest> kept = slowest.computeIfAbsent(endpoint, key -> new PriorityQueue<>(BY_TOTAL));
+        synchronized (kept) {
+            if (kept.size() < slowestPerEndpoint) {
+                kept.add(request);
+            } else if (request.totalMs() > kept.peek().totalMs()) {
+                kept.poll();
+                kept.add(request);
+            }
+        }
+    }
+    
+    @ReadOperation
+    public Map<String, List<TimedRequest>> slowest() {
+        Map<String, List<TimedRequest>> result = new TreeMap<>();
+        slowest.forEach((endpoint, kept) -> {
+            synchronized (kept) {
+                result.put(endpoint, kept.stream().sorted(BY_TOTAL.reversed()).toList());
+            }
+        });
+        return result;
+    }
+    
+    public record TimedRequest(String requestId, Instant at, int status, double totalMs, Map<String, Double> phasesMs) {
+    }
+}
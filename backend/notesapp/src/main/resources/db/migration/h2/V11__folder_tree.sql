@@ -0,0 +1,21 @@
+-- Nested folders. parent_id is the folder's place in the tree; folder_closure holds one row per
+-- ancestor/descendant pair (including each folder with itself at depth 0), so subtree listing,
+-- note counts, moves and deletes are each a fixed number of statements whatever the depth.
+-- Both are kept in step by FolderService, which removes subtrees in bulk and so declares no
+-- foreign keys between them.
+ALTER TABLE folders ADD COLUMN parent_id BIGINT;
+
+CREATE TABLE folder_closure (
+    ancestor_id BIGINT NOT NULL,
+    descendant_id BIGINT NOT NULL,
+    depth INTEGER NOT NULL,
+    child_id BIGINT NOT NULL,
+    PRIMARY KEY (ancestor_id, descendant_id)
+);
+
+CREATE INDEX idx_folder_closure_descendant ON folder_closure (descendant_id, depth);
+CREATE INDEX idx_folder_closure_child ON folder_closure (child_id);
+
+-- Existing folders become top-level folders
+INSERT INTO folder_closure (ancestor_id, descendant_id, depth, child_id)
+SELECT id, id, 0, child_id FROM folders;
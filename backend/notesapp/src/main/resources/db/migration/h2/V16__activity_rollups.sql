@@ -0,0 +1,14 @@
+-- Notes created and checklist items ticked per child, counted per hour, day and week (starting
+-- Monday), so activity charts read one row per bucket instead of scanning the notes. Kept up to
+-- date by the note and checklist writes; lives next to the notes on the child's shard.
+CREATE TABLE activity_rollups (
+    child_id BIGINT NOT NULL,
+    granularity VARCHAR(8) NOT NULL,
+    bucket_start TIMESTAMP(6) NOT NULL,
+    notes_created BIGINT NOT NULL DEFAULT 0,
+    items_completed BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (child_id, granularity, bucket_start)
+);
+
+-- When the item was ticked, null while unticked; rollups can be rebuilt from it
+ALTER TABLE checklist_items ADD COLUMN checked_at TIMESTAMP(6);
@@ -0,0 +1,58 @@
+-- Schema as previously generated by hibernate.ddl-auto=update.
+-- Existing databases are baselined at this version and skip it.
+
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    username VARCHAR(255) NOT NULL UNIQUE,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    role ENUM ('CHILD', 'PARENT') NOT NULL,
+    created_at TIMESTAMP(6),
+    reset_token VARCHAR(255),
+    reset_token_expiry TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE children (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id BIGINT NOT NULL UNIQUE,
+    parent_id BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE folders (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255) NOT NULL,
+    child_id BIGINT NOT NULL,
+    created_at TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE notes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    title VARCHAR(255) NOT NULL,
+    content TEXT,
+    note_type ENUM ('CHECKBOX', 'REGULAR'),
+    child_id BIGINT NOT NULL,
+    folder_id BIGINT,
+    tags TEXT,
+    completed BOOLEAN NOT NULL,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+-- H2 silently creates a backing index for every foreign key that has none, and the
+-- planner then prefers it. Declaring the query indexes (see V2) before the constraints
+-- lets H2 reuse them instead.
+CREATE INDEX idx_notes_child_folder ON notes (child_id, folder_id);
+CREATE INDEX idx_notes_child_updated ON notes (child_id, updated_at);
+CREATE INDEX idx_notes_folder ON notes (folder_id);
+CREATE INDEX idx_folders_child ON folders (child_id);
+CREATE INDEX idx_children_parent ON children (parent_id);
+
+ALTER TABLE children ADD CONSTRAINT fk_children_user FOREIGN KEY (user_id) REFERENCES users (id);
+ALTER TABLE children ADD CONSTRAINT fk_children_parent FOREIGN KEY (parent_id) REFERENCES users (id);
+ALTER TABLE folders ADD CONSTRAINT fk_folders_child FOREIGN KEY (child_id) REFERENCES children (id);
+ALTER TABLE notes ADD CONSTRAINT fk_notes_child FOREIGN KEY (child_id) REFERENCES children (id);
+ALTER TABLE notes ADD CONSTRAINT fk_notes_folder FOREIGN KEY (folder_id) REFERENCES folders (id);
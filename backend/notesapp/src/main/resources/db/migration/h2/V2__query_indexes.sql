@@ -0,0 +1,11 @@
+-- Indexes backing the repository lookups:
+--   NoteRepository.findByChildId / findByChildIdAndFolderId / findByChildIdAndFolderIsNull
+--   FolderRepository.findByChildId, ChildRepository.findByParentId, UserRepository.findByResetToken
+-- Fresh H2 databases already have most of these from V1; baselined ones get them here.
+
+CREATE INDEX IF NOT EXISTS idx_notes_child_folder ON notes (child_id, folder_id);
+CREATE INDEX IF NOT EXISTS idx_notes_child_updated ON notes (child_id, updated_at);
+CREATE INDEX IF NOT EXISTS idx_notes_folder ON notes (folder_id);
+CREATE INDEX IF NOT EXISTS idx_folders_child ON folders (child_id);
+CREATE INDEX IF NOT EXISTS idx_children_parent ON children (parent_id);
+CREATE INDEX IF NOT EXISTS idx_users_reset_token ON users (reset_token);
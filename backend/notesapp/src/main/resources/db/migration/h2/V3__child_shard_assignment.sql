@@ -0,0 +1,4 @@
+-- Shard that holds the child's notes and folders. Children created before sharding live on shard 0.
+ALTER TABLE children ADD COLUMN shard_id INTEGER NOT NULL DEFAULT 0;
+-- Set while the rebalancer copies a child's data to another shard; writes are rejected meanwhile
+ALTER TABLE children ADD COLUMN shard_moving BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,20 @@
+-- Note and folder changes, written in the same transaction as the change itself and
+-- drained in id order by the outbox dispatcher. Lives on every shard.
+CREATE TABLE outbox_events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    child_id BIGINT NOT NULL,
+    aggregate_type ENUM ('FOLDER', 'NOTE') NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type ENUM ('CREATED', 'DELETED', 'UPDATED') NOT NULL,
+    payload TEXT,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Last event id each consumer has handled on this database
+CREATE TABLE outbox_checkpoints (
+    consumer VARCHAR(100) NOT NULL,
+    last_event_id BIGINT NOT NULL,
+    updated_at TIMESTAMP(6),
+    PRIMARY KEY (consumer)
+);
@@ -0,0 +1,20 @@
+-- Durable queue of outgoing notifications (password reset emails), drained by the notification worker.
+-- A repeated request for the same recipient and kind (dedup_key) updates the job that is still pending.
+CREATE TABLE notification_jobs (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    kind ENUM ('PASSWORD_RESET') NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    body TEXT NOT NULL,
+    status ENUM ('FAILED', 'PENDING', 'SENDING', 'SENT', 'SUPERSEDED') NOT NULL,
+    dedup_key VARCHAR(300) NOT NULL,
+    attempts INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP(6) NOT NULL,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_notification_jobs_dedup ON notification_jobs (dedup_key, status);
+CREATE INDEX idx_notification_jobs_due ON notification_jobs (status, next_attempt_at);
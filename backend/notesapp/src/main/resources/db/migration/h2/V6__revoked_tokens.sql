@@ -0,0 +1,11 @@
+-- Denylist of revoked JWTs. token_key is "jti:<id>" for a single token, or "user:<username>"
+-- for every token of that user issued before revoked_before. Rows are dropped once expires_at
+-- has passed, as every token they cover has expired by then.
+CREATE TABLE revoked_tokens (
+    token_key VARCHAR(300) NOT NULL,
+    revoked_before TIMESTAMP(6),
+    expires_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (token_key)
+);
+
+CREATE INDEX idx_revoked_tokens_expires ON revoked_tokens (expires_at);
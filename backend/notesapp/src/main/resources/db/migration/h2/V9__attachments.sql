@@ -0,0 +1,23 @@
+-- Files attached to notes. The bytes are stored once per distinct SHA-256 under
+-- app.attachments.dir; rows live next to their note on the child's shard and are removed with it.
+CREATE TABLE attachments (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    note_id BIGINT NOT NULL,
+    child_id BIGINT NOT NULL,
+    filename VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    sha256 VARCHAR(64) NOT NULL,
+    created_at TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_attachments_note ON attachments (note_id);
+CREATE INDEX idx_attachments_child ON attachments (child_id);
+-- Lets the sweeper find which stored files are still referenced
+CREATE INDEX idx_attachments_sha256 ON attachments (sha256);
+ALTER TABLE attachments ADD CONSTRAINT fk_attachments_note
+    FOREIGN KEY (note_id) REFERENCES notes (id) ON DELETE CASCADE;
+
+-- Attachment changes are published through the outbox too
+ALTER TABLE outbox_events ALTER COLUMN aggregate_type SET DATA TYPE ENUM ('ATTACHMENT', 'CHECKLIST_ITEM', 'FOLDER', 'NOTE');
@@ -0,0 +1,10 @@
+-- User-defined order within a folder. rank_key is a base-36 fraction, so a note moved between two
+-- others gets a key between theirs and only its own row changes; RankRebalancer rewrites a folder's
+-- keys when they grow long or collide. Pinned notes come first, each group ordered by rank_key.
+-- Existing notes share the middle key and keep their id order until their folder is rebalanced.
+ALTER TABLE notes ADD COLUMN pinned BIT NOT NULL DEFAULT 0;
+-- Binary collation: keys must compare character by character
+ALTER TABLE notes ADD COLUMN rank_key VARCHAR(64) CHARACTER SET ascii COLLATE ascii_bin NOT NULL DEFAULT 'i';
+
+-- Serves GET /api/notes?sort=position in index order, including the keyset cursor
+CREATE INDEX idx_notes_child_folder_rank ON notes (child_id, folder_id, pinned DESC, rank_key, id);
@@ -0,0 +1,3 @@
+-- Backs GET /api/notes?sort=title (see NoteSpecifications): one child's notes in title order,
+-- with id as the tie-breaker, are read from the index instead of being sorted.
+CREATE INDEX idx_notes_child_title ON notes (child_id, title, id);
@@ -0,0 +1,48 @@
+-- Schema as previously generated by hibernate.ddl-auto=update.
+-- Existing databases are baselined at this version and skip it.
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL UNIQUE,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    role ENUM ('CHILD', 'PARENT') NOT NULL,
+    created_at DATETIME(6),
+    reset_token VARCHAR(255),
+    reset_token_expiry DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE children (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL UNIQUE,
+    parent_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_children_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_children_parent FOREIGN KEY (parent_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE folders (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    child_id BIGINT NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_folders_child FOREIGN KEY (child_id) REFERENCES children (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE notes (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    content TEXT,
+    note_type ENUM ('CHECKBOX', 'REGULAR'),
+    child_id BIGINT NOT NULL,
+    folder_id BIGINT,
+    tags TEXT,
+    completed BIT NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_notes_child FOREIGN KEY (child_id) REFERENCES children (id),
+    CONSTRAINT fk_notes_folder FOREIGN KEY (folder_id) REFERENCES folders (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,10 @@
+-- Indexes backing the repository lookups:
+--   NoteRepository.findByChildId / findByChildIdAndFolderId / findByChildIdAndFolderIsNull
+--   FolderRepository.findByChildId, ChildRepository.findByParentId, UserRepository.findByResetToken
+
+CREATE INDEX idx_notes_child_folder ON notes (child_id, folder_id);
+CREATE INDEX idx_notes_child_updated ON notes (child_id, updated_at);
+CREATE INDEX idx_notes_folder ON notes (folder_id);
+CREATE INDEX idx_folders_child ON folders (child_id);
+CREATE INDEX idx_children_parent ON children (parent_id);
+CREATE INDEX idx_users_reset_token ON users (reset_token);
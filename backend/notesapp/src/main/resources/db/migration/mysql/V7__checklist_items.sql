@@ -0,0 +1,24 @@
+-- Items of CHECKBOX notes, one row each so ticking, editing or moving an item touches a single
+-- row. Lives next to its note on the child's shard; removed with the note.
+CREATE TABLE checklist_items (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    note_id BIGINT NOT NULL,
+    child_id BIGINT NOT NULL,
+    content VARCHAR(500) NOT NULL,
+    checked BIT NOT NULL,
+    position BIGINT NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_checklist_items_note_position ON checklist_items (note_id, position);
+CREATE INDEX idx_checklist_items_child ON checklist_items (child_id);
+ALTER TABLE checklist_items ADD CONSTRAINT fk_checklist_items_note
+    FOREIGN KEY (note_id) REFERENCES notes (id) ON DELETE CASCADE;
+
+-- Kept in step with the items so note lists can show progress without reading them
+ALTER TABLE notes ADD COLUMN checklist_total INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE notes ADD COLUMN checklist_checked INTEGER NOT NULL DEFAULT 0;
+
+-- Item changes are published through the outbox too
+ALTER TABLE outbox_events MODIFY aggregate_type ENUM ('CHECKLIST_ITEM', 'FOLDER', 'NOTE') NOT NULL;
@@ -0,0 +1,21 @@
+-- Title and content history of notes. Every few revisions is a full snapshot; the ones in
+-- between hold a text delta against the previous revision. Lives next to its note on the
+-- child's shard; removed with the note.
+CREATE TABLE note_revisions (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    note_id BIGINT NOT NULL,
+    child_id BIGINT NOT NULL,
+    revision INTEGER NOT NULL,
+    snapshot BIT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    body TEXT NOT NULL,
+    content_length INTEGER NOT NULL,
+    stored_bytes INTEGER NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_note_revisions_note_revision UNIQUE (note_id, revision)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_note_revisions_child ON note_revisions (child_id);
+ALTER TABLE note_revisions ADD CONSTRAINT fk_note_revisions_note
+    FOREIGN KEY (note_id) REFERENCES notes (id) ON DELETE CASCADE;
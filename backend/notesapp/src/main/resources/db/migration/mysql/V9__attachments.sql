@@ -0,0 +1,23 @@
+-- Files attached to notes. The bytes are stored once per distinct SHA-256 under
+-- app.attachments.dir; rows live next to their note on the child's shard and are removed with it.
+CREATE TABLE attachments (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    note_id BIGINT NOT NULL,
+    child_id BIGINT NOT NULL,
+    filename VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    sha256 VARCHAR(64) NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_attachments_note ON attachments (note_id);
+CREATE INDEX idx_attachments_child ON attachments (child_id);
+-- Lets the sweeper find which stored files are still referenced
+CREATE INDEX idx_attachments_sha256 ON attachments (sha256);
+ALTER TABLE attachments ADD CONSTRAINT fk_attachments_note
+    FOREIGN KEY (note_id) REFERENCES notes (id) ON DELETE CASCADE;
+
+-- Attachment changes are published through the outbox too
+ALTER TABLE outbox_events MODIFY aggregate_type ENUM ('ATTACHMENT', 'CHECKLIST_ITEM', 'FOLDER', 'NOTE') NOT NULL;
@@ -0,0 +1,3 @@
+-- Backs GET /api/notes filtering or sorting on created_at (see NoteSpecifications); the
+-- updated_at and folder variants use idx_notes_child_updated and idx_notes_child_folder.
+CREATE INDEX idx_notes_child_created ON notes (child_id, created_at);
@@ -0,0 +1,13 @@
+-- Responses of POST requests sent with an Idempotency-Key, replayed when the request is retried.
+-- key_hash is the SHA-256 of user, endpoint and key. status_code is null while the first request
+-- is running; such a row expires after a short lease, a completed one after the retention period.
+CREATE TABLE idempotency_keys (
+    key_hash VARCHAR(64) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    status_code INTEGER,
+    response_body TEXT,
+    expires_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (key_hash)
+);
+
+CREATE INDEX idx_idempotency_keys_expires ON idempotency_keys (expires_at);
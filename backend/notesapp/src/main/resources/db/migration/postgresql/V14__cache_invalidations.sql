@@ -0,0 +1,12 @@
+-- Evictions of node-local cache entries (users, a child's notes and folders), read by every node
+-- to drop its own copies. origin is the node that made the change; rows are deleted after a retention period.
+CREATE TABLE cache_invalidations (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    region VARCHAR(50) NOT NULL,
+    entity_key VARCHAR(255) NOT NULL,
+    origin VARCHAR(64) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_cache_invalidations_created ON cache_invalidations (created_at);
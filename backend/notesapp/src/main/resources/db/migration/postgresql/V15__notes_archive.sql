@@ -0,0 +1,16 @@
+-- Cold tier of notes. An archived note is moved out of notes into one row here, whose payload is
+-- the gzipped JSON of its notes row, checklist items and revisions; restoring puts them back with
+-- their ids. Lives next to the notes on the child's shard; removed with its folder.
+CREATE TABLE notes_archive (
+    id BIGINT NOT NULL,
+    child_id BIGINT NOT NULL,
+    folder_id BIGINT,
+    updated_at TIMESTAMP(6),
+    archived_at TIMESTAMP(6) NOT NULL,
+    payload BYTEA NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_notes_archive_child ON notes_archive (child_id, updated_at);
+ALTER TABLE notes_archive ADD CONSTRAINT fk_notes_archive_folder
+    FOREIGN KEY (folder_id) REFERENCES folders (id) ON DELETE CASCADE;
@@ -0,0 +1,48 @@
+-- Schema as previously generated by hibernate.ddl-auto=update.
+-- Existing databases are baselined at this version and skip it.
+
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    username VARCHAR(255) NOT NULL UNIQUE,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL CHECK (role IN ('CHILD', 'PARENT')),
+    created_at TIMESTAMP(6),
+    reset_token VARCHAR(255),
+    reset_token_expiry TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE children (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id BIGINT NOT NULL UNIQUE,
+    parent_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_children_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_children_parent FOREIGN KEY (parent_id) REFERENCES users (id)
+);
+
+CREATE TABLE folders (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255) NOT NULL,
+    child_id BIGINT NOT NULL,
+    created_at TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_folders_child FOREIGN KEY (child_id) REFERENCES children (id)
+);
+
+CREATE TABLE notes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    title VARCHAR(255) NOT NULL,
+    content TEXT,
+    note_type VARCHAR(255) CHECK (note_type IN ('CHECKBOX', 'REGULAR')),
+    child_id BIGINT NOT NULL,
+    folder_id BIGINT,
+    tags TEXT,
+    completed BOOLEAN NOT NULL,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_notes_child FOREIGN KEY (child_id) REFERENCES children (id),
+    CONSTRAINT fk_notes_folder FOREIGN KEY (folder_id) REFERENCES folders (id)
+);
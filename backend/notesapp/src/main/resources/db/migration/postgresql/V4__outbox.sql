@@ -0,0 +1,20 @@
+-- Note and folder changes, written in the same transaction as the change itself and
+-- drained in id order by the outbox dispatcher. Lives on every shard.
+CREATE TABLE outbox_events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    child_id BIGINT NOT NULL,
+    aggregate_type VARCHAR(255) NOT NULL CHECK (aggregate_type IN ('FOLDER', 'NOTE')),
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(255) NOT NULL CHECK (event_type IN ('CREATED', 'DELETED', 'UPDATED')),
+    payload TEXT,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Last event id each consumer has handled on this database
+CREATE TABLE outbox_checkpoints (
+    consumer VARCHAR(100) NOT NULL,
+    last_event_id BIGINT NOT NULL,
+    updated_at TIMESTAMP(6),
+    PRIMARY KEY (consumer)
+);
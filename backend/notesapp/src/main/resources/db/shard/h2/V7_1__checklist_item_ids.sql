@@ -0,0 +1,2 @@
+-- Additional shards only: allocate checklist item ids from the shard's range, as for notes
+ALTER TABLE checklist_items ALTER COLUMN id RESTART WITH ${idStart};
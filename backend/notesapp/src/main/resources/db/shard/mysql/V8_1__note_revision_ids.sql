@@ -0,0 +1,2 @@
+-- Additional shards only: allocate revision ids from the shard's range, as for notes
+ALTER TABLE note_revisions AUTO_INCREMENT = ${idStart};
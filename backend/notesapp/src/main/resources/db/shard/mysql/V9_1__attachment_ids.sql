@@ -0,0 +1,2 @@
+-- Additional shards only: allocate attachment ids from the shard's range, as for notes
+ALTER TABLE attachments AUTO_INCREMENT = ${idStart};
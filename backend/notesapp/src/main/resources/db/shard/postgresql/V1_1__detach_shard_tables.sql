@@ -0,0 +1,9 @@
+-- Applied to additional shards only, on top of the regular migrations. Shards hold notes and
+-- folders; users and children stay on the primary, so the references to children are dropped.
+ALTER TABLE notes DROP CONSTRAINT fk_notes_child;
+ALTER TABLE folders DROP CONSTRAINT fk_folders_child;
+
+-- Each shard allocates ids from its own range so ids stay unique across shards
+-- and can be kept when a child is rebalanced to another shard.
+ALTER TABLE notes ALTER COLUMN id RESTART WITH ${idStart};
+ALTER TABLE folders ALTER COLUMN id RESTART WITH ${idStart};
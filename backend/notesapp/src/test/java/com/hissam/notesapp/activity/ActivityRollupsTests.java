@@ -0,0 +1,135 @@
+package com.hissam.notesapp.activity;
+
+import com.hissam.notesapp.dto.ActivityBucketResponse;
+import com.hissam.notesapp.dto.ChecklistItemPatchRequest;
+import com.hissam.notesapp.dto.ChecklistItemRequest;
+import com.hissam.notesapp.dto.ChecklistItemResponse;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.enums.ActivityGranularity;
+import com.hissam.notesapp.enums.NoteType;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.repository.ChildRepository;
+import com.hissam.notesapp.service.ActivityService;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.ChecklistService;
+import com.hissam.notesapp.service.NoteService;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:activity0;DB_CLOSE_DELAY=-1",
+		"app.sharding.shard-urls=jdbc:h2:mem:activity1;DB_CLOSE_DELAY=-1"
+})
+class ActivityRollupsTests {
+
+	@Autowired
+	private ActivityService activityService;
+
+	@Autowired
+	private ActivityRollups activityRollups;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private ChecklistService checklistService;
+
+	@Autowired
+	private ChildRepository childRepository;
+
+	@Autowired
+	private ShardTemplate shardTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void writesUpdateEveryGranularityAndRebuildRecountsFromTheNotes() {
+		register("watcher", UserRole.PARENT);
+		register("writer", UserRole.CHILD);
+		register("stranger", UserRole.PARENT);
+		authService.linkChild("watcher", "writer");
+		Child child = childRepository.findByUserUsername("writer").orElseThrow();
+
+		NoteResponse list = create("Groceries", NoteType.CHECKBOX);
+		create("Diary", NoteType.REGULAR);
+		checklistService.addItem("writer", list.getId(), item("Milk", true));
+		ChecklistItemResponse bread = checklistService.addItem("writer", list.getId(), item("Bread", false));
+		checklistService.updateItem("writer", list.getId(), bread.getId(), ticked(true));
+		checklistService.updateItem("writer", list.getId(), bread.getId(), ticked(false));
+		checklistService.updateItem("writer", list.getId(), bread.getId(), ticked(true));
+
+		LocalDateTime now = LocalDateTime.now();
+		for (ActivityGranularity granularity : ActivityGranularity.values()) {
+			List<ActivityBucketResponse> buckets = activity(child, granularity, now.minusDays(14), now.plusHours(1));
+			assertThat(buckets).extracting(ActivityBucketResponse::getStart).isSorted().doesNotHaveDuplicates();
+			assertThat(buckets.stream().mapToLong(ActivityBucketResponse::getNotesCreated).sum()).isEqualTo(2);
+			assertThat(buckets.stream().mapToLong(ActivityBucketResponse::getItemsCompleted).sum()).isEqualTo(2);
+		}
+		assertThat(activity(child, ActivityGranularity.DAY, now.minusDays(14), now)).hasSize(15);
+
+		// Rebuilt from the stored times, so the backdated note moves to its week
+		shardTemplate.write(child, () -> jdbcTemplate.update("UPDATE notes SET created_at = ? WHERE id = ?",
+				now.minusWeeks(3), list.getId()));
+		assertThat(shardTemplate.write(child, () -> activityRollups.rebuild(child.getId()))).isPositive();
+		List<ActivityBucketResponse> weeks = activity(child, ActivityGranularity.WEEK, now.minusWeeks(4), now.plusHours(1));
+		assertThat(weeks.stream().filter(week -> week.getNotesCreated() > 0))
+				.extracting(ActivityBucketResponse::getStart)
+				.containsExactly(ActivityGranularity.WEEK.bucketStart(now.minusWeeks(3)), ActivityGranularity.WEEK.bucketStart(now));
+		assertThat(weeks.get(weeks.size() - 1).getItemsCompleted()).isEqualTo(2);
+
+		assertThatThrownBy(() -> activityService.getActivity("stranger", child.getId(), ActivityGranularity.DAY, null, null))
+				.hasMessageContaining("does not belong");
+		assertThatThrownBy(() -> activityService.getActivity("watcher", child.getId(), ActivityGranularity.HOUR,
+				now.minusYears(1), now)).hasMessageContaining("more than");
+	}
+
+	private List<ActivityBucketResponse> activity(Child child, ActivityGranularity granularity,
+												  LocalDateTime from, LocalDateTime to) {
+		return activityService.getActivity("watcher", child.getId(), granularity, from, to);
+	}
+
+	private NoteResponse create(String title, NoteType noteType) {
+		NoteRequest request = new NoteRequest();
+		request.setTitle(title);
+		request.setNoteType(noteType);
+		return noteService.createNote("writer", request);
+	}
+
+	private static ChecklistItemRequest item(String content, boolean checked) {
+		ChecklistItemRequest request = new ChecklistItemRequest();
+		request.setContent(content);
+		request.setChecked(checked);
+		return request;
+	}
+
+	private static ChecklistItemPatchRequest ticked(boolean checked) {
+		ChecklistItemPatchRequest request = new ChecklistItemPatchRequest();
+		request.setChecked(checked);
+		return request;
+	}
+
+	private void register(String username, UserRole role) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(role);
+		authService.register(request);
+	}
+}
@@ -0,0 +1,217 @@
+package com.hissam.notesapp.archive;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hissam.notesapp.dto.ChecklistItemRequest;
+import com.hissam.notesapp.dto.NotePatchRequest;
+import com.hissam.notesapp.dto.NoteQuery;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.enums.NoteType;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.repository.ChildRepository;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.ChecklistService;
+import com.hissam.notesapp.service.NoteRevisionService;
+import com.hissam.notesapp.service.NoteService;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:archive0;DB_CLOSE_DELAY=-1",
+		"app.sharding.shard-urls=jdbc:h2:mem:archive1;DB_CLOSE_DELAY=-1"
+})
+class NoteArchiverTests {
+
+	@Autowired
+	private NoteArchiver archiver;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private ChecklistService checklistService;
+
+	@Autowired
+	private NoteRevisionService revisionService;
+
+	@Autowired
+	private ChildRepository childRepository;
+
+	@Autowired
+	private ShardTemplate shardTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void oldDoneNotesMoveToTheArchiveAndBackWithTheirItemsAndRevisions() {
+		register("keeper");
+		NoteResponse done = create("Done long ago", NoteType.CHECKBOX, false);
+		checklistService.addItem("keeper", done.getId(), item("Milk"));
+		NoteRequest edit = new NoteRequest();
+		edit.setTitle("Done long ago, edited");
+		edit.setNoteType(NoteType.CHECKBOX);
+		noteService.updateNote("keeper", done.getId(), edit);
+		NoteResponse open = create("Still open", NoteType.REGULAR, false);
+		NoteResponse pinned = create("Pinned", NoteType.REGULAR, true);
+		NoteResponse recent = create("Done recently", NoteType.REGULAR, true);
+		noteService.patchNote("keeper", pinned.getId(), pinnedPatch());
+		age(done.getId(), 400, 200);
+		age(open.getId(), 400, 200);
+		age(pinned.getId(), 400, 200);
+		age(recent.getId(), 400, 10);
+
+		assertThat(archiver.archive()).isEqualTo(1);
+
+		assertThat(noteService.getUserNotes("keeper")).extracting(NoteResponse::getId)
+				.containsExactlyInAnyOrder(open.getId(), pinned.getId(), recent.getId());
+		NoteQuery query = new NoteQuery();
+		query.setInclude("archived");
+		assertThat(noteService.findNotes("keeper", query)).last()
+				.satisfies(note -> {
+					assertThat(note.getId()).isEqualTo(done.getId());
+					assertThat(note.getTitle()).isEqualTo("Done long ago, edited");
+					assertThat(note.getArchived()).isTrue();
+					assertThat(note.getChecklistChecked()).isEqualTo(1);
+				});
+		query.setNoteType(NoteType.CHECKBOX);
+		assertThat(noteService.findNotes("keeper", query)).extracting(NoteResponse::getId).containsExactly(done.getId());
+		query.setInclude("deleted");
+		assertThatThrownBy(() -> noteService.findNotes("keeper", query)).hasMessageContaining("Unsupported include");
+
+		NoteResponse restored = noteService.restoreNote("keeper", done.getId());
+		assertThat(restored.getArchived()).isFalse();
+		assertThat(restored.getCreatedAt()).isBefore(LocalDateTime.now().minusDays(399));
+		assertThat(noteService.getUserNotes("keeper")).extracting(NoteResponse::getId).contains(done.getId());
+		assertThat(checklistService.getItems("keeper", done.getId())).singleElement()
+				.satisfies(item -> assertThat(item.getContent()).isEqualTo("Milk"));
+		assertThat(revisionService.getRevisions("keeper", done.getId())).isNotEmpty();
+		assertThatThrownBy(() -> noteService.restoreNote("keeper", done.getId())).hasMessageContaining("not found");
+	}
+
+	@Test
+	void payloadsOfAnOlderLayoutRestoreWithDefaults() {
+		register("collector");
+		NoteRequest request = new NoteRequest();
+		request.setTitle("From an older release");
+		request.setNoteType(NoteType.CHECKBOX);
+		request.setCompleted(true);
+		NoteResponse note = noteService.createNote("collector", request);
+		checklistService.addItem("collector", note.getId(), item("Stamps"));
+		Child child = childRepository.findByUserUsername("collector").orElseThrow();
+		shardTemplate.write(child, () -> jdbcTemplate.update("UPDATE notes SET created_at = ?, updated_at = ? WHERE id = ?",
+				LocalDateTime.now().minusDays(400), LocalDateTime.now().minusDays(200), note.getId()));
+		archiver.archive();
+
+		// Rewrite the payload as an unversioned one, without the columns added since and with one since dropped
+		Map<String, Object> payload = shardTemplate.read(child, () -> readPayload(note.getId()));
+		assertThat(payload).containsEntry("version", NoteArchive.PAYLOAD_VERSION);
+		payload.remove("version");
+		Map<String, Object> row = firstRow(payload, "notes");
+		row.keySet().removeAll(List.of("pinned", "rank_key", "checklist_total", "checklist_checked"));
+		row.put("color", "blue");
+		firstRow(payload, "checklist_items").remove("checked_at");
+		shardTemplate.write(child, () -> jdbcTemplate.update("UPDATE notes_archive SET payload = ? WHERE id = ?",
+				writePayload(payload), note.getId()));
+
+		NoteResponse restored = noteService.restoreNote("collector", note.getId());
+		assertThat(restored.getTitle()).isEqualTo("From an older release");
+		assertThat(restored.getPinned()).isFalse();
+		assertThat(restored.getChecklistTotal()).isZero();
+		assertThat(checklistService.getItems("collector", note.getId())).singleElement()
+				.satisfies(item -> assertThat(item.getContent()).isEqualTo("Stamps"));
+
+		// Still archivable, so it would be counted by the other test's run
+		noteService.deleteNote("collector", note.getId());
+	}
+
+	private Map<String, Object> readPayload(Long noteId) {
+		byte[] payload = jdbcTemplate.queryForObject("SELECT payload FROM notes_archive WHERE id = ?", byte[].class, noteId);
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+			return objectMapper.readValue(in, new TypeReference<>() {
+			});
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private byte[] writePayload(Map<String, Object> payload) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(bytes)) {
+			objectMapper.writeValue(out, payload);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return bytes.toByteArray();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> firstRow(Map<String, Object> payload, String table) {
+		return ((List<Map<String, Object>>) payload.get(table)).get(0);
+	}
+
+	// Backdates the note as if it was created and last changed that many days ago
+	private void age(Long noteId, int createdDaysAgo, int updatedDaysAgo) {
+		Child child = childRepository.findByUserUsername("keeper").orElseThrow();
+		shardTemplate.write(child, () -> jdbcTemplate.update("UPDATE notes SET created_at = ?, updated_at = ? WHERE id = ?",
+				LocalDateTime.now().minusDays(createdDaysAgo), LocalDateTime.now().minusDays(updatedDaysAgo), noteId));
+	}
+
+	private NoteResponse create(String title, NoteType noteType, boolean completed) {
+		NoteRequest request = new NoteRequest();
+		request.setTitle(title);
+		request.setNoteType(noteType);
+		request.setCompleted(completed);
+		return noteService.createNote("keeper", request);
+	}
+
+	private static ChecklistItemRequest item(String content) {
+		ChecklistItemRequest request = new ChecklistItemRequest();
+		request.setContent(content);
+		request.setChecked(true);
+		return request;
+	}
+
+	private static NotePatchRequest pinnedPatch() {
+		NotePatchRequest request = new NotePatchRequest();
+		request.setPinned(true);
+		request.setCompleted(true);
+		return request;
+	}
+
+	private void register(String username) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(UserRole.CHILD);
+		authService.register(request);
+	}
+}
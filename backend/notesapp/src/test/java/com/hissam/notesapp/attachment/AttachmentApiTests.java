@@ -0,0 +1,177 @@
+package com.hissam.notesapp.attachment;
+
+import com.hissam.notesapp.dto.AttachmentResponse;
+import com.hissam.notesapp.dto.LoginRequest;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.repository.ChildRepository;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.NoteService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:attachments0;DB_CLOSE_DELAY=-1",
+		"app.sharding.shard-urls=jdbc:h2:mem:attachments1;DB_CLOSE_DELAY=-1",
+		"app.attachments.dir=target/test-attachments",
+		"app.attachments.max-size-bytes=4194304"
+})
+class AttachmentApiTests {
+
+	private static final Path STORE = Path.of("target/test-attachments");
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private ChildRepository childRepository;
+
+	@Autowired
+	private AttachmentSweeper sweeper;
+
+	@Test
+	void identicalUploadsShareOneFileAndSupportRanges() throws IOException {
+		register("photographer", UserRole.CHILD);
+		String token = login("photographer");
+		Long first = createNote("photographer");
+		Long second = createNote("photographer");
+		byte[] photo = randomBytes(3 * 1024 * 1024 + 17);
+
+		AttachmentResponse a = upload(token, first, "holiday.jpg", photo).getBody();
+		AttachmentResponse b = upload(token, second, "C:\\photos\\copy.jpg", photo).getBody();
+		assertThat(b.getSha256()).isEqualTo(a.getSha256());
+		assertThat(b.getFilename()).isEqualTo("copy.jpg");
+		assertThat(b.getSizeBytes()).isEqualTo(photo.length);
+		assertThat(storedFiles()).contains(a.getSha256());
+
+		String path = "/api/notes/" + first + "/attachments/" + a.getId();
+		ResponseEntity<byte[]> full = get(path, token, null);
+		assertThat(full.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(full.getBody()).isEqualTo(photo);
+		assertThat(full.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_JPEG);
+		assertThat(full.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+
+		HttpHeaders range = new HttpHeaders();
+		range.set(HttpHeaders.RANGE, "bytes=1000-1999");
+		ResponseEntity<byte[]> part = get(path, token, range);
+		assertThat(part.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+		assertThat(part.getBody()).isEqualTo(Arrays.copyOfRange(photo, 1000, 2000));
+
+		HttpHeaders cached = new HttpHeaders();
+		cached.setIfNoneMatch(full.getHeaders().getETag());
+		assertThat(get(path, token, cached).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+		ResponseEntity<AttachmentResponse> tooLarge = upload(token, first, "huge.bin", randomBytes(5 * 1024 * 1024));
+		assertThat(tooLarge.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	void followsTheNoteOwnershipRulesAndSweepsUnusedFiles() throws IOException {
+		register("artist", UserRole.CHILD);
+		register("other-kid", UserRole.CHILD);
+		register("artist-parent", UserRole.PARENT);
+		register("other-parent", UserRole.PARENT);
+		authService.linkChild("artist-parent", "artist");
+		String token = login("artist");
+		Long noteId = createNote("artist");
+		AttachmentResponse drawing = upload(token, noteId, "drawing.png", randomBytes(4096)).getBody();
+		Long childId = childRepository.findByUserUsername("artist").orElseThrow().getId();
+
+		String own = "/api/notes/" + noteId + "/attachments/" + drawing.getId();
+		String viaParent = "/api/notes/child/" + childId + "/" + noteId + "/attachments/" + drawing.getId();
+		assertThat(get(own, login("other-kid"), null).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+		assertThat(upload(login("other-kid"), noteId, "x.png", new byte[1]).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+		assertThat(get(viaParent, login("artist-parent"), null).getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(get(viaParent, login("other-parent"), null).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+
+		ReflectionTestUtils.setField(sweeper, "graceMs", -1000L);
+		try {
+			sweeper.sweep();
+			assertThat(storedFiles()).contains(drawing.getSha256());
+
+			noteService.deleteNote("artist", noteId);
+			sweeper.sweep();
+			assertThat(storedFiles()).doesNotContain(drawing.getSha256());
+		} finally {
+			ReflectionTestUtils.setField(sweeper, "graceMs", 3600000L);
+		}
+	}
+
+	private ResponseEntity<AttachmentResponse> upload(String token, Long noteId, String filename, byte[] content) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(token);
+		headers.setContentType(filename.endsWith(".png") ? MediaType.IMAGE_PNG
+				: filename.endsWith(".jpg") ? MediaType.IMAGE_JPEG : MediaType.APPLICATION_OCTET_STREAM);
+		return restTemplate.exchange("/api/notes/{noteId}/attachments?filename={filename}", HttpMethod.POST,
+				new HttpEntity<>(content, headers), AttachmentResponse.class, noteId, filename);
+	}
+
+	private ResponseEntity<byte[]> get(String path, String token, HttpHeaders extra) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(token);
+		if (extra != null) {
+			headers.addAll(extra);
+		}
+		return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+	}
+
+	private List<String> storedFiles() throws IOException {
+		try (Stream<Path> files = Files.walk(STORE)) {
+			return files.filter(Files::isRegularFile).map(file -> file.getFileName().toString()).toList();
+		}
+	}
+
+	private static byte[] randomBytes(int size) {
+		byte[] bytes = new byte[size];
+		new Random(size).nextBytes(bytes);
+		return bytes;
+	}
+
+	private Long createNote(String username) {
+		NoteRequest request = new NoteRequest();
+		request.setTitle("Art");
+		return noteService.createNote(username, request).getId();
+	}
+
+	private void register(String username, UserRole role) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(role);
+		authService.register(request);
+	}
+
+	private String login(String username) {
+		LoginRequest request = new LoginRequest();
+		request.setUsername(username);
+		request.setPassword("secret");
+		return authService.login(request).getAccessToken();
+	}
+}
@@ -0,0 +1,137 @@
+package com.hissam.notesapp.cache;
+
+import com.hissam.notesapp.NotesappApplication;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.repository.CacheInvalidationRepository;
+import com.hissam.notesapp.repository.UserRepository;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.NoteService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs a second node next to the test's own, both on the same H2 database.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=" + InvalidationBusTests.DATABASE_URL,
+		"app.cache.invalidation.poll-interval-ms=100"
+})
+class InvalidationBusTests {
+
+	static final String DATABASE_URL = "jdbc:h2:mem:invalidation;DB_CLOSE_DELAY=-1";
+
+	private static ConfigurableApplicationContext otherNode;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private InvalidationBus invalidationBus;
+
+	@Autowired
+	private CacheInvalidationRepository invalidationRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeAll
+	static void startOtherNode() {
+		otherNode = new SpringApplicationBuilder(NotesappApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=" + DATABASE_URL, "--app.cache.invalidation.poll-interval-ms=100");
+	}
+
+	@AfterAll
+	static void stopOtherNode() {
+		otherNode.close();
+	}
+
+	@Test
+	void changesOnOneNodeEvictCachedEntriesOnTheOther() throws Exception {
+		register("cached");
+		UserDetailsService otherUsers = otherNode.getBean(UserDetailsService.class);
+		String oldPassword = otherUsers.loadUserByUsername("cached").getPassword();
+
+		authService.forgotPassword("cached@example.com");
+		authService.resetPassword(userRepository.findByUsername("cached").orElseThrow().getResetToken(), "changed");
+		String newPassword = userRepository.findByUsername("cached").orElseThrow().getPassword();
+		assertThat(newPassword).isNotEqualTo(oldPassword);
+		waitUntil(() -> otherUsers.loadUserByUsername("cached").getPassword().equals(newPassword));
+
+		double childBefore = received("child");
+		NoteRequest note = new NoteRequest();
+		note.setTitle("Elsewhere");
+		noteService.createNote("cached", note);
+		waitUntil(() -> received("child") > childBefore);
+	}
+
+	@Test
+	void invalidationsAreWrittenWithTheChange() {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		long before = invalidationRepository.count();
+
+		transaction.executeWithoutResult(status -> {
+			invalidationBus.publish(InvalidationBus.NOTE_REGION, 41L);
+			invalidationBus.publish(InvalidationBus.NOTE_REGION, 41L);
+			status.setRollbackOnly();
+		});
+		assertThat(invalidationRepository.count()).isEqualTo(before);
+
+		// In the table as soon as the change commits, without waiting for a poll
+		transaction.executeWithoutResult(status -> {
+			invalidationBus.publish(InvalidationBus.NOTE_REGION, 42L);
+			invalidationBus.publish(InvalidationBus.NOTE_REGION, 42L);
+		});
+		assertThat(invalidationRepository.findAll()).filteredOn(row -> row.getEntityKey().equals("42")).hasSize(1);
+		assertThatThrownBy(() -> invalidationBus.publish(InvalidationBus.NOTE_REGION, 43L))
+				.isInstanceOf(IllegalTransactionStateException.class);
+	}
+
+	private static double received(String region) {
+		Counter counter = otherNode.getBean(MeterRegistry.class).find("notesapp.cache.invalidations")
+				.tag("direction", "received").tag("region", region).counter();
+		return counter == null ? 0 : counter.count();
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean()) {
+			assertThat(System.currentTimeMillis()).isLessThan(deadline);
+			Thread.sleep(20);
+		}
+	}
+
+	private void register(String username) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(UserRole.CHILD);
+		authService.register(request);
+	}
+}
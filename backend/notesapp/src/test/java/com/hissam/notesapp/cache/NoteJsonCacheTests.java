@@ -0,0 +1,149 @@
+package com.hissam.notesapp.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hissam.notesapp.dto.LoginRequest;
+import com.hissam.notesapp.dto.NotePatchRequest;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.entity.Note;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.repository.ChildRepository;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.NoteService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:notejson;DB_CLOSE_DELAY=-1",
+		"app.cache.note-json.off-heap=true"
+})
+class NoteJsonCacheTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private ChildRepository childRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void listingsReuseFragmentsUntilTheNoteChanges() throws Exception {
+		register("json-parent", UserRole.PARENT);
+		register("json-kid", UserRole.CHILD);
+		authService.linkChild("json-parent", "json-kid");
+		Long childId = childRepository.findByUserUsername("json-kid").orElseThrow().getId();
+		NoteResponse first = create("First");
+		NoteResponse second = create("Second");
+		String token = login("json-parent");
+		String path = "/api/notes/child/" + childId;
+
+		ResponseEntity<String> cold = get(path, token);
+		double hitsBefore = hits();
+		ResponseEntity<String> warm = get(path, token);
+		assertThat(hits() - hitsBefore).isEqualTo(2);
+		assertThat(warm.getBody()).isEqualTo(cold.getBody());
+		assertThat(warm.getHeaders().getContentLength()).isEqualTo(warm.getBody().getBytes().length);
+		assertThat(warm.getBody()).isEqualTo(objectMapper.writeValueAsString(noteService.getChildNotes("json-parent", childId)));
+
+		NotePatchRequest rename = new NotePatchRequest();
+		rename.setTitle("First, renamed");
+		noteService.patchNote("json-kid", first.getId(), rename);
+		noteService.deleteNote("json-kid", second.getId());
+		JsonNode changed = objectMapper.readTree(get(path, token).getBody());
+		assertThat(changed).hasSize(1);
+		assertThat(changed.get(0).get("title").asText()).isEqualTo("First, renamed");
+		assertThat(objectMapper.readTree(get("/api/notes", login("json-kid")).getBody())).isEqualTo(changed);
+	}
+
+	@Test
+	void oldestFragmentsAreDroppedBeyondTheByteLimit() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		NoteJsonCache cache = new NoteJsonCache(objectMapper, registry);
+		ReflectionTestUtils.setField(cache, "maxBytes", 1000L);
+		List<Note> notes = LongStream.rangeClosed(1, 20).mapToObj(NoteJsonCacheTests::note).toList();
+
+		for (int round = 0; round < 3; round++) {
+			NoteJsonListing listing = cache.listing(notes, note -> NoteResponse.builder()
+					.id(note.getId()).title(note.getTitle()).updatedAt(note.getUpdatedAt()).build());
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			listing.writeTo(out);
+			assertThat(objectMapper.readTree(out.toByteArray())).hasSize(20);
+			assertThat((long) out.size()).isEqualTo(listing.contentLength());
+		}
+		assertThat(registry.get("notesapp.cache.note-json.bytes").gauge().value()).isBetween(1.0, 1000.0);
+
+		// The most recently stored fragments are still there
+		cache.listing(notes.subList(18, 20), note -> {
+			throw new AssertionError("Note " + note.getId() + " was serialized again");
+		});
+	}
+
+	private static Note note(long id) {
+		Note note = new Note();
+		note.setId(id);
+		note.setTitle("Note number " + id + " with a title long enough to fill the cache quickly");
+		note.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 0, 0).plusSeconds(id));
+		return note;
+	}
+
+	private double hits() {
+		return meterRegistry.get("notesapp.cache.note-json").tag("outcome", "hit").counter().count();
+	}
+
+	private NoteResponse create(String title) {
+		NoteRequest request = new NoteRequest();
+		request.setTitle(title);
+		return noteService.createNote("json-kid", request);
+	}
+
+	private ResponseEntity<String> get(String path, String token) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(token);
+		return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+	}
+
+	private void register(String username, UserRole role) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(role);
+		authService.register(request);
+	}
+
+	private String login(String username) {
+		LoginRequest request = new LoginRequest();
+		request.setUsername(username);
+		request.setPassword("secret");
+		return authService.login(request).getAccessToken();
+	}
+}
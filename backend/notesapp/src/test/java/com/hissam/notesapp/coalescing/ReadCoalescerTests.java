@@ -0,0 +1,134 @@
+package com.hissam.notesapp.coalescing;
+
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.repository.ChildRepository;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.NoteService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:coalescing;DB_CLOSE_DELAY=-1")
+class ReadCoalescerTests {
+
+	@Autowired
+	private ReadCoalescer readCoalescer;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private ChildRepository childRepository;
+
+	@Test
+	void concurrentIdenticalReadsShareOneQuery() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger queries = new AtomicInteger();
+		double sharedBefore = shared("test-shared");
+
+		CompletableFuture<List<String>> leader = CompletableFuture.supplyAsync(() ->
+				readCoalescer.read("test-shared", 1L, "params", () -> {
+					queries.incrementAndGet();
+					await(release);
+					return List.of("result");
+				}));
+		waitUntil(() -> queries.get() == 1);
+		List<CompletableFuture<List<String>>> followers = IntStream.range(0, 5)
+				.mapToObj(i -> CompletableFuture.supplyAsync(() ->
+						readCoalescer.read("test-shared", 1L, "params", () -> {
+							queries.incrementAndGet();
+							return List.of("own");
+						})))
+				.toList();
+		waitUntil(() -> shared("test-shared") - sharedBefore == 5);
+
+		// Another child or other parameters do not join
+		assertThat(readCoalescer.read("test-shared", 2L, "params", () -> List.of("other child"))).containsExactly("other child");
+		assertThat(readCoalescer.read("test-shared", 1L, "other", () -> List.of("other params"))).containsExactly("other params");
+
+		release.countDown();
+		List<String> result = leader.get(5, TimeUnit.SECONDS);
+		for (CompletableFuture<List<String>> follower : followers) {
+			assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(result);
+		}
+		assertThat(queries.get()).isEqualTo(1);
+		assertThat(meterRegistry.get("notesapp.reads.dedupe-ratio").tag("read", "test-shared").gauge().value())
+				.isGreaterThan(0.5);
+	}
+
+	@Test
+	void readsAfterACommittedWriteDoNotJoinEarlierReads() throws Exception {
+		register("writer");
+		Long childId = childRepository.findByUserUsername("writer").orElseThrow().getId();
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger queries = new AtomicInteger();
+
+		// Stands in for a slow read of the child's notes that started before the write
+		CompletableFuture<List<NoteResponse>> slow = CompletableFuture.supplyAsync(() ->
+				readCoalescer.read("notes", childId, null, () -> {
+					queries.incrementAndGet();
+					await(release);
+					return List.of();
+				}));
+		waitUntil(() -> queries.get() == 1);
+
+		NoteRequest request = new NoteRequest();
+		request.setTitle("Fresh");
+		noteService.createNote("writer", request);
+
+		assertThat(noteService.getUserNotes("writer")).extracting(NoteResponse::getTitle).containsExactly("Fresh");
+		release.countDown();
+		assertThat(slow.get(5, TimeUnit.SECONDS)).isEmpty();
+	}
+
+	private double shared(String read) {
+		Counter counter = meterRegistry.find("notesapp.reads.coalesced").tag("read", read).tag("outcome", "shared").counter();
+		return counter == null ? 0 : counter.count();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean()) {
+			assertThat(System.currentTimeMillis()).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private void register(String username) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(UserRole.CHILD);
+		authService.register(request);
+	}
+}
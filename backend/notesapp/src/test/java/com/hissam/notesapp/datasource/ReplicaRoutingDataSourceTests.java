@@ -0,0 +1,91 @@
+package com.hissam.notesapp.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+		"app.datasource.replica-urls=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1,jdbc:h2:mem:missing;IFEXISTS=TRUE",
+		"app.datasource.replica-connection-timeout-ms=250",
+		"app.datasource.replica-health-check-interval-ms=3600000"
+})
+class ReplicaRoutingDataSourceTests {
+
+	@Autowired
+	private ReplicaRoutingDataSource routingDataSource;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void checkReplicas() {
+		routingDataSource.checkReplicaHealth();
+	}
+
+	@AfterEach
+	void clearAuthentication() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void unreachableReplicaIsTakenOutOfRotation() {
+		assertThat(routingDataSource.isReplicaHealthy("replica-1")).isTrue();
+		assertThat(routingDataSource.isReplicaHealthy("replica-2")).isFalse();
+	}
+
+	@Test
+	void authenticatedReadOnlyTransactionsGoToHealthyReplica() {
+		authenticate("kid");
+		for (int i = 0; i < 4; i++) {
+			assertThat(database(true)).isEqualTo("REPLICA");
+		}
+		assertThat(database(false)).isEqualTo("PRIMARY");
+	}
+
+	@Test
+	void anonymousReadsStayOnPrimary() {
+		assertThat(database(true)).isEqualTo("PRIMARY");
+
+		SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken(
+				"key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+		assertThat(database(true)).isEqualTo("PRIMARY");
+	}
+
+	@Test
+	void readsFollowOwnWritesToPrimary() {
+		authenticate("writer");
+		database(false);
+		assertThat(database(true)).isEqualTo("PRIMARY");
+
+		authenticate("someone-else");
+		assertThat(database(true)).isEqualTo("REPLICA");
+	}
+
+	private String database(boolean readOnly) {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.setReadOnly(readOnly);
+		return template.execute(status -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+	}
+
+	private static void authenticate(String username) {
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(username, null, List.of()));
+	}
+}
@@ -0,0 +1,170 @@
+package com.hissam.notesapp.idempotency;
+
+import com.hissam.notesapp.dto.FolderRequest;
+import com.hissam.notesapp.dto.FolderResponse;
+import com.hissam.notesapp.dto.LoginRequest;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.repository.IdempotencyRecordRepository;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.FolderService;
+import com.hissam.notesapp.service.NoteService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:idempotency0;DB_CLOSE_DELAY=-1",
+		"app.sharding.shard-urls=jdbc:h2:mem:idempotency1;DB_CLOSE_DELAY=-1"
+})
+class IdempotencyApiTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private FolderService folderService;
+
+	@Autowired
+	private IdempotencyStore idempotencyStore;
+
+	@Autowired
+	private IdempotencyRecordRepository idempotencyRecordRepository;
+
+	@Test
+	void retriesReplayTheFirstResponseAcrossRestarts() {
+		register("retrier");
+		register("neighbour");
+		String token = login("retrier");
+		NoteRequest note = noteRequest("Spelling list");
+
+		ResponseEntity<NoteResponse> first = post("/api/notes", token, "note-1", note, NoteResponse.class);
+		ResponseEntity<NoteResponse> retry = post("/api/notes", token, "note-1", note, NoteResponse.class);
+		assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		assertThat(first.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER)).isFalse();
+		assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		assertThat(retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER)).isEqualTo("true");
+		assertThat(retry.getBody().getId()).isEqualTo(first.getBody().getId());
+
+		// A restarted node only has the table
+		((Map<?, ?>) ReflectionTestUtils.getField(idempotencyStore, "responses")).clear();
+		ResponseEntity<NoteResponse> afterRestart = post("/api/notes", token, "note-1", note, NoteResponse.class);
+		assertThat(afterRestart.getBody().getId()).isEqualTo(first.getBody().getId());
+		assertThat(noteService.getUserNotes("retrier")).hasSize(1);
+
+		assertThat(post("/api/notes", token, "note-1", noteRequest("Other"), Map.class).getStatusCode())
+				.isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(post("/api/notes", token, "note-2", note, NoteResponse.class).getBody().getId())
+				.isNotEqualTo(first.getBody().getId());
+		assertThat(post("/api/notes", login("neighbour"), "note-1", note, NoteResponse.class).getBody().getId())
+				.isNotEqualTo(first.getBody().getId());
+		assertThat(post("/api/notes", token, null, note, NoteResponse.class).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		assertThat(noteService.getUserNotes("retrier")).hasSize(3);
+	}
+
+	@Test
+	void simultaneousRetriesWaitForTheFirstExecution() {
+		register("impatient");
+		String token = login("impatient");
+		FolderRequest folder = new FolderRequest();
+		folder.setName("Homework");
+
+		CountDownLatch start = new CountDownLatch(1);
+		List<CompletableFuture<ResponseEntity<FolderResponse>>> retries = IntStream.range(0, 8)
+				.mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+					try {
+						start.await();
+					} catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+					return post("/api/folders", token, "folder-1", folder, FolderResponse.class);
+				}))
+				.toList();
+		start.countDown();
+
+		List<ResponseEntity<FolderResponse>> responses = retries.stream().map(CompletableFuture::join).toList();
+		assertThat(responses).allSatisfy(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED));
+		assertThat(responses.stream().map(response -> response.getBody().getId()).distinct()).hasSize(1);
+		assertThat(folderService.getUserFolders("impatient")).hasSize(1);
+	}
+
+	@Test
+	void abandonedKeysAreFreedAfterTheirLease() {
+		register("crashed");
+		String token = login("crashed");
+		NoteRequest note = noteRequest("Left behind");
+
+		ResponseEntity<NoteResponse> first = post("/api/notes", token, "note-1", note, NoteResponse.class);
+		String keyHash = idempotencyRecordRepository.findAll().stream()
+				.filter(record -> record.getResponseBody() != null && record.getResponseBody().contains("Left behind"))
+				.findFirst().orElseThrow().getKeyHash();
+		((Map<?, ?>) ReflectionTestUtils.getField(idempotencyStore, "responses")).clear();
+
+		// As if the node died while the request was running
+		idempotencyRecordRepository.deleteById(keyHash);
+		idempotencyRecordRepository.reserve(keyHash, "pending", LocalDateTime.now().plusMinutes(1));
+		assertThat(post("/api/notes", token, "note-1", note, Map.class).getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+
+		// Lease runs out
+		idempotencyRecordRepository.takeOver(keyHash, "pending", LocalDateTime.now().minusSeconds(1),
+				LocalDateTime.now().plusMinutes(2));
+		ResponseEntity<NoteResponse> retry = post("/api/notes", token, "note-1", note, NoteResponse.class);
+		assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		assertThat(retry.getBody().getId()).isNotEqualTo(first.getBody().getId());
+	}
+
+	private <T> ResponseEntity<T> post(String path, String token, String key, Object body, Class<T> type) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(token);
+		if (key != null) {
+			headers.set(IdempotencyStore.HEADER, key);
+		}
+		return restTemplate.exchange(path, HttpMethod.POST, new HttpEntity<>(body, headers), type);
+	}
+
+	private static NoteRequest noteRequest(String title) {
+		NoteRequest request = new NoteRequest();
+		request.setTitle(title);
+		return request;
+	}
+
+	private void register(String username) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(UserRole.CHILD);
+		authService.register(request);
+	}
+
+	private String login(String username) {
+		LoginRequest request = new LoginRequest();
+		request.setUsername(username);
+		request.setPassword("secret");
+		return authService.login(request).getAccessToken();
+	}
+}
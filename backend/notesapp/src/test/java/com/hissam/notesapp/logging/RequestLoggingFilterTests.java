@@ -0,0 +1,47 @@
+package com.hissam.notesapp.logging;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestLoggingFilterTests {
+
+	@Test
+	void correlationIdIsKeptOrGeneratedAndScopedToTheRequest() throws Exception {
+		RequestLoggingFilter filter = new RequestLoggingFilter();
+		ReflectionTestUtils.setField(filter, "sampleRate", 1.0);
+		ReflectionTestUtils.setField(filter, "slowThresholdMs", 1000L);
+
+		assertThat(run(filter, "client-42")).isEqualTo("client-42");
+		String generated = run(filter, "spaces and {braces}");
+		assertThat(generated).hasSize(36).isNotEqualTo(run(filter, null));
+		assertThat(MDC.get(RequestLoggingFilter.REQUEST_ID_MDC_KEY)).isNull();
+	}
+
+	private static String run(RequestLoggingFilter filter, String requestId) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notes");
+		if (requestId != null) {
+			request.addHeader(RequestLoggingFilter.REQUEST_ID_HEADER, requestId);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AtomicReference<String> seenByHandler = new AtomicReference<>();
+		filter.doFilter(request, response, new MockFilterChain() {
+			@Override
+			public void doFilter(ServletRequest req, ServletResponse res) {
+				seenByHandler.set(MDC.get(RequestLoggingFilter.REQUEST_ID_MDC_KEY));
+			}
+		});
+		String echoed = response.getHeader(RequestLoggingFilter.REQUEST_ID_HEADER);
+		assertThat(seenByHandler.get()).isEqualTo(echoed);
+		return echoed;
+	}
+}
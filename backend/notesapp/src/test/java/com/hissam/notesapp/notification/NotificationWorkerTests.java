@@ -0,0 +1,109 @@
+package com.hissam.notesapp.notification;
+
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.entity.NotificationJob;
+import com.hissam.notesapp.entity.User;
+import com.hissam.notesapp.enums.NotificationStatus;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.repository.NotificationJobRepository;
+import com.hissam.notesapp.repository.UserRepository;
+import com.hissam.notesapp.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:notifications;DB_CLOSE_DELAY=-1",
+		"app.notifications.transport=memory",
+		"app.notifications.poll-interval-ms=3600000",
+		"app.notifications.initial-backoff-ms=0"
+})
+class NotificationWorkerTests {
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NotificationWorker worker;
+
+	@Autowired
+	private NotificationJobRepository jobRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private InMemoryTransport transport;
+
+	@Test
+	void repeatedResetRequestsAreSentOnceWithLatestLinkAndRetried() {
+		RegisterRequest register = new RegisterRequest();
+		register.setUsername("forgetful");
+		register.setEmail("forgetful@example.com");
+		register.setPassword("secret");
+		register.setRole(UserRole.PARENT);
+		authService.register(register);
+
+		authService.forgotPassword("forgetful@example.com");
+		authService.forgotPassword("forgetful@example.com");
+		assertThat(transport.sent).isEmpty();
+		assertThat(jobRepository.findAll()).hasSize(1);
+
+		transport.failNext.add("forgetful@example.com");
+		worker.drain();
+		assertThat(transport.sent).isEmpty();
+		NotificationJob job = jobRepository.findAll().get(0);
+		assertThat(job.getStatus()).isEqualTo(NotificationStatus.PENDING);
+		assertThat(job.getAttempts()).isEqualTo(1);
+
+		worker.drain();
+		User user = userRepository.findByEmail("forgetful@example.com").orElseThrow();
+		assertThat(transport.sent).singleElement()
+				.satisfies(message -> assertThat(message.body()).contains("token=" + user.getResetToken()));
+		assertThat(jobRepository.findAll().get(0).getStatus()).isEqualTo(NotificationStatus.SENT);
+	}
+
+	@TestConfiguration
+	static class Transport {
+
+		@Bean
+		InMemoryTransport inMemoryTransport() {
+			return new InMemoryTransport();
+		}
+	}
+
+	static class InMemoryTransport implements NotificationTransport {
+
+		private final List<NotificationMessage> sent = new CopyOnWriteArrayList<>();
+		private final Set<String> failNext = new HashSet<>();
+
+		@Override
+		public String name() {
+			return "memory";
+		}
+
+		@Override
+		public synchronized Map<Long, String> send(List<NotificationMessage> messages) {
+			Map<Long, String> failures = new HashMap<>();
+			for (NotificationMessage message : messages) {
+				if (failNext.remove(message.recipient())) {
+					failures.put(message.id(), "mailbox unavailable");
+				} else {
+					sent.add(message);
+				}
+			}
+			return failures;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package com.hissam.notesapp.ordering;
+
+import com.hissam.notesapp.dto.FolderRequest;
+import com.hissam.notesapp.dto.NoteMoveRequest;
+import com.hissam.notesapp.dto.NotePatchRequest;
+import com.hissam.notesapp.dto.NoteQuery;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.repository.NoteRepository;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.FolderService;
+import com.hissam.notesapp.service.NoteService;
+import com.hissam.notesapp.sharding.ShardContext;
+import com.hissam.notesapp.sharding.ShardTemplate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:ordering;DB_CLOSE_DELAY=-1",
+		"app.ordering.max-key-length=3",
+		"app.ordering.rebalance-interval-ms=3600000"
+})
+class NoteOrderingTests {
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private FolderService folderService;
+
+	@Autowired
+	private NoteRepository noteRepository;
+
+	@Autowired
+	private RankRebalancer rankRebalancer;
+
+	@Autowired
+	private ShardTemplate shardTemplate;
+
+	@Test
+	void keysBetweenNeighboursKeepTheirOrder() {
+		Random random = new Random(7);
+		List<String> keys = new ArrayList<>(List.of(RankKeys.between(null, null)));
+		for (int i = 0; i < 2000; i++) {
+			int slot = random.nextInt(keys.size() + 1);
+			String lower = slot == 0 ? null : keys.get(slot - 1);
+			String upper = slot == keys.size() ? null : keys.get(slot);
+			keys.add(slot, RankKeys.between(lower, upper));
+		}
+		assertThat(keys).isSorted().doesNotHaveDuplicates().allMatch(key -> !key.endsWith("0"));
+
+		List<String> spread = RankKeys.spread(5000);
+		assertThat(spread).hasSize(5000).isSorted().doesNotHaveDuplicates()
+				.allMatch(key -> key.length() <= 4 && !key.endsWith("0"));
+		assertThatThrownBy(() -> RankKeys.between("b", "a")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void movesAndPinsRewriteOneNoteAndPageInOrder() {
+		register("arranger");
+		Long folderId = folder("arranger", "desk");
+		Long a = note("arranger", "a", folderId);
+		Long b = note("arranger", "b", folderId);
+		Long c = note("arranger", "c", folderId);
+		Long d = note("arranger", "d", folderId);
+		note("arranger", "elsewhere", null);
+		assertThat(titles("arranger", folderId, null, null)).containsExactly("d", "c", "b", "a");
+
+		move("arranger", a, d);
+		move("arranger", b, null);
+		assertThat(titles("arranger", folderId, null, null)).containsExactly("b", "d", "a", "c");
+
+		NotePatchRequest pin = new NotePatchRequest();
+		pin.setPinned(true);
+		noteService.patchNote("arranger", c, pin);
+		assertThat(titles("arranger", folderId, null, null)).containsExactly("c", "b", "d", "a");
+		assertThatThrownBy(() -> move("arranger", d, c)).hasMessageContaining("same folder and pin group");
+
+		assertThat(titles("arranger", folderId, null, 2)).containsExactly("c", "b");
+		assertThat(titles("arranger", folderId, b, 2)).containsExactly("d", "a");
+		assertThat(titles("arranger", folderId, a, 2)).isEmpty();
+	}
+
+	@Test
+	void longAndCollidingKeysAreRebalanced() {
+		register("shuffler");
+		Long folderId = folder("shuffler", "pile");
+		Long first = note("shuffler", "first", folderId);
+		Long last = note("shuffler", "last", folderId);
+		Long middle = note("shuffler", "middle", folderId);
+		// Squeezing into the same gap lengthens the keys
+		for (int i = 0; i < 12; i++) {
+			move("shuffler", first, last);
+			move("shuffler", middle, last);
+		}
+		assertThat(titles("shuffler", folderId, null, null)).containsExactly("last", "middle", "first");
+		assertThat(rankKey(first).length()).isGreaterThan(3);
+
+		rankRebalancer.rebalance();
+		assertThat(titles("shuffler", folderId, null, null)).containsExactly("last", "middle", "first");
+		assertThat(List.of(rankKey(first), rankKey(middle), rankKey(last))).allMatch(key -> key.length() <= 3);
+
+		// Notes sharing a key, as after the migration, are spread out before a note goes between them
+		shardTemplate.write(ShardContext.DEFAULT_SHARD, () -> {
+			noteRepository.updateRank(first, "i");
+			noteRepository.updateRank(middle, "i");
+			noteRepository.updateRank(last, "i");
+		});
+		move("shuffler", last, first);
+		assertThat(titles("shuffler", folderId, null, null)).containsExactly("first", "last", "middle");
+		assertThat(List.of(rankKey(first), rankKey(middle), rankKey(last))).doesNotHaveDuplicates();
+	}
+
+	private List<String> titles(String username, Long folderId, Long afterId, Integer limit) {
+		NoteQuery query = new NoteQuery();
+		query.setFolderId(folderId);
+		query.setSort("position");
+		query.setAfterId(afterId);
+		query.setLimit(limit);
+		return noteService.findNotes(username, query).stream().map(NoteResponse::getTitle).toList();
+	}
+
+	private String rankKey(Long noteId) {
+		return shardTemplate.read(ShardContext.DEFAULT_SHARD, () -> noteRepository.findRankKey(noteId));
+	}
+
+	private void move(String username, Long noteId, Long afterNoteId) {
+		NoteMoveRequest request = new NoteMoveRequest();
+		request.setAfterNoteId(afterNoteId);
+		noteService.moveNote(username, noteId, request);
+	}
+
+	private Long folder(String username, String name) {
+		FolderRequest request = new FolderRequest();
+		request.setName(name);
+		return folderService.createFolder(username, request).getId();
+	}
+
+	private Long note(String username, String title, Long folderId) {
+		NoteRequest request = new NoteRequest();
+		request.setTitle(title);
+		request.setFolderId(folderId);
+		return noteService.createNote(username, request).getId();
+	}
+
+	private void register(String username) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(UserRole.CHILD);
+		authService.register(request);
+	}
+}
@@ -0,0 +1,161 @@
+package com.hissam.notesapp.outbox;
+
+import com.hissam.notesapp.dto.FolderRequest;
+import com.hissam.notesapp.dto.NotePatchRequest;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.entity.OutboxCheckpoint;
+import com.hissam.notesapp.entity.OutboxEvent;
+import com.hissam.notesapp.enums.OutboxAggregateType;
+import com.hissam.notesapp.enums.OutboxEventType;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.repository.OutboxCheckpointRepository;
+import com.hissam.notesapp.repository.OutboxEventRepository;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.FolderService;
+import com.hissam.notesapp.service.NoteService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1",
+		"app.outbox.poll-interval-ms=3600000"
+})
+class OutboxDispatcherTests {
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private FolderService folderService;
+
+	@Autowired
+	private OutboxDispatcher dispatcher;
+
+	@Autowired
+	private OutboxEventRepository eventRepository;
+
+	@Autowired
+	private OutboxCheckpointRepository checkpointRepository;
+
+	@Autowired
+	private FlakyConsumer consumer;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void changesAreDeliveredInOrderAtLeastOnce() {
+		RegisterRequest register = new RegisterRequest();
+		register.setUsername("outbox-kid");
+		register.setEmail("outbox-kid@example.com");
+		register.setPassword("secret");
+		register.setRole(UserRole.CHILD);
+		authService.register(register);
+
+		NoteRequest create = new NoteRequest();
+		create.setTitle("first");
+		NoteResponse note = noteService.createNote("outbox-kid", create);
+		NotePatchRequest patch = new NotePatchRequest();
+		patch.setTitle("renamed");
+		noteService.patchNote("outbox-kid", note.getId(), patch);
+		FolderRequest folder = new FolderRequest();
+		folder.setName("school");
+		folderService.createFolder("outbox-kid", folder);
+		noteService.deleteNote("outbox-kid", note.getId());
+
+		consumer.failOnEventNumber = 2;
+		dispatcher.dispatch();
+		assertThat(consumer.received).hasSize(2);
+		assertThat(checkpointRepository.findById("flaky").orElseThrow().getLastEventId())
+				.isEqualTo(consumer.received.get(0).getId());
+
+		dispatcher.dispatch();
+		assertThat(consumer.received)
+				.extracting(OutboxEvent::getAggregateType, OutboxEvent::getEventType)
+				.containsExactly(
+						tuple(OutboxAggregateType.NOTE, OutboxEventType.CREATED),
+						tuple(OutboxAggregateType.NOTE, OutboxEventType.UPDATED),
+						tuple(OutboxAggregateType.NOTE, OutboxEventType.UPDATED),
+						tuple(OutboxAggregateType.FOLDER, OutboxEventType.CREATED),
+						tuple(OutboxAggregateType.NOTE, OutboxEventType.DELETED));
+		assertThat(consumer.received.get(1).getPayload()).isEqualTo("{\"title\":\"renamed\"}");
+
+		assertThat(eventRepository.count()).isZero();
+		assertThat(meterRegistry.get("notesapp.outbox.lag.events").tag("consumer", "flaky").gauge().value()).isZero();
+	}
+
+	@Test
+	void eventsAreKeptForNodeLocalConsumersOfRunningNodes() {
+		RegisterRequest register = new RegisterRequest();
+		register.setUsername("outbox-nodes");
+		register.setEmail("outbox-nodes@example.com");
+		register.setPassword("secret");
+		register.setRole(UserRole.CHILD);
+		authService.register(register);
+		dispatcher.dispatch();
+
+		String otherNode = "suggestions@other-node";
+		long seenByOtherNode = eventRepository.findFirstByOrderByIdDesc().map(OutboxEvent::getId).orElse(0L);
+		checkpointRepository.save(new OutboxCheckpoint(otherNode, seenByOtherNode, LocalDateTime.now()));
+		NoteRequest create = new NoteRequest();
+		create.setTitle("kept");
+		noteService.createNote("outbox-nodes", create);
+
+		dispatcher.dispatch();
+		assertThat(eventRepository.count()).isEqualTo(1);
+		assertThat(checkpointRepository.findNodeLocal())
+				.extracting(OutboxCheckpoint::getConsumer)
+				.contains(otherNode)
+				.anyMatch(consumer -> consumer.startsWith("suggestions@") && !consumer.equals(otherNode));
+
+		// The other node stopped polling
+		checkpointRepository.save(new OutboxCheckpoint(otherNode, seenByOtherNode, LocalDateTime.now().minusHours(1)));
+		dispatcher.dispatch();
+		assertThat(eventRepository.count()).isZero();
+		assertThat(checkpointRepository.findById(otherNode)).isEmpty();
+	}
+
+	@TestConfiguration
+	static class Consumers {
+
+		@Bean
+		FlakyConsumer flakyConsumer() {
+			return new FlakyConsumer();
+		}
+	}
+
+	static class FlakyConsumer implements OutboxConsumer {
+
+		private final List<OutboxEvent> received = new CopyOnWriteArrayList<>();
+		private int failOnEventNumber;
+
+		@Override
+		public String name() {
+			return "flaky";
+		}
+
+		@Override
+		public void handle(OutboxEvent event) {
+			received.add(event);
+			if (received.size() == failOnEventNumber) {
+				throw new IllegalStateException("consumer down");
+			}
+		}
+	}
+}
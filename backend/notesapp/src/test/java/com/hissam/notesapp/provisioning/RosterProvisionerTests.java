@@ -0,0 +1,103 @@
+package com.hissam.notesapp.provisioning;
+
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.entity.User;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.provisioning.ProvisioningResult.Status;
+import com.hissam.notesapp.repository.ChildRepository;
+import com.hissam.notesapp.repository.UserRepository;
+import com.hissam.notesapp.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:provisioning;DB_CLOSE_DELAY=-1",
+		"app.provisioning.batch-size=2",
+		"app.provisioning.hash-threads=2"
+})
+class RosterProvisionerTests {
+
+	@Autowired
+	private RosterProvisioner rosterProvisioner;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ChildRepository childRepository;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Test
+	void rosterIsProvisionedWithParentLinksAndAResultPerLine() throws Exception {
+		register("rosterParent", UserRole.PARENT);
+		register("rosterChild", UserRole.CHILD);
+
+		String roster = """
+				username,email,password,role,parent
+				kid1,kid1@school.test,"pass,word",CHILD,teacher
+				kid2,kid2@school.test,secret,child,rosterParent
+				teacher,teacher@school.test,secret,PARENT,
+				kid3,kid3@school.test,secret,CHILD,nobody
+				kid1,other@school.test,secret,CHILD,
+				rosterParent,new@school.test,secret,PARENT,
+				kid4,not-an-email,secret,CHILD,
+				kid5,kid5@school.test,secret,TEACHER,
+
+				kid6,kid6@school.test,secret,CHILD,rosterChild
+				kid7,kid7@school.test,secret,CHILD,
+				""";
+		List<RosterEntry> entries = RosterCsv.read(new StringReader(roster));
+		assertThat(entries).extracting(RosterEntry::line).containsExactly(2, 3, 4, 5, 6, 7, 8, 9, 11, 12);
+		assertThat(entries.get(0).password()).isEqualTo("pass,word");
+
+		List<ProvisioningResult> results = rosterProvisioner.provision(entries);
+
+		assertThat(results).extracting(ProvisioningResult::status).containsExactly(
+				Status.CREATED, Status.CREATED, Status.CREATED, Status.FAILED, Status.FAILED,
+				Status.SKIPPED, Status.FAILED, Status.FAILED, Status.FAILED, Status.CREATED);
+		assertThat(results).extracting(ProvisioningResult::message).containsExactly(
+				null, null, null, "Parent nobody not found", "Username appears earlier in the roster",
+				"Username already exists", "Invalid email format", "Invalid role TEACHER", "rosterChild is not a parent", null);
+
+		User teacher = userRepository.findByUsername("teacher").orElseThrow();
+		Child kid1 = childRepository.findByUserUsername("kid1").orElseThrow();
+		assertThat(kid1.getParent().getId()).isEqualTo(teacher.getId());
+		assertThat(results.get(0).childId()).isEqualTo(kid1.getId());
+		assertThat(passwordEncoder.matches("pass,word", kid1.getUser().getPassword())).isTrue();
+		assertThat(childRepository.findByUserUsername("kid2").orElseThrow().getParent().getUsername()).isEqualTo("rosterParent");
+		assertThat(childRepository.findByUserUsername("kid7").orElseThrow().getParent()).isNull();
+		assertThat(childRepository.findByUserUsername("teacher")).isEmpty();
+
+		// A second run skips what the first one created
+		List<ProvisioningResult> rerun = rosterProvisioner.provision(entries.subList(0, 3));
+		assertThat(rerun).extracting(ProvisioningResult::status).containsOnly(Status.SKIPPED);
+
+		StringWriter report = new StringWriter();
+		RosterCsv.write(results.subList(0, 4), report);
+		assertThat(report.toString()).startsWith("line,username,role,status,user_id,child_id,parent,message\n")
+				.contains("\n5,kid3,CHILD,FAILED,,,nobody,Parent nobody not found\n");
+	}
+
+	private void register(String username, UserRole role) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("password");
+		request.setRole(role);
+		authService.register(request);
+	}
+}
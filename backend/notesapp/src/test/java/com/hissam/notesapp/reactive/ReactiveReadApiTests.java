@@ -0,0 +1,155 @@
+package com.hissam.notesapp.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hissam.notesapp.dto.FolderRequest;
+import com.hissam.notesapp.dto.LoginRequest;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.repository.ChildRepository;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.FolderService;
+import com.hissam.notesapp.service.NoteService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:reactive0;DB_CLOSE_DELAY=-1",
+		"app.sharding.shard-urls=jdbc:h2:mem:reactive1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:reactive2;DB_CLOSE_DELAY=-1"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReactiveReadApiTests {
+
+	private static final int CHILDREN = 6;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private FolderService folderService;
+
+	@Autowired
+	private ChildRepository childRepository;
+
+	@BeforeAll
+	void registerFamily() {
+		register("rx-parent", UserRole.PARENT);
+		register("rx-other-parent", UserRole.PARENT);
+		for (int i = 0; i < CHILDREN; i++) {
+			String username = "rx-kid-" + i;
+			register(username, UserRole.CHILD);
+			authService.linkChild(i == 0 ? "rx-other-parent" : "rx-parent", username);
+			for (int n = 0; n < 3; n++) {
+				NoteRequest request = new NoteRequest();
+				request.setTitle("note " + n + " of " + username);
+				noteService.createNote(username, request);
+			}
+		}
+		FolderRequest folder = new FolderRequest();
+		folder.setName("homework");
+		folderService.createFolder("rx-kid-1", folder);
+	}
+
+	@Test
+	void streamsTheSameNotesAsTheServletEndpoint() throws Exception {
+		ResponseEntity<String> response = get("/api/reactive/notes/children", "rx-parent", MediaType.APPLICATION_NDJSON);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+		List<String> lines = response.getBody().lines().toList();
+		List<Long> streamed = lines.stream().map(this::noteId).sorted().toList();
+		List<Long> expected = noteService.getLinkedChildrenNotes("rx-parent").stream()
+				.map(NoteResponse::getId)
+				.sorted()
+				.toList();
+		assertThat(streamed).hasSize((CHILDREN - 1) * 3).isEqualTo(expected);
+	}
+
+	@Test
+	void childReadsOwnNotesAndFolders() throws Exception {
+		NoteResponse[] notes = objectMapper.readValue(
+				get("/api/reactive/notes", "rx-kid-1", MediaType.APPLICATION_JSON).getBody(), NoteResponse[].class);
+		assertThat(notes).hasSize(3);
+		assertThat(Arrays.stream(notes).map(NoteResponse::getTitle)).allMatch(title -> title.endsWith("rx-kid-1"));
+
+		assertThat(get("/api/reactive/folders", "rx-kid-1", MediaType.APPLICATION_JSON).getBody()).contains("homework");
+	}
+
+	@Test
+	void enforcesTheServletOwnershipRules() {
+		Long foreignChildId = childRepository.findByUserUsername("rx-kid-0").orElseThrow().getId();
+		Long ownChildId = childRepository.findByUserUsername("rx-kid-1").orElseThrow().getId();
+
+		assertThat(get("/api/reactive/notes/child/" + ownChildId, "rx-parent", MediaType.APPLICATION_JSON).getStatusCode())
+				.isEqualTo(HttpStatus.OK);
+
+		ResponseEntity<String> foreign = get("/api/reactive/notes/child/" + foreignChildId, "rx-parent", MediaType.APPLICATION_JSON);
+		assertThat(foreign.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+		assertThat(foreign.getBody()).contains("Child does not belong to parent");
+
+		ResponseEntity<String> asChild = get("/api/reactive/notes/child/" + ownChildId, "rx-kid-1", MediaType.APPLICATION_JSON);
+		assertThat(asChild.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+		assertThat(asChild.getBody()).contains("Only parents can view child notes");
+
+		assertThat(get("/api/reactive/notes/child/999999", "rx-parent", MediaType.APPLICATION_JSON).getStatusCode())
+				.isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(restTemplate.getForEntity("/api/reactive/notes", String.class).getStatusCode())
+				.isEqualTo(HttpStatus.FORBIDDEN);
+	}
+
+	private ResponseEntity<String> get(String path, String username, MediaType accept) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(login(username));
+		headers.setAccept(List.of(accept));
+		return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+	}
+
+	private Long noteId(String json) {
+		try {
+			return objectMapper.readValue(json, NoteResponse.class).getId();
+		} catch (Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private void register(String username, UserRole role) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(role);
+		authService.register(request);
+	}
+
+	private String login(String username) {
+		LoginRequest request = new LoginRequest();
+		request.setUsername(username);
+		request.setPassword("secret");
+		return authService.login(request).getAccessToken();
+	}
+}
@@ -0,0 +1,72 @@
+package com.hissam.notesapp.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class QueryPlanIndexTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void notesByChildAndFolderUseCompositeIndex() {
+		assertThat(plan("SELECT * FROM notes WHERE child_id = 1 AND folder_id = 2"))
+				.contains("IDX_NOTES_CHILD_FOLDER");
+		assertThat(plan("SELECT * FROM notes WHERE child_id = 1 AND folder_id IS NULL"))
+				.contains("IDX_NOTES_CHILD_FOLDER");
+	}
+
+	@Test
+	void notesByChildAndUpdateRangeUseUpdatedIndex() {
+		assertThat(plan("SELECT * FROM notes WHERE child_id = 1 AND updated_at >= TIMESTAMP '2025-01-01 00:00:00'"))
+				.contains("IDX_NOTES_CHILD_UPDATED");
+	}
+
+	@Test
+	void compiledNoteQueriesUseTheirDrivingIndex() {
+		assertThat(plan("SELECT * FROM notes WHERE child_id = 1 AND created_at >= TIMESTAMP '2025-01-01 00:00:00' "
+				+ "AND note_type = 'CHECKBOX' ORDER BY created_at DESC, id DESC"))
+				.contains("IDX_NOTES_CHILD_CREATED");
+		assertThat(plan("SELECT * FROM notes WHERE child_id = 1 AND folder_id IS NULL AND completed = FALSE "
+				+ "ORDER BY title, id"))
+				.contains("IDX_NOTES_CHILD_FOLDER");
+	}
+
+	@Test
+	void notesSortedByTitleUseTitleIndex() {
+		// H2 only reads an index for its order when the index also covers the query; MySQL and
+		// PostgreSQL do so for any select list once child_id is fixed
+		assertThat(plan("SELECT id FROM notes WHERE child_id = 1 ORDER BY title, id"))
+				.contains("IDX_NOTES_CHILD_TITLE");
+		assertThat(jdbcTemplate.queryForList("SELECT column_name FROM information_schema.index_columns "
+				+ "WHERE index_name = 'IDX_NOTES_CHILD_TITLE' ORDER BY ordinal_position", String.class))
+				.containsExactly("CHILD_ID", "TITLE", "ID");
+	}
+
+	@Test
+	void foldersByChildUseChildIndex() {
+		assertThat(plan("SELECT * FROM folders WHERE child_id = 1"))
+				.contains("IDX_FOLDERS_CHILD");
+	}
+
+	@Test
+	void childrenByParentUseParentIndex() {
+		assertThat(plan("SELECT * FROM children WHERE parent_id = 1"))
+				.contains("IDX_CHILDREN_PARENT");
+	}
+
+	@Test
+	void usersByResetTokenUseTokenIndex() {
+		assertThat(plan("SELECT * FROM users WHERE reset_token = 'abc'"))
+				.contains("IDX_USERS_RESET_TOKEN");
+	}
+
+	private String plan(String sql) {
+		return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+	}
+}
@@ -0,0 +1,168 @@
+package com.hissam.notesapp.revision;
+
+import com.hissam.notesapp.dto.NotePatchRequest;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.NoteRevisionResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.exception.UnauthorizedException;
+import com.hissam.notesapp.repository.ChildRepository;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.NoteRevisionService;
+import com.hissam.notesapp.service.NoteService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:revisions0;DB_CLOSE_DELAY=-1",
+		"app.sharding.shard-urls=jdbc:h2:mem:revisions1;DB_CLOSE_DELAY=-1",
+		"app.revisions.snapshot-interval=4"
+})
+class NoteRevisionTests {
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private NoteRevisionService revisionService;
+
+	@Autowired
+	private RevisionCompactor compactor;
+
+	@Autowired
+	private ChildRepository childRepository;
+
+	@Test
+	void editsAreStoredAsDeltasAndRebuiltExactly() {
+		register("writer", UserRole.CHILD);
+		List<String> versions = new ArrayList<>();
+		String content = "Dear diary,\n" + "Today was a long day at school.\n".repeat(40) + "The end.\n";
+		NoteResponse note = create("writer", "Diary", content);
+		versions.add(content);
+
+		for (int i = 0; i < 9; i++) {
+			content = content.replaceFirst("long day", "day " + i).replace("The end.", "The end " + i + ".");
+			versions.add(content);
+			if (i % 2 == 0) {
+				update("writer", note.getId(), content);
+			} else {
+				patch("writer", note.getId(), content);
+			}
+		}
+		patchTitle("writer", note.getId(), "Dear diary");
+
+		List<NoteRevisionResponse> revisions = revisionService.getRevisions("writer", note.getId());
+		assertThat(revisions).extracting(NoteRevisionResponse::getRevision)
+				.containsExactly(11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1);
+		assertThat(revisions).filteredOn(NoteRevisionResponse::getSnapshot)
+				.extracting(NoteRevisionResponse::getRevision)
+				.containsExactly(9, 5, 1);
+		assertThat(revisions).filteredOn(revision -> !revision.getSnapshot())
+				.allMatch(revision -> revision.getStoredBytes() < revision.getContentLength() / 10);
+
+		for (int i = 0; i < versions.size(); i++) {
+			NoteRevisionResponse revision = revisionService.getRevision("writer", note.getId(), i + 1);
+			assertThat(revision.getContent()).isEqualTo(versions.get(i));
+			assertThat(revision.getTitle()).isEqualTo("Diary");
+		}
+		assertThat(revisionService.getRevision("writer", note.getId(), 11).getTitle()).isEqualTo("Dear diary");
+	}
+
+	@Test
+	void restoringAddsARevisionAndParentsCanBrowse() {
+		register("restorer", UserRole.CHILD);
+		register("restorer-parent", UserRole.PARENT);
+		register("stranger-parent", UserRole.PARENT);
+		authService.linkChild("restorer-parent", "restorer");
+		NoteResponse note = create("restorer", "Essay", "First draft");
+		update("restorer", note.getId(), "Accidentally deleted everything");
+		NotePatchRequest pin = new NotePatchRequest();
+		pin.setPinned(true);
+		noteService.patchNote("restorer", note.getId(), pin);
+
+		NoteResponse restored = revisionService.restoreRevision("restorer", note.getId(), 1);
+		assertThat(restored.getContent()).isEqualTo("First draft");
+		assertThat(restored.getPinned()).isTrue();
+		assertThat(noteService.getUserNotes("restorer").get(0).getContent()).isEqualTo("First draft");
+
+		Long childId = childRepository.findByUserUsername("restorer").orElseThrow().getId();
+		assertThat(revisionService.getChildRevisions("restorer-parent", childId, note.getId())).hasSize(3);
+		assertThat(revisionService.getChildRevision("restorer-parent", childId, note.getId(), 2).getContent())
+				.isEqualTo("Accidentally deleted everything");
+		assertThatThrownBy(() -> revisionService.getChildRevisions("stranger-parent", childId, note.getId()))
+				.isInstanceOf(UnauthorizedException.class);
+	}
+
+	@Test
+	void compactorKeepsTheNewestRevisionsRebuildable() {
+		register("compacted", UserRole.CHILD);
+		NoteResponse note = create("compacted", "List", "a\nb\nc\n");
+		List<String> versions = new ArrayList<>(List.of("a\nb\nc\n"));
+		for (int i = 0; i < 6; i++) {
+			String content = versions.get(versions.size() - 1) + "line " + i + "\n";
+			versions.add(content);
+			update("compacted", note.getId(), content);
+		}
+
+		ReflectionTestUtils.setField(compactor, "maxPerNote", 3);
+		try {
+			compactor.compact();
+		} finally {
+			ReflectionTestUtils.setField(compactor, "maxPerNote", 100);
+		}
+
+		List<NoteRevisionResponse> kept = revisionService.getRevisions("compacted", note.getId());
+		assertThat(kept).extracting(NoteRevisionResponse::getRevision).containsExactly(7, 6, 5);
+		assertThat(kept.get(2).getSnapshot()).isTrue();
+		for (int revision = 5; revision <= 7; revision++) {
+			assertThat(revisionService.getRevision("compacted", note.getId(), revision).getContent())
+					.isEqualTo(versions.get(revision - 1));
+		}
+	}
+
+	private NoteResponse create(String username, String title, String content) {
+		NoteRequest request = new NoteRequest();
+		request.setTitle(title);
+		request.setContent(content);
+		return noteService.createNote(username, request);
+	}
+
+	private void update(String username, Long noteId, String content) {
+		NoteRequest request = new NoteRequest();
+		request.setContent(content);
+		noteService.updateNote(username, noteId, request);
+	}
+
+	private void patch(String username, Long noteId, String content) {
+		NotePatchRequest request = new NotePatchRequest();
+		request.setContent(content);
+		noteService.patchNote(username, noteId, request);
+	}
+
+	private void patchTitle(String username, Long noteId, String title) {
+		NotePatchRequest request = new NotePatchRequest();
+		request.setTitle(title);
+		noteService.patchNote(username, noteId, request);
+	}
+
+	private void register(String username, UserRole role) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(role);
+		authService.register(request);
+	}
+}
@@ -0,0 +1,147 @@
+package com.hissam.notesapp.security;
+
+import com.hissam.notesapp.dto.LoginRequest;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.repository.UserRepository;
+import com.hissam.notesapp.service.AuthService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:revocation;DB_CLOSE_DELAY=-1",
+		"app.jwt.denylist-refresh-ms=3600000"
+})
+class TokenRevocationTests {
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private JwtTokenProvider tokenProvider;
+
+	@Autowired
+	private TokenRevocationService revocationService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void logoutRevokesOnlyThatToken() {
+		register("leaver");
+		String first = login("leaver");
+		String second = login("leaver");
+
+		authService.logout(first);
+
+		assertThat(revoked(first)).isTrue();
+		assertThat(revoked(second)).isFalse();
+	}
+
+	@Test
+	void passwordResetRevokesEarlierTokens() throws InterruptedException {
+		register("resetter");
+		String before = login("resetter");
+
+		authService.forgotPassword("resetter@example.com");
+		String resetToken = userRepository.findByUsername("resetter").orElseThrow().getResetToken();
+		authService.resetPassword(resetToken, "new-secret");
+
+		assertThat(revoked(before)).isTrue();
+		// Issue times are compared to the millisecond, so a login right after the reset is valid
+		Thread.sleep(2);
+		String after = login("resetter", "new-secret");
+		double falsePositives = checks("false-positive");
+		assertThat(revoked(after)).isFalse();
+
+		// Also once the cutoff is only known from the table, and without a query per request
+		revocationService.rebuildFilter();
+		double filtered = checks("filtered");
+		assertThat(revoked(before)).isTrue();
+		assertThat(revoked(after)).isFalse();
+		assertThat(checks("filtered")).isEqualTo(filtered + 1);
+		assertThat(checks("false-positive")).isEqualTo(falsePositives);
+	}
+
+	@Test
+	void unrevokedTokensAreDecidedByTheFilter() {
+		register("regular");
+		String token = login("regular");
+		revocationService.rebuildFilter();
+		double filtered = checks("filtered");
+
+		assertThat(revoked(token)).isFalse();
+		assertThat(checks("filtered")).isEqualTo(filtered + 1);
+	}
+
+	@Test
+	void checksBeforeTheFirstRebuildAreNotFalsePositives() {
+		register("early");
+		String token = login("early");
+		ReflectionTestUtils.setField(revocationService, "filter", null);
+		try {
+			double falsePositives = checks("false-positive");
+			double unfiltered = checks("unfiltered");
+
+			assertThat(revoked(token)).isFalse();
+			assertThat(checks("unfiltered")).isEqualTo(unfiltered + 1);
+			assertThat(checks("false-positive")).isEqualTo(falsePositives);
+		} finally {
+			revocationService.rebuildFilter();
+		}
+	}
+
+	@Test
+	void bloomFilterHasNoFalseNegativesAndFewFalsePositives() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.add("jti:revoked-" + i);
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(filter.mightContain("jti:revoked-" + i)).isTrue();
+			if (filter.mightContain("jti:valid-" + i)) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives).isLessThan(200);
+	}
+
+	private boolean revoked(String token) {
+		Claims claims = tokenProvider.parseClaims(token);
+		return revocationService.isRevoked(claims.getId(), claims.getSubject(), JwtTokenProvider.issuedAt(claims));
+	}
+
+	private double checks(String outcome) {
+		return meterRegistry.get("notesapp.jwt.revocation.checks").tag("outcome", outcome).counter().count();
+	}
+
+	private void register(String username) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(UserRole.PARENT);
+		authService.register(request);
+	}
+
+	private String login(String username) {
+		return login(username, "secret");
+	}
+
+	private String login(String username, String password) {
+		LoginRequest request = new LoginRequest();
+		request.setUsername(username);
+		request.setPassword(password);
+		return authService.login(request).getAccessToken();
+	}
+}
@@ -0,0 +1,148 @@
+package com.hissam.notesapp.service;
+
+import com.hissam.notesapp.dto.ChecklistItemMoveRequest;
+import com.hissam.notesapp.dto.ChecklistItemPatchRequest;
+import com.hissam.notesapp.dto.ChecklistItemRequest;
+import com.hissam.notesapp.dto.ChecklistItemResponse;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.NoteType;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.exception.UnauthorizedException;
+import com.hissam.notesapp.sharding.ShardRoutingDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:checklist0;DB_CLOSE_DELAY=-1",
+		"app.sharding.shard-urls=jdbc:h2:mem:checklist1;DB_CLOSE_DELAY=-1"
+})
+class ChecklistServiceTests {
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private ChecklistService checklistService;
+
+	@Test
+	void togglesKeepTheNoteCountsInStep() {
+		register("lister");
+		Long noteId = createNote("lister", NoteType.CHECKBOX).getId();
+		ChecklistItemResponse milk = add("lister", noteId, "milk", null);
+		ChecklistItemResponse eggs = add("lister", noteId, "eggs", null);
+		add("lister", noteId, "bread", null);
+
+		toggle("lister", noteId, milk.getId(), true);
+		toggle("lister", noteId, milk.getId(), true);
+		toggle("lister", noteId, eggs.getId(), true);
+		toggle("lister", noteId, eggs.getId(), false);
+		assertCounts("lister", noteId, 3, 1);
+
+		checklistService.deleteItem("lister", noteId, milk.getId());
+		assertCounts("lister", noteId, 2, 0);
+		assertThat(checklistService.getItems("lister", noteId))
+				.extracting(ChecklistItemResponse::getContent)
+				.containsExactly("eggs", "bread");
+	}
+
+	@Test
+	void itemsCanBeInsertedAndMovedBetweenNeighbours() {
+		register("mover");
+		Long noteId = createNote("mover", NoteType.CHECKBOX).getId();
+		ChecklistItemResponse a = add("mover", noteId, "a", null);
+		ChecklistItemResponse b = add("mover", noteId, "b", null);
+		ChecklistItemResponse c = add("mover", noteId, "c", null);
+		add("mover", noteId, "a2", a.getId());
+
+		move("mover", noteId, c.getId(), null);
+		move("mover", noteId, b.getId(), c.getId());
+		assertThat(contents("mover", noteId)).containsExactly("c", "b", "a", "a2");
+
+		// Repeatedly halving the same gap eventually forces a renumbering
+		for (int i = 0; i < 20; i++) {
+			move("mover", noteId, (i % 2 == 0 ? a : b).getId(), c.getId());
+		}
+		assertThat(contents("mover", noteId)).containsExactly("c", "b", "a", "a2");
+	}
+
+	@Test
+	void itemsBelongToCheckboxNotesOfTheirOwner() {
+		register("owner");
+		register("intruder");
+		Long regularId = createNote("owner", NoteType.REGULAR).getId();
+		NoteResponse checklist = createNote("owner", NoteType.CHECKBOX);
+		ChecklistItemResponse item = add("owner", checklist.getId(), "secret", null);
+
+		assertThatThrownBy(() -> add("owner", regularId, "nope", null))
+				.hasMessageContaining("checkbox notes");
+		assertThatThrownBy(() -> toggle("intruder", checklist.getId(), item.getId(), true))
+				.isInstanceOf(UnauthorizedException.class);
+		assertThatThrownBy(() -> checklistService.getItems("intruder", checklist.getId()))
+				.isInstanceOf(UnauthorizedException.class);
+		assertCounts("owner", checklist.getId(), 1, 0);
+
+		// Items are stored on the owner's shard and removed with the note
+		assertThat(item.getId() / ShardRoutingDataSource.ID_RANGE).isEqualTo(checklist.getId() / ShardRoutingDataSource.ID_RANGE);
+		noteService.deleteNote("owner", checklist.getId());
+		assertThat(noteService.getUserNotes("owner")).hasSize(1);
+	}
+
+	private void assertCounts(String username, Long noteId, int total, int checked) {
+		NoteResponse note = noteService.getUserNotes(username).stream()
+				.filter(n -> n.getId().equals(noteId))
+				.findFirst()
+				.orElseThrow();
+		assertThat(note.getChecklistTotal()).isEqualTo(total);
+		assertThat(note.getChecklistChecked()).isEqualTo(checked);
+	}
+
+	private List<String> contents(String username, Long noteId) {
+		return checklistService.getItems(username, noteId).stream().map(ChecklistItemResponse::getContent).toList();
+	}
+
+	private ChecklistItemResponse add(String username, Long noteId, String content, Long afterItemId) {
+		ChecklistItemRequest request = new ChecklistItemRequest();
+		request.setContent(content);
+		request.setAfterItemId(afterItemId);
+		return checklistService.addItem(username, noteId, request);
+	}
+
+	private void toggle(String username, Long noteId, Long itemId, boolean checked) {
+		ChecklistItemPatchRequest request = new ChecklistItemPatchRequest();
+		request.setChecked(checked);
+		checklistService.updateItem(username, noteId, itemId, request);
+	}
+
+	private void move(String username, Long noteId, Long itemId, Long afterItemId) {
+		ChecklistItemMoveRequest request = new ChecklistItemMoveRequest();
+		request.setAfterItemId(afterItemId);
+		checklistService.moveItem(username, noteId, itemId, request);
+	}
+
+	private NoteResponse createNote(String username, NoteType type) {
+		NoteRequest request = new NoteRequest();
+		request.setTitle(type + " note");
+		request.setNoteType(type);
+		return noteService.createNote(username, request);
+	}
+
+	private void register(String username) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(UserRole.CHILD);
+		authService.register(request);
+	}
+}
@@ -0,0 +1,149 @@
+package com.hissam.notesapp.service;
+
+import com.hissam.notesapp.dto.FolderMoveRequest;
+import com.hissam.notesapp.dto.FolderRequest;
+import com.hissam.notesapp.dto.FolderResponse;
+import com.hissam.notesapp.dto.NoteQuery;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.exception.UnauthorizedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:foldertree0;DB_CLOSE_DELAY=-1",
+		"app.sharding.shard-urls=jdbc:h2:mem:foldertree1;DB_CLOSE_DELAY=-1"
+})
+class FolderTreeTests {
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private FolderService folderService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Test
+	void subtreesAreCountedListedAndMovedAsAWhole() {
+		register("nester");
+		Long school = folder("nester", "school", null);
+		Long math = folder("nester", "math", school);
+		Long algebra = folder("nester", "algebra", math);
+		Long art = folder("nester", "art", null);
+		note("nester", "homework", algebra);
+		note("nester", "quiz", math);
+		note("nester", "timetable", school);
+		note("nester", "sketch", art);
+
+		assertThat(noteCounts("nester")).containsEntry(school, 3L).containsEntry(math, 2L)
+				.containsEntry(algebra, 1L).containsEntry(art, 1L);
+		assertThat(titlesUnder("nester", math)).containsExactlyInAnyOrder("homework", "quiz");
+
+		// Moving math takes algebra and both notes along
+		move("nester", math, art);
+		assertThat(noteCounts("nester")).containsEntry(school, 1L).containsEntry(art, 3L)
+				.containsEntry(math, 2L).containsEntry(algebra, 1L);
+		assertThat(titlesUnder("nester", art)).containsExactlyInAnyOrder("sketch", "quiz", "homework");
+		assertThat(folderService.getUserFolders("nester"))
+				.filteredOn(folder -> folder.getId().equals(math))
+				.extracting(FolderResponse::getParentId)
+				.containsExactly(art);
+
+		assertThatThrownBy(() -> move("nester", art, algebra)).hasMessageContaining("subfolders");
+		assertThatThrownBy(() -> move("nester", art, art)).hasMessageContaining("subfolders");
+
+		move("nester", math, null);
+		assertThat(noteCounts("nester")).containsEntry(art, 1L).containsEntry(math, 2L);
+	}
+
+	@Test
+	void deletingAFolderRemovesEverythingUnderIt() {
+		register("pruner");
+		Long top = folder("pruner", "top", null);
+		Long middle = folder("pruner", "middle", top);
+		Long bottom = folder("pruner", "bottom", middle);
+		Long other = folder("pruner", "other", null);
+		note("pruner", "deep", bottom);
+		note("pruner", "shallow", top);
+		note("pruner", "kept", other);
+		note("pruner", "loose", null);
+
+		folderService.deleteFolder("pruner", middle);
+		assertThat(folderService.getUserFolders("pruner")).extracting(FolderResponse::getName)
+				.containsExactlyInAnyOrder("top", "other");
+		assertThat(noteService.getUserNotes("pruner")).extracting(NoteResponse::getTitle)
+				.containsExactlyInAnyOrder("shallow", "kept", "loose");
+		assertThat(noteCounts("pruner")).containsEntry(top, 1L);
+
+		folderService.deleteFolder("pruner", top);
+		assertThat(folderService.getUserFolders("pruner")).extracting(FolderResponse::getName)
+				.containsExactly("other");
+		assertThat(noteService.getUserNotes("pruner")).extracting(NoteResponse::getTitle)
+				.containsExactlyInAnyOrder("kept", "loose");
+	}
+
+	@Test
+	void foldersOnlyNestInsideTheirOwnersTree() {
+		register("owner");
+		register("stranger");
+		Long mine = folder("owner", "mine", null);
+		Long theirs = folder("stranger", "theirs", null);
+
+		assertThatThrownBy(() -> folder("stranger", "inside", mine)).isInstanceOf(UnauthorizedException.class);
+		assertThatThrownBy(() -> move("stranger", theirs, mine)).isInstanceOf(UnauthorizedException.class);
+		assertThat(folderService.getUserFolders("owner")).hasSize(1);
+	}
+
+	private Map<Long, Long> noteCounts(String username) {
+		return folderService.getUserFolders(username).stream()
+				.collect(Collectors.toMap(FolderResponse::getId, FolderResponse::getNoteCount));
+	}
+
+	private List<String> titlesUnder(String username, Long folderId) {
+		NoteQuery query = new NoteQuery();
+		query.setFolderId(folderId);
+		query.setIncludeSubfolders(true);
+		return noteService.findNotes(username, query).stream().map(NoteResponse::getTitle).toList();
+	}
+
+	private void move(String username, Long folderId, Long parentId) {
+		FolderMoveRequest request = new FolderMoveRequest();
+		request.setParentId(parentId);
+		folderService.moveFolder(username, folderId, request);
+	}
+
+	private Long folder(String username, String name, Long parentId) {
+		FolderRequest request = new FolderRequest();
+		request.setName(name);
+		request.setParentId(parentId);
+		return folderService.createFolder(username, request).getId();
+	}
+
+	private void note(String username, String title, Long folderId) {
+		NoteRequest request = new NoteRequest();
+		request.setTitle(title);
+		request.setFolderId(folderId);
+		noteService.createNote(username, request);
+	}
+
+	private void register(String username) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(UserRole.CHILD);
+		authService.register(request);
+	}
+}
@@ -0,0 +1,129 @@
+package com.hissam.notesapp.service;
+
+import com.hissam.notesapp.dto.FolderRequest;
+import com.hissam.notesapp.dto.NoteQuery;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.NoteType;
+import com.hissam.notesapp.enums.UserRole;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:notequery0;DB_CLOSE_DELAY=-1",
+		"app.sharding.shard-urls=jdbc:h2:mem:notequery1;DB_CLOSE_DELAY=-1"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class NoteQueryTests {
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private FolderService folderService;
+
+	private Long folderId;
+
+	@BeforeAll
+	void createNotes() {
+		RegisterRequest register = new RegisterRequest();
+		register.setUsername("filterer");
+		register.setEmail("filterer@example.com");
+		register.setPassword("secret");
+		register.setRole(UserRole.CHILD);
+		authService.register(register);
+
+		FolderRequest folder = new FolderRequest();
+		folder.setName("school");
+		folderId = folderService.createFolder("filterer", folder).getId();
+
+		create("banana", NoteType.REGULAR, null, false);
+		create("apple", NoteType.CHECKBOX, null, true);
+		create("cherry", NoteType.CHECKBOX, folderId, false);
+		create("date", NoteType.REGULAR, folderId, false);
+	}
+
+	@Test
+	void filtersCombineIntoOneQuery() {
+		NoteQuery unfiled = new NoteQuery();
+		unfiled.setUnfiled(true);
+		unfiled.setSort("title,asc");
+		assertThat(titles(unfiled)).containsExactly("apple", "banana");
+
+		NoteQuery openChecklists = new NoteQuery();
+		openChecklists.setNoteType(NoteType.CHECKBOX);
+		openChecklists.setCompleted(false);
+		assertThat(titles(openChecklists)).containsExactly("cherry");
+
+		NoteQuery inFolder = new NoteQuery();
+		inFolder.setFolderId(folderId);
+		inFolder.setSort("title,desc");
+		assertThat(titles(inFolder)).containsExactly("date", "cherry");
+
+		NoteQuery recent = new NoteQuery();
+		recent.setCreatedFrom(LocalDateTime.now().minusHours(1));
+		recent.setLimit(2);
+		assertThat(titles(recent)).containsExactly("date", "cherry");
+
+		NoteQuery future = new NoteQuery();
+		future.setUpdatedFrom(LocalDateTime.now().plusDays(1));
+		assertThat(titles(future)).isEmpty();
+	}
+
+	@Test
+	void rejectsCombinationsNoIndexServes() {
+		NoteQuery twoRanges = new NoteQuery();
+		twoRanges.setCreatedFrom(LocalDateTime.now().minusDays(1));
+		twoRanges.setUpdatedTo(LocalDateTime.now());
+		assertRejected(twoRanges, "either created or updated");
+
+		NoteQuery rangeInFolder = new NoteQuery();
+		rangeInFolder.setFolderId(folderId);
+		rangeInFolder.setUpdatedFrom(LocalDateTime.now().minusDays(1));
+		assertRejected(rangeInFolder, "folder filter");
+
+		NoteQuery rangeSortedElsewhere = new NoteQuery();
+		rangeSortedElsewhere.setCreatedFrom(LocalDateTime.now().minusDays(1));
+		rangeSortedElsewhere.setSort("title");
+		assertRejected(rangeSortedElsewhere, "must be sorted by createdAt");
+
+		NoteQuery unknownSort = new NoteQuery();
+		unknownSort.setSort("content,desc");
+		assertRejected(unknownSort, "Unsupported sort");
+
+		NoteQuery folderAndUnfiled = new NoteQuery();
+		folderAndUnfiled.setFolderId(folderId);
+		folderAndUnfiled.setUnfiled(true);
+		assertRejected(folderAndUnfiled, "not both");
+	}
+
+	private void assertRejected(NoteQuery query, String message) {
+		assertThatThrownBy(() -> noteService.findNotes("filterer", query)).hasMessageContaining(message);
+	}
+
+	private List<String> titles(NoteQuery query) {
+		return noteService.findNotes("filterer", query).stream().map(NoteResponse::getTitle).toList();
+	}
+
+	private void create(String title, NoteType type, Long folder, boolean completed) {
+		NoteRequest request = new NoteRequest();
+		request.setTitle(title);
+		request.setNoteType(type);
+		request.setFolderId(folder);
+		request.setCompleted(completed);
+		noteService.createNote("filterer", request);
+	}
+}
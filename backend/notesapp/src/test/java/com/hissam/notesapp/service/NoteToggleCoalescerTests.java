@@ -0,0 +1,145 @@
+package com.hissam.notesapp.service;
+
+import com.hissam.notesapp.dto.LoginRequest;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.UserRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:toggles;DB_CLOSE_DELAY=-1",
+		"app.notes.toggle-coalesce-window-ms=500"
+})
+class NoteToggleCoalescerTests {
+
+	private static final long WINDOW_MS = 500;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Test
+	void togglesInAWindowAreDeferredAndTheLastOneWins() throws InterruptedException {
+		register("toggler");
+		String token = login("toggler");
+		Long noteId = createNote("toggler");
+
+		assertThat(toggle(token, noteId, true)).isEqualTo(HttpStatus.NO_CONTENT);
+		assertThat(completed("toggler", noteId)).isTrue();
+		assertThat(toggle(token, noteId, false)).isEqualTo(HttpStatus.ACCEPTED);
+		assertThat(toggle(token, noteId, true)).isEqualTo(HttpStatus.ACCEPTED);
+		assertThat(toggle(token, noteId, false)).isEqualTo(HttpStatus.ACCEPTED);
+		assertThat(completed("toggler", noteId)).isTrue();
+
+		// The trailing write keeps the window open, so a toggle right after it is deferred too
+		awaitCompleted("toggler", noteId, false);
+		assertThat(toggle(token, noteId, true)).isEqualTo(HttpStatus.ACCEPTED);
+		awaitCompleted("toggler", noteId, true);
+		Thread.sleep(2 * WINDOW_MS);
+
+		// Once the window has closed, the next toggle is written at once
+		assertThat(toggle(token, noteId, false)).isEqualTo(HttpStatus.NO_CONTENT);
+		assertThat(completed("toggler", noteId)).isFalse();
+	}
+
+	@Test
+	void aDirectUpdateDropsThePendingToggle() throws InterruptedException {
+		register("updater");
+		String token = login("updater");
+		Long noteId = createNote("updater");
+
+		assertThat(toggle(token, noteId, true)).isEqualTo(HttpStatus.NO_CONTENT);
+		assertThat(toggle(token, noteId, false)).isEqualTo(HttpStatus.ACCEPTED);
+		assertThat(toggle(token, noteId, true)).isEqualTo(HttpStatus.ACCEPTED);
+
+		NoteRequest update = new NoteRequest();
+		update.setTitle("Renamed");
+		update.setCompleted(false);
+		noteService.updateNote("updater", noteId, update);
+
+		Thread.sleep(3 * WINDOW_MS);
+		assertThat(completed("updater", noteId)).isFalse();
+	}
+
+	@Test
+	void togglesOnAnotherUsersNoteAreRejected() throws InterruptedException {
+		register("holder");
+		register("prankster");
+		String ownerToken = login("holder");
+		String intruderToken = login("prankster");
+		Long noteId = createNote("holder");
+
+		assertThat(toggle(intruderToken, noteId, true)).isEqualTo(HttpStatus.FORBIDDEN);
+
+		// Also while the owner's window is open, and without touching the owner's pending value
+		assertThat(toggle(ownerToken, noteId, true)).isEqualTo(HttpStatus.NO_CONTENT);
+		assertThat(toggle(ownerToken, noteId, false)).isEqualTo(HttpStatus.ACCEPTED);
+		assertThat(toggle(intruderToken, noteId, true)).isEqualTo(HttpStatus.FORBIDDEN);
+
+		Thread.sleep(3 * WINDOW_MS);
+		assertThat(completed("holder", noteId)).isFalse();
+	}
+
+	private HttpStatusCode toggle(String token, Long noteId, boolean completed) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(token);
+		return restTemplate.exchange("/api/notes/" + noteId, HttpMethod.PATCH,
+				new HttpEntity<>(Map.of("completed", completed), headers), Void.class).getStatusCode();
+	}
+
+	private void awaitCompleted(String username, Long noteId, boolean expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10 * WINDOW_MS;
+		while (completed(username, noteId) != expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(completed(username, noteId)).isEqualTo(expected);
+	}
+
+	private boolean completed(String username, Long noteId) {
+		return noteService.getUserNotes(username).stream()
+				.filter(note -> note.getId().equals(noteId))
+				.map(NoteResponse::getCompleted)
+				.findFirst()
+				.orElseThrow();
+	}
+
+	private Long createNote(String username) {
+		NoteRequest request = new NoteRequest();
+		request.setTitle("Chore");
+		return noteService.createNote(username, request).getId();
+	}
+
+	private void register(String username) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(UserRole.CHILD);
+		authService.register(request);
+	}
+
+	private String login(String username) {
+		LoginRequest request = new LoginRequest();
+		request.setUsername(username);
+		request.setPassword("secret");
+		return authService.login(request).getAccessToken();
+	}
+}
@@ -0,0 +1,125 @@
+package com.hissam.notesapp.sharding;
+
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.entity.Child;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.repository.ChildRepository;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.NoteService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+		"app.sharding.shard-urls=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1",
+		"app.sharding.rebalance-grace-ms=10"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ShardingTests {
+
+	private static final int CHILDREN = 12;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private ChildRepository childRepository;
+
+	@Autowired
+	private ShardRebalancer shardRebalancer;
+
+	private final List<Child> children = new ArrayList<>();
+
+	@BeforeAll
+	void registerFamily() {
+		register("shard-parent", UserRole.PARENT);
+		for (int i = 0; i < CHILDREN; i++) {
+			String username = "shard-kid-" + i;
+			register(username, UserRole.CHILD);
+			authService.linkChild("shard-parent", username);
+
+			NoteRequest request = new NoteRequest();
+			request.setTitle("note of " + username);
+			noteService.createNote(username, request);
+
+			children.add(childRepository.findByUserUsername(username).orElseThrow());
+		}
+	}
+
+	@Test
+	void notesLiveOnTheirChildsShardWithinItsIdRange() throws SQLException {
+		assertThat(children.stream().map(Child::getShardId).distinct().count()).isGreaterThan(1);
+
+		for (Child child : children) {
+			List<Long> ids = noteIds(child.getShardId(), child.getId());
+			assertThat(ids).hasSize(1);
+			assertThat(ids.get(0) / ShardRoutingDataSource.ID_RANGE).isEqualTo(child.getShardId().longValue());
+		}
+	}
+
+	@Test
+	void parentViewGathersNotesFromAllShards() {
+		List<NoteResponse> notes = noteService.getLinkedChildrenNotes("shard-parent");
+
+		assertThat(notes.stream().map(NoteResponse::getChildId).collect(Collectors.toSet()))
+				.containsExactlyInAnyOrderElementsOf(children.stream().map(Child::getId).toList());
+	}
+
+	@Test
+	void rebalanceKeepsIdsAndClearsSource() throws SQLException {
+		Child child = children.get(0);
+		int source = child.getShardId();
+		int target = (source + 1) % 3;
+		List<Long> ids = noteIds(source, child.getId());
+
+		// The note and its hour, day and week activity rows
+		assertThat(shardRebalancer.moveChild(child.getId(), target)).isEqualTo(4);
+
+		assertThat(noteIds(source, child.getId())).isEmpty();
+		assertThat(noteIds(target, child.getId())).isEqualTo(ids);
+		assertThat(noteService.getUserNotes(child.getUser().getUsername()))
+				.extracting(NoteResponse::getId)
+				.isEqualTo(ids);
+	}
+
+	private void register(String username, UserRole role) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(role);
+		authService.register(request);
+	}
+
+	private static List<Long> noteIds(int shardId, Long childId) throws SQLException {
+		try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:shard" + shardId, "sa", "")) {
+			var statement = connection.prepareStatement("SELECT id FROM notes WHERE child_id = ? ORDER BY id");
+			statement.setLong(1, childId);
+			List<Long> ids = new ArrayList<>();
+			try (ResultSet rs = statement.executeQuery()) {
+				while (rs.next()) {
+					ids.add(rs.getLong(1));
+				}
+			}
+			return ids;
+		}
+	}
+}
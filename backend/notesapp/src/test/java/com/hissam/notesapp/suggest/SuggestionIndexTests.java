@@ -0,0 +1,146 @@
+package com.hissam.notesapp.suggest;
+
+import com.hissam.notesapp.dto.FolderRequest;
+import com.hissam.notesapp.dto.FolderResponse;
+import com.hissam.notesapp.dto.NotePatchRequest;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.NoteResponse;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.dto.SuggestionResponse;
+import com.hissam.notesapp.enums.SuggestionField;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.outbox.OutboxDispatcher;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.FolderService;
+import com.hissam.notesapp.service.NoteService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:suggest;DB_CLOSE_DELAY=-1",
+		"app.outbox.poll-interval-ms=3600000",
+		"app.outbox.gap-timeout-ms=0",
+		"app.suggest.evict-interval-ms=3600000"
+})
+class SuggestionIndexTests {
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private FolderService folderService;
+
+	@Autowired
+	private OutboxDispatcher dispatcher;
+
+	@Autowired
+	private SuggestionIndex suggestionIndex;
+
+	@Test
+	void ranksByFrequencyAndFollowsNoteChanges() {
+		register("typist");
+		create("typist", "Math homework", "school, math");
+		create("typist", "Maths quiz", "school");
+		NoteResponse music = create("typist", "Music practice", "Hobby");
+
+		assertThat(suggest("typist", "m", SuggestionField.TITLE))
+				.extracting(SuggestionResponse::getText, SuggestionResponse::getCount)
+				.containsExactly(tuple("math", 1), tuple("maths", 1), tuple("music", 1));
+		assertThat(suggest("typist", "", SuggestionField.TAG))
+				.extracting(SuggestionResponse::getText, SuggestionResponse::getCount)
+				.containsExactly(tuple("school", 2), tuple("hobby", 1), tuple("math", 1));
+
+		create("typist", "Music theory", "hobby");
+		NotePatchRequest rename = new NotePatchRequest();
+		rename.setTitle("Piano practice");
+		noteService.patchNote("typist", music.getId(), rename);
+		dispatcher.dispatch();
+
+		assertThat(suggest("typist", "mu", SuggestionField.TITLE))
+				.extracting(SuggestionResponse::getText, SuggestionResponse::getCount)
+				.containsExactly(tuple("music", 1));
+		assertThat(suggest("typist", "p", SuggestionField.TITLE))
+				.extracting(SuggestionResponse::getText)
+				.containsExactly("piano", "practice");
+		assertThat(suggest("typist", "h", SuggestionField.TAG))
+				.extracting(SuggestionResponse::getText, SuggestionResponse::getCount)
+				.containsExactly(tuple("hobby", 2));
+
+		noteService.deleteNote("typist", music.getId());
+		dispatcher.dispatch();
+		assertThat(suggest("typist", "pi", SuggestionField.TITLE)).isEmpty();
+	}
+
+	@Test
+	void evictedChildrenAreReloadedFromTheirNotes() {
+		register("sleeper");
+		create("sleeper", "Science project", null);
+		assertThat(suggest("sleeper", "sci", SuggestionField.TITLE)).hasSize(1);
+
+		ReflectionTestUtils.setField(suggestionIndex, "idleEvictMs", -1L);
+		try {
+			suggestionIndex.evictIdle();
+		} finally {
+			ReflectionTestUtils.setField(suggestionIndex, "idleEvictMs", 1800000L);
+		}
+
+		// Not loaded, so this change is only picked up by the reload
+		create("sleeper", "Science fair", null);
+		dispatcher.dispatch();
+		assertThat(suggest("sleeper", "sci", SuggestionField.TITLE))
+				.extracting(SuggestionResponse::getText, SuggestionResponse::getCount)
+				.containsExactly(tuple("science", 2));
+	}
+
+	@Test
+	void notesOfADeletedFolderAreNoLongerSuggested() {
+		register("tidier");
+		FolderRequest folderRequest = new FolderRequest();
+		folderRequest.setName("old term");
+		FolderResponse folder = folderService.createFolder("tidier", folderRequest);
+		NoteRequest inFolder = new NoteRequest();
+		inFolder.setTitle("Geography essay");
+		inFolder.setTags("geo");
+		inFolder.setFolderId(folder.getId());
+		noteService.createNote("tidier", inFolder);
+		create("tidier", "Geometry", null);
+		assertThat(suggest("tidier", "geo", SuggestionField.TITLE)).hasSize(2);
+
+		folderService.deleteFolder("tidier", folder.getId());
+		dispatcher.dispatch();
+		assertThat(suggest("tidier", "geo", SuggestionField.TITLE))
+				.extracting(SuggestionResponse::getText)
+				.containsExactly("geometry");
+		assertThat(suggest("tidier", "geo", SuggestionField.TAG)).isEmpty();
+	}
+
+	private List<SuggestionResponse> suggest(String username, String prefix, SuggestionField field) {
+		return noteService.suggest(username, prefix, field, 10);
+	}
+
+	private NoteResponse create(String username, String title, String tags) {
+		NoteRequest request = new NoteRequest();
+		request.setTitle(title);
+		request.setTags(tags);
+		return noteService.createNote(username, request);
+	}
+
+	private void register(String username) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(UserRole.CHILD);
+		authService.register(request);
+	}
+}
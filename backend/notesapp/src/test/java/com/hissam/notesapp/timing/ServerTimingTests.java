@@ -0,0 +1,95 @@
+package com.hissam.notesapp.timing;
+
+import com.hissam.notesapp.dto.LoginRequest;
+import com.hissam.notesapp.dto.NoteRequest;
+import com.hissam.notesapp.dto.RegisterRequest;
+import com.hissam.notesapp.enums.UserRole;
+import com.hissam.notesapp.service.AuthService;
+import com.hissam.notesapp.service.NoteService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:timing;DB_CLOSE_DELAY=-1",
+		"management.server.port=0"
+})
+class ServerTimingTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@LocalManagementPort
+	private int managementPort;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private NoteService noteService;
+
+	@Test
+	void phasesAreReportedInTheHeaderAndTheSlowestRequestsAreKept() {
+		register("timed");
+		String token = login("timed");
+		NoteRequest note = new NoteRequest();
+		note.setTitle("Timed");
+		Long noteId = noteService.createNote("timed", note).getId();
+
+		ResponseEntity<String> notes = exchange(HttpMethod.GET, "/api/notes", token, null, String.class);
+		assertThat(notes.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(notes.getHeaders().getFirst(ServerTimingFilter.HEADER))
+				.matches("auth;dur=[0-9.]+, lookup;dur=[0-9.]+, query;dur=[0-9.]+, mapping;dur=[0-9.]+, app;dur=[0-9.]+");
+
+		// No body, so the header is set once the request is done
+		ResponseEntity<Void> patched = exchange(HttpMethod.PATCH, "/api/notes/" + noteId, token, Map.of("pinned", true), Void.class);
+		assertThat(patched.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+		assertThat(patched.getHeaders().getFirst(ServerTimingFilter.HEADER)).contains("auth;dur=").contains("app;dur=");
+
+		// Operators read them on the management port; users are refused on the application port
+		assertThat(exchange(HttpMethod.GET, "/actuator/timings", token, null, String.class).getStatusCode())
+				.isEqualTo(HttpStatus.FORBIDDEN);
+		assertThat(exchange(HttpMethod.GET, "/actuator/metrics", token, null, String.class).getStatusCode())
+				.isEqualTo(HttpStatus.FORBIDDEN);
+		JsonNode timings = restTemplate.getForObject("http://localhost:" + managementPort + "/actuator/timings", JsonNode.class);
+		JsonNode slowest = timings.get("GET /api/notes").get(0);
+		assertThat(slowest.get("requestId").asText()).isEqualTo(notes.getHeaders().getFirst("X-Request-Id"));
+		assertThat(slowest.get("phasesMs").has("write")).isTrue();
+		assertThat(slowest.get("totalMs").asDouble()).isEqualTo(slowest.get("phasesMs").get("total").asDouble());
+		assertThat(timings.has("PATCH /api/notes/{noteId}")).isTrue();
+	}
+
+	private <T> ResponseEntity<T> exchange(HttpMethod method, String path, String token, Object body, Class<T> type) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(token);
+		return restTemplate.exchange(path, method, new HttpEntity<>(body, headers), type);
+	}
+
+	private void register(String username) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(username + "@example.com");
+		request.setPassword("secret");
+		request.setRole(UserRole.CHILD);
+		authService.register(request);
+	}
+
+	private String login(String username) {
+		LoginRequest request = new LoginRequest();
+		request.setUsername(username);
+		request.setPassword("secret");
+		return authService.login(request).getAccessToken();
+	}
+}
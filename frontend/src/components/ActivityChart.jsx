@@ -0,0 +1,73 @@
+import React, { useState, useEffect } from 'react';
+import { activityAPI } from '../services/api.jsx';
+import './ActivityChart.css';
+
+// Buckets shown per granularity, ending with the current one
+const RANGES = {
+  DAY: { label: 'Last 14 days', count: 14, step: (date, n) => date.setDate(date.getDate() - n) },
+  WEEK: { label: 'Last 12 weeks', count: 12, step: (date, n) => date.setDate(date.getDate() - 7 * n) }
+};
+
+function ActivityChart({ childId }) {
+  const [granularity, setGranularity] = useState('DAY');
+  const [buckets, setBuckets] = useState([]);
+
+  useEffect(() => {
+    fetchActivity();
+  }, [childId, granularity]);
+
+  const fetchActivity = async () => {
+    const range = RANGES[granularity];
+    const from = new Date();
+    range.step(from, range.count - 1);
+    from.setHours(0, 0, 0, 0);
+    try {
+      const response = await activityAPI.getActivity(childId, {
+        granularity,
+        from: toLocalIso(from),
+        to: toLocalIso(new Date())
+      });
+      setBuckets(response.data);
+    } catch (error) {
+      setBuckets([]);
+    }
+  };
+
+  // The server buckets by its local time, without a zone
+  const toLocalIso = (date) => {
+    const offset = date.getTimezoneOffset() * 60000;
+    return new Date(date.getTime() - offset).toISOString().slice(0, 19);
+  };
+
+  const max = Math.max(1, ...buckets.map(b => Math.max(b.notesCreated, b.itemsCompleted)));
+
+  return (
+    <div className="activity-chart">
+      <div className="activity-header">
+        <span>
+          <span className="legend notes">■</span> Notes created
+          <span className="legend items">■</span> Items completed
+        </span>
+        <select value={granularity} onChange={(e) => setGranularity(e.target.value)}>
+          {Object.entries(RANGES).map(([value, range]) => (
+            <option key={value} value={value}>{range.label}</option>
+          ))}
+        </select>
+      </div>
+      <div className="activity-bars">
+        {buckets.map(bucket => (
+          <div
+            key={bucket.start}
+            className="activity-bucket"
+            title={`${new Date(bucket.start).toLocaleDateString()}: ${bucket.notesCreated} notes, ${bucket.itemsCompleted} items`}
+          >
+            <div className="bar notes" style={{ height: `${(bucket.notesCreated / max) * 100}%` }} />
+            <div className="bar items" style={{ height: `${(bucket.itemsCompleted / max) * 100}%` }} />
+          </div>
+        ))}
+      </div>
+    </div>
+  );
+}
+
+export default ActivityChart;
@@ -2,11 +2,45 @@ import React, { useState } from 'react';
 import { foldersAPI } from '../services/api.jsx';
 import './FoldersList.css';
 
+// Orders folders depth-first under their parents and adds each one's depth
+export function orderFolderTree(folders) {
+  const byParent = new Map();
+  folders.forEach(folder => {
+    const siblings = byParent.get(folder.parentId ?? null) || [];
+    siblings.push(folder);
+    byParent.set(folder.parentId ?? null, siblings);
+  });
+  const ordered = [];
+  const visit = (parentId, depth) => {
+    (byParent.get(parentId) || [])
+      .sort((a, b) => a.name.localeCompare(b.name))
+      .forEach(folder => {
+        ordered.push({ ...folder, depth });
+        visit(folder.id, depth + 1);
+      });
+  };
+  visit(null, 0);
+  return ordered;
+}
+
+// The folder and everything under it, which it cannot be moved into
+function subtreeIds(folders, folderId) {
+  const ids = new Set([folderId]);
+  folders.forEach(folder => {
+    if (ids.has(folder.parentId)) {
+      ids.add(folder.id);
+    }
+  });
+  return ids;
+}
+
 function FoldersList({ folders, selectedFolder, onFolderSelect, onFoldersChanged }) {
   const [showForm, setShowForm] = useState(false);
   const [newFolderName, setNewFolderName] = useState('');
+  const [newFolderParent, setNewFolderParent] = useState(null);
   const [editingFolder, setEditingFolder] = useState(null);
   const [editingName, setEditingName] = useState('');
+  const [editingParent, setEditingParent] = useState('');
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState('');
 
@@ -22,8 +56,9 @@ function FoldersList({ folders, selectedFolder, onFolderSelect, onFoldersChanged
     setError('');
 
     try {
-      await foldersAPI.createFolder({ name: newFolderName.trim() });
+      await foldersAPI.createFolder({ name: newFolderName.trim(), parentId: newFolderParent?.id ?? null });
       setNewFolderName('');
+      setNewFolderParent(null);
       setShowForm(false);
       setError('');
       onFoldersChanged();
@@ -34,7 +69,7 @@ function FoldersList({ folders, selectedFolder, onFolderSelect, onFoldersChanged
     }
   };
 
-  const handleUpdateFolder = async (folderId, newName) => {
+  const handleUpdateFolder = async (folder, newName, newParentId) => {
     if (!newName.trim()) {
       setError('Folder name cannot be empty');
       return;
@@ -42,7 +77,11 @@ function FoldersList({ folders, selectedFolder, onFolderSelect, onFoldersChanged
 
     setLoading(true);
     try {
-      await foldersAPI.updateFolder(folderId, { name: newName.trim() });
+      await foldersAPI.updateFolder(folder.id, { name: newName.trim() });
+      const parentId = newParentId ? parseInt(newParentId) : null;
+      if (parentId !== (folder.parentId ?? null)) {
+        await foldersAPI.moveFolder(folder.id, { parentId });
+      }
       setEditingFolder(null);
       setEditingName('');
       setError('');
@@ -55,7 +94,7 @@ function FoldersList({ folders, selectedFolder, onFolderSelect, onFoldersChanged
   };
 
   const handleDeleteFolder = async (folderId) => {
-    if (window.confirm('Delete this folder? (Notes will be preserved)')) {
+    if (window.confirm('Delete this folder, its subfolders and all of their notes?')) {
       try {
         await foldersAPI.deleteFolder(folderId);
         if (selectedFolder && selectedFolder.id === folderId) {
@@ -74,7 +113,10 @@ function FoldersList({ folders, selectedFolder, onFolderSelect, onFoldersChanged
       <div className="folders-header">
         <h3>📁 Folders</h3>
         <button 
-          onClick={() => setShowForm(true)} 
+          onClick={() => {
+            setNewFolderParent(null);
+            setShowForm(true);
+          }}
           className="btn-small"
           title="Add new folder"
         >
@@ -86,6 +128,9 @@ function FoldersList({ folders, selectedFolder, onFolderSelect, onFoldersChanged
 
       {showForm && (
         <form onSubmit={handleCreateFolder} className="folder-form">
+          {newFolderParent && (
+            <div className="folder-form-parent">Inside 📂 {newFolderParent.name}</div>
+          )}
           <input
             type="text"
             value={newFolderName}
@@ -117,12 +162,16 @@ function FoldersList({ folders, selectedFolder, onFolderSelect, onFoldersChanged
         {/* User Folders */}
         {folders && folders.length > 0 ? (
           folders.map(folder => (
-            <div key={folder.id} className="folder-item-container">
+            <div
+              key={folder.id}
+              className="folder-item-container"
+              style={{ marginLeft: `${(folder.depth || 0) * 1}rem` }}
+            >
               {editingFolder === folder.id ? (
                 <form
                   onSubmit={(e) => {
                     e.preventDefault();
-                    handleUpdateFolder(folder.id, editingName);
+                    handleUpdateFolder(folder, editingName, editingParent);
                   }}
                   className="folder-edit-form"
                 >
@@ -134,6 +183,20 @@ function FoldersList({ folders, selectedFolder, onFolderSelect, onFoldersChanged
                     required
                     autoFocus
                   />
+                  <select
+                    value={editingParent}
+                    onChange={(e) => setEditingParent(e.target.value)}
+                    title="Move into"
+                  >
+                    <option value="">Top level</option>
+                    {folders
+                      .filter(other => !subtreeIds(folders, folder.id).has(other.id))
+                      .map(other => (
+                        <option key={other.id} value={other.id}>
+                          {'\u00A0\u00A0'.repeat(other.depth || 0)}📂 {other.name}
+                        </option>
+                      ))}
+                  </select>
                   <button type="submit" disabled={loading}>Save</button>
                   <button type="button" onClick={() => setEditingFolder(null)}>Cancel</button>
                 </form>
@@ -143,13 +206,25 @@ function FoldersList({ folders, selectedFolder, onFolderSelect, onFoldersChanged
                   onClick={() => onFolderSelect(folder)}
                   title={`View "${folder.name}" folder`}
                 >
-                  <span>📂 {folder.name}</span>
+                  <span>📂 {folder.name} <span className="folder-count">{folder.noteCount}</span></span>
                   <div className="folder-actions">
+                    <button
+                      onClick={(e) => {
+                        e.stopPropagation();
+                        setNewFolderParent(folder);
+                        setShowForm(true);
+                      }}
+                      className="btn-icon"
+                      title="Add subfolder"
+                    >
+                      ➕
+                    </button>
                     <button
                       onClick={(e) => {
                         e.stopPropagation();
                         setEditingFolder(folder.id);
                         setEditingName(folder.name);
+                        setEditingParent(folder.parentId ? String(folder.parentId) : '');
                       }}
                       className="btn-icon"
                       title="Edit folder"
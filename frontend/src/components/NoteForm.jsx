@@ -14,6 +14,7 @@ function NoteForm({ folders, editingNote, onNoteCreated, onNoteUpdated, onCancel
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState('');
   const [success, setSuccess] = useState('');
+  const [tagSuggestions, setTagSuggestions] = useState([]);
 
   useEffect(() => {
     if (editingNote) {
@@ -37,6 +38,24 @@ function NoteForm({ folders, editingNote, onNoteCreated, onNoteUpdated, onCancel
     setError('');
   };
 
+  // Suggest completions for the tag currently being typed (the part after the last comma)
+  const handleTagsChange = async (e) => {
+    handleChange(e);
+    const value = e.target.value;
+    const typed = value.slice(value.lastIndexOf(',') + 1).trim();
+    if (!typed) {
+      setTagSuggestions([]);
+      return;
+    }
+    try {
+      const response = await notesAPI.suggest(typed, 'TAG');
+      const head = value.slice(0, value.lastIndexOf(',') + 1);
+      setTagSuggestions(response.data.map(s => (head ? head + ' ' : '') + s.text));
+    } catch {
+      setTagSuggestions([]);
+    }
+  };
+
   const handleSubmit = async (e) => {
     e.preventDefault();
     
@@ -151,7 +170,7 @@ function NoteForm({ folders, editingNote, onNoteCreated, onNoteUpdated, onCancel
               <option value="">📋 No Folder</option>
               {folders && folders.map(folder => (
                 <option key={folder.id} value={folder.id}>
-                  📂 {folder.name}
+                  {'\u00A0\u00A0'.repeat(folder.depth || 0)}📂 {folder.name}
                 </option>
               ))}
             </select>
@@ -165,10 +184,17 @@ function NoteForm({ folders, editingNote, onNoteCreated, onNoteUpdated, onCancel
               type="text"
               name="tags"
               value={formData.tags}
-              onChange={handleChange}
+              onChange={handleTagsChange}
               placeholder="e.g. homework, math, important"
               maxLength="200"
+              list="tag-suggestions"
+              autoComplete="off"
             />
+            <datalist id="tag-suggestions">
+              {tagSuggestions.map(suggestion => (
+                <option key={suggestion} value={suggestion} />
+              ))}
+            </datalist>
             <small>{formData.tags.length}/200 • Tags help organize your notes</small>
           </div>
 
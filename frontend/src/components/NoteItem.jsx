@@ -1,25 +1,26 @@
 import React, { useState } from 'react';
-import { notesAPI } from '../services/api.jsx';
+import { notesAPI, checklistAPI, revisionsAPI, attachmentsAPI } from '../services/api.jsx';
 import './NoteItem.css';
 
-function NoteItem({ note, onEdit, onDeleted }) {
+function NoteItem({ note, onEdit, onDeleted, onRestored, onPinned, onMoveUp, onMoveDown }) {
   const [isCompleted, setIsCompleted] = useState(note.completed);
   const [loading, setLoading] = useState(false);
+  const [items, setItems] = useState(null);
+  const [newItem, setNewItem] = useState('');
+  const [revisions, setRevisions] = useState(null);
+  const [attachments, setAttachments] = useState(null);
+  const [uploading, setUploading] = useState(false);
+  const [counts, setCounts] = useState({
+    total: note.checklistTotal || 0,
+    checked: note.checklistChecked || 0
+  });
 
   const handleToggleComplete = async () => {
     if (note.noteType !== 'CHECKBOX') return;
     
     setLoading(true);
     try {
-      const updatedNote = { 
-        title: note.title,
-        content: note.content,
-        noteType: note.noteType,
-        folderId: note.folderId,
-        tags: note.tags,
-        completed: !isCompleted 
-      };
-      await notesAPI.updateNote(note.id, updatedNote);
+      await notesAPI.patchNote(note.id, { completed: !isCompleted });
       setIsCompleted(!isCompleted);
     } catch (error) {
       alert('Failed to update note');
@@ -28,6 +29,145 @@ function NoteItem({ note, onEdit, onDeleted }) {
     }
   };
 
+  const handleTogglePin = async () => {
+    try {
+      await notesAPI.patchNote(note.id, { pinned: !note.pinned });
+      onPinned();
+    } catch (error) {
+      alert('Failed to pin note');
+    }
+  };
+
+  // Items are only fetched once the list is opened; the counts come with the note
+  const toggleItems = async () => {
+    if (items) {
+      setItems(null);
+      return;
+    }
+    try {
+      const response = await checklistAPI.getItems(note.id);
+      setItems(response.data);
+    } catch (error) {
+      alert('Failed to load checklist');
+    }
+  };
+
+  const handleToggleItem = async (item) => {
+    const checked = !item.checked;
+    try {
+      await checklistAPI.updateItem(note.id, item.id, { checked });
+      setItems(items.map(i => (i.id === item.id ? { ...i, checked } : i)));
+      setCounts({ ...counts, checked: counts.checked + (checked ? 1 : -1) });
+    } catch (error) {
+      alert('Failed to update item');
+    }
+  };
+
+  const handleAddItem = async (e) => {
+    e.preventDefault();
+    if (!newItem.trim()) return;
+    try {
+      const response = await checklistAPI.addItem(note.id, { content: newItem.trim() });
+      setItems([...items, response.data]);
+      setCounts({ ...counts, total: counts.total + 1 });
+      setNewItem('');
+    } catch (error) {
+      alert('Failed to add item');
+    }
+  };
+
+  const handleDeleteItem = async (item) => {
+    try {
+      await checklistAPI.deleteItem(note.id, item.id);
+      setItems(items.filter(i => i.id !== item.id));
+      setCounts({ total: counts.total - 1, checked: counts.checked - (item.checked ? 1 : 0) });
+    } catch (error) {
+      alert('Failed to delete item');
+    }
+  };
+
+  const toggleHistory = async () => {
+    if (revisions) {
+      setRevisions(null);
+      return;
+    }
+    try {
+      const response = await revisionsAPI.getRevisions(note.id);
+      setRevisions(response.data);
+    } catch (error) {
+      alert('Failed to load history');
+    }
+  };
+
+  const handleRestore = async (revision) => {
+    if (!window.confirm(`Restore revision ${revision.revision}? The current text stays in the history.`)) return;
+    try {
+      await revisionsAPI.restoreRevision(note.id, revision.revision);
+      setRevisions(null);
+      onRestored();
+    } catch (error) {
+      alert('Failed to restore revision');
+    }
+  };
+
+  const toggleAttachments = async () => {
+    if (attachments) {
+      setAttachments(null);
+      return;
+    }
+    try {
+      const response = await attachmentsAPI.getAttachments(note.id);
+      setAttachments(response.data);
+    } catch (error) {
+      alert('Failed to load attachments');
+    }
+  };
+
+  const handleUpload = async (e) => {
+    const file = e.target.files[0];
+    e.target.value = '';
+    if (!file) return;
+    setUploading(true);
+    try {
+      const response = await attachmentsAPI.upload(note.id, file);
+      setAttachments([...attachments, response.data]);
+    } catch (error) {
+      alert(error.response?.data?.message || 'Failed to upload file');
+    } finally {
+      setUploading(false);
+    }
+  };
+
+  const handleDownload = async (attachment) => {
+    try {
+      const response = await attachmentsAPI.download(note.id, attachment.id);
+      const url = URL.createObjectURL(response.data);
+      const link = document.createElement('a');
+      link.href = url;
+      link.download = attachment.filename;
+      link.click();
+      URL.revokeObjectURL(url);
+    } catch (error) {
+      alert('Failed to download file');
+    }
+  };
+
+  const handleDeleteAttachment = async (attachment) => {
+    if (!window.confirm(`Remove ${attachment.filename}?`)) return;
+    try {
+      await attachmentsAPI.deleteAttachment(note.id, attachment.id);
+      setAttachments(attachments.filter(a => a.id !== attachment.id));
+    } catch (error) {
+      alert('Failed to remove file');
+    }
+  };
+
+  const formatSize = (bytes) => {
+    if (bytes < 1024) return `${bytes} B`;
+    if (bytes < 1024 * 1024) return `${(bytes / 1024).toFixed(0)} KB`;
+    return `${(bytes / (1024 * 1024)).toFixed(1)} MB`;
+  };
+
   const handleDelete = async () => {
     if (window.confirm('Are you sure you want to delete this note?')) {
       try {
@@ -52,9 +192,42 @@ function NoteItem({ note, onEdit, onDeleted }) {
     return [];
   };
 
+  const handleUnarchive = async () => {
+    try {
+      await notesAPI.restoreNote(note.id);
+      onRestored();
+    } catch (error) {
+      alert('Failed to restore note');
+    }
+  };
+
   const tags = formatTags(note.tags);
   const noteTypeClass = note.noteType === 'CHECKBOX' ? 'checkbox-note' : 'regular-note';
 
+  // Archived notes are read-only until restored
+  if (note.archived) {
+    return (
+      <div className={`note-item ${noteTypeClass} archived`}>
+        <div className="note-header">
+          <h4>{note.title}</h4>
+          <span className="note-archived-badge">Archived</span>
+        </div>
+        {note.content && <p className="note-content">{note.content}</p>}
+        {note.noteType === 'CHECKBOX' && (
+          <p className="note-content">☑️ {counts.checked}/{counts.total} items</p>
+        )}
+        <div className="note-actions">
+          <button onClick={handleUnarchive} className="btn-edit" title="Move this note back to the active notes">
+            ♻️ Restore
+          </button>
+        </div>
+        <div className="note-meta">
+          <small>Last updated: {new Date(note.updatedAt).toLocaleDateString()}</small>
+        </div>
+      </div>
+    );
+  }
+
   return (
     <div className={`note-item ${noteTypeClass} ${isCompleted ? 'completed' : ''}`}>
       <div className="note-header">
@@ -69,6 +242,13 @@ function NoteItem({ note, onEdit, onDeleted }) {
           />
         )}
         <h4 className={isCompleted ? 'completed-text' : ''}>{note.title}</h4>
+        <button
+          onClick={handleTogglePin}
+          className={`note-pin ${note.pinned ? 'pinned' : ''}`}
+          title={note.pinned ? 'Unpin this note' : 'Pin this note to the top'}
+        >
+          📌
+        </button>
       </div>
       
       {note.content && (
@@ -77,6 +257,43 @@ function NoteItem({ note, onEdit, onDeleted }) {
         </p>
       )}
 
+      {note.noteType === 'CHECKBOX' && (
+        <div className="checklist">
+          <button onClick={toggleItems} className="checklist-toggle">
+            ☑️ {counts.checked}/{counts.total} items {items ? '▲' : '▼'}
+          </button>
+          {items && (
+            <>
+              <ul className="checklist-items">
+                {items.map(item => (
+                  <li key={item.id} className={item.checked ? 'completed-text' : ''}>
+                    <input
+                      type="checkbox"
+                      checked={item.checked}
+                      onChange={() => handleToggleItem(item)}
+                      aria-label={`Tick ${item.content}`}
+                    />
+                    <span>{item.content}</span>
+                    <button onClick={() => handleDeleteItem(item)} className="checklist-remove" title="Remove item">
+                      ✕
+                    </button>
+                  </li>
+                ))}
+              </ul>
+              <form onSubmit={handleAddItem} className="checklist-add">
+                <input
+                  type="text"
+                  value={newItem}
+                  onChange={(e) => setNewItem(e.target.value)}
+                  placeholder="Add an item"
+                  maxLength="500"
+                />
+              </form>
+            </>
+          )}
+        </div>
+      )}
+
       {tags.length > 0 && (
         <div className="note-tags">
           {tags.map((tag, index) => (
@@ -88,6 +305,16 @@ function NoteItem({ note, onEdit, onDeleted }) {
       )}
 
       <div className="note-actions">
+        {onMoveUp && (
+          <button onClick={onMoveUp} className="btn-edit" title="Move up">
+            ↑
+          </button>
+        )}
+        {onMoveDown && (
+          <button onClick={onMoveDown} className="btn-edit" title="Move down">
+            ↓
+          </button>
+        )}
         <button 
           onClick={() => onEdit(note)} 
           className="btn-edit"
@@ -95,6 +322,20 @@ function NoteItem({ note, onEdit, onDeleted }) {
         >
           ✏️ Edit
         </button>
+        <button 
+          onClick={toggleAttachments} 
+          className="btn-edit"
+          title="Files attached to this note"
+        >
+          📎 Files
+        </button>
+        <button 
+          onClick={toggleHistory} 
+          className="btn-edit"
+          title="Show earlier versions of this note"
+        >
+          🕘 History
+        </button>
         <button 
           onClick={handleDelete} 
           className="btn-delete"
@@ -104,6 +345,46 @@ function NoteItem({ note, onEdit, onDeleted }) {
         </button>
       </div>
 
+      {attachments && (
+        <div className="note-attachments">
+          <ul>
+            {attachments.map(attachment => (
+              <li key={attachment.id}>
+                <button onClick={() => handleDownload(attachment)} className="attachment-name">
+                  {attachment.filename}
+                </button>
+                <span>{formatSize(attachment.sizeBytes)}</span>
+                <button onClick={() => handleDeleteAttachment(attachment)} className="checklist-remove" title="Remove file">
+                  ✕
+                </button>
+              </li>
+            ))}
+          </ul>
+          <label className="attachment-upload">
+            {uploading ? 'Uploading…' : '+ Attach a file'}
+            <input type="file" onChange={handleUpload} disabled={uploading} hidden />
+          </label>
+        </div>
+      )}
+
+      {revisions && (
+        <ul className="note-history">
+          {revisions.length === 0 && <li>No earlier versions yet</li>}
+          {revisions.map((revision, index) => (
+            <li key={revision.revision}>
+              <span>
+                #{revision.revision} • {new Date(revision.createdAt).toLocaleString()} • {revision.title}
+              </span>
+              {index > 0 && (
+                <button onClick={() => handleRestore(revision)} className="history-restore">
+                  Restore
+                </button>
+              )}
+            </li>
+          ))}
+        </ul>
+      )}
+
       <div className="note-meta">
         <small>
           Created: {new Date(note.createdAt).toLocaleDateString()}
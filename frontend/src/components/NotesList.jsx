@@ -1,8 +1,9 @@
 import React from 'react';
 import NoteItem from './NoteItem.jsx';
+import { notesAPI } from '../services/api.jsx';
 import './NotesList.css';
 
-function NotesList({ notes, onNoteEdit, onNoteDeleted, selectedFolder }) {
+function NotesList({ notes, onNoteEdit, onNoteDeleted, onNoteRestored, onNotesReordered, selectedFolder, ordered }) {
   if (!notes || notes.length === 0) {
     return (
       <div className="empty-state">
@@ -17,6 +18,28 @@ function NotesList({ notes, onNoteEdit, onNoteDeleted, selectedFolder }) {
     );
   }
 
+  // Notes only move within their pin group, so the neighbour must share the pinned flag
+  const sameGroup = (a, b) => a && b && Boolean(a.pinned) === Boolean(b.pinned);
+
+  const moveNote = async (index, afterNote) => {
+    try {
+      await notesAPI.moveNote(notes[index].id, afterNote ? afterNote.id : null);
+      onNotesReordered();
+    } catch (error) {
+      alert('Failed to move note');
+    }
+  };
+
+  const moveUp = (index) => {
+    if (!sameGroup(notes[index], notes[index - 1])) return undefined;
+    return () => moveNote(index, sameGroup(notes[index], notes[index - 2]) ? notes[index - 2] : null);
+  };
+
+  const moveDown = (index) => {
+    if (!sameGroup(notes[index], notes[index + 1])) return undefined;
+    return () => moveNote(index, notes[index + 1]);
+  };
+
   return (
     <div className="notes-list">
       <div className="list-header">
@@ -26,12 +49,16 @@ function NotesList({ notes, onNoteEdit, onNoteDeleted, selectedFolder }) {
         </h3>
       </div>
       <div className="notes-grid">
-        {notes.map(note => (
+        {notes.map((note, index) => (
           <NoteItem
             key={note.id}
             note={note}
             onEdit={onNoteEdit}
             onDeleted={onNoteDeleted}
+            onRestored={onNoteRestored}
+            onPinned={onNotesReordered}
+            onMoveUp={ordered ? moveUp(index) : undefined}
+            onMoveDown={ordered ? moveDown(index) : undefined}
           />
         ))}
       </div>
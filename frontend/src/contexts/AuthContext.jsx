@@ -124,6 +124,8 @@ export function AuthProvider({ children }) {
   };
 
   const logout = () => {
+    // Revoke the token server-side; the local session ends either way
+    api.post('/auth/logout').catch(() => {});
     localStorage.removeItem('token');
     delete api.defaults.headers.common['Authorization'];
     setUser(null);
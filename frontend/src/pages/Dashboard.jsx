@@ -3,7 +3,7 @@ import { useAuth } from '../contexts/AuthContext.jsx';
 import { Navigate } from 'react-router-dom';
 import NotesList from '../components/NotesList.jsx';
 import NoteForm from '../components/NoteForm.jsx';
-import FoldersList from '../components/FoldersList.jsx';
+import FoldersList, { orderFolderTree } from '../components/FoldersList.jsx';
 import { notesAPI, foldersAPI } from '../services/api.jsx';
 import './Dashboard.css';
 
@@ -14,15 +14,22 @@ function Dashboard() {
   const [selectedFolder, setSelectedFolder] = useState(null);
   const [showNoteForm, setShowNoteForm] = useState(false);
   const [editingNote, setEditingNote] = useState(null);
+  const [sort, setSort] = useState('position');
+  const [showArchived, setShowArchived] = useState(false);
   const [loading, setLoading] = useState(false);
 
   useEffect(() => {
     if (user && user.role === 'CHILD') {
-      fetchNotes();
       fetchFolders();
     }
   }, [user]);
 
+  useEffect(() => {
+    if (user && user.role === 'CHILD') {
+      fetchNotes();
+    }
+  }, [user, selectedFolder, sort, showArchived]);
+
   // Redirect parents to their dashboard
   if (user && user.role === 'PARENT') {
     return <Navigate to="/parent" />;
@@ -31,7 +38,14 @@ function Dashboard() {
   const fetchNotes = async () => {
     setLoading(true);
     try {
-      const response = await notesAPI.getNotes();
+      const params = selectedFolder
+        ? { folderId: selectedFolder.id, sort }
+        : { unfiled: true, sort };
+      // Archived notes have no position, so they are only listed in the other orders
+      if (showArchived && sort !== 'position') {
+        params.include = 'archived';
+      }
+      const response = await notesAPI.getNotes(params);
       setNotes(response.data);
     } catch (error) {
       // Silently handle error
@@ -43,7 +57,7 @@ function Dashboard() {
   const fetchFolders = async () => {
     try {
       const response = await foldersAPI.getFolders();
-      setFolders(response.data);
+      setFolders(orderFolderTree(response.data));
     } catch (error) {
       // Silently handle error
     }
@@ -51,18 +65,25 @@ function Dashboard() {
 
   const handleNoteCreated = () => {
     fetchNotes();
+    fetchFolders();
     setShowNoteForm(false);
     setEditingNote(null);
   };
 
   const handleNoteUpdated = () => {
     fetchNotes();
+    fetchFolders();
     setEditingNote(null);
     setShowNoteForm(false);
   };
 
   const handleNoteDeleted = () => {
     fetchNotes();
+    fetchFolders();
+  };
+
+  const handleNoteRestored = () => {
+    fetchNotes();
   };
 
   const handleEditNote = (note) => {
@@ -70,10 +91,6 @@ function Dashboard() {
     setShowNoteForm(true);
   };
 
-  const filteredNotes = selectedFolder
-    ? notes.filter(note => note.folderId === selectedFolder.id)
-    : notes.filter(note => !note.folderId);
-
   return (
     <div className="dashboard">
       <div className="dashboard-header">
@@ -113,14 +130,37 @@ function Dashboard() {
             />
           )}
 
+          <div className="notes-sort">
+            <label htmlFor="notes-sort">Sort by </label>
+            <select id="notes-sort" value={sort} onChange={(e) => setSort(e.target.value)}>
+              <option value="position">My order</option>
+              <option value="updatedAt,desc">Recently updated</option>
+              <option value="createdAt,desc">Newest</option>
+              <option value="createdAt,asc">Oldest</option>
+              <option value="title,asc">Title</option>
+            </select>
+            <label>
+              <input
+                type="checkbox"
+                checked={showArchived}
+                disabled={sort === 'position'}
+                onChange={(e) => setShowArchived(e.target.checked)}
+              />
+              {' '}Show archived
+            </label>
+          </div>
+
           {loading ? (
             <div className="loading">Loading notes...</div>
           ) : (
             <NotesList
-              notes={filteredNotes}
+              notes={notes}
               onNoteEdit={handleEditNote}
               onNoteDeleted={handleNoteDeleted}
+              onNoteRestored={handleNoteRestored}
+              onNotesReordered={fetchNotes}
               selectedFolder={selectedFolder}
+              ordered={sort === 'position'}
             />
           )}
         </div>
@@ -2,6 +2,7 @@ import React, { useState, useEffect } from 'react';
 import { useAuth } from '../contexts/AuthContext.jsx';
 import { Navigate } from 'react-router-dom';
 import { authAPI, notesAPI } from '../services/api.jsx';
+import ActivityChart from '../components/ActivityChart.jsx';
 import './ParentDashboard.css';
 
 function ParentDashboard() {
@@ -29,17 +30,14 @@ function ParentDashboard() {
       const response = await authAPI.getLinkedChildren();
       setLinkedChildren(response.data);
       
-      // Fetch notes for each child
-      const notesPromises = response.data.map(child => 
-        notesAPI.getChildNotes(child.id)
-          .then(res => ({ childId: child.id, notes: res.data }))
-          .catch(() => ({ childId: child.id, notes: [] }))
-      );
-      
-      const allNotes = await Promise.all(notesPromises);
+      // Fetch notes of all children in one request
+      const notesResponse = await notesAPI.getLinkedChildrenNotes();
       const notesMap = {};
-      allNotes.forEach(({ childId, notes }) => {
-        notesMap[childId] = notes;
+      response.data.forEach(child => {
+        notesMap[child.id] = [];
+      });
+      notesResponse.data.forEach(note => {
+        (notesMap[note.childId] = notesMap[note.childId] || []).push(note);
       });
       setChildrenNotes(notesMap);
     } catch (error) {
@@ -69,6 +67,23 @@ function ParentDashboard() {
     }
   };
 
+  const handleUnlinkChild = async (child) => {
+    if (!window.confirm(`Unlink ${child.username}? They will be signed out on all devices.`)) {
+      return;
+    }
+    setError('');
+    setMessage('');
+
+    try {
+      await authAPI.unlinkChild(child.id);
+      setMessage('Child unlinked');
+      setTimeout(() => setMessage(''), 3000);
+      fetchLinkedChildren();
+    } catch (error) {
+      setError(error.response?.data?.message || 'Failed to unlink child');
+    }
+  };
+
   const formatTags = (tagsString) => {
     if (!tagsString) return [];
     try {
@@ -116,7 +131,14 @@ function ParentDashboard() {
           linkedChildren.map(child => (
             <div key={child.id} className="child-notes-section">
               <h3>📝 {child.username}'s Notes</h3>
-              <p className="child-info">Email: {child.email}</p>
+              <p className="child-info">
+                Email: {child.email}
+                <button className="unlink-button" onClick={() => handleUnlinkChild(child)}>
+                  Unlink
+                </button>
+              </p>
+
+              <ActivityChart childId={child.id} />
               
               {childrenNotes[child.id] && childrenNotes[child.id].length === 0 ? (
                 <div className="empty-state">
@@ -7,18 +7,71 @@ const api = axios.create({
   baseURL: API_BASE_URL,
 });
 
+// Creates are sent with one Idempotency-Key for all attempts and retried when no response
+// arrived (or the first attempt is still running), so a request that did reach the server is
+// not applied twice
+const createOnce = async (path, body, attempts = 3) => {
+  const headers = { 'Idempotency-Key': crypto.randomUUID() };
+  for (let attempt = 1; ; attempt++) {
+    try {
+      return await api.post(path, body, { headers });
+    } catch (error) {
+      if ((error.response && error.response.status !== 409) || attempt >= attempts) throw error;
+      await new Promise((resolve) => setTimeout(resolve, 500 * attempt));
+    }
+  }
+};
+
 export const notesAPI = {
-  getNotes: () => api.get('/notes'),
-  createNote: (note) => api.post('/notes', note),
+  getNotes: (params) => api.get('/notes', { params }),
+  createNote: (note) => createOnce('/notes', note),
   updateNote: (id, note) => api.put(`/notes/${id}`, note),
+  patchNote: (id, changes) => api.patch(`/notes/${id}`, changes),
+  // afterNoteId null moves the note to the top of its pin group
+  moveNote: (id, afterNoteId) => api.put(`/notes/${id}/position`, { afterNoteId }),
+  restoreNote: (id) => api.post(`/notes/${id}/restore`),
   deleteNote: (id) => api.delete(`/notes/${id}`),
-  getChildNotes: (childId) => api.get(`/notes/child/${childId}`)
+  getChildNotes: (childId) => api.get(`/notes/child/${childId}`),
+  getLinkedChildrenNotes: () => api.get('/notes/children'),
+  suggest: (prefix, field = 'TITLE') => api.get('/notes/suggest', { params: { prefix, field } })
+};
+
+export const activityAPI = {
+  // granularity is HOUR, DAY or WEEK; from/to are ISO date-times (default: the last 30 days)
+  getActivity: (childId, params) => api.get('/parent/activity', { params: { childId, ...params } })
+};
+
+export const revisionsAPI = {
+  getRevisions: (noteId) => api.get(`/notes/${noteId}/revisions`),
+  getRevision: (noteId, revision) => api.get(`/notes/${noteId}/revisions/${revision}`),
+  restoreRevision: (noteId, revision) => api.post(`/notes/${noteId}/revisions/${revision}/restore`),
+  getChildRevisions: (childId, noteId) => api.get(`/notes/child/${childId}/${noteId}/revisions`)
+};
+
+export const attachmentsAPI = {
+  getAttachments: (noteId) => api.get(`/notes/${noteId}/attachments`),
+  // The file is sent as the raw request body so the server can stream it to disk
+  upload: (noteId, file) => api.post(`/notes/${noteId}/attachments`, file, {
+    params: { filename: file.name },
+    headers: { 'Content-Type': file.type || 'application/octet-stream' }
+  }),
+  download: (noteId, attachmentId) => api.get(`/notes/${noteId}/attachments/${attachmentId}`, { responseType: 'blob' }),
+  deleteAttachment: (noteId, attachmentId) => api.delete(`/notes/${noteId}/attachments/${attachmentId}`)
+};
+
+export const checklistAPI = {
+  getItems: (noteId) => api.get(`/notes/${noteId}/items`),
+  addItem: (noteId, item) => api.post(`/notes/${noteId}/items`, item),
+  updateItem: (noteId, itemId, changes) => api.patch(`/notes/${noteId}/items/${itemId}`, changes),
+  moveItem: (noteId, itemId, afterItemId) => api.put(`/notes/${noteId}/items/${itemId}/position`, { afterItemId }),
+  deleteItem: (noteId, itemId) => api.delete(`/notes/${noteId}/items/${itemId}`)
 };
 
 export const foldersAPI = {
   getFolders: () => api.get('/folders'),
-  createFolder: (folder) => api.post('/folders', folder),
+  createFolder: (folder) => createOnce('/folders', folder),
   updateFolder: (id, folder) => api.put(`/folders/${id}`, folder),
+  moveFolder: (id, move) => api.put(`/folders/${id}/parent`, move),
   deleteFolder: (id) => api.delete(`/folders/${id}`)
 };
 
@@ -27,6 +80,7 @@ export const authAPI = {
   register: (userData) => api.post('/auth/register', userData),
   getMe: () => api.get('/auth/me'),
   linkChild: (childUsername) => api.post('/auth/link-child', { childUsername: childUsername }),
+  unlinkChild: (childId) => api.delete(`/auth/link-child/${childId}`),
   getLinkedChildren: () => api.get('/auth/children'),
   forgotPassword: (email) => api.post('/auth/forgot-password', { email }),
   resetPassword: (token, newPassword) => api.post('/auth/reset-password', { token, newPassword })